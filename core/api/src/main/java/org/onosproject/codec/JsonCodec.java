@@ -15,10 +15,12 @@
  */
 package org.onosproject.codec;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -70,6 +72,26 @@ public abstract class JsonCodec<T> {
         return result;
     }
 
+    /**
+     * Encodes the specified entity straight into the given JSON generator.
+     * <p>
+     * The default implementation writes the tree produced by
+     * {@link #encode(Object, CodecContext)}; codecs of entities which are
+     * streamed in large numbers should override this to avoid building the
+     * intermediate tree.
+     *
+     * @param entity    entity to encode
+     * @param generator JSON generator to write to
+     * @param context   encoding context
+     * @throws IOException if the entity could not be written
+     * @throws java.lang.UnsupportedOperationException if the codec does not
+     *                                                 support encode operations
+     */
+    public void encode(T entity, JsonGenerator generator, CodecContext context)
+            throws IOException {
+        context.mapper().writeTree(generator, encode(entity, context));
+    }
+
     /**
      * Decodes the specified JSON array into a collection of entities.
      *
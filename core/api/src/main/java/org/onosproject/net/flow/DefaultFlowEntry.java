@@ -43,6 +43,9 @@ public class DefaultFlowEntry extends DefaultFlowRule
 
     private long lastSeen = DEFAULT_LAST_SEEN;
 
+    // Local reconciliation state which is not replicated with the entry
+    private transient volatile long lastSeenGeneration;
+
     private final int errType;
 
     private final int errCode;
@@ -184,6 +187,16 @@ public class DefaultFlowEntry extends DefaultFlowRule
         this.lastSeen = System.currentTimeMillis();
     }
 
+    @Override
+    public long lastSeenGeneration() {
+        return lastSeenGeneration;
+    }
+
+    @Override
+    public void setLastSeenGeneration(long generation) {
+        this.lastSeenGeneration = generation;
+    }
+
     @Override
     public void setState(FlowEntryState newState) {
         this.state = newState;
@@ -51,6 +51,28 @@ public interface FlowRuleProviderService extends ProviderService<FlowRuleProvide
      */
     void pushFlowMetricsWithoutFlowMissing(DeviceId deviceId, Iterable<FlowEntry> flowEntries);
 
+    /**
+     * Pushes a chunk of the flow entries currently applied on the given
+     * device, e.g. a single statistics reply out of a multi-part reply.
+     * <p>
+     * Chunks are reconciled with the store as they arrive. Once all chunks
+     * of the device have been pushed, the flows missing from the device are
+     * processed by {@link #completeFlowMetrics(DeviceId)}.
+     *
+     * @param deviceId device identifier
+     * @param flowEntries chunk of flow entries
+     */
+    void pushFlowMetricsChunk(DeviceId deviceId, Iterable<FlowEntry> flowEntries);
+
+    /**
+     * Indicates that all chunks of the flow entries currently applied on the
+     * given device have been pushed, so that the flows which were not part
+     * of any chunk are processed as missing from the device.
+     *
+     * @param deviceId device identifier
+     */
+    void completeFlowMetrics(DeviceId deviceId);
+
     /**
      * Pushes the collection of table statistics entries currently extracted
      * from the given device.
@@ -15,12 +15,16 @@
  */
 package org.onosproject.net.flow;
 
+import com.google.common.collect.Streams;
+import org.onosproject.core.ApplicationId;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.flow.oldbatch.FlowRuleBatchEvent;
 import org.onosproject.net.flow.oldbatch.FlowRuleBatchOperation;
 import org.onosproject.store.Store;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Manages inventory of flow rules; not intended for direct use.
@@ -71,6 +75,95 @@ public interface FlowRuleStore extends Store<FlowRuleBatchEvent, FlowRuleStoreDe
      */
     Iterable<FlowEntry> getFlowEntries(DeviceId deviceId);
 
+    /**
+     * Returns the flow entries of an application on all devices.
+     *
+     * @param appId the application ID
+     * @return the flow entries of the application
+     */
+    Iterable<FlowEntry> getFlowEntriesByAppId(ApplicationId appId);
+
+    /**
+     * Returns the flow entries of a group of an application on all devices.
+     * <p>
+     * Flows belong to the group encoded in the upper half of their flow ID.
+     *
+     * @param appId   the application ID
+     * @param groupId the group ID
+     * @return the flow entries of the group
+     */
+    Iterable<FlowEntry> getFlowEntriesByGroupId(ApplicationId appId, short groupId);
+
+    /**
+     * Returns the flow entries in a table of a device.
+     *
+     * @param deviceId the device ID
+     * @param tableId  the table ID
+     * @return the flow entries in the table
+     */
+    default Iterable<FlowEntry> getFlowEntriesByTable(DeviceId deviceId, TableId tableId) {
+        return Streams.stream(getFlowEntries(deviceId))
+                .filter(entry -> entry.table().equals(tableId))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the flow entries of a device with a flow ID, i.e. cookie.
+     *
+     * @param deviceId the device ID
+     * @param flowId   the flow ID
+     * @return the flow entries with the flow ID
+     */
+    default Iterable<FlowEntry> getFlowEntriesById(DeviceId deviceId, FlowId flowId) {
+        return Streams.stream(getFlowEntries(deviceId))
+                .filter(entry -> entry.id().equals(flowId))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Starts a poll of the flow statistics of a device, returning the
+     * statistics generation of the poll.
+     * <p>
+     * Entries stored from then on are considered seen in the generation, so
+     * that only the entries stored before the poll started are reported
+     * unseen once it completes.
+     *
+     * @param deviceId the device ID
+     * @return the statistics generation of the poll
+     */
+    long startFlowStatsPoll(DeviceId deviceId);
+
+    /**
+     * Returns the stored flow entries matching the flow entries reported in
+     * the flow statistics of a device, marking them as seen in the given
+     * statistics generation.
+     *
+     * @param deviceId    the device ID
+     * @param flowEntries the flow entries reported by the device
+     * @param generation  the statistics generation; 0 to leave the stored
+     *                    entries unmarked
+     * @return the stored flow entries, keyed by the reported entries they
+     * match; reported entries not in the store are absent
+     */
+    Map<FlowEntry, FlowEntry> getReportedFlowEntries(DeviceId deviceId, Iterable<FlowEntry> flowEntries,
+                                                     long generation);
+
+    /**
+     * Returns the flow entries of a device which have not been seen on the
+     * device in the given flow statistics generation.
+     *
+     * @param deviceId   the device ID
+     * @param generation the statistics generation
+     * @return the flow entries not seen in the generation
+     * @see StoredFlowEntry#lastSeenGeneration()
+     */
+    default Iterable<FlowEntry> getUnseenFlowEntries(DeviceId deviceId, long generation) {
+        return Streams.stream(getFlowEntries(deviceId))
+                .filter(entry -> !(entry instanceof StoredFlowEntry)
+                        || ((StoredFlowEntry) entry).lastSeenGeneration() != generation)
+                .collect(Collectors.toList());
+    }
+
     /**
      * // TODO: Better description of method behavior.
      * Stores a new flow rule without generating events.
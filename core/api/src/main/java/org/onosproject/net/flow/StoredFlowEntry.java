@@ -63,4 +63,23 @@ public interface StoredFlowEntry extends FlowEntry {
      */
     void setBytes(long bytes);
 
+    /**
+     * Returns the flow statistics generation in which this entry was last
+     * seen on the device.
+     * <p>
+     * The generation is local to the node reconciling the statistics of the
+     * device and is not replicated.
+     *
+     * @return statistics generation
+     */
+    long lastSeenGeneration();
+
+    /**
+     * Marks this entry as seen on the device in the given flow statistics
+     * generation.
+     *
+     * @param generation statistics generation
+     */
+    void setLastSeenGeneration(long generation);
+
 }
@@ -15,19 +15,58 @@
  */
 package org.onosproject.rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
 import org.onlab.rest.BaseResource;
 import org.onosproject.codec.CodecContext;
 import org.onosproject.codec.CodecService;
 import org.onosproject.codec.JsonCodec;
 
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * Abstract REST resource.
  */
 public class AbstractWebResource extends BaseResource implements CodecContext {
 
+    /**
+     * Query parameter holding the cursor returned with the previous page.
+     */
+    public static final String CURSOR = "cursor";
+
+    /**
+     * Query parameter holding the maximum number of items per page.
+     */
+    public static final String LIMIT = "limit";
+
+    /**
+     * Query parameter holding the comma-separated fields to be returned.
+     */
+    public static final String FIELDS = "fields";
+
+    /**
+     * Response field holding the cursor of the next page.
+     */
+    public static final String NEXT_CURSOR = "nextCursor";
+
+    private static final Base64.Encoder CURSOR_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder CURSOR_DECODER = Base64.getUrlDecoder();
+
     private final ObjectMapper mapper = new ObjectMapper();
 
     @Override
@@ -63,6 +102,129 @@ public class AbstractWebResource extends BaseResource implements CodecContext {
         return result;
     }
 
+    /**
+     * Returns a streaming output which writes JSON object wrapping the array
+     * encoding of the specified items as they are iterated, rather than
+     * building the whole JSON tree in memory first.
+     *
+     * @param codecClass codec item class
+     * @param field      field holding the array
+     * @param items      items to be encoded into array
+     * @param <T>        item type
+     * @return streaming JSON output
+     */
+    protected <T> StreamingOutput encodeArrayStream(Class<T> codecClass, String field,
+                                                    Iterable<T> items) {
+        return encodeArrayStream(codecClass, field, items, null, null, null, null);
+    }
+
+    /**
+     * Returns a streaming output which writes JSON object wrapping the array
+     * encoding of a page of the specified items.
+     * <p>
+     * Without cursor and limit, all items are streamed in their iteration
+     * order. Otherwise the page holds the items which follow the cursor in
+     * the order of their keys; when more items remain past the page, the
+     * object also carries a {@value #NEXT_CURSOR} field to be passed back as
+     * the {@value #CURSOR} query parameter. The cursor is opaque to clients
+     * and holds the key of the last item of the page, so that paging resumes
+     * at the right item even if items are added or removed in between.
+     *
+     * @param codecClass codec item class
+     * @param field      field holding the array
+     * @param items      items to be encoded into array
+     * @param key        function yielding the unique key of an item
+     * @param cursor     cursor of the page; null for the first page
+     * @param limit      maximum number of items in the page; null for all
+     * @param fields     comma-separated item fields to include; null for all
+     * @param <T>        item type
+     * @return streaming JSON output
+     * @throws IllegalArgumentException if cursor, limit or fields are malformed
+     */
+    protected <T> StreamingOutput encodeArrayStream(Class<T> codecClass, String field,
+                                                    Iterable<T> items, Function<T, String> key,
+                                                    String cursor, Integer limit, String fields) {
+        String after = parseCursor(cursor);
+        checkArgument(limit == null || limit > 0, "Limit must be positive");
+        int max = limit == null ? Integer.MAX_VALUE : limit;
+        Set<String> projection = fields == null ? ImmutableSet.of() :
+                ImmutableSet.copyOf(Splitter.on(',').trimResults()
+                                            .omitEmptyStrings().split(fields));
+        JsonCodec<T> codec = codec(codecClass);
+
+        return output -> {
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(output)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart(field);
+                String last = null;
+                if (after == null && limit == null) {
+                    for (T item : items) {
+                        encodeItem(codec, item, projection, generator);
+                    }
+                } else {
+                    NavigableMap<String, T> page = page(items, key, after, max);
+                    Iterator<Map.Entry<String, T>> iterator = page.entrySet().iterator();
+                    for (int count = 0; count < max && iterator.hasNext(); count++) {
+                        Map.Entry<String, T> entry = iterator.next();
+                        encodeItem(codec, entry.getValue(), projection, generator);
+                        last = entry.getKey();
+                    }
+                    if (!iterator.hasNext()) {
+                        last = null;
+                    }
+                }
+                generator.writeEndArray();
+                if (last != null) {
+                    generator.writeStringField(NEXT_CURSOR, CURSOR_ENCODER.encodeToString(
+                            last.getBytes(StandardCharsets.UTF_8)));
+                }
+                generator.writeEndObject();
+            }
+        };
+    }
+
+    // Selects the items with the lowest keys past the given one, plus one
+    // more to tell whether another page follows, without sorting them all.
+    private static <T> NavigableMap<String, T> page(Iterable<T> items, Function<T, String> key,
+                                                    String after, int max) {
+        TreeMap<String, T> page = new TreeMap<>();
+        for (T item : items) {
+            String itemKey = key.apply(item);
+            if (after != null && itemKey.compareTo(after) <= 0) {
+                continue;
+            }
+            if (page.size() > max) {
+                if (itemKey.compareTo(page.lastKey()) >= 0) {
+                    continue;
+                }
+                page.pollLastEntry();
+            }
+            page.put(itemKey, item);
+        }
+        return page;
+    }
+
+    private <T> void encodeItem(JsonCodec<T> codec, T item, Set<String> projection,
+                                JsonGenerator generator) throws IOException {
+        if (projection.isEmpty()) {
+            codec.encode(item, generator, this);
+        } else {
+            mapper.writeTree(generator, codec.encode(item, this).retain(projection));
+        }
+    }
+
+    private static String parseCursor(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            return new String(CURSOR_DECODER.decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
     @Override
     public <T> T getService(Class<T> serviceClass) {
         return get(serviceClass);
@@ -15,6 +15,8 @@
  */
 package org.onosproject.store.cluster.messaging;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -79,6 +81,29 @@ public interface ClusterCommunicationService {
             Function<M, byte[]> encoder,
             NodeId toNodeId);
 
+    /**
+     * Sends a message to the specified controller node as part of a batch.
+     * <p>
+     * Messages sent to the same node on the same subject are coalesced for a
+     * short window, or until a maximum batch size is reached, and sent as a
+     * single message encoded by the given encoder. Messages on a subject must
+     * all be sent with the same encoder, and are received by a subscriber
+     * added with {@link #addBatchSubscriber}.
+     *
+     * @param message message to send
+     * @param subject message subject
+     * @param encoder function for encoding a batch of messages to byte[]
+     * @param toNodeId destination node identifier
+     * @param <M> message type
+     * @return future that is completed when the batch holding the message is sent
+     */
+    default <M> CompletableFuture<Void> unicastBatched(M message,
+            MessageSubject subject,
+            Function<List<M>, byte[]> encoder,
+            NodeId toNodeId) {
+        return unicast(Collections.singletonList(message), subject, encoder, toNodeId);
+    }
+
     /**
      * Multicasts a message to a set of controller nodes.
      *
@@ -157,6 +182,23 @@ public interface ClusterCommunicationService {
             Consumer<M> handler,
             Executor executor);
 
+    /**
+     * Adds a new subscriber for batches of messages sent on the specified
+     * message subject with {@link #unicastBatched}.
+     *
+     * @param subject message subject
+     * @param decoder decoder to resurrecting incoming batch of messages
+     * @param handler handler for handling a batch of messages
+     * @param executor executor to run this handler on
+     * @param <M> incoming message type
+     */
+    default <M> void addBatchSubscriber(MessageSubject subject,
+            Function<byte[], List<M>> decoder,
+            Consumer<List<M>> handler,
+            Executor executor) {
+        addSubscriber(subject, decoder, handler, executor);
+    }
+
     /**
      * Removes a subscriber for the specified message subject.
      *
@@ -121,14 +121,42 @@ public class ClusterMessage {
      * @return bytes
      */
     public byte[] getBytes() {
+        return toBytes(header(sender, subject), payload);
+    }
+
+    /**
+     * Returns the serialized header of the messages sent by the given node
+     * on the given subject.
+     * <p>
+     * The header may be reused for any number of messages with
+     * {@link #toBytes(byte[], byte[])}.
+     *
+     * @param sender  message sender
+     * @param subject message subject
+     * @return header bytes
+     */
+    public static byte[] header(NodeId sender, MessageSubject subject) {
         byte[] senderBytes = sender.toString().getBytes(Charsets.UTF_8);
         byte[] subjectBytes = subject.value().getBytes(Charsets.UTF_8);
-        int capacity = 12 + senderBytes.length + subjectBytes.length + payload.length;
-        ByteBuffer buffer = ByteBuffer.allocate(capacity);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + senderBytes.length + subjectBytes.length);
         buffer.putInt(senderBytes.length);
         buffer.put(senderBytes);
         buffer.putInt(subjectBytes.length);
         buffer.put(subjectBytes);
+        return buffer.array();
+    }
+
+    /**
+     * Serializes a message from its header and payload.
+     *
+     * @param header  message header
+     * @param payload message payload
+     * @return bytes
+     * @see #header(NodeId, MessageSubject)
+     */
+    public static byte[] toBytes(byte[] header, byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(header.length + 4 + payload.length);
+        buffer.put(header);
         buffer.putInt(payload.length);
         buffer.put(payload);
         return buffer.array();
@@ -153,6 +181,24 @@ public class ClusterMessage {
                 payloadBytes);
     }
 
+    /**
+     * Copies the payload of a ClusterMessage out of raw bytes, skipping the
+     * sender and subject rather than decoding them.
+     *
+     * @param bytes raw bytes
+     * @return message payload
+     */
+    public static byte[] payloadOf(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int senderLength = buffer.getInt();
+        buffer.position(buffer.position() + senderLength);
+        int subjectLength = buffer.getInt();
+        buffer.position(buffer.position() + subjectLength);
+        byte[] payloadBytes = new byte[buffer.getInt()];
+        buffer.get(payloadBytes);
+        return payloadBytes;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(sender, subject, Arrays.hashCode(payload));
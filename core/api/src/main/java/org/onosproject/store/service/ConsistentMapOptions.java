@@ -19,6 +19,8 @@ import java.util.function.BiFunction;
 
 import org.onosproject.store.primitives.DistributedPrimitiveOptions;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * Builder for {@link ConsistentMap} instances.
  *
@@ -30,6 +32,7 @@ public abstract class ConsistentMapOptions<O extends ConsistentMapOptions<O, K,
 
     private boolean nullValues = false;
     private boolean purgeOnUninstall = false;
+    private int nearCacheSize = 0;
     protected BiFunction<V, org.onosproject.core.Version, V> compatibilityFunction;
 
     public ConsistentMapOptions() {
@@ -56,6 +59,25 @@ public abstract class ConsistentMapOptions<O extends ConsistentMapOptions<O, K,
         return (O) this;
     }
 
+    /**
+     * Enables a local cache of up to the given number of entries, from which
+     * reads are served without a round trip. The least recently used entries
+     * are evicted first.
+     * <p>
+     * Cached entries are refreshed by the map events, so updates made by
+     * other instances become visible once their events arrive, while updates
+     * made through this map are visible as soon as they complete.
+     *
+     * @param maxSize maximum number of cached entries
+     * @return this builder
+     */
+    @SuppressWarnings("unchecked")
+    public O withNearCache(int maxSize) {
+        checkArgument(maxSize > 0, "Near cache size must be positive");
+        nearCacheSize = maxSize;
+        return (O) this;
+    }
+
     /**
      * Sets a compatibility function on the map.
      *
@@ -86,4 +108,13 @@ public abstract class ConsistentMapOptions<O extends ConsistentMapOptions<O, K,
         return purgeOnUninstall;
     }
 
+    /**
+     * Returns the maximum number of entries of the local cache of the map.
+     *
+     * @return maximum number of cached entries; 0 if the map is not cached
+     */
+    public int nearCacheSize() {
+        return nearCacheSize;
+    }
+
 }
@@ -56,4 +56,14 @@ public class StoredFlowEntryAdapter extends FlowEntryAdapter implements StoredFl
     public void setBytes(long bytes) {
 
     }
+
+    @Override
+    public long lastSeenGeneration() {
+        return 0;
+    }
+
+    @Override
+    public void setLastSeenGeneration(long generation) {
+
+    }
 }
@@ -79,4 +79,17 @@ public class ClusterMessageTest {
         ClusterMessage message = ClusterMessage.fromBytes(fromBytes);
         assertThat(message, is(message3));
     }
+
+    /**
+     * Checks that a frame built from a cached header matches getBytes() and
+     * that the payload can be read back without decoding the whole message.
+     */
+    @Test
+    public void testHeaderFraming() {
+        byte[] header = ClusterMessage.header(nodeId, subject2);
+        byte[] frame = ClusterMessage.toBytes(header, payload1);
+        assertThat(frame, is(message3.getBytes()));
+        assertThat(ClusterMessage.payloadOf(frame), is(payload1));
+        assertThat(ClusterMessage.fromBytes(frame), is(message3));
+    }
 }
@@ -22,18 +22,19 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ImmutableSetMultimap.Builder;
+import org.onlab.graph.CompactDijkstraSearch;
+import org.onlab.graph.CompactGraph;
+import org.onlab.graph.CompactTarjanSearch;
+import org.onlab.graph.CompactTarjanSearch.SccResult;
 import org.onlab.graph.DefaultEdgeWeigher;
 import org.onlab.graph.DijkstraGraphSearch;
 import org.onlab.graph.DisjointPathPair;
 import org.onlab.graph.GraphPathSearch;
-import org.onlab.graph.GraphPathSearch.Result;
 import org.onlab.graph.KShortestPathsSearch;
 import org.onlab.graph.LazyKShortestPathsSearch;
 import org.onlab.graph.ScalarWeight;
 import org.onlab.graph.SrlgGraphSearch;
 import org.onlab.graph.SuurballeGraphSearch;
-import org.onlab.graph.TarjanGraphSearch;
-import org.onlab.graph.TarjanGraphSearch.SccResult;
 import org.onlab.graph.Weight;
 import org.onosproject.net.AbstractModel;
 import org.onosproject.net.ConnectPoint;
@@ -84,8 +85,10 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     private static final DijkstraGraphSearch<TopologyVertex, TopologyEdge> DIJKSTRA =
             new DijkstraGraphSearch<>();
-    private static final TarjanGraphSearch<TopologyVertex, TopologyEdge> TARJAN =
-            new TarjanGraphSearch<>();
+    private static final CompactDijkstraSearch<TopologyVertex, TopologyEdge> COMPACT_DIJKSTRA =
+            new CompactDijkstraSearch<>();
+    private static final CompactTarjanSearch<TopologyVertex, TopologyEdge> TARJAN =
+            new CompactTarjanSearch<>();
     private static final SuurballeGraphSearch<TopologyVertex, TopologyEdge> SUURBALLE =
             new SuurballeGraphSearch<>();
     private static final KShortestPathsSearch<TopologyVertex, TopologyEdge> KSHORTEST =
@@ -104,10 +107,15 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     private final LinkWeigher hopCountWeigher;
 
+    private final Supplier<CompactGraph<TopologyVertex, TopologyEdge>> compactGraph;
+    private final Supplier<double[]> hopCountWeights;
+    private final Supplier<double[]> viableWeights;
+    private final boolean incremental;
     private final Supplier<SccResult<TopologyVertex, TopologyEdge>> clusterResults;
     private final Supplier<ImmutableMap<ClusterId, TopologyCluster>> clusters;
     private final Supplier<ImmutableSet<ConnectPoint>> infrastructurePoints;
     private final Supplier<ImmutableSetMultimap<ClusterId, ConnectPoint>> broadcastSets;
+    private volatile boolean broadcastSetsBuilt;
     private final Function<ConnectPoint, Boolean> broadcastFunction;
     private final Supplier<ClusterIndexes> clusterIndexes;
 
@@ -145,6 +153,25 @@ public class DefaultTopology extends AbstractModel implements Topology {
      */
     public DefaultTopology(ProviderId providerId, GraphDescription description,
                            Function<ConnectPoint, Boolean> broadcastFunction) {
+        this(providerId, description, broadcastFunction, null);
+    }
+
+    /**
+     * Creates a topology descriptor attributed to the specified provider,
+     * deriving its clusters from those of the previous topology where
+     * possible. Clusters unaffected by the changes between the two graphs,
+     * along with their broadcast sets, are carried over rather than being
+     * recomputed; if the changes may have merged clusters, they are all
+     * computed afresh instead.
+     *
+     * @param providerId        identity of the provider
+     * @param description       data describing the new topology
+     * @param broadcastFunction broadcast point function
+     * @param previous          previous topology; null if none
+     */
+    public DefaultTopology(ProviderId providerId, GraphDescription description,
+                           Function<ConnectPoint, Boolean> broadcastFunction,
+                           DefaultTopology previous) {
         super(providerId);
         this.broadcastFunction = broadcastFunction;
         this.time = description.timestamp();
@@ -154,13 +181,28 @@ public class DefaultTopology extends AbstractModel implements Topology {
         this.graph = new DefaultTopologyGraph(description.vertexes(),
                 description.edges());
 
-        this.clusterResults = Suppliers.memoize(this::searchForClusters);
+        this.compactGraph = Suppliers.memoize(() -> CompactGraph.of(graph));
+        this.viableWeights = Suppliers.memoize(
+                () -> compactGraph.get().weights(new NoIndirectLinksWeigher()));
+
+        // The derivation is done eagerly so that the previous topology is
+        // not retained by this one.
+        ClusterDerivation derivation = previous != null ? deriveClusters(previous) : null;
+        this.incremental = derivation != null;
+        if (derivation != null) {
+            this.clusterResults = Suppliers.ofInstance(derivation.results);
+        } else {
+            this.clusterResults = Suppliers.memoize(this::searchForClusters);
+        }
         this.clusters = Suppliers.memoize(this::buildTopologyClusters);
 
         this.clusterIndexes = Suppliers.memoize(this::buildIndexes);
 
         this.hopCountWeigher = new HopCountLinkWeigher(graph.getVertexes().size());
-        this.broadcastSets = Suppliers.memoize(this::buildBroadcastSets);
+        this.hopCountWeights = Suppliers.memoize(() -> compactGraph.get().weights(hopCountWeigher));
+        Map<Integer, Set<ConnectPoint>> reusedSets =
+                derivation != null ? derivation.broadcastSets : ImmutableMap.of();
+        this.broadcastSets = Suppliers.memoize(() -> buildBroadcastSets(reusedSets));
         this.infrastructurePoints = Suppliers.memoize(this::findInfrastructurePoints);
         this.computeCost = Math.max(0, System.nanoTime() - time);
     }
@@ -190,6 +232,16 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return computeCost;
     }
 
+    /**
+     * Indicates whether the clusters of this topology were derived from
+     * those of a previous topology rather than computed afresh.
+     *
+     * @return true if the clusters were derived incrementally
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
     @Override
     public int clusterCount() {
         return clusters.get().size();
@@ -384,10 +436,20 @@ public class DefaultTopology extends AbstractModel implements Topology {
             return ImmutableSet.of();
         }
 
-        GraphPathSearch.Result<TopologyVertex, TopologyEdge> result =
-                graphPathSearch().search(graph, srcV, dstV, weigher, maxPaths);
+        Set<org.onlab.graph.Path<TopologyVertex, TopologyEdge>> paths = null;
+        if (defaultGraphPathSearch == null && weigher != null) {
+            // Search the compact graph if the weights are expressible as such.
+            double[] weights = weigher == hopCountWeigher ?
+                    hopCountWeights.get() : compactGraph.get().weights(weigher);
+            if (weights != null) {
+                paths = COMPACT_DIJKSTRA.search(compactGraph.get(), srcV, dstV, weights, maxPaths);
+            }
+        }
+        if (paths == null) {
+            paths = graphPathSearch().search(graph, srcV, dstV, weigher, maxPaths).paths();
+        }
         ImmutableSet.Builder<Path> builder = ImmutableSet.builder();
-        for (org.onlab.graph.Path<TopologyVertex, TopologyEdge> path : result.paths()) {
+        for (org.onlab.graph.Path<TopologyVertex, TopologyEdge> path : paths) {
             builder.add(networkPath(path));
         }
         return builder.build();
@@ -630,7 +692,103 @@ public class DefaultTopology extends AbstractModel implements Topology {
     // Searches for SCC clusters in the network topology graph using Tarjan
     // algorithm.
     private SccResult<TopologyVertex, TopologyEdge> searchForClusters() {
-        return TARJAN.search(graph, new NoIndirectLinksWeigher());
+        return TARJAN.search(compactGraph.get(), viableWeights.get());
+    }
+
+    // Derives the SCC clusters from those of the previous topology, noting
+    // which of them are unaffected and can keep their broadcast sets.
+    // Returns null if the clusters have to be computed afresh.
+    private ClusterDerivation deriveClusters(DefaultTopology previous) {
+        CompactGraph<TopologyVertex, TopologyEdge> cg = compactGraph.get();
+        double[] weights = viableWeights.get();
+        CompactGraph<TopologyVertex, TopologyEdge> prevCg = previous.compactGraph.get();
+        double[] prevWeights = previous.viableWeights.get();
+        SccResult<TopologyVertex, TopologyEdge> prevResults = previous.clusterResults.get();
+        int prevCount = prevResults.clusterCount();
+
+        // Label each vertex with its previous cluster; new vertexes get
+        // labels of their own.
+        int n = cg.vertexCount();
+        int[] parts = new int[n];
+        int[] survivors = new int[prevCount];
+        for (int v = 0; v < n; v++) {
+            int pv = prevCg.indexOf(cg.vertex(v));
+            parts[v] = pv < 0 ? prevCount + v : prevResults.clusterOf(pv);
+            if (pv >= 0) {
+                survivors[parts[v]]++;
+            }
+        }
+
+        // Viable edges which are new can only merge clusters if they join
+        // different ones; otherwise they only change the cluster interior.
+        boolean[] changed = new boolean[prevCount];
+        int[] retained = new int[prevCount];
+        for (int e = 0, m = cg.edgeCount(); e < m; e++) {
+            if (weights[e] == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            int part = parts[cg.src(e)];
+            boolean known = wasViable(cg.edge(e), prevCg, prevWeights);
+            if (part != parts[cg.dst(e)]) {
+                if (!known) {
+                    return null;
+                }
+            } else if (part < prevCount) {
+                if (known) {
+                    retained[part]++;
+                } else {
+                    changed[part] = true;
+                }
+            }
+        }
+
+        // Clusters which lost any vertexes or viable edges may split.
+        int[] prevInterior = new int[prevCount];
+        for (int e = 0, m = prevCg.edgeCount(); e < m; e++) {
+            int part = prevResults.clusterOf(prevCg.src(e));
+            if (prevWeights[e] != Double.POSITIVE_INFINITY &&
+                    part == prevResults.clusterOf(prevCg.dst(e))) {
+                prevInterior[part]++;
+            }
+        }
+        for (int c = 0; c < prevCount; c++) {
+            changed[c] |= survivors[c] != prevResults.clusterVertexes().get(c).size() ||
+                    retained[c] != prevInterior[c];
+        }
+
+        // Refine the previous clusters; those which are unchanged come out
+        // whole and, since the shortest paths between their vertexes never
+        // leave them, keep their broadcast sets.
+        SccResult<TopologyVertex, TopologyEdge> results = TARJAN.search(cg, weights, parts);
+        // Broadcast sets are only carried over if they have been built, as
+        // building them here would defeat the purpose.
+        ImmutableMap.Builder<Integer, Set<ConnectPoint>> reused = ImmutableMap.builder();
+        ImmutableSetMultimap<ClusterId, ConnectPoint> prevSets =
+                previous.broadcastSetsBuilt ? previous.broadcastSets.get() : null;
+        for (int i = 0, count = prevSets != null ? results.clusterCount() : 0; i < count; i++) {
+            Set<TopologyVertex> vertexes = results.clusterVertexes().get(i);
+            int part = parts[cg.indexOf(vertexes.iterator().next())];
+            if (part < prevCount && !changed[part] && vertexes.size() == survivors[part]) {
+                reused.put(i, prevSets.get(ClusterId.clusterId(part)));
+            }
+        }
+        return new ClusterDerivation(results, reused.build());
+    }
+
+    // Indicates whether the previous graph holds the same edge as viable.
+    private static boolean wasViable(TopologyEdge edge,
+                                     CompactGraph<TopologyVertex, TopologyEdge> prevCg,
+                                     double[] prevWeights) {
+        int u = prevCg.indexOf(edge.src());
+        if (u < 0) {
+            return false;
+        }
+        for (int e = prevCg.edgesFrom(u), end = prevCg.edgesFromEnd(u); e < end; e++) {
+            if (prevWeights[e] != Double.POSITIVE_INFINITY && prevCg.edge(e).equals(edge)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     // Builds the topology clusters and returns the id-cluster bindings.
@@ -672,12 +830,20 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return minVertex;
     }
 
-    // Processes a map of broadcast sets for each cluster.
-    private ImmutableSetMultimap<ClusterId, ConnectPoint> buildBroadcastSets() {
+    // Processes a map of broadcast sets for each cluster, reusing those
+    // carried over from the previous topology.
+    private ImmutableSetMultimap<ClusterId, ConnectPoint> buildBroadcastSets(
+            Map<Integer, Set<ConnectPoint>> reusedSets) {
         Builder<ClusterId, ConnectPoint> builder = ImmutableSetMultimap.builder();
         for (TopologyCluster cluster : clusters.get().values()) {
-            addClusterBroadcastSet(cluster, builder);
+            Set<ConnectPoint> points = reusedSets.get(cluster.id().index());
+            if (points != null) {
+                builder.putAll(cluster.id(), points);
+            } else {
+                addClusterBroadcastSet(cluster, builder);
+            }
         }
+        broadcastSetsBuilt = true;
         return builder.build();
     }
 
@@ -687,26 +853,23 @@ public class DefaultTopology extends AbstractModel implements Topology {
     private void addClusterBroadcastSet(TopologyCluster cluster,
                                         Builder<ClusterId, ConnectPoint> builder) {
         // Use the graph root search results to build the broadcast set.
-        Result<TopologyVertex, TopologyEdge> result =
-                DIJKSTRA.search(graph, cluster.root(), null, hopCountWeigher, 1);
-        for (Map.Entry<TopologyVertex, Set<TopologyEdge>> entry :
-                result.parents().entrySet()) {
-            TopologyVertex vertex = entry.getKey();
-
-            // Ignore any parents that lead outside the cluster.
-            if (clustersByDevice().get(vertex.deviceId()) != cluster) {
+        CompactGraph<TopologyVertex, TopologyEdge> cg = compactGraph.get();
+        int[] parents = COMPACT_DIJKSTRA.searchTree(cg, cluster.root(), hopCountWeights.get());
+        for (int v = 0; v < parents.length; v++) {
+            // Ignore any vertexes without a back-link.
+            if (parents[v] < 0) {
                 continue;
             }
 
-            // Ignore any back-link sets that are empty.
-            Set<TopologyEdge> parents = entry.getValue();
-            if (parents.isEmpty()) {
+            // Ignore any parents that lead outside the cluster.
+            TopologyVertex vertex = cg.vertex(v);
+            if (clustersByDevice().get(vertex.deviceId()) != cluster) {
                 continue;
             }
 
-            // Use the first back-link source and destinations to add to the
+            // Use the back-link source and destinations to add to the
             // broadcast set.
-            Link link = parents.iterator().next().link();
+            Link link = cg.edge(parents[v]).link();
             builder.put(cluster.id(), link.src());
             builder.put(cluster.id(), link.dst());
         }
@@ -780,6 +943,19 @@ public class DefaultTopology extends AbstractModel implements Topology {
         }
     }
 
+    // Clusters derived from those of a previous topology, along with the
+    // broadcast sets carried over, keyed by cluster index.
+    private static final class ClusterDerivation {
+        final SccResult<TopologyVertex, TopologyEdge> results;
+        final Map<Integer, Set<ConnectPoint>> broadcastSets;
+
+        ClusterDerivation(SccResult<TopologyVertex, TopologyEdge> results,
+                          Map<Integer, Set<ConnectPoint>> broadcastSets) {
+            this.results = results;
+            this.broadcastSets = broadcastSets;
+        }
+    }
+
     static final class ClusterIndexes {
         final ImmutableMap<DeviceId, TopologyCluster> clustersByDevice;
         final ImmutableSetMultimap<TopologyCluster, DeviceId> devicesByCluster;
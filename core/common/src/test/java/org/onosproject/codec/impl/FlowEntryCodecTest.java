@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.codec.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.Ip4Prefix;
+import org.onosproject.codec.JsonCodec;
+import org.onosproject.core.CoreService;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+
+import java.io.IOException;
+
+import static org.easymock.EasyMock.anyShort;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.onosproject.codec.impl.JsonCodecUtils.assertJsonStreamable;
+import static org.onosproject.net.NetTestTools.APP_ID;
+
+/**
+ * Unit test for FlowEntryCodec.
+ */
+public class FlowEntryCodecTest {
+
+    private MockCodecContext context;
+    private JsonCodec<FlowEntry> codec;
+    private final CoreService mockCoreService = createMock(CoreService.class);
+
+    private final FlowRule rule = DefaultFlowRule.builder()
+            .forDevice(JsonCodecUtils.DID1)
+            .withSelector(DefaultTrafficSelector.builder()
+                                  .matchInPort(PortNumber.portNumber(1))
+                                  .matchEthType((short) 0x0800)
+                                  .matchIPDst(Ip4Prefix.valueOf("10.0.0.0/24"))
+                                  .build())
+            .withTreatment(DefaultTrafficTreatment.builder()
+                                   .setOutput(PortNumber.portNumber(2))
+                                   .build())
+            .withPriority(40000)
+            .fromApp(APP_ID)
+            .makeTemporary(10)
+            .forTable(3)
+            .build();
+
+    /**
+     * Sets up for each test. Creates a context and fetches the flow entry
+     * codec.
+     */
+    @Before
+    public void setUp() {
+        context = new MockCodecContext();
+        codec = context.codec(FlowEntry.class);
+        assertThat(codec, is(notNullValue()));
+
+        expect(mockCoreService.getAppId(anyShort())).andReturn(APP_ID).anyTimes();
+        replay(mockCoreService);
+        context.registerService(CoreService.class, mockCoreService);
+    }
+
+    /**
+     * Checks that streaming a flow entry writes the same JSON as encoding it.
+     *
+     * @throws IOException if the flow entry cannot be streamed
+     */
+    @Test
+    public void flowEntryStreamingTest() throws IOException {
+        FlowEntry entry = new DefaultFlowEntry(rule, FlowEntry.FlowEntryState.ADDED, 5, 100, 6400);
+        assertJsonStreamable(context, codec, entry);
+    }
+
+    /**
+     * Checks that streaming a pending flow entry with empty actions writes the same
+     * JSON as encoding it.
+     *
+     * @throws IOException if the flow entry cannot be streamed
+     */
+    @Test
+    public void pendingFlowEntryStreamingTest() throws IOException {
+        FlowRule bare = DefaultFlowRule.builder()
+                .forDevice(JsonCodecUtils.DID2)
+                .withSelector(DefaultTrafficSelector.emptySelector())
+                .withPriority(1)
+                .fromApp(APP_ID)
+                .makePermanent()
+                .build();
+        assertJsonStreamable(context, codec, new DefaultFlowEntry(bare));
+    }
+}
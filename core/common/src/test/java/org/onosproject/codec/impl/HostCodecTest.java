@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.codec.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onlab.packet.EthType;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.codec.JsonCodec;
+import org.onosproject.net.DefaultHost;
+import org.onosproject.net.Host;
+import org.onosproject.net.HostId;
+import org.onosproject.net.HostLocation;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.onosproject.codec.impl.JsonCodecUtils.assertJsonStreamable;
+
+/**
+ * Unit test for HostCodec.
+ */
+public class HostCodecTest {
+
+    private static final MacAddress MAC = MacAddress.valueOf("00:00:11:00:00:01");
+    private static final VlanId VLAN = VlanId.vlanId((short) 10);
+
+    private final Host host = new DefaultHost(JsonCodecUtils.PID,
+                                              HostId.hostId(MAC, VLAN),
+                                              MAC, VLAN,
+                                              ImmutableSet.of(new HostLocation(JsonCodecUtils.CP1, 1L),
+                                                              new HostLocation(JsonCodecUtils.CP2, 2L)),
+                                              ImmutableSet.of(IpAddress.valueOf("10.0.0.1"),
+                                                              IpAddress.valueOf("2001::1")),
+                                              VlanId.vlanId((short) 20),
+                                              EthType.EtherType.QINQ.ethType(),
+                                              true, JsonCodecUtils.A1);
+
+    /**
+     * Checks that streaming a host writes the same JSON as encoding it.
+     *
+     * @throws IOException if the host cannot be streamed
+     */
+    @Test
+    public void hostStreamingTest() throws IOException {
+        final MockCodecContext context = new MockCodecContext();
+        final JsonCodec<Host> codec = context.codec(Host.class);
+        assertThat(codec, is(notNullValue()));
+
+        assertJsonStreamable(context, codec, host);
+    }
+
+    /**
+     * Checks that streaming a host without annotations writes the same JSON
+     * as encoding it.
+     *
+     * @throws IOException if the host cannot be streamed
+     */
+    @Test
+    public void plainHostStreamingTest() throws IOException {
+        final MockCodecContext context = new MockCodecContext();
+        final JsonCodec<Host> codec = context.codec(Host.class);
+
+        assertJsonStreamable(context, codec,
+                             new DefaultHost(JsonCodecUtils.PID, HostId.hostId(MAC), MAC, VlanId.NONE,
+                                             new HostLocation(JsonCodecUtils.CP1, 1L),
+                                             ImmutableSet.of()));
+    }
+}
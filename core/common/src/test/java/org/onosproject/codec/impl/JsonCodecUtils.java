@@ -22,6 +22,9 @@ import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertEquals;
 import static org.onosproject.net.DeviceId.deviceId;
 
+import java.io.IOException;
+import java.io.StringWriter;
+
 import org.onlab.packet.ChassisId;
 import org.onosproject.codec.CodecContext;
 import org.onosproject.codec.JsonCodec;
@@ -32,6 +35,7 @@ import org.onosproject.net.PortNumber;
 import org.onosproject.net.SparseAnnotations;
 import org.onosproject.net.provider.ProviderId;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
@@ -60,6 +64,27 @@ public abstract class JsonCodecUtils {
         assertEquals(pojoIn, pojoOut);
     }
 
+    /**
+     * Checks if given Object is streamed to the same JSON it is encoded to.
+     *
+     * @param context CodecContext
+     * @param codec JsonCodec
+     * @param pojoIn Java Object to encode
+     * @throws IOException if the Object could not be streamed
+     */
+    public static <T> void assertJsonStreamable(final CodecContext context,
+                                                final JsonCodec<T> codec,
+                                                final T pojoIn) throws IOException {
+        final String json = context.mapper().writeValueAsString(codec.encode(pojoIn, context));
+
+        final StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = context.mapper().getFactory().createGenerator(writer)) {
+            codec.encode(pojoIn, generator, context);
+        }
+
+        assertEquals(json, writer.toString());
+    }
+
     static final ProviderId PID = new ProviderId("of", "foo");
     static final ProviderId PIDA = new ProviderId("of", "bar", true);
     static final DeviceId DID1 = deviceId("of:foo");
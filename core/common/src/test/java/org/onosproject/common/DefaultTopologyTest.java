@@ -40,6 +40,8 @@ import org.onosproject.net.topology.TopologyEdge;
 import org.onosproject.net.topology.TopologyVertex;
 
 import java.util.Set;
+import java.util.stream.Collectors;
+
 import static com.google.common.collect.ImmutableSet.of;
 import static org.junit.Assert.*;
 import static org.onosproject.net.DeviceId.deviceId;
@@ -148,6 +150,65 @@ public class DefaultTopologyTest {
         assertFalse("cluster should not contain D5", devs.contains(D5));
     }
 
+    @Test
+    public void incrementalSplit() {
+        // Isolate device 2 from the rest of its cluster
+        GraphDescription description =
+                describe(of(device("1"), device("2"), device("3"), device("4"), device("5")),
+                         of(link("1", 3, "4", 3), link("4", 3, "1", 3),
+                            link("3", 4, "4", 4), link("4", 4, "3", 4)));
+        DefaultTopology next = new DefaultTopology(PID, description, null, dt);
+        assertTrue("clusters should be derived", next.isIncremental());
+        assertEquals("incorrect cluster count", 3, next.clusterCount());
+        assertEquals("incorrect clusters", partition(new DefaultTopology(PID, description)), partition(next));
+        assertEquals("incorrect broadcast set size", 4,
+                     next.broadcastSetSize(next.getCluster(D1).id()));
+    }
+
+    @Test
+    public void incrementalReuse() {
+        // Add an isolated device; the existing clusters are unaffected
+        GraphDescription description =
+                describe(of(device("1"), device("2"), device("3"), device("4"),
+                            device("5"), device("6")),
+                         dt.getGraph().getEdges().stream()
+                                 .map(TopologyEdge::link)
+                                 .collect(Collectors.toSet()));
+        DefaultTopology next = new DefaultTopology(PID, description, null, dt);
+        assertTrue("clusters should be derived", next.isIncremental());
+        assertEquals("incorrect cluster count", 3, next.clusterCount());
+        assertEquals("incorrect clusters", partition(new DefaultTopology(PID, description)), partition(next));
+        assertEquals("broadcast set should be reused", dt.broadcastPoints(C0),
+                     next.broadcastPoints(next.getCluster(D1).id()));
+    }
+
+    @Test
+    public void incrementalMerge() {
+        // Join device 5 to the other cluster, which requires a full search
+        GraphDescription description =
+                describe(of(device("1"), device("2"), device("3"), device("4"), device("5")),
+                         of(link("1", 1, "2", 1), link("2", 1, "1", 1),
+                            link("1", 3, "4", 3), link("4", 3, "1", 3),
+                            link("4", 5, "5", 5), link("5", 5, "4", 5)));
+        DefaultTopology next = new DefaultTopology(PID, description, null, dt);
+        assertFalse("clusters should not be derived", next.isIncremental());
+        assertEquals("incorrect cluster count", 2, next.clusterCount());
+        assertEquals("incorrect clusters", partition(new DefaultTopology(PID, description)), partition(next));
+    }
+
+    // Describes a graph with the given devices and links.
+    private GraphDescription describe(Set<Device> devices, Set<Link> links) {
+        long now = System.currentTimeMillis();
+        return new DefaultGraphDescription(now, now, devices, links);
+    }
+
+    // Returns the device sets of all clusters.
+    private Set<Set<DeviceId>> partition(DefaultTopology topology) {
+        return topology.getClusters().stream()
+                .map(topology::getClusterDevices)
+                .collect(Collectors.toSet());
+    }
+
     // Short-hand for creating a link.
     public static Link link(String src, int sp, String dst, int dp) {
         return DefaultLink.builder().providerId(PID)
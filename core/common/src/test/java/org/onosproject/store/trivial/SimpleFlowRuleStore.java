@@ -25,6 +25,7 @@ import com.google.common.collect.Sets;
 import com.google.common.collect.Streams;
 import com.google.common.util.concurrent.SettableFuture;
 import org.onlab.util.Tools;
+import org.onosproject.core.ApplicationId;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.flow.CompletedBatchOperation;
 import org.onosproject.net.flow.DefaultFlowEntry;
@@ -50,7 +51,9 @@ import org.slf4j.Logger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Dictionary;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -58,6 +61,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.onosproject.net.flow.FlowRuleEvent.Type.RULE_REMOVED;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -79,6 +83,9 @@ public class SimpleFlowRuleStore
     private final ConcurrentMap<DeviceId, List<TableStatisticsEntry>>
             deviceTableStats = new ConcurrentHashMap<>();
 
+    // current flow statistics generation of each device
+    private final ConcurrentMap<DeviceId, AtomicLong> statsGenerations = new ConcurrentHashMap<>();
+
     private final AtomicInteger localBatchIdGen = new AtomicInteger();
 
     private static final int DEFAULT_PENDING_FUTURE_TIMEOUT_MINUTES = 5;
@@ -97,6 +104,7 @@ public class SimpleFlowRuleStore
     public void deactivate() {
         deviceTableStats.clear();
         flowEntries.clear();
+        statsGenerations.clear();
         log.info("Stopped");
     }
 
@@ -192,6 +200,50 @@ public class SimpleFlowRuleStore
                 .transformAndConcat(Collections::unmodifiableList);
     }
 
+    private AtomicLong getStatsGeneration(DeviceId deviceId) {
+        return statsGenerations.computeIfAbsent(deviceId, k -> new AtomicLong());
+    }
+
+    @Override
+    public long startFlowStatsPoll(DeviceId deviceId) {
+        return getStatsGeneration(deviceId).incrementAndGet();
+    }
+
+    @Override
+    public Map<FlowEntry, FlowEntry> getReportedFlowEntries(DeviceId deviceId, Iterable<FlowEntry> flowEntries,
+                                                            long generation) {
+        Map<FlowEntry, FlowEntry> reported = new HashMap<>();
+        for (FlowEntry flowEntry : flowEntries) {
+            FlowEntry stored = getFlowEntryInternal(deviceId, flowEntry);
+            if (stored != null) {
+                if (generation != 0) {
+                    ((StoredFlowEntry) stored).setLastSeenGeneration(generation);
+                }
+                reported.put(flowEntry, stored);
+            }
+        }
+        return reported;
+    }
+
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesByAppId(ApplicationId appId) {
+        return FluentIterable.from(flowEntries.values())
+                .transformAndConcat(ConcurrentMap::values)
+                .transformAndConcat(Collections::<FlowEntry>unmodifiableList)
+                .filter(entry -> entry.appId() == appId.id())
+                .toList();
+    }
+
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesByGroupId(ApplicationId appId, short groupId) {
+        long toLookUp = (appId.id() & 0xffffL) << 16 | groupId & 0xffffL;
+        return FluentIterable.from(flowEntries.values())
+                .transformAndConcat(ConcurrentMap::values)
+                .transformAndConcat(Collections::<FlowEntry>unmodifiableList)
+                .filter(entry -> (entry.id().value() >>> 32) == toLookUp)
+                .toList();
+    }
+
     @Override
     public void storeFlowRule(FlowRule rule) {
         storeFlowRuleInternal(rule);
@@ -200,6 +252,7 @@ public class SimpleFlowRuleStore
     private void storeFlowRuleInternal(FlowRule rule) {
         StoredFlowEntry f = new DefaultFlowEntry(rule);
         final DeviceId did = f.deviceId();
+        f.setLastSeenGeneration(getStatsGeneration(did).get());
         final FlowId fid = f.id();
         List<StoredFlowEntry> existing = getFlowEntries(did, fid);
         synchronized (existing) {
@@ -303,6 +356,7 @@ public class SimpleFlowRuleStore
     @Override
     public void purgeFlowRules() {
         flowEntries.clear();
+        statsGenerations.clear();
     }
 
     @Override
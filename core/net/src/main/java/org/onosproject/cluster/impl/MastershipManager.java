@@ -17,9 +17,8 @@ package org.onosproject.cluster.impl;
 
 import com.codahale.metrics.Timer;
 import com.codahale.metrics.Timer.Context;
-import com.google.common.collect.Lists;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
-import com.google.common.util.concurrent.Futures;
 import org.onlab.metrics.MetricsService;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cfg.ConfigProperty;
@@ -54,20 +53,17 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Lists.newArrayList;
-import static java.util.concurrent.CompletableFuture.allOf;
 import static org.onlab.metrics.MetricsUtil.startTimer;
 import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onosproject.net.MastershipRole.MASTER;
@@ -91,7 +87,9 @@ import static org.onosproject.net.OsgiPropertyConstants.*;
         },
         property = {
                 USE_REGION_FOR_BALANCE_ROLES + ":Boolean=" + USE_REGION_FOR_BALANCE_ROLES_DEFAULT,
-                REBALANCE_ROLES_ON_UPGRADE + ":Boolean=" + REBALANCE_ROLES_ON_UPGRADE_DEFAULT
+                REBALANCE_ROLES_ON_UPGRADE + ":Boolean=" + REBALANCE_ROLES_ON_UPGRADE_DEFAULT,
+                BALANCE_ROLES_WAVE_SIZE + ":Integer=" + BALANCE_ROLES_WAVE_SIZE_DEFAULT,
+                BALANCE_ROLES_WAVE_DELAY + ":Integer=" + BALANCE_ROLES_WAVE_DELAY_DEFAULT
         }
 )
 public class MastershipManager
@@ -128,6 +126,7 @@ public class MastershipManager
 
     private NodeId localNodeId;
     private Timer requestRoleTimer;
+    private Timer handoverTimer;
 
     /** Use Regions for balancing roles. */
     protected boolean useRegionForBalanceRoles = USE_REGION_FOR_BALANCE_ROLES_DEFAULT;
@@ -135,12 +134,19 @@ public class MastershipManager
     /** Automatically rebalance roles following an upgrade. */
     protected boolean rebalanceRolesOnUpgrade = REBALANCE_ROLES_ON_UPGRADE_DEFAULT;
 
+    /** Number of devices whose mastership is changed in parallel when balancing roles. */
+    protected int balanceRolesWaveSize = BALANCE_ROLES_WAVE_SIZE_DEFAULT;
+
+    /** Delay in ms between the waves of mastership changes when balancing roles. */
+    protected int balanceRolesWaveDelay = BALANCE_ROLES_WAVE_DELAY_DEFAULT;
+
     @Activate
     public void activate() {
         cfgService.registerProperties(getClass());
         modified();
 
         requestRoleTimer = createTimer("Mastership", "requestRole", "responseTime");
+        handoverTimer = createTimer("Mastership", "balanceRoles", "handoverTime");
         localNodeId = clusterService.getLocalNode().id();
         upgradeService.addListener(upgradeEventListener);
         eventDispatcher.addSink(MastershipEvent.class, listenerRegistry);
@@ -157,6 +163,10 @@ public class MastershipManager
                     useRegionForBalanceRoles = property.asBoolean();
                 } else if (REBALANCE_ROLES_ON_UPGRADE.equals(property.name())) {
                     rebalanceRolesOnUpgrade = property.asBoolean();
+                } else if (BALANCE_ROLES_WAVE_SIZE.equals(property.name())) {
+                    balanceRolesWaveSize = Math.max(1, property.asInteger());
+                } else if (BALANCE_ROLES_WAVE_DELAY.equals(property.name())) {
+                    balanceRolesWaveDelay = Math.max(0, property.asInteger());
                 }
             }
         }
@@ -269,301 +279,174 @@ public class MastershipManager
     @Override
     public void balanceRoles() {
         List<ControllerNode> nodes = newArrayList(clusterService.getNodes());
-        Map<ControllerNode, Set<DeviceId>> controllerDevices = new HashMap<>();
-        Set<DeviceId> orphanedDevices = Sets.newHashSet();
-        int deviceCount = 0;
+        List<NodeId> activeNodes = new ArrayList<>();
+        Map<DeviceId, NodeId> masters = new HashMap<>();
 
-        // Create buckets reflecting current ownership; do this irrespective of
-        // whether the node is active.
+        // Record current ownership; do this irrespective of whether the node
+        // is active, so that the devices of inactive nodes get reassigned.
         for (ControllerNode node : nodes) {
-            Set<DeviceId> devicesOf = new HashSet<>(getDevicesOf(node.id()));
+            Set<DeviceId> devicesOf = getDevicesOf(node.id());
             if (clusterService.getState(node.id()).isActive()) {
                 log.info("Node {} has {} devices.", node.id(), devicesOf.size());
-                deviceCount += devicesOf.size();
-                controllerDevices.put(node, devicesOf);
+                activeNodes.add(node.id());
             } else if (!devicesOf.isEmpty()) {
                 log.warn("Inactive node {} has {} orphaned devices.", node.id(), devicesOf.size());
-                orphanedDevices.addAll(getDevicesOf(node.id()));
             }
+            devicesOf.forEach(deviceId -> masters.put(deviceId, node.id()));
         }
 
-        if (useRegionForBalanceRoles && balanceRolesUsingRegions(controllerDevices)) {
-            return;
+        Map<DeviceId, NodeId> plan;
+        if (useRegionForBalanceRoles && !regionService.getRegions().isEmpty()) {
+            plan = planUsingRegions(activeNodes, masters);
+        } else {
+            plan = RoleBalancePlanner.plan(activeNodes, masters.keySet(), masters);
         }
-
-        List<CompletableFuture<Void>> balanceBucketsFutures = Lists.newLinkedList();
-
-        // First re-balance the buckets until they are roughly even.
-        balanceControllerNodes(controllerDevices, deviceCount, balanceBucketsFutures);
-
-        // Then attempt to distribute any orphaned devices among the buckets.
-        distributeOrphanedDevices(controllerDevices, orphanedDevices, balanceBucketsFutures);
-
-        CompletableFuture<Void> balanceRolesFuture =
-                allOf(balanceBucketsFutures.toArray(new CompletableFuture[balanceBucketsFutures.size()]));
-
-        Futures.getUnchecked(balanceRolesFuture);
+        executePlan(plan);
     }
 
     /**
-     * Balances the nodes specified in controllerDevices.
+     * Plans the mastership changes balancing the devices of each region over
+     * its preferred master nodes, and the remaining devices over the nodes
+     * not preferred by any region.
      *
-     * @param controllerDevices controller nodes to devices map
-     * @param deviceCount       number of devices mastered by controller nodes
-     * @param futures           list of setRole futures for "moved" devices
-     */
-    private void balanceControllerNodes(Map<ControllerNode, Set<DeviceId>> controllerDevices,
-                                        int deviceCount,
-                                        List<CompletableFuture<Void>> futures) {
-        // Now re-balance the buckets until they are roughly even.
-        int rounds = controllerDevices.keySet().size();
-        for (int i = 0; i < rounds; i++) {
-            // Iterate over the buckets and find the smallest and the largest.
-            ControllerNode smallest = findBucket(true, controllerDevices);
-            ControllerNode largest = findBucket(false, controllerDevices);
-            futures.add(balanceBuckets(smallest, largest, controllerDevices, deviceCount));
-        }
-    }
-
-    /**
-     * Uses the set of orphaned devices to even out the load among the controllers.
-     *
-     * @param controllerDevices controller nodes to devices map
-     * @param orphanedDevices   set of orphaned devices without an active master
-     * @param futures           list of completable future to track the progress of the balancing operation
-     */
-    private void distributeOrphanedDevices(Map<ControllerNode, Set<DeviceId>> controllerDevices,
-                                           Set<DeviceId> orphanedDevices,
-                                           List<CompletableFuture<Void>> futures) {
-        // Now re-distribute the orphaned devices into buckets until they are roughly even.
-        while (!orphanedDevices.isEmpty()) {
-            // Iterate over the buckets and find the smallest bucket.
-            ControllerNode smallest = findBucket(true, controllerDevices);
-            changeMastership(smallest, controllerDevices.get(smallest),
-                             orphanedDevices, 1, futures);
-        }
-    }
-
-    /**
-     * Finds node with the minimum/maximum devices from a list of nodes.
-     *
-     * @param min               true: minimum, false: maximum
-     * @param controllerDevices controller nodes to devices map
-     * @return controller node with minimum/maximum devices
+     * @param activeNodes active controller nodes
+     * @param masters     current master of the devices
+     * @return new master of each device to move
      */
+    private Map<DeviceId, NodeId> planUsingRegions(List<NodeId> activeNodes,
+                                                   Map<DeviceId, NodeId> masters) {
+        Map<DeviceId, NodeId> plan = new LinkedHashMap<>();
+        Set<NodeId> nodesInRegions = Sets.newHashSet();
+        Set<DeviceId> devicesInRegions = Sets.newHashSet();
+        for (Region region : regionService.getRegions()) {
+            Set<DeviceId> devicesInRegion = regionService.getRegionDevices(region.id());
+            log.info("Region {} has {} devices.", region.id(), devicesInRegion.size());
+            if (devicesInRegion.isEmpty()) {
+                continue; // no devices in this region, so nothing to balance.
+            }
 
-    private ControllerNode findBucket(boolean min,
-                                      Map<ControllerNode, Set<DeviceId>> controllerDevices) {
-        int xSize = min ? Integer.MAX_VALUE : -1;
-        ControllerNode xNode = null;
-        for (ControllerNode node : controllerDevices.keySet()) {
-            int size = controllerDevices.get(node).size();
-            if ((min && size < xSize) || (!min && size > xSize)) {
-                xSize = size;
-                xNode = node;
+            log.info("Region {} has {} sets of masters.", region.id(), region.masters().size());
+            Set<NodeId> regionMasters = getRegionsPreferredMasters(region);
+            if (regionMasters.isEmpty()) {
+                // TODO handle devices that belong to a region, which has no masters defined
+                continue; // for now just leave devices alone
             }
-        }
-        return xNode;
-    }
 
-    /**
-     * Balance the node buckets by moving devices from largest to smallest node.
-     *
-     * @param smallest          node that is master of the smallest number of devices
-     * @param largest           node that is master of the largest number of devices
-     * @param controllerDevices controller nodes to devices map
-     * @param deviceCount       number of devices mastered by controller nodes
-     * @return list of setRole futures for "moved" devices
-     */
-    private CompletableFuture<Void> balanceBuckets(ControllerNode smallest, ControllerNode largest,
-                                                   Map<ControllerNode, Set<DeviceId>> controllerDevices,
-                                                   int deviceCount) {
-        Collection<DeviceId> minBucket = controllerDevices.get(smallest);
-        Collection<DeviceId> maxBucket = controllerDevices.get(largest);
-        int bucketCount = controllerDevices.keySet().size();
-
-        int delta = (maxBucket.size() - minBucket.size()) / 2;
-        delta = Math.min(deviceCount / bucketCount, delta);
-
-        List<CompletableFuture<Void>> setRoleFutures = Lists.newLinkedList();
-
-        if (delta > 0) {
-            log.info("Attempting to move {} nodes from {} to {}...", delta,
-                     largest.id(), smallest.id());
-            changeMastership(smallest, minBucket, maxBucket, delta, setRoleFutures);
+            nodesInRegions.addAll(regionMasters);
+            devicesInRegions.addAll(devicesInRegion);
+            plan.putAll(RoleBalancePlanner.plan(regionMasters, devicesInRegion, masters));
         }
 
-        return allOf(setRoleFutures.toArray(new CompletableFuture[setRoleFutures.size()]));
-    }
-
-    /**
-     * Changes mastership for the specified number of devices in the given source
-     * bucket to the specified node and ads those devices to the given target
-     * bucket. Also adds the futures for tracking the role reassignment progress.
-     *
-     * @param toNode     target controller node
-     * @param toBucket   target bucket
-     * @param fromBucket source bucket
-     * @param count      number of devices
-     * @param futures    futures for tracking operation progress
-     */
-    private void changeMastership(ControllerNode toNode, Collection<DeviceId> toBucket,
-                                  Collection<DeviceId> fromBucket, int count,
-                                  List<CompletableFuture<Void>> futures) {
-        int i = 0;
-        Iterator<DeviceId> it = fromBucket.iterator();
-        while (it.hasNext() && i < count) {
-            DeviceId deviceId = it.next();
-            log.info("Setting {} as the master for {}", toNode.id(), deviceId);
-            futures.add(setRole(toNode.id(), deviceId, MASTER));
-            toBucket.add(deviceId);
-            it.remove();
-            i++;
-        }
+        // Handle nodes not belonging to any region, along with the devices
+        // they master and the orphaned ones
+        List<NodeId> nodesNotInRegions = activeNodes.stream()
+                .filter(nodeId -> !nodesInRegions.contains(nodeId))
+                .collect(Collectors.toList());
+        Set<DeviceId> devicesNotInRegions = masters.keySet().stream()
+                .filter(deviceId -> !devicesInRegions.contains(deviceId))
+                .filter(deviceId -> !nodesInRegions.contains(masters.get(deviceId)))
+                .collect(Collectors.toSet());
+        plan.putAll(RoleBalancePlanner.plan(nodesNotInRegions, devicesNotInRegions, masters));
+        return plan;
     }
 
     /**
-     * Balances the nodes considering Region information.
+     * Carries out the planned mastership changes in waves of
+     * balanceRolesWaveSize parallel changes, pausing balanceRolesWaveDelay
+     * between the waves so that the new masters are not flooded with
+     * handovers.
      *
-     * @param allControllerDevices controller nodes to devices map
-     * @return true: nodes balanced; false: nodes not balanced
+     * @param plan new master of each device to move
      */
-    private boolean balanceRolesUsingRegions(Map<ControllerNode, Set<DeviceId>> allControllerDevices) {
-        Set<Region> regions = regionService.getRegions();
-        if (regions.isEmpty()) {
-            return false; // no balancing was done using regions.
-        }
-
-        // Handle nodes belonging to regions
-        Set<ControllerNode> nodesInRegions = Sets.newHashSet();
-        for (Region region : regions) {
-            Map<ControllerNode, Set<DeviceId>> activeRegionControllers =
-                    balanceRolesInRegion(region, allControllerDevices);
-            nodesInRegions.addAll(activeRegionControllers.keySet());
+    private void executePlan(Map<DeviceId, NodeId> plan) {
+        if (plan.isEmpty()) {
+            log.info("Device mastership is already balanced.");
+            return;
         }
 
-        // Handle nodes not belonging to any region
-        Set<ControllerNode> nodesNotInRegions = Sets.difference(allControllerDevices.keySet(), nodesInRegions);
-        if (!nodesNotInRegions.isEmpty()) {
-            int deviceCount = 0;
-            Map<ControllerNode, Set<DeviceId>> controllerDevicesNotInRegions = new HashMap<>();
-            for (ControllerNode controllerNode : nodesNotInRegions) {
-                controllerDevicesNotInRegions.put(controllerNode, allControllerDevices.get(controllerNode));
-                deviceCount += allControllerDevices.get(controllerNode).size();
+        log.info("Moving {} devices in waves of {}...", plan.size(), balanceRolesWaveSize);
+        long start = System.currentTimeMillis();
+        int done = 0;
+        int failed = 0;
+        long maxHandover = 0;
+        Iterator<List<Map.Entry<DeviceId, NodeId>>> waves =
+                Iterables.partition(plan.entrySet(), balanceRolesWaveSize).iterator();
+        while (waves.hasNext()) {
+            List<CompletableFuture<Long>> handovers = waves.next().stream()
+                    .map(move -> handover(move.getKey(), move.getValue()))
+                    .collect(Collectors.toList());
+            for (CompletableFuture<Long> handover : handovers) {
+                long millis = handover.join();
+                if (millis < 0) {
+                    failed++;
+                }
+                maxHandover = Math.max(maxHandover, millis);
+                done++;
+            }
+            log.info("Moved {} of {} devices.", done, plan.size());
+
+            if (waves.hasNext() && balanceRolesWaveDelay > 0) {
+                try {
+                    Thread.sleep(balanceRolesWaveDelay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("Interrupted after moving {} of {} devices.", done, plan.size());
+                    return;
+                }
             }
-            // Now re-balance the buckets until they are roughly even.
-            List<CompletableFuture<Void>> balanceBucketsFutures = Lists.newArrayList();
-            balanceControllerNodes(controllerDevicesNotInRegions, deviceCount, balanceBucketsFutures);
-
-            CompletableFuture<Void> balanceRolesFuture = allOf(
-                    balanceBucketsFutures.toArray(new CompletableFuture[balanceBucketsFutures.size()]));
-
-            Futures.getUnchecked(balanceRolesFuture);
         }
-        return true; // balancing was done using regions.
+        log.info("Moved {} devices in {} ms ({} failed, slowest handover took {} ms).",
+                 done - failed, System.currentTimeMillis() - start, failed, maxHandover);
     }
 
     /**
-     * Balances the nodes in specified region.
+     * Sets the given node as the master of the given device.
      *
-     * @param region               region in which nodes are to be balanced
-     * @param allControllerDevices controller nodes to devices map
-     * @return controller nodes that were balanced
+     * @param deviceId device identifier
+     * @param nodeId   new master
+     * @return future for the handover latency in ms, or -1 if it failed
      */
-    private Map<ControllerNode, Set<DeviceId>>
-            balanceRolesInRegion(Region region,
-                                 Map<ControllerNode, Set<DeviceId>> allControllerDevices) {
-
-        // Retrieve all devices associated with specified region
-        Set<DeviceId> devicesInRegion = regionService.getRegionDevices(region.id());
-        log.info("Region {} has {} devices.", region.id(), devicesInRegion.size());
-        if (devicesInRegion.isEmpty()) {
-            return new HashMap<>(); // no devices in this region, so nothing to balance.
-        }
-
-        List<Set<NodeId>> mastersList = region.masters();
-        log.info("Region {} has {} sets of masters.", region.id(), mastersList.size());
-        if (mastersList.isEmpty()) {
-            // TODO handle devices that belong to a region, which has no masters defined
-            return new HashMap<>(); // for now just leave devices alone
-        }
-
-        // Get the region's preferred set of masters
-        Set<DeviceId> devicesInMasters = Sets.newHashSet();
-        Map<ControllerNode, Set<DeviceId>> regionalControllerDevices =
-                getRegionsPreferredMasters(region, devicesInMasters, allControllerDevices);
-
-        // Now re-balance the buckets until they are roughly even.
-        List<CompletableFuture<Void>> balanceBucketsFutures = Lists.newArrayList();
-        balanceControllerNodes(regionalControllerDevices, devicesInMasters.size(), balanceBucketsFutures);
-
-        // Handle devices that are not currently mastered by the master node set
-        Set<DeviceId> devicesNotMasteredWithControllers = Sets.difference(devicesInRegion, devicesInMasters);
-        if (!devicesNotMasteredWithControllers.isEmpty()) {
-            // active controllers in master node set are already balanced, just
-            // assign device mastership in sequence
-            List<ControllerNode> sorted = new ArrayList<>(regionalControllerDevices.keySet());
-            Collections.sort(sorted, Comparator.comparingInt(o -> (regionalControllerDevices.get(o)).size()));
-            int deviceIndex = 0;
-            for (DeviceId deviceId : devicesNotMasteredWithControllers) {
-                ControllerNode cnode = sorted.get(deviceIndex % sorted.size());
-                balanceBucketsFutures.add(setRole(cnode.id(), deviceId, MASTER));
-                regionalControllerDevices.get(cnode).add(deviceId);
-                deviceIndex++;
+    private CompletableFuture<Long> handover(DeviceId deviceId, NodeId nodeId) {
+        log.debug("Setting {} as the master for {}", nodeId, deviceId);
+        final Context timer = startTimer(handoverTimer);
+        long start = System.currentTimeMillis();
+        return setRole(nodeId, deviceId, MASTER).handle((result, error) -> {
+            stopTimer(timer);
+            long millis = System.currentTimeMillis() - start;
+            if (error != null) {
+                log.warn("Failed to set {} as the master for {}", nodeId, deviceId, error);
+                return -1L;
             }
-        }
-
-        CompletableFuture<Void> balanceRolesFuture =
-                allOf(balanceBucketsFutures.toArray(new CompletableFuture[balanceBucketsFutures.size()]));
-
-        Futures.getUnchecked(balanceRolesFuture);
-
-        // Update the map before returning
-        regionalControllerDevices.forEach((controllerNode, deviceIds) -> {
-            regionalControllerDevices.put(controllerNode, new HashSet<>(getDevicesOf(controllerNode.id())));
+            log.debug("Handed {} over to {} in {} ms", deviceId, nodeId, millis);
+            return millis;
         });
-
-        return regionalControllerDevices;
     }
 
     /**
-     * Get region's preferred set of master nodes - the first master node set that has at
-     * least one active node.
+     * Get region's preferred set of master nodes - the active nodes of the
+     * first master node set that has at least one active node.
      *
-     * @param region               region for which preferred set of master nodes is requested
-     * @param devicesInMasters     device set to track devices in preferred set of master nodes
-     * @param allControllerDevices controller nodes to devices map
-     * @return region's preferred master nodes (and devices that use them as masters)
+     * @param region region for which preferred set of master nodes is requested
+     * @return region's preferred master nodes
      */
-    private Map<ControllerNode, Set<DeviceId>>
-            getRegionsPreferredMasters(Region region,
-                                       Set<DeviceId> devicesInMasters,
-                                       Map<ControllerNode, Set<DeviceId>> allControllerDevices) {
-        Map<ControllerNode, Set<DeviceId>> regionalControllerDevices = new HashMap<>();
+    private Set<NodeId> getRegionsPreferredMasters(Region region) {
+        Set<NodeId> regionMasters = Sets.newLinkedHashSet();
         int listIndex = 0;
         for (Set<NodeId> masterSet : region.masters()) {
             log.info("Region {} masters set {} has {} nodes.",
                      region.id(), listIndex, masterSet.size());
-            if (masterSet.isEmpty()) { // nothing on this level
-                listIndex++;
-                continue;
-            }
-            // Create buckets reflecting current ownership.
             for (NodeId nodeId : masterSet) {
                 if (clusterService.getState(nodeId).isActive()) {
-                    ControllerNode controllerNode = clusterService.getNode(nodeId);
-                    Set<DeviceId> devicesOf = new HashSet<>(allControllerDevices.get(controllerNode));
-                    regionalControllerDevices.put(controllerNode, devicesOf);
-                    devicesInMasters.addAll(devicesOf);
-                    log.info("Active Node {} has {} devices.", nodeId, devicesOf.size());
+                    regionMasters.add(nodeId);
+                    log.info("Active Node {} has {} devices.", nodeId, getDevicesOf(nodeId).size());
                 }
             }
-            if (!regionalControllerDevices.isEmpty()) {
+            if (!regionMasters.isEmpty()) {
                 break; // now have a set of >0 active controllers
             }
             listIndex++; // keep on looking
         }
-        return regionalControllerDevices;
+        return regionMasters;
     }
 
     public class InternalDelegate implements MastershipStoreDelegate {
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.cluster.impl;
+
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.DeviceId;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plans mastership changes which balance devices over controller nodes.
+ */
+final class RoleBalancePlanner {
+
+    private RoleBalancePlanner() {
+    }
+
+    /**
+     * Plans the mastership changes which spread the given devices evenly
+     * over the given nodes while moving as few devices as possible. Devices
+     * whose current master is not one of the nodes are always reassigned.
+     * <p>
+     * The changes are ordered so that consecutive ones go to different
+     * nodes, spreading the handover load when they are carried out in waves.
+     *
+     * @param nodes   nodes to master the devices
+     * @param devices devices to assign
+     * @param masters current master of the devices; devices without one are
+     *                not mapped
+     * @return new master of each device to move, in the order to move them
+     */
+    static Map<DeviceId, NodeId> plan(Collection<NodeId> nodes,
+                                      Collection<DeviceId> devices,
+                                      Map<DeviceId, NodeId> masters) {
+        Map<DeviceId, NodeId> moves = new LinkedHashMap<>();
+        if (nodes.isEmpty() || devices.isEmpty()) {
+            return moves;
+        }
+
+        Map<NodeId, List<DeviceId>> buckets = new LinkedHashMap<>();
+        nodes.forEach(node -> buckets.put(node, new ArrayList<>()));
+        Deque<DeviceId> unassigned = new ArrayDeque<>();
+        for (DeviceId deviceId : devices) {
+            List<DeviceId> bucket = buckets.get(masters.get(deviceId));
+            if (bucket != null) {
+                bucket.add(deviceId);
+            } else {
+                unassigned.add(deviceId);
+            }
+        }
+
+        // The most loaded nodes get the remainder, which leaves the most
+        // devices in place.
+        List<NodeId> byLoad = new ArrayList<>(buckets.keySet());
+        byLoad.sort(Comparator.comparingInt((NodeId node) -> buckets.get(node).size()).reversed());
+        int base = devices.size() / byLoad.size();
+        int remainder = devices.size() % byLoad.size();
+
+        Map<NodeId, Integer> shortfalls = new LinkedHashMap<>();
+        for (int i = 0; i < byLoad.size(); i++) {
+            NodeId node = byLoad.get(i);
+            List<DeviceId> bucket = buckets.get(node);
+            int target = i < remainder ? base + 1 : base;
+            while (bucket.size() > target) {
+                unassigned.add(bucket.remove(bucket.size() - 1));
+            }
+            if (bucket.size() < target) {
+                shortfalls.put(node, target - bucket.size());
+            }
+        }
+
+        // Hand out the surplus one device per node at a time.
+        while (!shortfalls.isEmpty()) {
+            Iterator<Map.Entry<NodeId, Integer>> it = shortfalls.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<NodeId, Integer> shortfall = it.next();
+                moves.put(unassigned.poll(), shortfall.getKey());
+                if (shortfall.getValue() == 1) {
+                    it.remove();
+                } else {
+                    shortfall.setValue(shortfall.getValue() - 1);
+                }
+            }
+        }
+        return moves;
+    }
+}
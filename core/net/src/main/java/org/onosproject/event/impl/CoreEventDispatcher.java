@@ -15,10 +15,18 @@
  */
 package org.onosproject.event.impl;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.SharedExecutors;
+import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.DefaultEventSinkRegistry;
 import org.onosproject.event.Event;
@@ -30,100 +38,307 @@ import org.onosproject.net.host.HostEvent;
 import org.onosproject.net.intent.IntentEvent;
 import org.onosproject.net.link.LinkEvent;
 import org.onosproject.net.topology.TopologyEvent;
+import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
+import java.util.Dictionary;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
 import java.util.TimerTask;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.net.OsgiPropertyConstants.CED_DISPATCH_OVERFLOW_POLICY;
+import static org.onosproject.net.OsgiPropertyConstants.CED_DISPATCH_OVERFLOW_POLICY_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.CED_DISPATCH_QUEUE_CAPACITY;
+import static org.onosproject.net.OsgiPropertyConstants.CED_DISPATCH_QUEUE_CAPACITY_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.CED_DISPATCH_SHARDS;
+import static org.onosproject.net.OsgiPropertyConstants.CED_DISPATCH_SHARDS_DEFAULT;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.EVENT_READ;
 import static org.onosproject.security.AppPermission.Type.EVENT_WRITE;
 import static org.slf4j.LoggerFactory.getLogger;
 /**
  * Simple implementation of an event dispatching service.
+ * <p>
+ * Topology and programming events can optionally be sharded by their subject
+ * key across several dispatch loops; events for the same subject are always
+ * delivered by the same loop, so per-subject ordering is preserved.
+ * </p>
  */
-@Component(immediate = true, service = EventDeliveryService.class)
+@Component(
+        immediate = true,
+        service = EventDeliveryService.class,
+        property = {
+                CED_DISPATCH_SHARDS + ":Integer=" + CED_DISPATCH_SHARDS_DEFAULT,
+                CED_DISPATCH_QUEUE_CAPACITY + ":Integer=" + CED_DISPATCH_QUEUE_CAPACITY_DEFAULT,
+                CED_DISPATCH_OVERFLOW_POLICY + "=" + CED_DISPATCH_OVERFLOW_POLICY_DEFAULT
+        }
+)
 public class CoreEventDispatcher extends DefaultEventSinkRegistry
         implements EventDeliveryService {
 
     private final Logger log = getLogger(getClass());
 
-
-    private DispatchLoop topologyDispatcher = new DispatchLoop("topology");
-    private DispatchLoop programmingDispatcher = new DispatchLoop("programming");
-    private DispatchLoop defaultDispatcher = new DispatchLoop("default");
-
-    private Map<Class, DispatchLoop> dispatcherMap =
-            new ImmutableMap.Builder<Class, DispatchLoop>()
-                .put(TopologyEvent.class, topologyDispatcher)
-                .put(DeviceEvent.class, topologyDispatcher)
-                .put(LinkEvent.class, topologyDispatcher)
-                .put(HostEvent.class, topologyDispatcher)
-                .put(FlowRuleEvent.class, programmingDispatcher)
-                .put(IntentEvent.class, programmingDispatcher)
+    private static final String TOPOLOGY = "topology";
+    private static final String PROGRAMMING = "programming";
+    private static final String DEFAULT = "default";
+
+    private static final Map<Class, String> CATEGORIES =
+            new ImmutableMap.Builder<Class, String>()
+                .put(TopologyEvent.class, TOPOLOGY)
+                .put(DeviceEvent.class, TOPOLOGY)
+                .put(LinkEvent.class, TOPOLOGY)
+                .put(HostEvent.class, TOPOLOGY)
+                .put(FlowRuleEvent.class, PROGRAMMING)
+                .put(IntentEvent.class, PROGRAMMING)
                 .build();
 
-    private Set<DispatchLoop> dispatchers =
-            new ImmutableSet.Builder<DispatchLoop>()
-                .addAll(dispatcherMap.values())
-                .add(defaultDispatcher)
+    // Subject keys used to select the shard; all topology events share a key
+    // since each of them carries a different topology snapshot.
+    private static final Map<Class, Function<Event, Object>> SHARD_KEYS =
+            new ImmutableMap.Builder<Class, Function<Event, Object>>()
+                .put(TopologyEvent.class, e -> TopologyEvent.class)
+                .put(DeviceEvent.class, e -> ((DeviceEvent) e).subject().id())
+                .put(LinkEvent.class, e -> ((LinkEvent) e).subject().src().deviceId())
+                .put(HostEvent.class, e -> ((HostEvent) e).subject().id())
+                .put(FlowRuleEvent.class, e -> ((FlowRuleEvent) e).subject().deviceId())
+                .put(IntentEvent.class, e -> ((IntentEvent) e).subject().key())
                 .build();
 
     // Default number of millis a sink can take to process an event.
     private static final long DEFAULT_EXECUTE_MS = 5_000; // ms
     private static final long WATCHDOG_MS = 250; // ms
+    // Number of millis a poster waits for room in a full queue.
+    private static final long POST_TIMEOUT_MS = 1_000; // ms
+    // Number of millis new dispatch loops wait for the ones they replace to drain.
+    private static final long DRAIN_TIMEOUT_MS = 10_000; // ms
+
+    private static final String METRICS_COMPONENT = "EventDispatcher";
+    private static final String QUEUE_DEPTH = "queueDepth";
+    private static final String LATENCY = "latency";
+    private static final String DROPPED = "dropped";
 
     @SuppressWarnings("unchecked")
     private static final Event KILL_PILL = new AbstractEvent(null, 0) {
     };
 
+    // Set on the threads of the dispatch loops, which never block on posting
+    private static final ThreadLocal<Boolean> DISPATCHING = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * Policy applied when posting to a dispatch loop whose queue is full.
+     */
+    enum OverflowPolicy {
+        /**
+         * Posting thread waits for room in the queue, up to a fixed timeout.
+         * Events posted by the dispatch loops themselves, i.e. by the sinks,
+         * are dropped instead, as a loop blocked on another full loop could
+         * end up waiting for itself.
+         */
+        BLOCK,
+
+        /**
+         * Event is dropped immediately.
+         */
+        DROP
+    }
+
+    // Optional to avoid a circular dependency; most services need the dispatcher.
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL,
+            bind = "bindComponentConfigService",
+            unbind = "unbindComponentConfigService",
+            policy = ReferencePolicy.DYNAMIC)
+    protected volatile ComponentConfigService cfgService;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL,
+            bind = "bindMetricsService",
+            unbind = "unbindMetricsService",
+            policy = ReferencePolicy.DYNAMIC)
+    protected volatile MetricsService metricsService;
+
+    /** Number of dispatch loops for topology and for programming events; ordering is kept per subject only. */
+    private int dispatchShards = CED_DISPATCH_SHARDS_DEFAULT;
+
+    /** Capacity of each dispatch loop queue; 0 for unbounded. */
+    private int dispatchQueueCapacity = CED_DISPATCH_QUEUE_CAPACITY_DEFAULT;
+
+    /** Policy for posting to a full dispatch queue: BLOCK or DROP. */
+    private volatile OverflowPolicy dispatchOverflowPolicy =
+            OverflowPolicy.valueOf(CED_DISPATCH_OVERFLOW_POLICY_DEFAULT);
+
+    private volatile DispatchTable dispatchTable = new DispatchTable(dispatchShards, dispatchQueueCapacity);
+
     private long maxProcessMillis = DEFAULT_EXECUTE_MS;
 
     private DispatchLoop getDispatcher(Event event) {
-        DispatchLoop dispatcher = dispatcherMap.get(event.getClass());
-        if (dispatcher == null) {
-            dispatcher = defaultDispatcher;
+        DispatchTable table = dispatchTable;
+        List<DispatchLoop> loops = table.dispatcherMap.get(event.getClass());
+        if (loops == null) {
+            return table.defaultDispatcher;
+        }
+        if (loops.size() == 1) {
+            return loops.get(0);
         }
-        return dispatcher;
+        Object key = SHARD_KEYS.get(event.getClass()).apply(event);
+        return loops.get(Math.floorMod(Objects.hashCode(key), loops.size()));
     }
 
     @Override
     public void post(Event event) {
 
         if (!getDispatcher(event).add(event)) {
-            log.error("Unable to post event {}", event);
+            if (dispatchOverflowPolicy == OverflowPolicy.DROP) {
+                log.debug("Dropped event {}; dispatch queue is full", event);
+            } else {
+                log.error("Unable to post event {}", event);
+            }
         }
     }
 
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
+        modified(context);
 
         if (maxProcessMillis != 0) {
-            dispatchers.forEach(DispatchLoop::start);
+            dispatchTable.start();
         }
+        dispatchTable.registerMetrics(metricsService);
 
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
-        dispatchers.forEach(DispatchLoop::stop);
+        dispatchTable.stop();
+        dispatchTable.removeMetrics(metricsService);
+        if (cfgService != null) {
+            cfgService.unregisterProperties(getClass(), false);
+        }
 
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+        Dictionary<?, ?> properties = context.getProperties();
+
+        int newShards = Tools.getIntegerProperty(properties, CED_DISPATCH_SHARDS, dispatchShards);
+        int newCapacity = Tools.getIntegerProperty(properties, CED_DISPATCH_QUEUE_CAPACITY,
+                                                   dispatchQueueCapacity);
+        String policy = Tools.get(properties, CED_DISPATCH_OVERFLOW_POLICY);
+        if (!isNullOrEmpty(policy)) {
+            try {
+                dispatchOverflowPolicy = OverflowPolicy.valueOf(policy.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                log.warn("Unknown dispatch overflow policy {}; using {}", policy, dispatchOverflowPolicy);
+            }
+        }
+
+        if (newShards < 1 || newCapacity < 0) {
+            log.warn("Invalid dispatch configuration: shards={}, capacity={}; ignoring",
+                     newShards, newCapacity);
+            return;
+        }
+        if (newShards != dispatchShards || newCapacity != dispatchQueueCapacity) {
+            dispatchShards = newShards;
+            dispatchQueueCapacity = newCapacity;
+            reconfigure();
+        }
+        log.info("Settings: {}={}, {}={}, {}={}",
+                 CED_DISPATCH_SHARDS, dispatchShards,
+                 CED_DISPATCH_QUEUE_CAPACITY, dispatchQueueCapacity,
+                 CED_DISPATCH_OVERFLOW_POLICY, dispatchOverflowPolicy);
+    }
+
+    // Swaps in a new set of dispatch loops, which queue new events but only
+    // start delivering them once the old loops have drained their backlog, so
+    // that events for the same subject are not delivered out of order.
+    private void reconfigure() {
+        DispatchTable oldTable = dispatchTable;
+        DispatchTable newTable = new DispatchTable(dispatchShards, dispatchQueueCapacity);
+        boolean start = oldTable.started;
+        newTable.registerMetrics(metricsService);
+        dispatchTable = newTable;
+        oldTable.removeMetrics(metricsService);
+        CompletableFuture<Void> drained = oldTable.retire();
+        if (start) {
+            drained.orTimeout(DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            log.warn("Dispatch loops not drained within {} ms; starting new loops",
+                                     DRAIN_TIMEOUT_MS);
+                        }
+                        newTable.start();
+                    });
+        }
+    }
+
+    /**
+     * Hook for wiring the optional reference to the configuration service.
+     *
+     * @param service service being announced
+     */
+    protected void bindComponentConfigService(ComponentConfigService service) {
+        cfgService = service;
+        service.registerProperties(getClass());
+    }
+
+    /**
+     * Hook for unwiring the optional reference to the configuration service.
+     *
+     * @param service service being withdrawn
+     */
+    protected void unbindComponentConfigService(ComponentConfigService service) {
+        if (cfgService == service) {
+            cfgService = null;
+        }
+    }
+
+    /**
+     * Hook for wiring the optional reference to the metrics service.
+     *
+     * @param service service being announced
+     */
+    protected void bindMetricsService(MetricsService service) {
+        metricsService = service;
+        dispatchTable.registerMetrics(service);
+    }
+
+    /**
+     * Hook for unwiring the optional reference to the metrics service.
+     *
+     * @param service service being withdrawn
+     */
+    protected void unbindMetricsService(MetricsService service) {
+        dispatchTable.removeMetrics(service);
+        if (metricsService == service) {
+            metricsService = null;
+        }
+    }
+
     @Override
     public void setDispatchTimeLimit(long millis) {
         checkPermission(EVENT_WRITE);
@@ -133,9 +348,9 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         maxProcessMillis = millis;
 
         if (millis == 0 && oldMillis != 0) {
-            dispatchers.forEach(DispatchLoop::stopWatchdog);
+            dispatchTable.loops.forEach(DispatchLoop::stopWatchdog);
         } else if (millis != 0 && oldMillis == 0) {
-            dispatchers.forEach(DispatchLoop::startWatchdog);
+            dispatchTable.loops.forEach(DispatchLoop::startWatchdog);
         }
     }
 
@@ -145,39 +360,150 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         return maxProcessMillis;
     }
 
+    // Immutable set of dispatch loops and the mapping of event classes onto them.
+    private class DispatchTable {
+        private final Map<Class, List<DispatchLoop>> dispatcherMap;
+        private final DispatchLoop defaultDispatcher;
+        private final List<DispatchLoop> loops;
+        private volatile boolean started;
+        private boolean stopped;
+
+        DispatchTable(int shards, int capacity) {
+            Map<String, List<DispatchLoop>> categories = ImmutableMap.of(
+                    TOPOLOGY, createLoops(TOPOLOGY, shards, capacity),
+                    PROGRAMMING, createLoops(PROGRAMMING, shards, capacity));
+            ImmutableMap.Builder<Class, List<DispatchLoop>> builder = ImmutableMap.builder();
+            CATEGORIES.forEach((eventClass, category) -> builder.put(eventClass, categories.get(category)));
+            dispatcherMap = builder.build();
+            defaultDispatcher = new DispatchLoop(DEFAULT, capacity);
+
+            ImmutableList.Builder<DispatchLoop> all = ImmutableList.builder();
+            categories.values().forEach(all::addAll);
+            loops = all.add(defaultDispatcher).build();
+        }
+
+        // A single loop keeps its historical name for continuity of thread names.
+        private List<DispatchLoop> createLoops(String category, int shards, int capacity) {
+            if (shards == 1) {
+                return ImmutableList.of(new DispatchLoop(category, capacity));
+            }
+            ImmutableList.Builder<DispatchLoop> builder = ImmutableList.builder();
+            for (int i = 0; i < shards; i++) {
+                builder.add(new DispatchLoop(category + "-" + i, capacity));
+            }
+            return builder.build();
+        }
+
+        // A table stopped before it was started, e.g. while waiting for the
+        // table it replaces to drain, is never started.
+        synchronized void start() {
+            if (!stopped) {
+                started = true;
+                loops.forEach(DispatchLoop::start);
+            }
+        }
+
+        synchronized void stop() {
+            stopped = true;
+            started = false;
+            loops.forEach(DispatchLoop::stop);
+        }
+
+        CompletableFuture<Void> retire() {
+            started = false;
+            return CompletableFuture.allOf(loops.stream()
+                                                   .map(DispatchLoop::retire)
+                                                   .toArray(CompletableFuture[]::new));
+        }
+
+        void registerMetrics(MetricsService service) {
+            if (service != null) {
+                loops.forEach(loop -> loop.registerMetrics(service));
+            }
+        }
+
+        void removeMetrics(MetricsService service) {
+            if (service != null) {
+                loops.forEach(loop -> loop.removeMetrics(service));
+            }
+        }
+    }
+
+    // Event accompanied by the time it was queued, for latency tracking.
+    private static final class Dispatch {
+        private final Event event;
+        private final long queuedNanos;
+
+        Dispatch(Event event) {
+            this.event = event;
+            this.queuedNanos = System.nanoTime();
+        }
+    }
+
     // Auxiliary event dispatching loop that feeds off the events queue.
     private class DispatchLoop implements Runnable {
         private final String name;
         private volatile boolean stopped;
+        private volatile boolean retired;
         private volatile EventSink lastSink;
         // Means to detect long-running sinks
         private final Stopwatch stopwatch = Stopwatch.createUnstarted();
         private TimerTask watchdog;
         private volatile Future<?> dispatchFuture;
-        private final BlockingQueue<Event> eventsQueue;
+        private final BlockingQueue<Dispatch> eventsQueue;
         private final ExecutorService executor;
+        // Completed once a retired loop has terminated
+        private final CompletableFuture<Void> terminated = new CompletableFuture<>();
+
+        // Metrics; null unless the metrics service is available
+        private volatile MetricsFeature metricsFeature;
+        private volatile Timer latencyTimer;
+        private volatile Counter droppedCounter;
 
-        DispatchLoop(String name) {
+        DispatchLoop(String name, int capacity) {
             this.name = name;
             executor = newSingleThreadExecutor(
                     groupedThreads("onos/event",
                     "dispatch-" + name + "%d", log));
-            eventsQueue = new LinkedBlockingQueue<>();
+            eventsQueue = capacity > 0 ? new ArrayBlockingQueue<>(capacity) : new LinkedBlockingQueue<>();
         }
 
         public boolean add(Event event) {
-            return eventsQueue.add(event);
+            Dispatch dispatch = new Dispatch(event);
+            boolean added;
+            // Never block a dispatch thread: the loop's own thread is the one
+            // to make room, and the others may be waited for by this loop.
+            if (dispatchOverflowPolicy == OverflowPolicy.DROP || DISPATCHING.get()) {
+                added = eventsQueue.offer(dispatch);
+            } else {
+                try {
+                    added = eventsQueue.offer(dispatch, POST_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    added = false;
+                }
+            }
+            if (!added) {
+                Counter counter = droppedCounter;
+                if (counter != null) {
+                    counter.inc();
+                }
+            }
+            return added;
         }
 
         @Override
         public void run() {
             log.info("Dispatch loop({}) initiated", name);
+            DISPATCHING.set(true);
             while (!stopped) {
                 try {
                     // Fetch the next event and if it is the kill-pill, bail
-                    Event event = eventsQueue.take();
-                    if (event != KILL_PILL) {
-                        process(event);
+                    Dispatch dispatch = eventsQueue.take();
+                    if (dispatch.event != KILL_PILL) {
+                        process(dispatch);
+                    } else if (retired) {
+                        break;
                     }
                 } catch (InterruptedException e) {
                     log.warn("Dispatch loop interrupted");
@@ -185,12 +511,17 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
                     log.warn("Error encountered while dispatching event:", e);
                 }
             }
+            if (retired) {
+                handOff();
+            }
+            DISPATCHING.remove();
             log.info("Dispatch loop({}) terminated", name);
         }
 
         // Locate the sink for the event class and use it to process the event
         @SuppressWarnings("unchecked")
-        private void process(Event event) {
+        private void process(Dispatch dispatch) {
+            Event event = dispatch.event;
             EventSink sink = getSink(event.getClass());
             if (sink != null) {
                 lastSink = sink;
@@ -201,11 +532,29 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
                 log.warn("No sink registered for event class {}",
                          event.getClass().getName());
             }
+            Timer timer = latencyTimer;
+            if (timer != null) {
+                timer.update(System.nanoTime() - dispatch.queuedNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        // Re-posts anything left behind by a retired loop to the current loops.
+        // This only happens if the loop could not drain gracefully, in which
+        // case these events may be delivered after newer ones.
+        private void handOff() {
+            stopWatchdog();
+            List<Dispatch> leftovers = new ArrayList<>();
+            eventsQueue.drainTo(leftovers);
+            leftovers.stream()
+                    .filter(dispatch -> dispatch.event != KILL_PILL)
+                    .forEach(dispatch -> post(dispatch.event));
+            executor.shutdown();
+            terminated.complete(null);
         }
 
         void stop() {
             stopped = true;
-            add(KILL_PILL);
+            eventsQueue.offer(new Dispatch(KILL_PILL));
             if (null != dispatchFuture) {
                 dispatchFuture.cancel(true);
             }
@@ -218,6 +567,54 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
             startWatchdog();
         }
 
+        // Lets the loop process its backlog and then terminate; the watchdog
+        // keeps running until then.
+        CompletableFuture<Void> retire() {
+            retired = true;
+            if (dispatchFuture == null) {
+                handOff();
+                return terminated;
+            }
+            try {
+                if (!eventsQueue.offer(new Dispatch(KILL_PILL), POST_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    log.warn("Unable to retire dispatch loop({}) gracefully", name);
+                    stop();
+                    handOff();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stop();
+                handOff();
+            }
+            return terminated;
+        }
+
+        synchronized void registerMetrics(MetricsService service) {
+            if (metricsFeature != null) {
+                return;
+            }
+            MetricsComponent component = service.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(name);
+            service.registerMetric(component, feature, QUEUE_DEPTH, (Gauge<Integer>) eventsQueue::size);
+            latencyTimer = service.createTimer(component, feature, LATENCY);
+            droppedCounter = service.createCounter(component, feature, DROPPED);
+            metricsFeature = feature;
+        }
+
+        synchronized void removeMetrics(MetricsService service) {
+            MetricsFeature feature = metricsFeature;
+            if (feature == null) {
+                return;
+            }
+            metricsFeature = null;
+            latencyTimer = null;
+            droppedCounter = null;
+            MetricsComponent component = service.registerComponent(METRICS_COMPONENT);
+            service.removeMetric(component, feature, QUEUE_DEPTH);
+            service.removeMetric(component, feature, LATENCY);
+            service.removeMetric(component, feature, DROPPED);
+        }
+
         // Monitors event sinks to make sure none take too long to execute.
         private class Watchdog extends TimerTask {
             @Override
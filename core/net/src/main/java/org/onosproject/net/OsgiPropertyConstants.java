@@ -26,6 +26,12 @@ public final class OsgiPropertyConstants {
     public static final String REBALANCE_ROLES_ON_UPGRADE = "rebalanceRolesOnUpgrade";
     public static final boolean REBALANCE_ROLES_ON_UPGRADE_DEFAULT = true;
 
+    public static final String BALANCE_ROLES_WAVE_SIZE = "balanceRolesWaveSize";
+    public static final int BALANCE_ROLES_WAVE_SIZE_DEFAULT = 200;
+
+    public static final String BALANCE_ROLES_WAVE_DELAY = "balanceRolesWaveDelay";
+    public static final int BALANCE_ROLES_WAVE_DELAY_DEFAULT = 100; //ms
+
     public static final String SHARED_THREAD_POOL_SIZE = "sharedThreadPoolSize";
     public static final int SHARED_THREAD_POOL_SIZE_DEFAULT = 30;
 
@@ -98,6 +104,9 @@ public final class OsgiPropertyConstants {
     public static final String IM_NUM_THREADS = "numThreads";
     public static final int IM_NUM_THREADS_DEFAULT = 12;
 
+    public static final String IM_MAX_BATCHES_IN_FLIGHT = "maxBatchesInFlight";
+    public static final int IM_MAX_BATCHES_IN_FLIGHT_DEFAULT = 1;
+
     public static final String MM_NUM_THREADS = "numThreads";
     public static final int MM_NUM_THREADS_DEFAULT = 12;
 
@@ -140,4 +149,13 @@ public final class OsgiPropertyConstants {
     public static final String FOM_ACCUMULATOR_MAX_BATCH_MILLIS = "accumulatorMaxBatchMillis";
     public static final int FOM_ACCUMULATOR_MAX_BATCH_MILLIS_DEFAULT = 500;
 
+    public static final String CED_DISPATCH_SHARDS = "dispatchShards";
+    public static final int CED_DISPATCH_SHARDS_DEFAULT = 1;
+
+    public static final String CED_DISPATCH_QUEUE_CAPACITY = "dispatchQueueCapacity";
+    public static final int CED_DISPATCH_QUEUE_CAPACITY_DEFAULT = 0;
+
+    public static final String CED_DISPATCH_OVERFLOW_POLICY = "dispatchOverflowPolicy";
+    public static final String CED_DISPATCH_OVERFLOW_POLICY_DEFAULT = "BLOCK";
+
 }
@@ -16,18 +16,20 @@
 package org.onosproject.net.flow.impl;
 
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Sets;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
 import org.onosproject.core.IdGenerator;
 import org.onosproject.mastership.MastershipService;
-import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.device.DeviceListener;
@@ -63,6 +65,7 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 
 import java.util.Collections;
@@ -75,6 +78,8 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -118,6 +123,11 @@ public class FlowRuleManager
     private static final String DEVICE_ID_NULL = "Device ID cannot be null";
     private static final String FLOW_RULE_NULL = "FlowRule cannot be null";
 
+    // statistics generation of polls which are not reconciled, leaving the stored entries unmarked
+    private static final long NO_GENERATION = 0;
+    private static final String METRICS_COMPONENT = "FlowRuleManager";
+    private static final String METRICS_FEATURE = "statsReconciliation";
+
     /** Allow flow rules in switch not installed by ONOS. */
     private boolean allowExtraneousRules = ALLOW_EXTRANEOUS_RULES_DEFAULT;
 
@@ -142,6 +152,9 @@ public class FlowRuleManager
 
     private final Map<Long, FlowOperationsProcessor> pendingFlowOperations = new ConcurrentHashMap<>();
 
+    // Flow statistics reconciliation state of each device
+    private final Map<DeviceId, FlowStatsReconciliation> flowStatsReconciliations = new ConcurrentHashMap<>();
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected FlowRuleStore store;
 
@@ -160,6 +173,9 @@ public class FlowRuleManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected DriverService driverService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    protected volatile MetricsService metricsService;
+
     @Activate
     public void activate(ComponentContext context) {
         store.setDelegate(delegate);
@@ -303,47 +319,19 @@ public class FlowRuleManager
     @Override
     public void removeFlowRulesById(ApplicationId id) {
         checkPermission(FLOWRULE_WRITE);
-
-        Set<FlowRule> flowEntries = Sets.newHashSet();
-        for (Device d : deviceService.getDevices()) {
-            for (FlowEntry flowEntry : store.getFlowEntries(d.id())) {
-                if (flowEntry.appId() == id.id()) {
-                    flowEntries.add(flowEntry);
-                }
-            }
-        }
-        removeFlowRules(Iterables.toArray(flowEntries, FlowRule.class));
+        removeFlowRules(Iterables.toArray(store.getFlowEntriesByAppId(id), FlowRule.class));
     }
 
     @Override
     public Iterable<FlowEntry> getFlowEntriesById(ApplicationId id) {
         checkPermission(FLOWRULE_READ);
-
-        Set<FlowEntry> flowEntries = Sets.newHashSet();
-        for (Device d : deviceService.getDevices()) {
-            for (FlowEntry flowEntry : store.getFlowEntries(d.id())) {
-                if (flowEntry.appId() == id.id()) {
-                    flowEntries.add(flowEntry);
-                }
-            }
-        }
-        return flowEntries;
+        return store.getFlowEntriesByAppId(id);
     }
 
     @Override
     public Iterable<FlowRule> getFlowRulesByGroupId(ApplicationId appId, short groupId) {
         checkPermission(FLOWRULE_READ);
-
-        Set<FlowRule> matches = Sets.newHashSet();
-        long toLookUp = ((long) appId.id() << 16) | groupId;
-        for (Device d : deviceService.getDevices()) {
-            for (FlowEntry flowEntry : store.getFlowEntries(d.id())) {
-                if ((flowEntry.id().value() >>> 32) == toLookUp) {
-                    matches.add(flowEntry);
-                }
-            }
-        }
-        return matches;
+        return ImmutableSet.<FlowRule>copyOf(store.getFlowEntriesByGroupId(appId, groupId));
     }
 
     @Override
@@ -379,6 +367,109 @@ public class FlowRuleManager
                         .orElseGet(() -> super.getProvider(deviceId));
     }
 
+    private FlowStatsReconciliation getFlowStatsReconciliation(DeviceId deviceId) {
+        return flowStatsReconciliations.computeIfAbsent(deviceId, FlowStatsReconciliation::new);
+    }
+
+    /**
+     * Flow statistics reconciliation state of a device.
+     * <p>
+     * Each poll of the flow statistics of the device is a generation handed
+     * out by the store. The store marks the entries found in the statistics
+     * pushed for a poll, and the entries stored after the poll started, with
+     * its generation, so that the entries missing from the device are those
+     * left unmarked once the poll is complete. This avoids copying the flow
+     * table of the device on every poll.
+     * <p>
+     * Only one poll of a device is reconciled at a time, since the marks of
+     * overlapping polls would overwrite each other. The statistics of a poll
+     * started while another one is being reconciled are still applied, but
+     * no flows are reported missing for it.
+     */
+    private final class FlowStatsReconciliation {
+        private final DeviceId deviceId;
+        // guarded by this
+        private Poll reconciling;
+        private Poll chunkedPoll;
+
+        private FlowStatsReconciliation(DeviceId deviceId) {
+            this.deviceId = deviceId;
+        }
+
+        /**
+         * Starts a poll, which is reconciled unless another poll is.
+         *
+         * @return the new poll
+         */
+        synchronized Poll startPoll() {
+            if (reconciling != null) {
+                return new Poll(NO_GENERATION);
+            }
+            reconciling = new Poll(store.startFlowStatsPoll(deviceId));
+            return reconciling;
+        }
+
+        /**
+         * Returns the chunked poll in progress, starting it with its first
+         * chunk.
+         *
+         * @return the chunked poll
+         */
+        synchronized Poll chunkedPoll() {
+            if (chunkedPoll == null) {
+                chunkedPoll = startPoll();
+            }
+            return chunkedPoll;
+        }
+
+        /**
+         * Ends the chunked poll in progress, or starts and ends a poll with
+         * no chunks if there is none.
+         *
+         * @return the ended chunked poll
+         */
+        synchronized Poll endChunkedPoll() {
+            Poll poll = chunkedPoll != null ? chunkedPoll : startPoll();
+            chunkedPoll = null;
+            return poll;
+        }
+
+        /**
+         * Completes the given poll, allowing the next poll to be reconciled.
+         *
+         * @param poll  the completed poll
+         * @param nanos time spent completing the poll in nanoseconds
+         */
+        void complete(Poll poll, long nanos) {
+            synchronized (this) {
+                if (reconciling == poll) {
+                    reconciling = null;
+                }
+            }
+            long elapsed = poll.elapsedNanos.get() + nanos;
+            MetricsService metrics = metricsService;
+            if (metrics != null) {
+                MetricsComponent component = metrics.registerComponent(METRICS_COMPONENT);
+                MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+                metrics.createTimer(component, feature, deviceId.toString())
+                        .update(elapsed, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Poll of the flow statistics of a device.
+     */
+    private static final class Poll {
+        // generation of the poll; NO_GENERATION if it is not reconciled
+        private final long generation;
+        private final AtomicLong elapsedNanos = new AtomicLong();
+
+        private Poll(long generation) {
+            this.generation = generation;
+        }
+    }
+
     private class InternalFlowRuleProviderService
             extends AbstractProviderService<FlowRuleProvider>
             implements FlowRuleProviderService {
@@ -476,11 +567,11 @@ public class FlowRuleManager
             log.debug("Flow {} is on switch but not in store.", flowRule);
         }
 
-        private void flowAdded(FlowEntry flowEntry) {
+        private void flowAdded(FlowEntry flowEntry, FlowEntry storedEntry) {
             checkNotNull(flowEntry, FLOW_RULE_NULL);
             checkValidity();
 
-            if (checkRuleLiveness(flowEntry, store.getFlowEntry(flowEntry))) {
+            if (checkRuleLiveness(flowEntry, storedEntry)) {
                 FlowRuleEvent event = store.addOrUpdateFlowRule(flowEntry);
                 if (event == null) {
                     log.debug("No flow store event generated.");
@@ -537,26 +628,60 @@ public class FlowRuleManager
 
         @Override
         public void pushFlowMetrics(DeviceId deviceId, Iterable<FlowEntry> flowEntries) {
-            pushFlowMetricsInternal(deviceId, flowEntries, true);
+            FlowStatsReconciliation reconciliation = getFlowStatsReconciliation(deviceId);
+            Poll poll = reconciliation.startPoll();
+            long start = System.nanoTime();
+            pushFlowMetricsInternal(deviceId, flowEntries, poll.generation);
+            poll.elapsedNanos.addAndGet(System.nanoTime() - start);
+            completePoll(deviceId, reconciliation, poll);
         }
 
         @Override
         public void pushFlowMetricsWithoutFlowMissing(DeviceId deviceId, Iterable<FlowEntry> flowEntries) {
-            pushFlowMetricsInternal(deviceId, flowEntries, false);
+            // Partial statistics do not mark the entries as seen, since they do not take part in a poll
+            pushFlowMetricsInternal(deviceId, flowEntries, NO_GENERATION);
+        }
+
+        @Override
+        public void pushFlowMetricsChunk(DeviceId deviceId, Iterable<FlowEntry> flowEntries) {
+            Poll poll = getFlowStatsReconciliation(deviceId).chunkedPoll();
+            long start = System.nanoTime();
+            pushFlowMetricsInternal(deviceId, flowEntries, poll.generation);
+            poll.elapsedNanos.addAndGet(System.nanoTime() - start);
         }
 
-        private void pushFlowMetricsInternal(DeviceId deviceId, Iterable<FlowEntry> flowEntries,
-                                             boolean useMissingFlow) {
-            Map<FlowEntry, FlowEntry> storedRules = Maps.newHashMap();
-            store.getFlowEntries(deviceId).forEach(f -> storedRules.put(f, f));
+        @Override
+        public void completeFlowMetrics(DeviceId deviceId) {
+            FlowStatsReconciliation reconciliation = getFlowStatsReconciliation(deviceId);
+            completePoll(deviceId, reconciliation, reconciliation.endChunkedPoll());
+        }
 
+        private void completePoll(DeviceId deviceId, FlowStatsReconciliation reconciliation, Poll poll) {
+            long start = System.nanoTime();
+            if (poll.generation != NO_GENERATION) {
+                // DO NOT reinstall
+                for (FlowEntry rule : store.getUnseenFlowEntries(deviceId, poll.generation)) {
+                    try {
+                        // there are rules in the store that aren't on the switch
+                        log.debug("Adding the rule that is present in store but not on switch : {}", rule);
+                        flowMissing(rule, true);
+                    } catch (Exception e) {
+                        log.warn("Can't add missing flow rule:", e);
+                    }
+                }
+            }
+            reconciliation.complete(poll, System.nanoTime() - start);
+        }
+
+        private void pushFlowMetricsInternal(DeviceId deviceId, Iterable<FlowEntry> flowEntries, long generation) {
+            Map<FlowEntry, FlowEntry> storedRules = store.getReportedFlowEntries(deviceId, flowEntries, generation);
             for (FlowEntry rule : flowEntries) {
                 try {
-                    FlowEntry storedRule = storedRules.remove(rule);
+                    FlowEntry storedRule = storedRules.get(rule);
                     if (storedRule != null) {
                         if (storedRule.exactMatch(rule)) {
                             // we both have the rule, let's update some info then.
-                            flowAdded(rule);
+                            flowAdded(rule, storedRule);
                         } else {
                             // the two rules are not an exact match - remove the
                             // switch's rule and install our rule
@@ -574,19 +699,6 @@ public class FlowRuleManager
                              rule, deviceId, e);
                 }
             }
-
-            // DO NOT reinstall
-            if (useMissingFlow) {
-                for (FlowEntry rule : storedRules.keySet()) {
-                    try {
-                        // there are rules in the store that aren't on the switch
-                        log.debug("Adding the rule that is present in store but not on switch : {}", rule);
-                        flowMissing(rule, true);
-                    } catch (Exception e) {
-                        log.warn("Can't add missing flow rule:", e);
-                    }
-                }
-            }
         }
 
         @Override
@@ -754,11 +866,23 @@ public class FlowRuleManager
         return store.getActiveFlowRuleCount(deviceId);
     }
 
+    private void removeFlowStatsReconciliation(DeviceId deviceId) {
+        flowStatsReconciliations.remove(deviceId);
+        MetricsService metrics = metricsService;
+        if (metrics != null) {
+            MetricsComponent component = metrics.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            metrics.removeMetric(component, feature, deviceId.toString());
+        }
+    }
+
     private class InternalDeviceListener implements DeviceListener {
         @Override
         public void event(DeviceEvent event) {
             switch (event.type()) {
                 case DEVICE_REMOVED:
+                    removeFlowStatsReconciliation(event.subject().id());
+                    // fall through
                 case DEVICE_AVAILABILITY_CHANGED:
                     DeviceId deviceId = event.subject().id();
                     if (!deviceService.isAvailable(deviceId)) {
@@ -15,7 +15,9 @@
  */
 package org.onosproject.net.intent.impl;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.onlab.util.AbstractAccumulator;
 import org.onosproject.net.intent.IntentBatchDelegate;
 import org.onosproject.net.intent.IntentData;
@@ -24,17 +26,23 @@ import org.onosproject.net.intent.Key;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Timer;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
- * An accumulator for building batches of intent operations. Only one batch should
- * be in process per instance at a time.
+ * An accumulator for building batches of intent operations. Up to a configurable
+ * number of batches may be in process per instance at a time; operations on
+ * intent keys that are still part of an in-flight batch are held back until
+ * that batch completes, so the same key is never processed concurrently.
  */
 public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
     private static final int DEFAULT_MAX_EVENTS = 1000;
     private static final int DEFAULT_MAX_IDLE_MS = 10;
     private static final int DEFAULT_MAX_BATCH_MS = 50;
+    private static final int DEFAULT_MAX_BATCHES_IN_FLIGHT = 1;
 
     // FIXME: Replace with a system-wide timer instance;
     // TODO: Convert to use HashedWheelTimer or produce a variant of that; then decide which we want to adopt
@@ -42,41 +50,122 @@ public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
     private final IntentBatchDelegate delegate;
 
-    private volatile boolean ready;
+    // Keys of the operations in the batches currently being processed
+    private final Set<Key> inFlightKeys = Sets.newHashSet();
+    // Operations held back because their key was in flight when accumulated
+    private final Map<Key, IntentData> deferred = Maps.newLinkedHashMap();
+
+    private volatile int maxBatchesInFlight;
+    private volatile int batchesInFlight;
 
     /**
-     * Creates an intent operation accumulator.
+     * Creates an intent operation accumulator which processes one batch at
+     * a time.
      *
      * @param delegate the intent batch delegate
      */
     protected IntentAccumulator(IntentBatchDelegate delegate) {
+        this(delegate, DEFAULT_MAX_BATCHES_IN_FLIGHT);
+    }
+
+    /**
+     * Creates an intent operation accumulator.
+     *
+     * @param delegate           the intent batch delegate
+     * @param maxBatchesInFlight maximum number of batches in process at a time
+     */
+    protected IntentAccumulator(IntentBatchDelegate delegate, int maxBatchesInFlight) {
         super(TIMER, DEFAULT_MAX_EVENTS, DEFAULT_MAX_BATCH_MS, DEFAULT_MAX_IDLE_MS);
+        checkArgument(maxBatchesInFlight > 0, "Maximum batches in flight must be positive");
         this.delegate = delegate;
-        // Assume that the delegate is ready for work at the start
-        ready = true; //TODO validate the assumption that delegate is ready
+        this.maxBatchesInFlight = maxBatchesInFlight;
+    }
+
+    /**
+     * Sets the maximum number of batches that may be in process at a time.
+     *
+     * @param maxBatchesInFlight maximum number of batches in flight
+     */
+    public void setMaxBatchesInFlight(int maxBatchesInFlight) {
+        checkArgument(maxBatchesInFlight > 0, "Maximum batches in flight must be positive");
+        this.maxBatchesInFlight = maxBatchesInFlight;
+    }
+
+    /**
+     * Returns the number of batches currently in process.
+     *
+     * @return number of batches in flight
+     */
+    public int batchesInFlight() {
+        return batchesInFlight;
     }
 
     @Override
     public void processItems(List<IntentData> items) {
-        ready = false;
-        delegate.execute(reduce(items));
+        Collection<IntentData> batch;
+        synchronized (this) {
+            Map<Key, IntentData> ops = Maps.newLinkedHashMap(deferred);
+            deferred.clear();
+            reduce(ops, items);
+
+            ImmutableList.Builder<IntentData> builder = ImmutableList.builder();
+            ops.values().forEach(op -> {
+                if (inFlightKeys.contains(op.key())) {
+                    deferred.put(op.key(), op);
+                } else {
+                    builder.add(op);
+                }
+            });
+            batch = builder.build();
+            if (batch.isEmpty()) {
+                return;
+            }
+            batch.forEach(op -> inFlightKeys.add(op.key()));
+            batchesInFlight++;
+        }
+        delegate.execute(batch);
     }
 
-    private Collection<IntentData> reduce(List<IntentData> ops) {
-        Map<Key, IntentData> map = Maps.newHashMap();
+    private void reduce(Map<Key, IntentData> map, List<IntentData> ops) {
         for (IntentData op : ops) {
-            map.put(op.key(), op);
+            // Operations may be re-submitted out of order after being deferred,
+            // so an older version never overrides a newer one for the same key
+            IntentData existing = map.get(op.key());
+            if (existing == null || existing.version() == null || op.version() == null ||
+                    !existing.version().isNewerThan(op.version())) {
+                map.put(op.key(), op);
+            }
         }
-        //TODO check the version... or maybe store will handle this.
-        return map.values();
     }
 
     @Override
     public boolean isReady() {
-        return ready;
+        return batchesInFlight < maxBatchesInFlight;
     }
 
-    public void ready() {
-        ready = true;
+    /**
+     * Signals that processing of the given batch has completed, releasing its
+     * intent keys for subsequent batches.
+     *
+     * @param batch batch of operations previously passed to the delegate
+     */
+    public void ready(Collection<IntentData> batch) {
+        List<IntentData> resubmitted;
+        synchronized (this) {
+            batch.forEach(op -> inFlightKeys.remove(op.key()));
+            batchesInFlight = Math.max(0, batchesInFlight - 1);
+            resubmitted = ImmutableList.copyOf(deferred.values());
+            deferred.clear();
+        }
+        if (resubmitted.isEmpty()) {
+            return;
+        }
+        // Held back operations go through the accumulator again, as no new
+        // item may arrive to trigger the next batch, and are flushed right
+        // away unless the maximum number of batches is already in flight
+        resubmitted.forEach(this::add);
+        if (isReady()) {
+            flush();
+        }
     }
 }
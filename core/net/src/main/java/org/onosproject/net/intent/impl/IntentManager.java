@@ -75,6 +75,8 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.net.OsgiPropertyConstants.IM_MAX_BATCHES_IN_FLIGHT;
+import static org.onosproject.net.OsgiPropertyConstants.IM_MAX_BATCHES_IN_FLIGHT_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.IM_NUM_THREADS;
 import static org.onosproject.net.OsgiPropertyConstants.IM_NUM_THREADS_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL;
@@ -103,7 +105,8 @@ import static org.slf4j.LoggerFactory.getLogger;
     },
     property = {
         IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL + ":Boolean=" + IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL_DEFAULT,
-        IM_NUM_THREADS + ":Integer=" + IM_NUM_THREADS_DEFAULT
+        IM_NUM_THREADS + ":Integer=" + IM_NUM_THREADS_DEFAULT,
+        IM_MAX_BATCHES_IN_FLIGHT + ":Integer=" + IM_MAX_BATCHES_IN_FLIGHT_DEFAULT
     }
 )
 public class IntentManager
@@ -126,6 +129,9 @@ public class IntentManager
     /** Number of worker threads. */
     private int numThreads = IM_NUM_THREADS_DEFAULT;
 
+    /** Maximum number of intent batches processed concurrently; 1 disables pipelining. */
+    private int maxBatchesInFlight = IM_MAX_BATCHES_IN_FLIGHT_DEFAULT;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected CoreService coreService;
 
@@ -169,7 +175,7 @@ public class IntentManager
     private InstallCoordinator installCoordinator;
     private IdGenerator idGenerator;
 
-    private final IntentAccumulator accumulator = new IntentAccumulator(batchDelegate);
+    private final IntentAccumulator accumulator = new IntentAccumulator(batchDelegate, maxBatchesInFlight);
 
     @Activate
     public void activate() {
@@ -239,10 +245,19 @@ public class IntentManager
             }
             logConfig("Reconfigured number of worker threads");
         }
+
+        s = Tools.get(context.getProperties(), IM_MAX_BATCHES_IN_FLIGHT);
+        int newMaxBatchesInFlight = isNullOrEmpty(s) ? maxBatchesInFlight : Integer.parseInt(s.trim());
+        if (newMaxBatchesInFlight != maxBatchesInFlight && newMaxBatchesInFlight > 0) {
+            maxBatchesInFlight = newMaxBatchesInFlight;
+            accumulator.setMaxBatchesInFlight(maxBatchesInFlight);
+            logConfig("Reconfigured maximum number of batches in flight");
+        }
     }
 
     private void logConfig(String prefix) {
-        log.info("{} with skipReleaseResourcesOnWithdrawal = {}", prefix, skipReleaseResourcesOnWithdrawal);
+        log.info("{} with skipReleaseResourcesOnWithdrawal = {}; numThreads = {}; maxBatchesInFlight = {}",
+                 prefix, skipReleaseResourcesOnWithdrawal, numThreads, maxBatchesInFlight);
     }
 
     @Override
@@ -523,10 +538,15 @@ public class IntentManager
             log.debug("Execute {} operation(s).", operations.size());
             log.trace("Execute operations: {}", operations);
 
-            // batchExecutor is single-threaded, so only one batch is in flight at a time
-            CompletableFuture.runAsync(() -> {
+            // Compilation and installation of the operations run on the worker
+            // pool, while batch set-up and store writes are serialized on the
+            // single-threaded batchExecutor. The batchExecutor is not blocked
+            // while a batch is being processed, so that when several batches
+            // are allowed in flight their stages overlap; the accumulator makes
+            // sure that concurrent batches never share an intent key.
+            CompletableFuture.supplyAsync(() -> {
                 // process intent until the phase reaches one of the final phases
-                List<CompletableFuture<IntentData>> futures = operations.stream()
+                return operations.stream()
                         .map(data -> {
                             log.debug("Start processing of {} {}@{}", data.request(), data.key(), data.version());
                             return data;
@@ -554,10 +574,10 @@ public class IntentManager
                                             return null;
                                     }
                                 }))
-                        .collect(Collectors.toList());
-
+                        .collect(Collectors.<CompletableFuture<IntentData>>toList());
+            }, batchExecutor).thenCompose(Tools::allOf).thenAcceptAsync(results -> {
                 // write multiple data to store in order
-                store.batchWrite(Tools.allOf(futures).join().stream()
+                store.batchWrite(results.stream()
                                          .filter(Objects::nonNull)
                                          .collect(Collectors.toList()));
             }, batchExecutor).exceptionally(e -> {
@@ -569,7 +589,7 @@ public class IntentManager
                 // TODO: maybe we should do more?
                 log.error("Walk the plank, matey...");
                 return null;
-            }).thenRun(accumulator::ready);
+            }).thenRun(() -> accumulator.ready(operations));
 
         }
     }
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.IPv6;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.TCP;
+import org.onlab.packet.UDP;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.criteria.Criterion;
+import org.onosproject.net.flow.criteria.EthTypeCriterion;
+import org.onosproject.net.flow.criteria.IPProtocolCriterion;
+import org.onosproject.net.flow.criteria.SctpPortCriterion;
+import org.onosproject.net.flow.criteria.TcpPortCriterion;
+import org.onosproject.net.flow.criteria.UdpPortCriterion;
+import org.onosproject.net.packet.InboundPacket;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Classification tree of packet processors keyed by ethertype and IP
+ * protocol, with transport port checks at the leaves.
+ * <p>
+ * Processors without selectors receive all packets. Criteria other than
+ * ETH_TYPE, IP_PROTO and unmasked TCP, UDP and SCTP ports are not used for
+ * dispatch, so a processor may still see packets outside its selectors.
+ * Packets whose headers cannot be read are given to all processors.
+ *
+ * @param <T> type of processor entries
+ */
+final class PacketDispatchTable<T> {
+
+    private static final int ANY = -1;
+    private static final int MAX_VLAN_TAGS = 2;
+    private static final int MAX_IPV6_EXTENSIONS = 8;
+    private static final int PROTOCOL_SCTP = 132;
+
+    private final List<T> entries;
+    private final int[] ethTypes;
+    private final Node<T>[] ethTypeNodes;
+    private final Node<T> otherEthTypes;
+
+    /**
+     * Compiles the dispatch table of the given processor entries.
+     *
+     * @param entries   processor entries in priority order
+     * @param selectors function giving the selectors of an entry
+     */
+    @SuppressWarnings("unchecked")
+    PacketDispatchTable(List<T> entries, Function<T, Set<TrafficSelector>> selectors) {
+        this.entries = ImmutableList.copyOf(entries);
+        List<Rule<T>> rules = new ArrayList<>();
+        for (T entry : this.entries) {
+            Set<TrafficSelector> entrySelectors = selectors.apply(entry);
+            if (entrySelectors.isEmpty()) {
+                rules.add(new Rule<>(entry));
+            } else {
+                entrySelectors.forEach(selector -> rules.add(new Rule<>(entry, selector)));
+            }
+        }
+
+        ethTypes = rules.stream().mapToInt(rule -> rule.ethType).filter(type -> type != ANY)
+                .distinct().toArray();
+        ethTypeNodes = new Node[ethTypes.length];
+        for (int i = 0; i < ethTypes.length; i++) {
+            int ethType = ethTypes[i];
+            ethTypeNodes[i] = new Node<>(rules, rule -> rule.ethType == ANY || rule.ethType == ethType);
+        }
+        otherEthTypes = new Node<>(rules, rule -> rule.ethType == ANY);
+    }
+
+    /**
+     * Returns all processor entries in priority order.
+     *
+     * @return processor entries
+     */
+    List<T> entries() {
+        return entries;
+    }
+
+    /**
+     * Applies the given action to the entries interested in the packet,
+     * in priority order.
+     *
+     * @param packet inbound packet
+     * @param action action to apply
+     */
+    void forEach(InboundPacket packet, Consumer<T> action) {
+        Header header = Header.of(packet);
+        if (header == null) {
+            entries.forEach(action);
+            return;
+        }
+        Node<T> node = otherEthTypes;
+        for (int i = 0; i < ethTypes.length; i++) {
+            if (ethTypes[i] == header.ethType) {
+                node = ethTypeNodes[i];
+                break;
+            }
+        }
+        List<Candidate<T>> candidates = node.candidates(header.ipProto);
+        for (int i = 0; i < candidates.size(); i++) {
+            Candidate<T> candidate = candidates.get(i);
+            if (candidate.matches(header)) {
+                action.accept(candidate.entry);
+            }
+        }
+    }
+
+    /**
+     * Processors of an ethertype, keyed by IP protocol.
+     */
+    private static final class Node<T> {
+        private final int[] ipProtos;
+        private final List<List<Candidate<T>>> ipProtoCandidates = new ArrayList<>();
+        private final List<Candidate<T>> otherIpProtos;
+
+        private Node(List<Rule<T>> rules, Predicate<Rule<T>> filter) {
+            List<Rule<T>> matching = new ArrayList<>();
+            rules.stream().filter(filter).forEach(matching::add);
+            ipProtos = matching.stream().mapToInt(rule -> rule.ipProto).filter(proto -> proto != ANY)
+                    .distinct().toArray();
+            for (int ipProto : ipProtos) {
+                ipProtoCandidates.add(candidates(matching, rule -> rule.ipProto == ANY || rule.ipProto == ipProto));
+            }
+            otherIpProtos = candidates(matching, rule -> rule.ipProto == ANY);
+        }
+
+        private List<Candidate<T>> candidates(int ipProto) {
+            for (int i = 0; i < ipProtos.length; i++) {
+                if (ipProtos[i] == ipProto) {
+                    return ipProtoCandidates.get(i);
+                }
+            }
+            return otherIpProtos;
+        }
+
+        // Rules are in entry order, so candidates keep the priority order
+        private static <T> List<Candidate<T>> candidates(List<Rule<T>> rules, Predicate<Rule<T>> filter) {
+            Map<T, Candidate<T>> candidates = Maps.newLinkedHashMap();
+            rules.stream().filter(filter).forEach(rule -> candidates
+                    .computeIfAbsent(rule.entry, Candidate::new).add(rule));
+            return ImmutableList.copyOf(candidates.values());
+        }
+    }
+
+    /**
+     * Processor entry along with the port checks of its rules.
+     */
+    private static final class Candidate<T> {
+        private final T entry;
+        private final List<Rule<T>> portRules = new ArrayList<>();
+        private boolean anyPort;
+
+        private Candidate(T entry) {
+            this.entry = entry;
+        }
+
+        private void add(Rule<T> rule) {
+            if (rule.srcPort == ANY && rule.dstPort == ANY) {
+                anyPort = true;
+            } else {
+                portRules.add(rule);
+            }
+        }
+
+        private boolean matches(Header header) {
+            if (anyPort || !header.portsKnown) {
+                return true;
+            }
+            for (int i = 0; i < portRules.size(); i++) {
+                Rule<T> rule = portRules.get(i);
+                if ((rule.srcPort == ANY || rule.srcPort == header.srcPort)
+                        && (rule.dstPort == ANY || rule.dstPort == header.dstPort)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Dispatch fields of a selector of a processor entry.
+     */
+    private static final class Rule<T> {
+        private final T entry;
+        private int ethType = ANY;
+        private int ipProto = ANY;
+        private int srcPort = ANY;
+        private int dstPort = ANY;
+
+        private Rule(T entry) {
+            this.entry = entry;
+        }
+
+        private Rule(T entry, TrafficSelector selector) {
+            this.entry = entry;
+            for (Criterion criterion : selector.criteria()) {
+                switch (criterion.type()) {
+                    case ETH_TYPE:
+                        ethType = ((EthTypeCriterion) criterion).ethType().toShort() & 0xffff;
+                        break;
+                    case IP_PROTO:
+                        ipProto = ((IPProtocolCriterion) criterion).protocol();
+                        break;
+                    case TCP_SRC:
+                    case TCP_DST:
+                        TcpPortCriterion tcp = (TcpPortCriterion) criterion;
+                        port(criterion.type() == Criterion.Type.TCP_SRC, IPv4.PROTOCOL_TCP,
+                             tcp.mask() == null ? tcp.tcpPort().toInt() : ANY);
+                        break;
+                    case UDP_SRC:
+                    case UDP_DST:
+                        UdpPortCriterion udp = (UdpPortCriterion) criterion;
+                        port(criterion.type() == Criterion.Type.UDP_SRC, IPv4.PROTOCOL_UDP,
+                             udp.mask() == null ? udp.udpPort().toInt() : ANY);
+                        break;
+                    case SCTP_SRC:
+                    case SCTP_DST:
+                        SctpPortCriterion sctp = (SctpPortCriterion) criterion;
+                        port(criterion.type() == Criterion.Type.SCTP_SRC, PROTOCOL_SCTP,
+                             sctp.mask() == null ? sctp.sctpPort().toInt() : ANY);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        private void port(boolean src, int protocol, int port) {
+            ipProto = protocol;
+            if (src) {
+                srcPort = port;
+            } else {
+                dstPort = port;
+            }
+        }
+    }
+
+    /**
+     * Dispatch fields of a packet, read without decoding the frame.
+     */
+    private static final class Header {
+        private final int ethType;
+        private final int ipProto;
+        private final boolean portsKnown;
+        private final int srcPort;
+        private final int dstPort;
+
+        private Header(int ethType, int ipProto, boolean portsKnown, int srcPort, int dstPort) {
+            this.ethType = ethType;
+            this.ipProto = ipProto;
+            this.portsKnown = portsKnown;
+            this.srcPort = srcPort;
+            this.dstPort = dstPort;
+        }
+
+        /**
+         * Returns the dispatch fields of the given packet, read from its
+         * raw bytes if available.
+         *
+         * @param packet inbound packet
+         * @return dispatch fields, or null if they cannot be determined
+         */
+        static Header of(InboundPacket packet) {
+            ByteBuffer frame = packet.unparsed();
+            if (frame != null) {
+                return of(frame);
+            }
+            Ethernet eth = packet.parsed();
+            return eth != null ? of(eth) : null;
+        }
+
+        private static Header of(ByteBuffer frame) {
+            int end = frame.limit();
+            int offset = frame.position() + 2 * MacAddress.MAC_ADDRESS_LENGTH + 2;
+            if (offset > end) {
+                return null;
+            }
+            short ethType = frame.getShort(offset - 2);
+            for (int tags = 0; tags < MAX_VLAN_TAGS
+                    && (ethType == Ethernet.TYPE_VLAN || ethType == Ethernet.TYPE_QINQ); tags++) {
+                offset += Ethernet.VLAN_HEADER_LENGTH;
+                if (offset > end) {
+                    return null;
+                }
+                ethType = frame.getShort(offset - 2);
+            }
+
+            int ipProto;
+            boolean fragment;
+            if (ethType == Ethernet.TYPE_IPV4) {
+                if (offset + 20 > end) {
+                    return null;
+                }
+                ipProto = frame.get(offset + 9) & 0xff;
+                fragment = (frame.getShort(offset + 6) & 0x1fff) != 0;
+                offset += (frame.get(offset) & 0x0f) * 4;
+            } else if (ethType == Ethernet.TYPE_IPV6) {
+                if (offset + IPv6.FIXED_HEADER_LENGTH > end) {
+                    return null;
+                }
+                ipProto = frame.get(offset + 6) & 0xff;
+                fragment = false;
+                offset += IPv6.FIXED_HEADER_LENGTH;
+                int extensions = 0;
+                while (isExtension(ipProto)) {
+                    if (++extensions > MAX_IPV6_EXTENSIONS || offset + 8 > end) {
+                        return null;
+                    }
+                    int next = frame.get(offset) & 0xff;
+                    if (ipProto == IPv6.PROTOCOL_FRAG) {
+                        fragment = fragment || (frame.getShort(offset + 2) & 0xfff8) != 0;
+                        offset += 8;
+                    } else if (ipProto == IPv6.PROTOCOL_AH) {
+                        offset += ((frame.get(offset + 1) & 0xff) + 2) * 4;
+                    } else {
+                        offset += ((frame.get(offset + 1) & 0xff) + 1) * 8;
+                    }
+                    ipProto = next;
+                }
+            } else {
+                return new Header(ethType & 0xffff, ANY, true, ANY, ANY);
+            }
+
+            if (!hasPorts(ipProto)) {
+                return new Header(ethType & 0xffff, ipProto, true, ANY, ANY);
+            }
+            if (fragment || offset + 4 > end) {
+                return new Header(ethType & 0xffff, ipProto, false, ANY, ANY);
+            }
+            return new Header(ethType & 0xffff, ipProto, true,
+                              frame.getShort(offset) & 0xffff, frame.getShort(offset + 2) & 0xffff);
+        }
+
+        private static Header of(Ethernet eth) {
+            int ethType = eth.getEtherType() & 0xffff;
+            int ipProto;
+            boolean fragment;
+            if (eth.getPayload() instanceof IPv4) {
+                IPv4 ipv4 = (IPv4) eth.getPayload();
+                ipProto = ipv4.getProtocol() & 0xff;
+                fragment = ipv4.getFragmentOffset() != 0;
+            } else if (eth.getPayload() instanceof IPv6) {
+                ipProto = ((IPv6) eth.getPayload()).getNextHeader() & 0xff;
+                if (isExtension(ipProto)) {
+                    return null;
+                }
+                fragment = false;
+            } else {
+                return new Header(ethType, ANY, true, ANY, ANY);
+            }
+
+            if (!hasPorts(ipProto)) {
+                return new Header(ethType, ipProto, true, ANY, ANY);
+            }
+            Object l4 = eth.getPayload().getPayload();
+            if (!fragment && l4 instanceof TCP) {
+                TCP tcp = (TCP) l4;
+                return new Header(ethType, ipProto, true, tcp.getSourcePort(), tcp.getDestinationPort());
+            } else if (!fragment && l4 instanceof UDP) {
+                UDP udp = (UDP) l4;
+                return new Header(ethType, ipProto, true, udp.getSourcePort(), udp.getDestinationPort());
+            }
+            return new Header(ethType, ipProto, false, ANY, ANY);
+        }
+
+        private static boolean isExtension(int ipProto) {
+            return ipProto == IPv6.PROTOCOL_HOPOPT || ipProto == IPv6.PROTOCOL_ROUTING
+                    || ipProto == IPv6.PROTOCOL_FRAG || ipProto == IPv6.PROTOCOL_AH
+                    || ipProto == IPv6.PROTOCOL_DSTOPT;
+        }
+
+        private static boolean hasPorts(int ipProto) {
+            return ipProto == IPv4.PROTOCOL_TCP || ipProto == IPv4.PROTOCOL_UDP || ipProto == PROTOCOL_SCTP;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package org.onosproject.net.packet.impl;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import org.onlab.util.ItemNotFoundException;
 import org.onosproject.cluster.ClusterService;
@@ -65,6 +66,7 @@ import org.slf4j.Logger;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -121,6 +123,10 @@ public class PacketManager
 
     private final List<ProcessorEntry> processors = Lists.newCopyOnWriteArrayList();
 
+    // Processors compiled for dispatch by packet headers; rebuilt on change
+    private volatile PacketDispatchTable<ProcessorEntry> dispatchTable =
+            new PacketDispatchTable<>(ImmutableList.of(), ProcessorEntry::selectors);
+
     private final PacketDriverProvider defaultProvider = new PacketDriverProvider();
 
     private ApplicationId appId;
@@ -167,9 +173,16 @@ public class PacketManager
 
     @Override
     public void addProcessor(PacketProcessor processor, int priority) {
+        addProcessor(processor, priority, ImmutableSet.of());
+    }
+
+    @Override
+    public synchronized void addProcessor(PacketProcessor processor, int priority,
+                                          Set<TrafficSelector> selectors) {
         checkPermission(PACKET_EVENT);
         checkNotNull(processor, ERROR_NULL_PROCESSOR);
-        ProcessorEntry entry = new ProcessorEntry(processor, priority);
+        checkNotNull(selectors, ERROR_NULL_SELECTOR);
+        ProcessorEntry entry = new ProcessorEntry(processor, priority, selectors);
 
         // Insert the new processor according to its priority.
         int i = 0;
@@ -179,10 +192,11 @@ public class PacketManager
             }
         }
         processors.add(i, entry);
+        dispatchTable = new PacketDispatchTable<>(processors, ProcessorEntry::selectors);
     }
 
     @Override
-    public void removeProcessor(PacketProcessor processor) {
+    public synchronized void removeProcessor(PacketProcessor processor) {
         checkPermission(PACKET_EVENT);
         checkNotNull(processor, ERROR_NULL_PROCESSOR);
 
@@ -193,6 +207,7 @@ public class PacketManager
                 break;
             }
         }
+        dispatchTable = new PacketDispatchTable<>(processors, ProcessorEntry::selectors);
     }
 
     @Override
@@ -476,25 +491,26 @@ public class PacketManager
                 }
                 return;
             }
-            // TODO filter packets sent to processors based on registrations
-            for (ProcessorEntry entry : processors) {
-                try {
-                    if (log.isTraceEnabled()) {
-                        log.trace("Starting packet processing by {}",
-                                entry.processor().getClass().getName());
-                    }
+            dispatchTable.forEach(context.inPacket(), entry -> process(entry, context));
+        }
+
+        private void process(ProcessorEntry entry, PacketContext context) {
+            try {
+                if (log.isTraceEnabled()) {
+                    log.trace("Starting packet processing by {}",
+                            entry.processor().getClass().getName());
+                }
 
-                    long start = System.nanoTime();
-                    entry.processor().process(context);
-                    entry.addNanos(System.nanoTime() - start);
+                long start = System.nanoTime();
+                entry.processor().process(context);
+                entry.addNanos(System.nanoTime() - start);
 
-                    if (log.isTraceEnabled()) {
-                        log.trace("Finished packet processing by {}",
-                                entry.processor().getClass().getName());
-                    }
-                } catch (Exception e) {
-                    log.warn("Packet processor {} threw an exception", entry.processor(), e);
+                if (log.isTraceEnabled()) {
+                    log.trace("Finished packet processing by {}",
+                            entry.processor().getClass().getName());
                 }
+            } catch (Exception e) {
+                log.warn("Packet processor {} threw an exception", entry.processor(), e);
             }
         }
 
@@ -585,12 +601,15 @@ public class PacketManager
     private class ProcessorEntry implements PacketProcessorEntry {
         private final PacketProcessor processor;
         private final int priority;
+        private final Set<TrafficSelector> selectors;
         private long invocations = 0;
         private long nanos = 0;
 
-        public ProcessorEntry(PacketProcessor processor, int priority) {
+        public ProcessorEntry(PacketProcessor processor, int priority,
+                              Set<TrafficSelector> selectors) {
             this.processor = processor;
             this.priority = priority;
+            this.selectors = ImmutableSet.copyOf(selectors);
         }
 
         @Override
@@ -603,6 +622,10 @@ public class PacketManager
             return priority;
         }
 
+        Set<TrafficSelector> selectors() {
+            return selectors;
+        }
+
         @Override
         public long invocations() {
             return invocations;
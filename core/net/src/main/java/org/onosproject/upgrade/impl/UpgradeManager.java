@@ -24,6 +24,7 @@ import org.onosproject.cluster.NodeId;
 import org.onosproject.core.Version;
 import org.onosproject.core.VersionService;
 import org.onosproject.event.AbstractListenerManager;
+import org.onosproject.store.serializers.CompactEncoding;
 import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.service.AtomicValue;
 import org.onosproject.store.service.AtomicValueEvent;
@@ -96,7 +97,7 @@ public class UpgradeManager
                 .asAtomicValue();
         localVersion = versionService.version();
 
-        currentState.set(state.get());
+        setCurrentState(state.get());
         if (getState() == null) {
             initializeState(new Upgrade(localVersion, localVersion, Upgrade.Status.INACTIVE));
         }
@@ -137,9 +138,23 @@ public class UpgradeManager
         eventDispatcher.removeSink(UpgradeEvent.class);
         state.removeListener(stateListener);
         clusterService.removeListener(clusterListener);
+        CompactEncoding.setEnabled(false);
         log.info("Stopped");
     }
 
+    /**
+     * Sets the current state.
+     * <p>
+     * Compact encodings are written only while no upgrade is in progress,
+     * since nodes of the release being upgraded from may not read them.
+     *
+     * @param upgrade the current upgrade state
+     */
+    private void setCurrentState(Upgrade upgrade) {
+        currentState.set(upgrade);
+        CompactEncoding.setEnabled(upgrade != null && !upgrade.status().active());
+    }
+
     /**
      * Initializes the state when the cluster starts.
      * <p>
@@ -149,7 +164,7 @@ public class UpgradeManager
      */
     private void initializeState(Upgrade newState) {
         checkPermission(UPGRADE_WRITE);
-        currentState.set(newState);
+        setCurrentState(newState);
         state.set(newState);
     }
 
@@ -169,7 +184,7 @@ public class UpgradeManager
         if (!state.compareAndSet(oldState, newState)) {
             throw new IllegalStateException("Concurrent upgrade modification");
         } else {
-            currentState.set(newState);
+            setCurrentState(newState);
         }
     }
 
@@ -390,7 +405,7 @@ public class UpgradeManager
      */
     protected void handleUpgradeEvent(AtomicValueEvent<Upgrade> event) {
         checkPermission(UPGRADE_EVENT);
-        currentState.set(event.newValue());
+        setCurrentState(event.newValue());
         switch (event.newValue().status()) {
             case INITIALIZED:
                 post(new UpgradeEvent(UpgradeEvent.Type.INITIALIZED, event.newValue()));
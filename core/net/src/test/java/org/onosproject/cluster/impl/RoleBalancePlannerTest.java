@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.cluster.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.DeviceId;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the mastership balancing planner.
+ */
+public class RoleBalancePlannerTest {
+
+    private static final NodeId NID1 = NodeId.nodeId("n1");
+    private static final NodeId NID2 = NodeId.nodeId("n2");
+    private static final NodeId NID3 = NodeId.nodeId("n3");
+    private static final NodeId NID4 = NodeId.nodeId("n4");
+    private static final DeviceId DID1 = DeviceId.deviceId("foo:d1");
+    private static final DeviceId DID2 = DeviceId.deviceId("foo:d2");
+    private static final DeviceId DID3 = DeviceId.deviceId("foo:d3");
+    private static final DeviceId DID4 = DeviceId.deviceId("foo:d4");
+    private static final DeviceId DID5 = DeviceId.deviceId("foo:d5");
+    private static final DeviceId DID6 = DeviceId.deviceId("foo:d6");
+
+    private static final Set<DeviceId> DEVICES = ImmutableSet.of(DID1, DID2, DID3, DID4, DID5, DID6);
+
+    @Test
+    public void balancedPlanIsEmpty() {
+        Map<DeviceId, NodeId> masters = ImmutableMap.<DeviceId, NodeId>builder()
+                .put(DID1, NID1).put(DID2, NID1)
+                .put(DID3, NID2).put(DID4, NID2)
+                .put(DID5, NID3)
+                .put(DID6, NID4)
+                .build();
+
+        assertTrue(RoleBalancePlanner.plan(ImmutableList.of(NID1, NID2, NID3, NID4), DEVICES, masters).isEmpty());
+    }
+
+    @Test
+    public void planMovesFewestDevices() {
+        // n1 has four devices, n2 none, n3 one and one is mastered by
+        // the inactive n4: three moves make the nodes even
+        Map<DeviceId, NodeId> masters = ImmutableMap.<DeviceId, NodeId>builder()
+                .put(DID1, NID1).put(DID2, NID1).put(DID3, NID1).put(DID4, NID1)
+                .put(DID5, NID3)
+                .put(DID6, NID4)
+                .build();
+        List<NodeId> nodes = ImmutableList.of(NID1, NID2, NID3);
+
+        Map<DeviceId, NodeId> plan = RoleBalancePlanner.plan(nodes, DEVICES, masters);
+
+        assertEquals(3, plan.size());
+        assertTrue(plan.containsKey(DID6));
+        assertEquals(2, plan.values().stream().filter(NID2::equals).count());
+        assertEquals(1, plan.values().stream().filter(NID3::equals).count());
+        assertBalanced(nodes, masters, plan);
+    }
+
+    @Test
+    public void planInterleavesTargets() {
+        Map<DeviceId, NodeId> masters = new HashMap<>();
+        DEVICES.forEach(deviceId -> masters.put(deviceId, NID1));
+        List<NodeId> nodes = ImmutableList.of(NID1, NID2, NID3);
+
+        Map<DeviceId, NodeId> plan = RoleBalancePlanner.plan(nodes, DEVICES, masters);
+
+        assertEquals(4, plan.size());
+        List<NodeId> targets = ImmutableList.copyOf(plan.values());
+        for (int i = 1; i < targets.size(); i++) {
+            assertNotEquals(targets.get(i - 1), targets.get(i));
+        }
+        assertBalanced(nodes, masters, plan);
+    }
+
+    @Test
+    public void planAssignsDevicesOfOtherNodes() {
+        Map<DeviceId, NodeId> masters = new HashMap<>();
+        DEVICES.forEach(deviceId -> masters.put(deviceId, NID4));
+        List<NodeId> nodes = ImmutableList.of(NID1, NID2, NID3);
+
+        Map<DeviceId, NodeId> plan = RoleBalancePlanner.plan(nodes, DEVICES, masters);
+
+        assertEquals(DEVICES, plan.keySet());
+        assertBalanced(nodes, masters, plan);
+    }
+
+    private void assertBalanced(List<NodeId> nodes, Map<DeviceId, NodeId> masters,
+                                Map<DeviceId, NodeId> plan) {
+        Map<NodeId, Integer> counts = new HashMap<>();
+        for (DeviceId deviceId : DEVICES) {
+            counts.merge(plan.getOrDefault(deviceId, masters.get(deviceId)), 1, Integer::sum);
+        }
+        assertEquals(ImmutableSet.copyOf(nodes), counts.keySet());
+        int min = counts.values().stream().mapToInt(Integer::intValue).min().getAsInt();
+        int max = counts.values().stream().mapToInt(Integer::intValue).max().getAsInt();
+        assertTrue("not balanced: " + counts, max - min <= 1);
+    }
+}
@@ -18,29 +18,42 @@ package org.onosproject.event.impl;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.osgi.ComponentContextAdapter;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.EventSink;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.device.DeviceEvent;
 
 import java.util.ArrayList;
+import java.util.Dictionary;
+import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.device;
 
 /**
  * Test of the event dispatcher mechanism.
  */
 public class CoreEventDispatcherTest {
 
+    // well below the time a blocked post waits for room in a full queue
+    private static final long POST_WAIT_MS = 500;
+
     private final CoreEventDispatcher dispatcher = new CoreEventDispatcher();
     private final PrickleSink prickleSink = new PrickleSink();
     private final GooSink gooSink = new GooSink();
 
     @Before
     public void setUp() {
-        dispatcher.activate();
+        dispatcher.activate(null);
         dispatcher.addSink(Prickle.class, prickleSink);
         dispatcher.addSink(Goo.class, gooSink);
     }
@@ -88,6 +101,110 @@ public class CoreEventDispatcherTest {
         assertTrue(takesTooLong.interrupted);
     }
 
+    @Test
+    public void shardedPostKeepsSubjectOrder() throws Exception {
+        dispatcher.modified(context("dispatchShards", "4"));
+        DeviceSink deviceSink = new DeviceSink();
+        dispatcher.addSink(DeviceEvent.class, deviceSink);
+
+        int devices = 16;
+        int eventsPerDevice = 100;
+        deviceSink.latch = new CountDownLatch(devices * eventsPerDevice);
+        for (int i = 0; i < eventsPerDevice; i++) {
+            for (int d = 0; d < devices; d++) {
+                Device device = device("s" + d);
+                dispatcher.post(new DeviceEvent(DeviceEvent.Type.DEVICE_UPDATED, device, null, i));
+            }
+        }
+        assertTrue("events not delivered", deviceSink.latch.await(5, TimeUnit.SECONDS));
+        dispatcher.removeSink(DeviceEvent.class);
+
+        assertEquals("incorrect device count", devices, deviceSink.times.size());
+        deviceSink.times.values().forEach(times -> {
+            assertEquals("incorrect event count", eventsPerDevice, times.size());
+            for (int i = 0; i < eventsPerDevice; i++) {
+                assertEquals("events out of order", i, (long) times.get(i));
+            }
+        });
+        assertTrue("events not spread across loops", deviceSink.threads.size() > 1);
+    }
+
+    @Test
+    public void postToFullQueueDrops() throws Exception {
+        dispatcher.modified(context("dispatchQueueCapacity", "1",
+                                    "dispatchOverflowPolicy", "DROP"));
+        BlockingSink blockingSink = new BlockingSink();
+        dispatcher.addSink(Prickle.class, blockingSink);
+
+        dispatcher.post(new Prickle("a"));
+        assertTrue("first event not taken", blockingSink.entered.await(1, TimeUnit.SECONDS));
+        dispatcher.post(new Prickle("b"));
+        dispatcher.post(new Prickle("c"));
+
+        blockingSink.latch = new CountDownLatch(2);
+        blockingSink.release.countDown();
+        blockingSink.latch.await(1, TimeUnit.SECONDS);
+        validate(blockingSink, "a", "b");
+    }
+
+    @Test
+    public void reshardingKeepsOrder() throws Exception {
+        BlockingSink blockingSink = new BlockingSink();
+        dispatcher.addSink(Prickle.class, blockingSink);
+
+        dispatcher.post(new Prickle("a"));
+        assertTrue("first event not taken", blockingSink.entered.await(1, TimeUnit.SECONDS));
+        dispatcher.post(new Prickle("b"));
+        dispatcher.post(new Prickle("c"));
+
+        dispatcher.modified(context("dispatchShards", "4"));
+        blockingSink.latch = new CountDownLatch(5);
+        dispatcher.post(new Prickle("d"));
+        dispatcher.post(new Prickle("e"));
+        assertTrue("events delivered before the old loops drained", blockingSink.subjects.isEmpty());
+
+        blockingSink.release.countDown();
+        assertTrue("events not delivered", blockingSink.latch.await(5, TimeUnit.SECONDS));
+        validate(blockingSink, "a", "b", "c", "d", "e");
+    }
+
+    @Test
+    public void sinkPostToFullQueueDoesNotBlock() throws Exception {
+        dispatcher.modified(context("dispatchQueueCapacity", "1",
+                                    "dispatchOverflowPolicy", "BLOCK"));
+        BlockingDeviceSink deviceSink = new BlockingDeviceSink();
+        dispatcher.addSink(DeviceEvent.class, deviceSink);
+        RelaySink relaySink = new RelaySink();
+        dispatcher.addSink(Relay.class, relaySink);
+        try {
+            Device device = device("s1");
+            dispatcher.post(new DeviceEvent(DeviceEvent.Type.DEVICE_UPDATED, device, null, 1));
+            assertTrue("first event not taken", deviceSink.entered.await(1, TimeUnit.SECONDS));
+            dispatcher.post(new DeviceEvent(DeviceEvent.Type.DEVICE_UPDATED, device, null, 2));
+
+            // the sink posts to the full topology queue from its own loop
+            dispatcher.post(new Relay(new DeviceEvent(DeviceEvent.Type.DEVICE_UPDATED, device, null, 3)));
+            assertTrue("sink blocked on posting", relaySink.posted.await(POST_WAIT_MS, TimeUnit.MILLISECONDS));
+        } finally {
+            deviceSink.release.countDown();
+            dispatcher.removeSink(DeviceEvent.class);
+            dispatcher.removeSink(Relay.class);
+        }
+    }
+
+    private static ComponentContextAdapter context(String... keyValues) {
+        return new ComponentContextAdapter() {
+            @Override
+            public Dictionary getProperties() {
+                Hashtable<String, String> props = new Hashtable<>();
+                for (int i = 0; i < keyValues.length; i += 2) {
+                    props.put(keyValues[i], keyValues[i + 1]);
+                }
+                return props;
+            }
+        };
+    }
+
     private void validate(Sink sink, String... strings) {
         int i = 0;
         assertEquals("incorrect event count", strings.length, sink.subjects.size());
@@ -141,6 +258,71 @@ public class CoreEventDispatcherTest {
         }
     }
 
+    private static class DeviceSink implements EventSink<DeviceEvent> {
+        final Map<DeviceId, List<Long>> times = new ConcurrentHashMap<>();
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        CountDownLatch latch;
+
+        @Override
+        public void process(DeviceEvent event) {
+            times.computeIfAbsent(event.subject().id(), id -> new ArrayList<>()).add(event.time());
+            threads.add(Thread.currentThread());
+            latch.countDown();
+        }
+    }
+
+    private static class BlockingSink extends Sink implements EventSink<Prickle> {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void process(Prickle event) {
+            if (entered.getCount() > 0) {
+                entered.countDown();
+                try {
+                    release.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            subjects.add(event.subject());
+            if (latch != null) {
+                latch.countDown();
+            }
+        }
+    }
+
+    private class RelaySink implements EventSink<Relay> {
+        final CountDownLatch posted = new CountDownLatch(1);
+
+        @Override
+        public void process(Relay event) {
+            dispatcher.post(event.subject());
+            posted.countDown();
+        }
+    }
+
+    private static class BlockingDeviceSink implements EventSink<DeviceEvent> {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void process(DeviceEvent event) {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class Relay extends AbstractEvent<Type, DeviceEvent> {
+        protected Relay(DeviceEvent subject) {
+            super(Type.FOO, subject);
+        }
+    }
+
     private static class TooLongEvent extends AbstractEvent<Type, String> {
         protected TooLongEvent(String subject) {
             super(Type.FOO, subject);
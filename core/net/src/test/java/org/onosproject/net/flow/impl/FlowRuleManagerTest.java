@@ -240,6 +240,88 @@ public class FlowRuleManagerTest {
         validateEvents(RULE_UPDATED, RULE_UPDATED);
     }
 
+    @Test
+    public void pushFlowMetricsInChunks() {
+        FlowRule f1 = addFlowRule(1);
+        FlowRule f2 = addFlowRule(2);
+        FlowRule f3 = addFlowRule(3);
+        FlowEntry fe1 = new DefaultFlowEntry(f1);
+        FlowEntry fe2 = new DefaultFlowEntry(f2);
+        FlowEntry fe3 = new DefaultFlowEntry(f3);
+
+        providerService.pushFlowMetricsChunk(DID, ImmutableList.of(fe1));
+        providerService.pushFlowMetricsChunk(DID, ImmutableList.of(fe2));
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADD_REQUESTED, RULE_ADD_REQUESTED,
+                       RULE_ADDED, RULE_ADDED);
+
+        // the rule which was in no chunk is missing from the device
+        providerService.completeFlowMetrics(DID);
+        validateEvents(RULE_ADD_REQUESTED);
+
+        // entries seen in the previous poll are not seen in the next one
+        providerService.pushFlowMetricsChunk(DID, ImmutableList.of(fe3));
+        providerService.completeFlowMetrics(DID);
+        validateEvents(RULE_ADDED, RULE_UPDATED, RULE_UPDATED);
+        assertTrue("Entries should be added or pending add.",
+                   validateState(ImmutableMap.of(
+                           f1, FlowEntryState.PENDING_ADD,
+                           f2, FlowEntryState.PENDING_ADD,
+                           f3, FlowEntryState.ADDED)));
+    }
+
+    @Test
+    public void flowAddedDuringChunkedPoll() {
+        FlowRule f1 = addFlowRule(1);
+        FlowEntry fe1 = new DefaultFlowEntry(f1);
+
+        providerService.pushFlowMetricsChunk(DID, ImmutableList.of(fe1));
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADDED);
+
+        // a rule added after the poll started cannot be in its statistics
+        FlowRule f2 = addFlowRule(2);
+        validateEvents(RULE_ADD_REQUESTED);
+
+        providerService.completeFlowMetrics(DID);
+        validateEvents();
+        assertTrue("Added entry should not be reinstalled.",
+                   validateState(ImmutableMap.of(
+                           f1, FlowEntryState.ADDED,
+                           f2, FlowEntryState.PENDING_ADD)));
+
+        // the next poll does report it missing
+        providerService.pushFlowMetrics(DID, ImmutableList.of(fe1));
+        validateEvents(RULE_UPDATED, RULE_ADD_REQUESTED);
+    }
+
+    @Test
+    public void overlappingFlowMetricsPolls() {
+        FlowRule f1 = addFlowRule(1);
+        FlowRule f2 = addFlowRule(2);
+        FlowEntry fe1 = new DefaultFlowEntry(f1);
+        FlowEntry fe2 = new DefaultFlowEntry(f2);
+
+        // a full poll while a chunked poll is in progress does not disturb it
+        providerService.pushFlowMetricsChunk(DID, ImmutableList.of(fe1));
+        providerService.pushFlowMetrics(DID, ImmutableList.of(fe1, fe2));
+        providerService.pushFlowMetricsChunk(DID, ImmutableList.of(fe2));
+        providerService.completeFlowMetrics(DID);
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADD_REQUESTED,
+                       RULE_ADDED, RULE_UPDATED, RULE_ADDED, RULE_UPDATED);
+
+        assertTrue("Entries should be added.",
+                   validateState(ImmutableMap.of(
+                           f1, FlowEntryState.ADDED,
+                           f2, FlowEntryState.ADDED)));
+
+        // polls are reconciled again once the chunked poll is complete
+        providerService.pushFlowMetrics(DID, ImmutableList.of(fe1));
+        validateEvents(RULE_UPDATED, RULE_UPDATED);
+        assertTrue("Missing entry should be pending add.",
+                   validateState(ImmutableMap.of(
+                           f1, FlowEntryState.ADDED,
+                           f2, FlowEntryState.PENDING_ADD)));
+    }
+
     private boolean validateState(Map<FlowRule, FlowEntryState> expected) {
         Map<FlowRule, FlowEntryState> expectedToCheck = new HashMap<>(expected);
         Iterable<FlowEntry> rules = service.getFlowEntries(DID);
@@ -16,10 +16,12 @@
 package org.onosproject.net.intent.impl;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import org.hamcrest.Description;
 import org.hamcrest.TypeSafeDiagnosingMatcher;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.junit.TestTools;
 import org.onosproject.net.intent.AbstractIntentTest;
 import org.onosproject.net.intent.Intent;
 import org.onosproject.net.intent.IntentBatchDelegate;
@@ -32,7 +34,11 @@ import java.util.Collection;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit tests for the intent accumulator.
@@ -143,5 +149,103 @@ public class IntentAccumulatorTest extends AbstractIntentTest {
         accumulator.processItems(intentDataItems);
     }
 
+    /**
+     * Mock batch delegate that records the batches it is given.
+     */
+    private static class RecordingIntentBatchDelegate implements IntentBatchDelegate {
+        final List<Collection<IntentData>> batches = Lists.newCopyOnWriteArrayList();
 
+        @Override
+        public void execute(Collection<IntentData> operations) {
+            batches.add(operations);
+        }
+    }
+
+    /**
+     * Tests that several batches may be in flight at a time, and that
+     * operations on keys of an in-flight batch are held back until that
+     * batch completes.
+     */
+    @Test
+    public void checkPipelinedBatches() {
+        RecordingIntentBatchDelegate delegate = new RecordingIntentBatchDelegate();
+        IntentAccumulator accumulator = new IntentAccumulator(delegate, 2);
+
+        IntentData first = new IntentData(intent1, IntentState.INSTALLED, new MockTimestamp(1));
+        accumulator.processItems(ImmutableList.of(first));
+        assertTrue(accumulator.isReady());
+        assertThat(accumulator.batchesInFlight(), is(1));
+
+        IntentData second = new IntentData(intent1, IntentState.INSTALLED, new MockTimestamp(2));
+        IntentData other = new IntentData(intent2, IntentState.INSTALLED, new MockTimestamp(1));
+        accumulator.processItems(ImmutableList.of(second, other));
+        assertFalse(accumulator.isReady());
+        assertThat(delegate.batches, hasSize(2));
+        assertThat(delegate.batches.get(1), contains(other));
+
+        // Completing the second batch does not release the conflicting key
+        accumulator.ready(delegate.batches.get(1));
+        assertTrue(accumulator.isReady());
+        assertThat(delegate.batches, hasSize(2));
+
+        // Completing the first batch lets the held back operation through
+        accumulator.ready(delegate.batches.get(0));
+        assertThat(delegate.batches, hasSize(3));
+        assertThat(delegate.batches.get(2), contains(second));
+    }
+
+    /**
+     * Tests that a held back operation does not override a newer operation
+     * on the same key.
+     */
+    @Test
+    public void checkDeferredVersions() {
+        RecordingIntentBatchDelegate delegate = new RecordingIntentBatchDelegate();
+        IntentAccumulator accumulator = new IntentAccumulator(delegate, 2);
+
+        accumulator.processItems(ImmutableList.of(
+                new IntentData(intent1, IntentState.INSTALLED, new MockTimestamp(1))));
+        accumulator.processItems(ImmutableList.of(
+                new IntentData(intent1, IntentState.INSTALLED, new MockTimestamp(2))));
+        assertThat(delegate.batches, hasSize(1));
+
+        IntentData newest = new IntentData(intent1, IntentState.INSTALLED, new MockTimestamp(3));
+        accumulator.processItems(ImmutableList.of(
+                newest, new IntentData(intent1, IntentState.INSTALLED, new MockTimestamp(1))));
+        assertThat(delegate.batches, hasSize(1));
+
+        accumulator.ready(delegate.batches.get(0));
+        assertThat(delegate.batches, hasSize(2));
+        assertThat(delegate.batches.get(1), contains(newest));
+    }
+
+    /**
+     * Tests that completing a batch does not dispatch the held back
+     * operations while the maximum number of batches is still in flight,
+     * and that they are dispatched by the accumulator once it is ready.
+     */
+    @Test
+    public void checkDeferredWaitForReady() {
+        RecordingIntentBatchDelegate delegate = new RecordingIntentBatchDelegate();
+        IntentAccumulator accumulator = new IntentAccumulator(delegate, 2);
+
+        accumulator.processItems(ImmutableList.of(
+                new IntentData(intent1, IntentState.INSTALLED, new MockTimestamp(1))));
+        accumulator.processItems(ImmutableList.of(
+                new IntentData(intent2, IntentState.INSTALLED, new MockTimestamp(1))));
+        IntentData deferred = new IntentData(intent1, IntentState.INSTALLED, new MockTimestamp(2));
+        accumulator.processItems(ImmutableList.of(deferred));
+        assertThat(delegate.batches, hasSize(2));
+
+        accumulator.setMaxBatchesInFlight(1);
+        accumulator.ready(delegate.batches.get(0));
+        assertFalse(accumulator.isReady());
+        assertThat(delegate.batches, hasSize(2));
+
+        accumulator.ready(delegate.batches.get(1));
+        TestTools.assertAfter(2000, () -> {
+            assertThat(delegate.batches, hasSize(3));
+            assertThat(delegate.batches.get(2), contains(deferred));
+        });
+    }
 }
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onlab.packet.ARP;
+import org.onlab.packet.Data;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPacket;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.IPv6;
+import org.onlab.packet.IpPrefix;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.TCP;
+import org.onlab.packet.TpPort;
+import org.onlab.packet.UDP;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.packet.DefaultInboundPacket;
+import org.onosproject.net.packet.InboundPacket;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the packet processor dispatch table.
+ */
+public class PacketDispatchTableTest {
+
+    private static final ConnectPoint CP = ConnectPoint.deviceConnectPoint("of:1/1");
+
+    private static final String ALL = "all";
+    private static final String LINKS = "links";
+    private static final String DHCP = "dhcp";
+    private static final String ARP_ONLY = "arp";
+    private static final String IPV4 = "ipv4";
+    private static final String HTTP = "http";
+
+    private static final Map<String, Set<TrafficSelector>> SELECTORS =
+            ImmutableMap.<String, Set<TrafficSelector>>builder()
+                    .put(ALL, ImmutableSet.of())
+                    .put(LINKS, ImmutableSet.of(
+                            DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_LLDP).build(),
+                            DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_BSN).build()))
+                    .put(DHCP, ImmutableSet.of(
+                            DefaultTrafficSelector.builder().matchUdpDst(TpPort.tpPort(UDP.DHCP_SERVER_PORT)).build()))
+                    .put(ARP_ONLY, ImmutableSet.of(
+                            DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_ARP).build()))
+                    .put(IPV4, ImmutableSet.of(
+                            DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_IPV4)
+                                    .matchIPDst(IpPrefix.valueOf("10.0.0.0/8")).build()))
+                    .put(HTTP, ImmutableSet.of(
+                            DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_IPV4)
+                                    .matchIPProtocol(IPv4.PROTOCOL_TCP)
+                                    .matchTcpDst(TpPort.tpPort(80)).build()))
+                    .build();
+
+    private final PacketDispatchTable<String> table =
+            new PacketDispatchTable<>(ImmutableList.copyOf(SELECTORS.keySet()), SELECTORS::get);
+
+    private static Ethernet ethernet(short ethType, IPacket payload) {
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(ethType);
+        eth.setSourceMACAddress(MacAddress.valueOf("00:00:00:00:00:01"));
+        eth.setDestinationMACAddress(MacAddress.BROADCAST);
+        eth.setPayload(payload);
+        return eth;
+    }
+
+    private static Ethernet ipv4(byte protocol, IPacket payload) {
+        IPv4 ipv4 = new IPv4();
+        ipv4.setProtocol(protocol);
+        ipv4.setSourceAddress("10.0.0.1");
+        ipv4.setDestinationAddress("10.0.0.2");
+        ipv4.setPayload(payload);
+        return ethernet(Ethernet.TYPE_IPV4, ipv4);
+    }
+
+    private static Ethernet udp(int srcPort, int dstPort) {
+        UDP udp = new UDP();
+        udp.setSourcePort(srcPort);
+        udp.setDestinationPort(dstPort);
+        udp.setPayload(new Data(new byte[8]));
+        return ipv4(IPv4.PROTOCOL_UDP, udp);
+    }
+
+    private static Ethernet tcp(int dstPort) {
+        TCP tcp = new TCP();
+        tcp.setSourcePort(40000);
+        tcp.setDestinationPort(dstPort);
+        return ipv4(IPv4.PROTOCOL_TCP, tcp);
+    }
+
+    private static Ethernet arp() {
+        ARP arp = new ARP();
+        arp.setHardwareType(ARP.HW_TYPE_ETHERNET)
+                .setProtocolType(ARP.PROTO_TYPE_IP)
+                .setHardwareAddressLength((byte) Ethernet.DATALAYER_ADDRESS_LENGTH)
+                .setProtocolAddressLength((byte) 4)
+                .setOpCode(ARP.OP_REQUEST)
+                .setSenderHardwareAddress(new byte[6])
+                .setSenderProtocolAddress(new byte[4])
+                .setTargetHardwareAddress(new byte[6])
+                .setTargetProtocolAddress(new byte[4]);
+        return ethernet(Ethernet.TYPE_ARP, arp);
+    }
+
+    private List<String> dispatch(InboundPacket packet) {
+        List<String> processors = new ArrayList<>();
+        table.forEach(packet, processors::add);
+        return processors;
+    }
+
+    private List<String> dispatch(Ethernet eth) {
+        List<String> raw = dispatch(new DefaultInboundPacket(CP, eth, ByteBuffer.wrap(eth.serialize())));
+        List<String> parsed = dispatch(new DefaultInboundPacket(CP, eth, null));
+        assertEquals("raw and parsed dispatch differ", raw, parsed);
+        return raw;
+    }
+
+    /**
+     * Tests dispatch by ethertype.
+     */
+    @Test
+    public void testEthType() {
+        assertEquals(ImmutableList.of(ALL, LINKS),
+                     dispatch(ethernet(Ethernet.TYPE_LLDP, new Data(new byte[32]))));
+        assertEquals(ImmutableList.of(ALL, LINKS),
+                     dispatch(ethernet(Ethernet.TYPE_BSN, new Data(new byte[32]))));
+        assertEquals(ImmutableList.of(ALL, ARP_ONLY), dispatch(arp()));
+        assertEquals(ImmutableList.of(ALL),
+                     dispatch(ethernet((short) 0x88b5, new Data(new byte[32]))));
+    }
+
+    /**
+     * Tests dispatch by IP protocol and transport ports.
+     */
+    @Test
+    public void testTransport() {
+        assertEquals(ImmutableList.of(ALL, DHCP, IPV4),
+                     dispatch(udp(UDP.DHCP_CLIENT_PORT, UDP.DHCP_SERVER_PORT)));
+        assertEquals(ImmutableList.of(ALL, IPV4), dispatch(udp(1000, 2000)));
+        assertEquals(ImmutableList.of(ALL, IPV4, HTTP), dispatch(tcp(80)));
+        assertEquals(ImmutableList.of(ALL, IPV4), dispatch(tcp(22)));
+    }
+
+    /**
+     * Tests dispatch of VLAN tagged and IPv6 packets.
+     */
+    @Test
+    public void testVlanAndIpv6() {
+        Ethernet arp = arp();
+        arp.setVlanID((short) 100);
+        assertEquals(ImmutableList.of(ALL, ARP_ONLY), dispatch(arp));
+
+        UDP udp = new UDP();
+        udp.setSourcePort(UDP.DHCP_CLIENT_PORT);
+        udp.setDestinationPort(UDP.DHCP_SERVER_PORT);
+        udp.setPayload(new Data(new byte[8]));
+        IPv6 ipv6 = new IPv6();
+        ipv6.setNextHeader(IPv6.PROTOCOL_UDP);
+        ipv6.setSourceAddress(new byte[16]);
+        ipv6.setDestinationAddress(new byte[16]);
+        ipv6.setPayload(udp);
+        assertEquals(ImmutableList.of(ALL, DHCP), dispatch(ethernet(Ethernet.TYPE_IPV6, ipv6)));
+    }
+
+    /**
+     * Tests that packets which cannot be classified go to all processors.
+     */
+    @Test
+    public void testUnclassified() {
+        InboundPacket truncated = new DefaultInboundPacket(CP, (Ethernet) null, ByteBuffer.allocate(10));
+        assertEquals(table.entries(), dispatch(truncated));
+        InboundPacket empty = new DefaultInboundPacket(CP, (Ethernet) null, null);
+        assertEquals(table.entries(), dispatch(empty));
+    }
+
+    /**
+     * Tests that dispatch does not parse the frame.
+     */
+    @Test
+    public void testLazyParse() {
+        Ethernet eth = tcp(80);
+        AtomicInteger parses = new AtomicInteger();
+        InboundPacket packet = new DefaultInboundPacket(CP, () -> {
+            parses.incrementAndGet();
+            return eth;
+        }, ByteBuffer.wrap(eth.serialize()), Optional.empty());
+
+        assertEquals(ImmutableList.of(ALL, IPV4, HTTP), dispatch(packet));
+        assertEquals(0, parses.get());
+        assertEquals(eth, packet.parsed());
+        assertEquals(eth, packet.parsed());
+        assertEquals(1, parses.get());
+    }
+}
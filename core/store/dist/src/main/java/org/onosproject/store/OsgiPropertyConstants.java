@@ -64,4 +64,16 @@ public final class OsgiPropertyConstants {
 
     public static final String LINK_WEIGHT_FUNCTION = "linkWeightFunction";
     public static final String LINK_WEIGHT_FUNCTION_DEFAULT = "hopCount";
+
+    public static final String PATH_CACHE_SIZE = "pathCacheSize";
+    public static final int PATH_CACHE_SIZE_DEFAULT = 10000;
+
+    public static final String INCREMENTAL_CLUSTERS = "incrementalClusters";
+    public static final boolean INCREMENTAL_CLUSTERS_DEFAULT = true;
+
+    public static final String CCM_BATCH_MAX_SIZE = "batchMaxSize";
+    public static final int CCM_BATCH_MAX_SIZE_DEFAULT = 1000;
+
+    public static final String CCM_BATCH_WINDOW_MILLIS = "batchWindowMillis";
+    public static final int CCM_BATCH_WINDOW_MILLIS_DEFAULT = 5;
 }
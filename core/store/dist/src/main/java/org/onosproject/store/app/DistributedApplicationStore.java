@@ -113,6 +113,8 @@ public class DistributedApplicationStore extends ApplicationArchive
 
     private static final int APP_LOAD_DELAY_MS = 500;
 
+    private static final int APP_CACHE_SIZE = 1_000;
+
     private static List<String> pendingApps = Lists.newArrayList();
 
     public enum InternalState {
@@ -176,6 +178,7 @@ public class DistributedApplicationStore extends ApplicationArchive
         apps = storageService.<ApplicationId, InternalApplicationHolder>consistentMapBuilder()
                 .withName("onos-apps")
                 .withRelaxedReadConsistency()
+                .withNearCache(APP_CACHE_SIZE)
                 .withSerializer(Serializer.using(KryoNamespaces.API,
                         InternalApplicationHolder.class,
                         InternalState.class))
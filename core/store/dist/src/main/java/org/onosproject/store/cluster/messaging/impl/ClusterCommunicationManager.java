@@ -15,9 +15,18 @@
  */
 package org.onosproject.store.cluster.messaging.impl;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Objects;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onlab.util.AbstractAccumulator;
+import org.onlab.util.OrderedExecutor;
 import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.ControllerNode;
 import org.onosproject.cluster.NodeId;
@@ -30,16 +39,27 @@ import org.onosproject.store.cluster.messaging.MessagingService;
 import org.onosproject.utils.MeteringAgent;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -48,10 +68,22 @@ import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.store.OsgiPropertyConstants.CCM_BATCH_MAX_SIZE;
+import static org.onosproject.store.OsgiPropertyConstants.CCM_BATCH_MAX_SIZE_DEFAULT;
+import static org.onosproject.store.OsgiPropertyConstants.CCM_BATCH_WINDOW_MILLIS;
+import static org.onosproject.store.OsgiPropertyConstants.CCM_BATCH_WINDOW_MILLIS_DEFAULT;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.CLUSTER_WRITE;
 
-@Component(immediate = true, service = ClusterCommunicationService.class)
+@Component(
+        immediate = true,
+        service = ClusterCommunicationService.class,
+        property = {
+                CCM_BATCH_MAX_SIZE + ":Integer=" + CCM_BATCH_MAX_SIZE_DEFAULT,
+                CCM_BATCH_WINDOW_MILLIS + ":Integer=" + CCM_BATCH_WINDOW_MILLIS_DEFAULT
+        }
+)
 public class ClusterCommunicationManager implements ClusterCommunicationService {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
@@ -69,25 +101,125 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
     private static final String ROUND_TRIP_SUFFIX = ".rtt";
     private static final String ONE_WAY_SUFFIX = ".oneway";
 
+    private static final String METRICS_COMPONENT = "ClusterCommunication";
+    private static final String BATCH_SIZE = "batchSize";
+    // Time from queuing a message until its batch is handed to the network
+    // by this node; the receipt by the destination is not measured
+    private static final String BATCH_SEND_LATENCY = "batchLocalSendLatency";
+    private static final int BATCH_SENDER_THREADS = 4;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected ClusterService clusterService;
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected MessagingService messagingService;
 
+    // Optional to avoid a circular dependency; the stores backing the
+    // configuration service communicate through this service.
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL,
+            bind = "bindComponentConfigService",
+            unbind = "unbindComponentConfigService",
+            policy = ReferencePolicy.DYNAMIC)
+    protected volatile ComponentConfigService cfgService;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    protected volatile MetricsService metricsService;
+
+    /** Maximum number of messages sent in a batch; 1 disables batching. */
+    private int batchMaxSize = CCM_BATCH_MAX_SIZE_DEFAULT;
+
+    /** Maximum number of millis a message waits for its batch to be sent. */
+    private int batchWindowMillis = CCM_BATCH_WINDOW_MILLIS_DEFAULT;
+
+    private final Map<MessageSubject, Map<NodeId, MessageBatcher<?>>> batchers = Maps.newConcurrentMap();
+    private final Map<MessageSubject, byte[]> headers = Maps.newConcurrentMap();
+    private final java.util.Timer batchTimer = new java.util.Timer("onos-cluster-batches", true);
+
+    // The timer only collects the batches; they are encoded and sent by an
+    // executor per destination node, which keeps the batches to a node in
+    // order, also across replaced batchers
+    private final Map<NodeId, Executor> batchSenders = Maps.newConcurrentMap();
+    private ExecutorService batchSenderPool;
+
     private NodeId localNodeId;
 
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
         localNodeId = clusterService.getLocalNode().id();
+        batchSenderPool = Executors.newFixedThreadPool(BATCH_SENDER_THREADS,
+                groupedThreads("onos/store/cluster", "batch-sender-%d", log));
+        modified(context);
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
+        List<MessageBatcher<?>> retired = retireBatchers();
+        batchTimer.cancel();
+        // Sends anything queued while the batchers were being retired
+        retired.forEach(MessageBatcher::flush);
+        // Lets the batches already handed over be sent
+        batchSenderPool.shutdown();
+        MetricsService metrics = metricsService;
+        if (metrics != null) {
+            MetricsComponent component = metrics.registerComponent(METRICS_COMPONENT);
+            retired.stream().map(batcher -> batcher.subject).distinct().forEach(subject -> {
+                MetricsFeature feature = component.registerFeature(subject.toString());
+                metrics.removeMetric(component, feature, BATCH_SIZE);
+                metrics.removeMetric(component, feature, BATCH_SEND_LATENCY);
+            });
+        }
+        if (cfgService != null) {
+            cfgService.unregisterProperties(getClass(), false);
+        }
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+        Dictionary<?, ?> properties = context.getProperties();
+
+        int newMaxSize = Tools.getIntegerProperty(properties, CCM_BATCH_MAX_SIZE, batchMaxSize);
+        int newWindowMillis = Tools.getIntegerProperty(properties, CCM_BATCH_WINDOW_MILLIS, batchWindowMillis);
+        if (newMaxSize < 1 || newWindowMillis < 1) {
+            log.warn("Invalid batch configuration: maxSize={}, windowMillis={}; ignoring",
+                     newMaxSize, newWindowMillis);
+            return;
+        }
+        if (newMaxSize != batchMaxSize || newWindowMillis != batchWindowMillis) {
+            batchMaxSize = newMaxSize;
+            batchWindowMillis = newWindowMillis;
+            retireBatchers();
+        }
+        log.info("Settings: {}={}, {}={}",
+                 CCM_BATCH_MAX_SIZE, batchMaxSize,
+                 CCM_BATCH_WINDOW_MILLIS, batchWindowMillis);
+    }
+
+    /**
+     * Hook for wiring the optional reference to the configuration service.
+     *
+     * @param service service being announced
+     */
+    protected void bindComponentConfigService(ComponentConfigService service) {
+        cfgService = service;
+        service.registerProperties(getClass());
+    }
+
+    /**
+     * Hook for unwiring the optional reference to the configuration service.
+     *
+     * @param service service being withdrawn
+     */
+    protected void unbindComponentConfigService(ComponentConfigService service) {
+        if (cfgService == service) {
+            cfgService = null;
+        }
+    }
+
     @Override
     public <M> void broadcast(M message,
                               MessageSubject subject,
@@ -124,28 +256,54 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
                                                NodeId toNodeId) {
         checkPermission(CLUSTER_WRITE);
         try {
-            byte[] payload = new ClusterMessage(
-                    localNodeId,
-                    subject,
-                    timeFunction(encoder, subjectMeteringAgent, SERIALIZING).apply(message)
-                    ).getBytes();
+            byte[] payload = encode(message, subject, encoder);
             return doUnicast(subject, payload, toNodeId);
         } catch (Exception e) {
             return Tools.exceptionalFuture(e);
         }
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public <M> CompletableFuture<Void> unicastBatched(M message,
+                                                      MessageSubject subject,
+                                                      Function<List<M>, byte[]> encoder,
+                                                      NodeId toNodeId) {
+        checkPermission(CLUSTER_WRITE);
+        if (batchMaxSize == 1) {
+            return unicast(Collections.singletonList(message), subject, encoder, toNodeId);
+        }
+        MessageBatcher<M> batcher = (MessageBatcher<M>) batchers
+                .computeIfAbsent(subject, s -> Maps.newConcurrentMap())
+                .computeIfAbsent(toNodeId, nodeId -> new MessageBatcher<>(subject, nodeId, encoder));
+        PendingMessage<M> pending = new PendingMessage<>(message);
+        try {
+            batcher.add(pending);
+        } catch (IllegalStateException e) {
+            // The batch timer has been cancelled on deactivation
+            return Tools.exceptionalFuture(e);
+        }
+        return pending.future;
+    }
+
+    // Replaces the batchers and sends their pending batches right away; as
+    // they are handed to the same executors as the batches of the replacing
+    // batchers, messages to a node are not reordered.
+    private List<MessageBatcher<?>> retireBatchers() {
+        List<MessageBatcher<?>> retired = new ArrayList<>();
+        batchers.values().forEach(nodeBatchers -> retired.addAll(nodeBatchers.values()));
+        batchers.clear();
+        retired.forEach(MessageBatcher::flush);
+        return retired;
+    }
+
     @Override
     public <M> void multicast(M message,
                               MessageSubject subject,
                               Function<M, byte[]> encoder,
                               Set<NodeId> nodes) {
         checkPermission(CLUSTER_WRITE);
-        byte[] payload = new ClusterMessage(
-                localNodeId,
-                subject,
-                timeFunction(encoder, subjectMeteringAgent, SERIALIZING).apply(message))
-                .getBytes();
+        byte[] payload = encode(message, subject, encoder);
         nodes.forEach(nodeId -> doUnicast(subject, payload, nodeId));
     }
 
@@ -157,18 +315,20 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
                                                       NodeId toNodeId) {
         checkPermission(CLUSTER_WRITE);
         try {
-            ClusterMessage envelope = new ClusterMessage(
-                    clusterService.getLocalNode().id(),
-                    subject,
-                    timeFunction(encoder, subjectMeteringAgent, SERIALIZING).
-                            apply(message));
-            return sendAndReceive(subject, envelope.getBytes(), toNodeId).
+            return sendAndReceive(subject, encode(message, subject, encoder), toNodeId).
                     thenApply(bytes -> timeFunction(decoder, subjectMeteringAgent, DESERIALIZING).apply(bytes));
         } catch (Exception e) {
             return Tools.exceptionalFuture(e);
         }
     }
 
+    // Frames the encoded message behind the header of the subject
+    private <M> byte[] encode(M message, MessageSubject subject, Function<M, byte[]> encoder) {
+        byte[] header = headers.computeIfAbsent(subject, s -> ClusterMessage.header(localNodeId, s));
+        return ClusterMessage.toBytes(header, timeFunction(encoder, subjectMeteringAgent, SERIALIZING)
+                .apply(message));
+    }
+
     private CompletableFuture<Void> doUnicast(MessageSubject subject, byte[] payload, NodeId toNodeId) {
         ControllerNode node = clusterService.getNode(toNodeId);
         checkArgument(node != null, "Unknown nodeId: %s", toNodeId);
@@ -284,6 +444,94 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
     }
 
 
+    /**
+     * Message waiting to be sent in a batch.
+     */
+    private static final class PendingMessage<M> {
+        private final M message;
+        private final long queuedNanos = System.nanoTime();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingMessage(M message) {
+            this.message = message;
+        }
+    }
+
+    /**
+     * Accumulates the messages sent on a subject to a node and sends them in
+     * batches.
+     */
+    private final class MessageBatcher<M> extends AbstractAccumulator<PendingMessage<M>> {
+        private final MessageSubject subject;
+        private final NodeId nodeId;
+        private final Function<List<M>, byte[]> encoder;
+        private final Executor sender;
+        private volatile Histogram batchSizes;
+        private volatile Timer batchSendLatencies;
+
+        private MessageBatcher(MessageSubject subject, NodeId nodeId, Function<List<M>, byte[]> encoder) {
+            super(batchTimer, batchMaxSize, batchWindowMillis, batchWindowMillis);
+            this.subject = subject;
+            this.nodeId = nodeId;
+            this.encoder = encoder;
+            this.sender = batchSenders.computeIfAbsent(nodeId, id -> new OrderedExecutor(batchSenderPool));
+        }
+
+        @Override
+        public void processItems(List<PendingMessage<M>> items) {
+            // The batch senders are shut down on deactivation; the ordered
+            // executor only reports the first rejection, so the pool is checked
+            if (batchSenderPool.isShutdown()) {
+                RejectedExecutionException e = new RejectedExecutionException("Batch senders shut down");
+                items.forEach(pending -> pending.future.completeExceptionally(e));
+                return;
+            }
+            sender.execute(() -> send(items));
+        }
+
+        private void send(List<PendingMessage<M>> items) {
+            List<M> messages = items.stream().map(pending -> pending.message).collect(Collectors.toList());
+            CompletableFuture<Void> future;
+            try {
+                byte[] payload = encode(messages, subject, encoder);
+                future = doUnicast(subject, payload, nodeId);
+            } catch (Exception e) {
+                future = Tools.exceptionalFuture(e);
+            }
+            updateMetrics();
+            if (batchSizes != null) {
+                batchSizes.update(items.size());
+            }
+            future.whenComplete((result, error) -> {
+                long sentNanos = System.nanoTime();
+                items.forEach(pending -> {
+                    if (error != null) {
+                        pending.future.completeExceptionally(error);
+                    } else {
+                        if (batchSendLatencies != null) {
+                            batchSendLatencies.update(sentNanos - pending.queuedNanos, TimeUnit.NANOSECONDS);
+                        }
+                        pending.future.complete(null);
+                    }
+                });
+            });
+        }
+
+        // Resolves the metrics of the subject once the metrics service is available
+        private void updateMetrics() {
+            MetricsService metrics = metricsService;
+            if (metrics == null) {
+                batchSizes = null;
+                batchSendLatencies = null;
+            } else if (batchSizes == null) {
+                MetricsComponent component = metrics.registerComponent(METRICS_COMPONENT);
+                MetricsFeature feature = component.registerFeature(subject.toString());
+                batchSizes = metrics.createHistogram(component, feature, BATCH_SIZE);
+                batchSendLatencies = metrics.createTimer(component, feature, BATCH_SEND_LATENCY);
+            }
+        }
+    }
+
     private class InternalClusterMessageHandler implements BiFunction<Endpoint, byte[], byte[]> {
         private ClusterMessageHandler handler;
 
@@ -315,7 +563,7 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
         @Override
         public CompletableFuture<byte[]> apply(Endpoint sender, byte[] bytes) {
             return handler.apply(timeFunction(decoder, subjectMeteringAgent, DESERIALIZING).
-                    apply(ClusterMessage.fromBytes(bytes).payload())).
+                    apply(ClusterMessage.payloadOf(bytes))).
                     thenApply(m -> timeFunction(encoder, subjectMeteringAgent, SERIALIZING).apply(m));
         }
     }
@@ -332,7 +580,7 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
         @Override
         public void accept(Endpoint sender, byte[] bytes) {
             consumer.accept(timeFunction(decoder, subjectMeteringAgent, DESERIALIZING).
-                    apply(ClusterMessage.fromBytes(bytes).payload()));
+                    apply(ClusterMessage.payloadOf(bytes)));
         }
     }
 }
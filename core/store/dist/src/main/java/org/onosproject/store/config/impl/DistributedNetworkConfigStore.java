@@ -82,6 +82,8 @@ public class DistributedNetworkConfigStore
     private static final String INVALID_JSON_OBJECT =
             "JSON node is not an object for object type config";
 
+    private static final int CONFIG_CACHE_SIZE = 10_000;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected StorageService storageService;
 
@@ -106,6 +108,7 @@ public class DistributedNetworkConfigStore
                 .withSerializer(Serializer.using(kryoBuilder.build()))
                 .withName("onos-network-configs")
                 .withRelaxedReadConsistency()
+                .withNearCache(CONFIG_CACHE_SIZE)
                 .build();
         configs.addListener(listener);
         log.info("Started");
@@ -15,20 +15,28 @@
  */
 package org.onosproject.store.flow.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -41,6 +49,7 @@ import org.onosproject.net.flow.FlowEntry;
 import org.onosproject.net.flow.FlowId;
 import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.net.flow.TableId;
 import org.onosproject.store.LogicalTimestamp;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.cluster.messaging.MessageSubject;
@@ -60,6 +69,14 @@ import org.slf4j.LoggerFactory;
  * anti-entropy protocol is used to detect missing flows on backups (e.g. due to a node restart). Finally, when a
  * device mastership change occurs, the new master synchronizes flows with the prior master and/or backups for the
  * device, allowing mastership to be reassigned to non-backup nodes.
+ * <p>
+ * The anti-entropy protocol compares hash trees over the flow entries of the master and each backup, so that replicas
+ * which are in sync only exchange the root hash, and replicas which differ only exchange the divergent entries.
+ * <p>
+ * Buckets are mutated without locking. Each change is recorded in the bucket's change log, which is periodically
+ * drained into the changes pending replication to each backup. Once a backup has acknowledged a copy of the bucket,
+ * only the changes made since are sent to it, falling back to the full bucket whenever the backup may have missed
+ * changes or the delta would be larger than the bucket itself.
  */
 public class DeviceFlowTable {
     private static final int NUM_BUCKETS = 128;
@@ -68,6 +85,11 @@ public class DeviceFlowTable {
         .register(BucketId.class)
         .register(FlowBucket.class)
         .register(FlowBucketDigest.class)
+        .register(FlowBucketDelta.class)
+        .register(FlowTreeProbe.class)
+        .register(FlowSlotDigest.class)
+        .register(FlowSlotRepair.class)
+        .register(long[][].class)
         .register(LogicalTimestamp.class)
         .register(Timestamped.class)
         .build());
@@ -77,6 +99,10 @@ public class DeviceFlowTable {
     private final MessageSubject getDigestsSubject;
     private final MessageSubject getBucketSubject;
     private final MessageSubject backupSubject;
+    private final MessageSubject backupDeltaSubject;
+    private final MessageSubject getTreeSubject;
+    private final MessageSubject getSlotsSubject;
+    private final MessageSubject repairSubject;
 
     private final DeviceId deviceId;
     private final ClusterCommunicationService clusterCommunicator;
@@ -103,9 +129,18 @@ public class DeviceFlowTable {
 
     private final Map<Integer, Queue<Runnable>> flowTasks = Maps.newConcurrentMap();
     private final Map<Integer, FlowBucket> flowBuckets = Maps.newConcurrentMap();
+    private final Map<Integer, Queue<FlowChange>> changeLogs = Maps.newConcurrentMap();
 
     private final Map<BackupOperation, LogicalTimestamp> lastBackupTimes = Maps.newConcurrentMap();
     private final Set<BackupOperation> inFlightUpdates = Sets.newConcurrentHashSet();
+    private final Map<BackupOperation, Map<StoredFlowEntry, FlowChange>> pendingChanges = Maps.newConcurrentMap();
+
+    private final AtomicLong statsGeneration = new AtomicLong();
+
+    private final LongAdder antiEntropyBytes = new LongAdder();
+    private final LongAdder antiEntropyRounds = new LongAdder();
+    private final LongAdder antiEntropyRepairs = new LongAdder();
+    private volatile long lastAntiEntropyBytes;
 
     DeviceFlowTable(
         DeviceId deviceId,
@@ -126,11 +161,16 @@ public class DeviceFlowTable {
 
         for (int i = 0; i < NUM_BUCKETS; i++) {
             flowBuckets.put(i, new FlowBucket(new BucketId(deviceId, i)));
+            changeLogs.put(i, new ConcurrentLinkedQueue<>());
         }
 
         getDigestsSubject = new MessageSubject(String.format("flow-store-%s-digests", deviceId));
         getBucketSubject = new MessageSubject(String.format("flow-store-%s-bucket", deviceId));
         backupSubject = new MessageSubject(String.format("flow-store-%s-backup", deviceId));
+        backupDeltaSubject = new MessageSubject(String.format("flow-store-%s-backup-delta", deviceId));
+        getTreeSubject = new MessageSubject(String.format("flow-store-%s-tree", deviceId));
+        getSlotsSubject = new MessageSubject(String.format("flow-store-%s-slots", deviceId));
+        repairSubject = new MessageSubject(String.format("flow-store-%s-repair", deviceId));
 
         addListeners();
 
@@ -204,6 +244,109 @@ public class DeviceFlowTable {
             .collect(Collectors.toSet());
     }
 
+    /**
+     * Starts a poll of the flow statistics of the device.
+     * <p>
+     * Entries added from then on are marked with the generation of the poll, so they are not reported unseen
+     * once it completes.
+     *
+     * @return the statistics generation of the poll
+     */
+    public long startStatsPoll() {
+        return statsGeneration.incrementAndGet();
+    }
+
+    /**
+     * Returns the entries in the table matching the given entries reported by the device, marking them as seen in
+     * the given statistics generation.
+     *
+     * @param flowEntries the entries reported by the device
+     * @param generation  the statistics generation, or 0 to leave the entries unmarked
+     * @return the entries in the table keyed by the reported entries they match
+     */
+    public Map<FlowEntry, FlowEntry> getReportedFlowEntries(Iterable<FlowEntry> flowEntries, long generation) {
+        Map<FlowEntry, FlowEntry> reported = new HashMap<>();
+        for (FlowEntry flowEntry : flowEntries) {
+            StoredFlowEntry stored = getFlowEntry(flowEntry);
+            if (stored != null) {
+                if (generation != 0) {
+                    stored.setLastSeenGeneration(generation);
+                }
+                reported.put(flowEntry, stored);
+            }
+        }
+        return reported;
+    }
+
+    /**
+     * Returns the flow entries in the table which have not been seen in the given statistics generation.
+     * <p>
+     * The buckets are scanned in place, so only the unseen entries are copied.
+     *
+     * @param generation the statistics generation
+     * @return the flow entries not seen in the given generation
+     */
+    public List<FlowEntry> getUnseenFlowEntries(long generation) {
+        List<FlowEntry> unseen = new ArrayList<>();
+        for (FlowBucket bucket : flowBuckets.values()) {
+            for (Map<StoredFlowEntry, StoredFlowEntry> flowEntries : bucket.getFlowBucket().values()) {
+                for (StoredFlowEntry entry : flowEntries.values()) {
+                    if (entry.lastSeenGeneration() != generation) {
+                        unseen.add(entry);
+                    }
+                }
+            }
+        }
+        return unseen;
+    }
+
+    /**
+     * Returns the set of flow entries with the given flow identifier.
+     *
+     * @param flowId the flow identifier
+     * @return the set of flow entries with the given flow identifier
+     */
+    public Set<FlowEntry> getFlowEntries(FlowId flowId) {
+        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = getBucket(flowId).getFlowBucket().get(flowId);
+        return flowEntries != null ? Sets.newHashSet(flowEntries.values()) : Collections.emptySet();
+    }
+
+    /**
+     * Returns the set of flow entries of the given application.
+     *
+     * @param appId the application identifier
+     * @return the set of flow entries of the given application
+     */
+    public Set<FlowEntry> getFlowEntriesByApp(short appId) {
+        return flowBuckets.values().stream()
+            .flatMap(bucket -> bucket.getFlowEntriesByApp(appId).stream())
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Returns the set of flow entries with the given group key.
+     *
+     * @param groupKey the group key, made of the application and group identifiers
+     * @return the set of flow entries with the given group key
+     */
+    public Set<FlowEntry> getFlowEntriesByGroup(long groupKey) {
+        return flowBuckets.values().stream()
+            .flatMap(bucket -> bucket.getFlowEntriesByGroup(groupKey).stream())
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Returns the set of flow entries in the given table.
+     *
+     * @param tableId the table identifier
+     * @return the set of flow entries in the given table
+     */
+    public Set<FlowEntry> getFlowEntriesByTable(TableId tableId) {
+        return flowBuckets.values().stream()
+            .flatMap(bucket -> bucket.getFlowEntriesByTable(tableId).stream())
+            .collect(Collectors.toSet());
+    }
+
     /**
      * Returns the bucket for the given flow identifier.
      *
@@ -264,7 +407,8 @@ public class DeviceFlowTable {
      */
     public CompletableFuture<Void> add(FlowEntry rule) {
         return runInTerm(rule.id(), (bucket, term) -> {
-            bucket.add(rule, term, clock);
+            ((StoredFlowEntry) rule).setLastSeenGeneration(statsGeneration.get());
+            bucket.add(rule, term, clock, changeLog(bucket));
             return null;
         });
     }
@@ -277,7 +421,7 @@ public class DeviceFlowTable {
      */
     public CompletableFuture<Void> update(FlowEntry rule) {
         return runInTerm(rule.id(), (bucket, term) -> {
-            bucket.update(rule, term, clock);
+            bucket.update(rule, term, clock, changeLog(bucket));
             return null;
         });
     }
@@ -291,7 +435,7 @@ public class DeviceFlowTable {
      * @return a future to be completed with the update result or {@code null} if the rule was not updated
      */
     public <T> CompletableFuture<T> update(FlowRule rule, Function<StoredFlowEntry, T> function) {
-        return runInTerm(rule.id(), (bucket, term) -> bucket.update(rule, function, term, clock));
+        return runInTerm(rule.id(), (bucket, term) -> bucket.update(rule, function, term, clock, changeLog(bucket)));
     }
 
     /**
@@ -301,7 +445,17 @@ public class DeviceFlowTable {
      * @return a future to be completed once the rule has been removed
      */
     public CompletableFuture<FlowEntry> remove(FlowEntry rule) {
-        return runInTerm(rule.id(), (bucket, term) -> bucket.remove(rule, term, clock));
+        return runInTerm(rule.id(), (bucket, term) -> bucket.remove(rule, term, clock, changeLog(bucket)));
+    }
+
+    /**
+     * Returns the change log for the given bucket.
+     *
+     * @param bucket the bucket for which to return the change log
+     * @return the change log for the given bucket
+     */
+    private Queue<FlowChange> changeLog(FlowBucket bucket) {
+        return changeLogs.get(bucket.bucketId().bucket());
     }
 
     /**
@@ -336,6 +490,8 @@ public class DeviceFlowTable {
 
     /**
      * Applies the given function to the given bucket.
+     * <p>
+     * No lock is held while applying the function; the bucket serializes concurrent changes to the same flow.
      *
      * @param function the function to apply
      * @param bucket the bucket to which to apply the function
@@ -344,9 +500,7 @@ public class DeviceFlowTable {
      * @return the function result
      */
     private <T> T apply(BiFunction<FlowBucket, Long, T> function, FlowBucket bucket, long term) {
-        synchronized (bucket) {
-            return function.apply(bucket, term);
-        }
+        return function.apply(bucket, term);
     }
 
     /**
@@ -389,44 +543,87 @@ public class DeviceFlowTable {
     private CompletableFuture<Void> backupBucket(FlowBucket bucket) {
         DeviceReplicaInfo replicaInfo = lifecycleManager.getReplicaInfo();
 
+        // Record the logical timestamp from the bucket before draining its change log. Any change not yet drained
+        // may then be missing from what is sent, but will be sent with the next backup.
+        LogicalTimestamp timestamp = bucket.timestamp();
+        List<FlowChange> changes = drainChanges(bucket);
+
         // Only replicate if the bucket's term matches the replica term and the local node is the current master.
         // This ensures that the bucket has been synchronized prior to a new master replicating changes to backups.
         // Only replicate if the local node is the current master.
         if (bucket.term() == replicaInfo.term() && replicaInfo.isMaster(localNodeId)) {
             // Replicate the bucket to each of the backup nodes.
+            int bucketNumber = bucket.bucketId().bucket();
+            pendingChanges.keySet().removeIf(operation -> operation.bucket() == bucketNumber
+                && !replicaInfo.backups().contains(operation.nodeId()));
             CompletableFuture<?>[] futures = replicaInfo.backups()
                     .stream()
-                    .map(nodeId -> backupBucketToNode(bucket, nodeId))
+                    .map(nodeId -> backupBucketToNode(bucket, nodeId, timestamp, changes))
                     .toArray(CompletableFuture[]::new);
             return CompletableFuture.allOf(futures);
         }
+
+        // Changes which are not replicated in the current term must be covered by sending full buckets later.
+        resetBackups(bucket.bucketId().bucket());
         return CompletableFuture.completedFuture(null);
     }
 
+    /**
+     * Drains the change log of the given bucket.
+     *
+     * @param bucket the bucket for which to drain the change log
+     * @return the changes recorded since the log was last drained
+     */
+    private List<FlowChange> drainChanges(FlowBucket bucket) {
+        Queue<FlowChange> changeLog = changeLog(bucket);
+        List<FlowChange> changes = new ArrayList<>();
+        FlowChange change;
+        while ((change = changeLog.poll()) != null) {
+            changes.add(change);
+        }
+        return changes;
+    }
+
     /**
      * Backs up the given flow bucket to the given node.
      *
-     * @param bucket the bucket to backup
-     * @param nodeId the node to which to back up the bucket
+     * @param bucket    the bucket to backup
+     * @param nodeId    the node to which to back up the bucket
+     * @param timestamp the bucket timestamp as of the backup
+     * @param changes   the changes drained from the bucket's change log
      * @return a future to be completed once the bucket has been backed up
      */
-    private CompletableFuture<Void> backupBucketToNode(FlowBucket bucket, NodeId nodeId) {
-        // Record the logical timestamp from the bucket to keep track of the highest logical time replicated.
-        LogicalTimestamp timestamp = bucket.timestamp();
+    private CompletableFuture<Void> backupBucketToNode(
+        FlowBucket bucket, NodeId nodeId, LogicalTimestamp timestamp, List<FlowChange> changes) {
+        BackupOperation operation = new BackupOperation(nodeId, bucket.bucketId().bucket());
+        Map<StoredFlowEntry, FlowChange> pending = pendingChanges.computeIfAbsent(
+            operation, o -> Maps.newConcurrentMap());
+        changes.forEach(change -> pending.merge(change.entry(), change, FlowChange::latest));
 
         // If the backup can be run (no concurrent backup to the node in progress) then run it.
-        BackupOperation operation = new BackupOperation(nodeId, bucket.bucketId().bucket());
         if (startBackup(operation, timestamp)) {
+            // Send only the pending changes if the node has acknowledged a prior backup of the bucket.
+            LogicalTimestamp base = lastBackupTimes.get(operation);
+            List<FlowChange> sent = new ArrayList<>(pending.values());
+            boolean full = base == null || sent.size() > bucket.count();
+            if (full) {
+                pending.clear();
+            }
+
             CompletableFuture<Void> future = new CompletableFuture<>();
-            backup(bucket, nodeId).whenCompleteAsync((succeeded, error) -> {
+            CompletableFuture<Boolean> backupFuture = full
+                ? backup(bucket, nodeId)
+                : backup(bucket, nodeId, base, timestamp, sent);
+            backupFuture.whenCompleteAsync((succeeded, error) -> {
                 if (error != null) {
                     log.debug("Backup operation {} failed", operation, error);
-                    failBackup(operation);
+                    failBackup(operation, full);
                 } else if (succeeded) {
+                    sent.forEach(change -> pending.remove(change.entry(), change));
                     succeedBackup(operation, timestamp);
                 } else {
                     log.debug("Backup operation {} failed: term mismatch", operation);
-                    failBackup(operation);
+                    failBackup(operation, true);
                 }
                 future.complete(null);
             }, executor);
@@ -456,8 +653,12 @@ public class DeviceFlowTable {
      * Fails the given backup operation.
      *
      * @param operation the backup operation to fail
+     * @param reset     whether to reset the operation, sending the full bucket on the next attempt
      */
-    private void failBackup(BackupOperation operation) {
+    private void failBackup(BackupOperation operation, boolean reset) {
+        if (reset) {
+            resetBackup(operation);
+        }
         inFlightUpdates.remove(operation);
     }
 
@@ -484,6 +685,16 @@ public class DeviceFlowTable {
         lastBackupTimes.remove(operation);
     }
 
+    /**
+     * Resets all backup operations for the given bucket and discards their pending changes.
+     *
+     * @param bucket the bucket number for which to reset backup operations
+     */
+    private void resetBackups(int bucket) {
+        lastBackupTimes.keySet().removeIf(operation -> operation.bucket() == bucket);
+        pendingChanges.keySet().removeIf(operation -> operation.bucket() == bucket);
+    }
+
     /**
      * Performs the given backup operation.
      *
@@ -495,9 +706,34 @@ public class DeviceFlowTable {
         if (log.isDebugEnabled()) {
             log.debug("Backing up {} flow entries in bucket {} to {}", bucket.count(), bucket.bucketId(), nodeId);
         }
-        synchronized (bucket) {
-            return sendWithTimestamp(bucket, backupSubject, nodeId);
+        return sendWithTimestamp(bucket.copy(), backupSubject, nodeId);
+    }
+
+    /**
+     * Performs the given backup operation, sending only the given changes.
+     *
+     * @param bucket    the bucket to backup
+     * @param nodeId    the node to which to backup the bucket
+     * @param base      the timestamp of the last backup acknowledged by the node
+     * @param timestamp the bucket timestamp as of the backup
+     * @param changes   the changes to send
+     * @return a future to be completed with a boolean indicating whether the backup operation was successful
+     */
+    private CompletableFuture<Boolean> backup(
+        FlowBucket bucket, NodeId nodeId, LogicalTimestamp base, LogicalTimestamp timestamp,
+        List<FlowChange> changes) {
+        List<StoredFlowEntry> updates = new ArrayList<>();
+        List<StoredFlowEntry> removals = new ArrayList<>();
+        for (FlowChange change : changes) {
+            (change.isRemoved() ? removals : updates).add(change.entry());
         }
+        FlowBucketDelta delta = new FlowBucketDelta(
+            bucket.bucketId(), bucket.term(), base, timestamp, updates, removals);
+        if (log.isDebugEnabled()) {
+            log.debug("Backing up {} flow entry changes in bucket {} to {}",
+                delta.count(), bucket.bucketId(), nodeId);
+        }
+        return sendWithTimestamp(delta, backupDeltaSubject, nodeId);
     }
 
     /**
@@ -530,6 +766,33 @@ public class DeviceFlowTable {
         }
     }
 
+    /**
+     * Handles a flow bucket delta backup from a remote peer.
+     *
+     * @param delta the flow bucket delta to back up
+     * @return indicates whether the delta was backed up
+     */
+    private boolean onBackupDelta(FlowBucketDelta delta) {
+        if (log.isDebugEnabled()) {
+            log.debug("{} - Received {} flow entry changes in bucket {} to backup",
+                deviceId, delta.count(), delta.bucketId());
+        }
+
+        try {
+            DeviceReplicaInfo replicaInfo = lifecycleManager.getReplicaInfo();
+
+            // If the backup is for a different term, reject the request until we learn about the new term.
+            if (delta.term() != replicaInfo.term()) {
+                log.debug("Term mismatch for device {}: {} != {}", deviceId, delta.term(), replicaInfo);
+                return false;
+            }
+            return flowBuckets.get(delta.bucketId().bucket()).apply(delta);
+        } catch (Exception e) {
+            log.warn("Failure processing backup request", e);
+            return false;
+        }
+    }
+
     /**
      * Runs the anti-entropy protocol.
      */
@@ -539,30 +802,231 @@ public class DeviceFlowTable {
             return;
         }
 
-        for (NodeId nodeId : replicaInfo.backups()) {
-            runAntiEntropy(nodeId);
-        }
+        backupAll().whenCompleteAsync((result, error) -> {
+            FlowHashTree tree = getHashTree();
+            LongAdder bytes = new LongAdder();
+            CompletableFuture<?>[] futures = replicaInfo.backups()
+                .stream()
+                .map(nodeId -> runAntiEntropy(nodeId, replicaInfo.term(), tree, bytes))
+                .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(futures).whenComplete((r, e) -> {
+                long roundBytes = bytes.sum();
+                lastAntiEntropyBytes = roundBytes;
+                antiEntropyBytes.add(roundBytes);
+                antiEntropyRounds.increment();
+            });
+        }, executor);
     }
 
     /**
      * Runs the anti-entropy protocol against the given peer.
+     * <p>
+     * The hash trees of both nodes are compared from the root down, so that only the slots in which they differ are
+     * reconciled. The peer then drops any entries of these slots which are unknown to the master, and the master sends
+     * the entries the peer is missing.
      *
      * @param nodeId the node with which to execute the anti-entropy protocol
+     * @param term   the term of the master
+     * @param tree   the hash tree of the master
+     * @param bytes  the counter of bytes exchanged in the current round
+     * @return a future to be completed once the peer has been repaired
      */
-    private void runAntiEntropy(NodeId nodeId) {
-        backupAll().whenCompleteAsync((result, error) -> {
-            requestDigests(nodeId).thenAcceptAsync((digests) -> {
-                // Compute a set of missing BucketIds based on digest times and send them back to the master.
-                for (FlowBucketDigest remoteDigest : digests) {
-                    FlowBucket localBucket = getBucket(remoteDigest.bucket());
-                    if (localBucket.getDigest().isNewerThan(remoteDigest)) {
-                        log.debug("Detected missing flow entries on node {} in bucket {}/{}",
-                                nodeId, deviceId, remoteDigest.bucket());
-                        resetBackup(new BackupOperation(nodeId, remoteDigest.bucket()));
-                    }
+    private CompletableFuture<Void> runAntiEntropy(NodeId nodeId, long term, FlowHashTree tree, LongAdder bytes) {
+        return findDivergentSlots(nodeId, term, tree, 0, new int[]{0}, bytes)
+            .thenComposeAsync(slots -> repairSlots(nodeId, term, slots, bytes), executor)
+            .exceptionally(error -> {
+                log.debug("Anti-entropy with node {} failed for device {}", nodeId, deviceId, error);
+                return null;
+            });
+    }
+
+    /**
+     * Descends the hash tree of the given peer to find the slots which differ from the local ones.
+     *
+     * @param nodeId the node to probe
+     * @param term   the term of the master
+     * @param tree   the hash tree of the master
+     * @param level  the level of the nodes to compare
+     * @param nodes  the nodes to compare
+     * @param bytes  the counter of bytes exchanged in the current round
+     * @return a future to be completed with the leaf indexes of the divergent slots
+     */
+    private CompletableFuture<int[]> findDivergentSlots(
+        NodeId nodeId, long term, FlowHashTree tree, int level, int[] nodes, LongAdder bytes) {
+        return this.<FlowTreeProbe, long[]>sendWithTimestamp(
+            new FlowTreeProbe(term, level, nodes), getTreeSubject, nodeId, bytes)
+            .thenComposeAsync(hashes -> {
+                // The peer does not reply with hashes until it learns about the new term.
+                if (hashes == null) {
+                    return CompletableFuture.completedFuture(new int[0]);
                 }
+                int[] divergent = tree.divergent(level, nodes, hashes);
+                if (divergent.length == 0 || level == tree.depth()) {
+                    return CompletableFuture.completedFuture(divergent);
+                }
+                return findDivergentSlots(nodeId, term, tree, level + 1, FlowHashTree.children(divergent), bytes);
             }, executor);
-        }, executor);
+    }
+
+    /**
+     * Reconciles the given slots with the given peer.
+     *
+     * @param nodeId the node to repair
+     * @param term   the term of the master
+     * @param slots  the leaf indexes of the divergent slots
+     * @param bytes  the counter of bytes exchanged in the current round
+     * @return a future to be completed once the peer has been repaired
+     */
+    private CompletableFuture<Void> repairSlots(NodeId nodeId, long term, int[] slots, LongAdder bytes) {
+        if (slots.length == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        log.debug("Detected {} divergent flow slots on node {} for device {}", slots.length, nodeId, deviceId);
+        long[] timestamps = new long[slots.length];
+        long[][] hashes = new long[slots.length][];
+        for (int i = 0; i < slots.length; i++) {
+            // The timestamp is read first, so that the hashes cover at least the changes up to it.
+            timestamps[i] = getBucket(slots[i] / FlowBucket.NUM_SLOTS).timestamp().value();
+            hashes[i] = getSlotEntries(slots[i]).stream().mapToLong(FlowBucket::hash).toArray();
+        }
+        return this.<FlowSlotDigest, long[]>sendWithTimestamp(
+            new FlowSlotDigest(term, slots, timestamps, hashes), getSlotsSubject, nodeId, bytes)
+            .thenComposeAsync(missing -> {
+                if (missing == null || missing.length == 0) {
+                    return CompletableFuture.completedFuture(null);
+                }
+
+                // Entries changed since the digest was sent are skipped, and repaired by the next round if need be.
+                Set<Long> missingHashes = Arrays.stream(missing).boxed().collect(Collectors.toSet());
+                List<StoredFlowEntry> entries = Arrays.stream(slots)
+                    .mapToObj(this::getSlotEntries)
+                    .flatMap(List::stream)
+                    .filter(entry -> missingHashes.contains(FlowBucket.hash(entry)))
+                    .collect(Collectors.toList());
+                antiEntropyRepairs.add(entries.size());
+                log.debug("Repairing {} flow entries on node {} for device {}", entries.size(), nodeId, deviceId);
+                return this.<FlowSlotRepair, Boolean>sendWithTimestamp(
+                    new FlowSlotRepair(term, entries), repairSubject, nodeId, bytes)
+                    .<Void>thenApply(result -> null);
+            }, executor);
+    }
+
+    /**
+     * Returns the hash tree of the flow table.
+     *
+     * @return the hash tree over the slots of all the buckets
+     */
+    private FlowHashTree getHashTree() {
+        long[] leaves = new long[NUM_BUCKETS * FlowBucket.NUM_SLOTS];
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            System.arraycopy(getBucket(i).slotHashes(), 0, leaves, i * FlowBucket.NUM_SLOTS, FlowBucket.NUM_SLOTS);
+        }
+        return FlowHashTree.of(leaves);
+    }
+
+    /**
+     * Returns the flow entries in the given slot.
+     *
+     * @param slot the leaf index of the slot
+     * @return the flow entries in the slot
+     */
+    private List<StoredFlowEntry> getSlotEntries(int slot) {
+        return getBucket(slot / FlowBucket.NUM_SLOTS).getSlotEntries(slot % FlowBucket.NUM_SLOTS);
+    }
+
+    /**
+     * Handles a hash tree probe from the master.
+     *
+     * @param probe the probe
+     * @return the hashes of the probed nodes or {@code null} if the term does not match
+     */
+    private long[] onGetTree(FlowTreeProbe probe) {
+        if (probe.term() != lifecycleManager.getReplicaInfo().term()) {
+            log.debug("Term mismatch for device {}: {} != {}", deviceId, probe.term(), replicaInfo);
+            return null;
+        }
+        return getHashTree().hashes(probe.level(), probe.nodes());
+    }
+
+    /**
+     * Handles a digest of divergent slots from the master.
+     * <p>
+     * Entries unknown to the master are dropped from the slots, unless the backup has received changes more recent than
+     * the digest, and the hashes of the entries missing locally are returned to the master.
+     *
+     * @param digest the slot digest
+     * @return the hashes of the missing entries or {@code null} if the term does not match
+     */
+    private long[] onGetSlots(FlowSlotDigest digest) {
+        if (digest.term() != lifecycleManager.getReplicaInfo().term()) {
+            log.debug("Term mismatch for device {}: {} != {}", deviceId, digest.term(), replicaInfo);
+            return null;
+        }
+
+        LongStream.Builder missing = LongStream.builder();
+        for (int i = 0; i < digest.slots().length; i++) {
+            int slot = digest.slots()[i];
+            Set<Long> hashes = Arrays.stream(digest.hashes()[i]).boxed().collect(Collectors.toSet());
+            Set<Long> retained = getBucket(slot / FlowBucket.NUM_SLOTS)
+                .retainSlotEntries(slot % FlowBucket.NUM_SLOTS, hashes, new LogicalTimestamp(digest.timestamps()[i]));
+            hashes.stream().filter(hash -> !retained.contains(hash)).forEach(missing::add);
+        }
+        return missing.build().toArray();
+    }
+
+    /**
+     * Handles missing flow entries sent by the master.
+     *
+     * @param repair the missing entries
+     * @return indicates whether the entries were stored
+     */
+    private boolean onRepair(FlowSlotRepair repair) {
+        if (repair.term() != lifecycleManager.getReplicaInfo().term()) {
+            log.debug("Term mismatch for device {}: {} != {}", deviceId, repair.term(), replicaInfo);
+            return false;
+        }
+        repair.entries()
+            .stream()
+            .collect(Collectors.groupingBy(entry -> bucket(entry.id())))
+            .forEach((bucket, entries) -> getBucket(bucket).repair(entries));
+        return true;
+    }
+
+    /**
+     * Returns the number of bytes exchanged by the anti-entropy protocol since the table was created.
+     *
+     * @return the number of bytes exchanged by all anti-entropy rounds
+     */
+    long antiEntropyBytes() {
+        return antiEntropyBytes.sum();
+    }
+
+    /**
+     * Returns the number of bytes exchanged by the last completed anti-entropy round.
+     *
+     * @return the number of bytes exchanged by the last round
+     */
+    long lastAntiEntropyBytes() {
+        return lastAntiEntropyBytes;
+    }
+
+    /**
+     * Returns the number of completed anti-entropy rounds.
+     *
+     * @return the number of completed anti-entropy rounds
+     */
+    long antiEntropyRounds() {
+        return antiEntropyRounds.sum();
+    }
+
+    /**
+     * Returns the number of flow entries repaired on backups by the anti-entropy protocol.
+     *
+     * @return the number of repaired flow entries
+     */
+    long antiEntropyRepairs() {
+        return antiEntropyRepairs.sum();
     }
 
     /**
@@ -807,8 +1271,36 @@ public class DeviceFlowTable {
      * @return a future to be completed with the response
      */
     private <M, R> CompletableFuture<R> sendWithTimestamp(M message, MessageSubject subject, NodeId toNodeId) {
+        return sendWithTimestamp(message, subject, toNodeId, null);
+    }
+
+    /**
+     * Sends a message to the given node wrapped in a Lamport timestamp, counting the bytes exchanged.
+     *
+     * @param message  the message to send
+     * @param subject  the message subject
+     * @param toNodeId the node to which to send the message
+     * @param bytes    the counter of encoded request and response bytes, if any
+     * @param <M>      the message type
+     * @param <R>      the response type
+     * @return a future to be completed with the response
+     */
+    private <M, R> CompletableFuture<R> sendWithTimestamp(
+        M message, MessageSubject subject, NodeId toNodeId, LongAdder bytes) {
+        Function<Timestamped<M>, byte[]> encoder = SERIALIZER::encode;
+        Function<byte[], Timestamped<R>> decoder = SERIALIZER::decode;
+        if (bytes != null) {
+            encoder = encoder.andThen(payload -> {
+                bytes.add(payload.length);
+                return payload;
+            });
+            decoder = decoder.compose(payload -> {
+                bytes.add(payload.length);
+                return payload;
+            });
+        }
         return clusterCommunicator.<Timestamped<M>, Timestamped<R>>sendAndReceive(
-            clock.timestamp(message), subject, SERIALIZER::encode, SERIALIZER::decode, toNodeId)
+            clock.timestamp(message), subject, encoder, decoder, toNodeId)
             .thenApply(response -> {
                 clock.tick(response.timestamp());
                 return response.value();
@@ -840,6 +1332,10 @@ public class DeviceFlowTable {
         receiveWithTimestamp(getDigestsSubject, v -> getDigests());
         receiveWithTimestamp(getBucketSubject, this::onGetBucket);
         receiveWithTimestamp(backupSubject, this::onBackup);
+        receiveWithTimestamp(backupDeltaSubject, this::onBackupDelta);
+        receiveWithTimestamp(getTreeSubject, this::onGetTree);
+        receiveWithTimestamp(getSlotsSubject, this::onGetSlots);
+        receiveWithTimestamp(repairSubject, this::onRepair);
     }
 
     /**
@@ -849,6 +1345,10 @@ public class DeviceFlowTable {
         clusterCommunicator.removeSubscriber(getDigestsSubject);
         clusterCommunicator.removeSubscriber(getBucketSubject);
         clusterCommunicator.removeSubscriber(backupSubject);
+        clusterCommunicator.removeSubscriber(backupDeltaSubject);
+        clusterCommunicator.removeSubscriber(getTreeSubject);
+        clusterCommunicator.removeSubscriber(getSlotsSubject);
+        clusterCommunicator.removeSubscriber(repairSubject);
     }
 
     /**
@@ -881,8 +1381,10 @@ public class DeviceFlowTable {
     public void purge() {
         flowTasks.clear();
         flowBuckets.values().forEach(bucket -> bucket.purge());
+        changeLogs.values().forEach(changeLog -> changeLog.clear());
         lastBackupTimes.clear();
         inFlightUpdates.clear();
+        pendingChanges.clear();
     }
 
     /**
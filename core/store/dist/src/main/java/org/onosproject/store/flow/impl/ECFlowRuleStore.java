@@ -20,12 +20,18 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Streams;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
+import com.codahale.metrics.Gauge;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.KryoNamespace;
 import org.onlab.util.OrderedExecutor;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
+import org.onosproject.cluster.ControllerNode;
 import org.onosproject.cluster.NodeId;
+import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
 import org.onosproject.core.IdGenerator;
 import org.onosproject.event.AbstractListenerManager;
@@ -38,6 +44,7 @@ import org.onosproject.net.flow.CompletedBatchOperation;
 import org.onosproject.net.flow.DefaultFlowEntry;
 import org.onosproject.net.flow.FlowEntry;
 import org.onosproject.net.flow.FlowEntry.FlowEntryState;
+import org.onosproject.net.flow.FlowId;
 import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.FlowRuleEvent;
 import org.onosproject.net.flow.FlowRuleEvent.Type;
@@ -45,6 +52,7 @@ import org.onosproject.net.flow.FlowRuleService;
 import org.onosproject.net.flow.FlowRuleStore;
 import org.onosproject.net.flow.FlowRuleStoreDelegate;
 import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.net.flow.TableId;
 import org.onosproject.net.flow.TableStatisticsEntry;
 import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry;
 import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry.FlowRuleOperation;
@@ -56,6 +64,7 @@ import org.onosproject.store.AbstractStore;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.cluster.messaging.ClusterMessage;
 import org.onosproject.store.cluster.messaging.ClusterMessageHandler;
+import org.onosproject.store.cluster.messaging.MessageSubject;
 import org.onosproject.store.flow.ReplicaInfo;
 import org.onosproject.store.flow.ReplicaInfoEvent;
 import org.onosproject.store.flow.ReplicaInfoEventListener;
@@ -78,22 +87,27 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 
 import java.util.Collections;
 import java.util.Dictionary;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.lang.Math.max;
@@ -103,9 +117,13 @@ import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.net.flow.FlowRuleEvent.Type.RULE_REMOVED;
 import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.APPLY_BATCH_FLOWS;
 import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.FLOW_TABLE_BACKUP;
+import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.GET_APP_FLOW_ENTRIES;
 import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.GET_DEVICE_FLOW_COUNT;
 import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.GET_DEVICE_FLOW_ENTRIES;
+import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.GET_FLOW_ENTRIES_BY_ID;
 import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.GET_FLOW_ENTRY;
+import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.GET_GROUP_FLOW_ENTRIES;
+import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.GET_TABLE_FLOW_ENTRIES;
 import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.REMOTE_APPLY_COMPLETED;
 import static org.onosproject.store.flow.impl.ECFlowRuleStoreMessageSubjects.REMOVE_FLOW_ENTRY;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -134,6 +152,13 @@ public class ECFlowRuleStore
 
     private static final long FLOW_RULE_STORE_TIMEOUT_MILLIS = 5000;
 
+    private static final String METRICS_COMPONENT = "FlowRuleStore";
+    private static final String METRICS_FEATURE = "antiEntropy";
+    private static final String ANTI_ENTROPY_BYTES = "bytes";
+    private static final String ANTI_ENTROPY_LAST_ROUND_BYTES = "lastRoundBytes";
+    private static final String ANTI_ENTROPY_ROUNDS = "rounds";
+    private static final String ANTI_ENTROPY_REPAIRS = "repairs";
+
     /** Number of threads in the message handler pool. */
     private int msgHandlerPoolSize = MESSAGE_HANDLER_THREAD_POOL_SIZE_DEFAULT;
 
@@ -175,6 +200,12 @@ public class ECFlowRuleStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected PersistenceService persistenceService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL,
+        bind = "bindMetricsService",
+        unbind = "unbindMetricsService",
+        policy = ReferencePolicy.DYNAMIC)
+    protected volatile MetricsService metricsService;
+
     private Map<Long, NodeId> pendingResponses = Maps.newConcurrentMap();
     private ExecutorService messageHandlingExecutor;
     private ExecutorService eventHandler;
@@ -263,6 +294,47 @@ public class ECFlowRuleStore
         log.info("Stopped");
     }
 
+    /**
+     * Hook for wiring up the optional reference to the metrics service.
+     *
+     * @param service service being announced
+     */
+    protected void bindMetricsService(MetricsService service) {
+        metricsService = service;
+        MetricsComponent component = service.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+        service.registerMetric(component, feature, ANTI_ENTROPY_BYTES,
+            flowTableGauge(DeviceFlowTable::antiEntropyBytes));
+        service.registerMetric(component, feature, ANTI_ENTROPY_LAST_ROUND_BYTES,
+            flowTableGauge(DeviceFlowTable::lastAntiEntropyBytes));
+        service.registerMetric(component, feature, ANTI_ENTROPY_ROUNDS,
+            flowTableGauge(DeviceFlowTable::antiEntropyRounds));
+        service.registerMetric(component, feature, ANTI_ENTROPY_REPAIRS,
+            flowTableGauge(DeviceFlowTable::antiEntropyRepairs));
+    }
+
+    /**
+     * Hook for unwiring the optional reference to the metrics service.
+     *
+     * @param service service being withdrawn
+     */
+    protected void unbindMetricsService(MetricsService service) {
+        MetricsComponent component = service.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+        service.removeMetric(component, feature, ANTI_ENTROPY_BYTES);
+        service.removeMetric(component, feature, ANTI_ENTROPY_LAST_ROUND_BYTES);
+        service.removeMetric(component, feature, ANTI_ENTROPY_ROUNDS);
+        service.removeMetric(component, feature, ANTI_ENTROPY_REPAIRS);
+        if (metricsService == service) {
+            metricsService = null;
+        }
+    }
+
+    // Sums the given statistic over the flow tables of all devices.
+    private Gauge<Long> flowTableGauge(ToLongFunction<DeviceFlowTable> statistic) {
+        return () -> flowTable.flowTables.values().stream().mapToLong(statistic).sum();
+    }
+
     @SuppressWarnings("rawtypes")
     @Modified
     public void modified(ComponentContext context) {
@@ -328,13 +400,27 @@ public class ECFlowRuleStore
             REMOTE_APPLY_COMPLETED, serializer::decode, this::notifyDelegate, executor);
         clusterCommunicator.addSubscriber(
             GET_FLOW_ENTRY, serializer::decode, flowTable::getFlowEntry, serializer::encode, executor);
-        clusterCommunicator.addSubscriber(
+        clusterCommunicator.<DeviceId, Set<FlowEntry>>addSubscriber(
             GET_DEVICE_FLOW_ENTRIES, serializer::decode, flowTable::getFlowEntries, serializer::encode, executor);
         clusterCommunicator.<Pair<DeviceId, FlowEntryState>, Integer>addSubscriber(
             GET_DEVICE_FLOW_COUNT,
             serializer::decode,
             p -> flowTable.getFlowRuleCount(p.getLeft(), p.getRight()),
             serializer::encode, executor);
+        clusterCommunicator.addSubscriber(
+            GET_APP_FLOW_ENTRIES, serializer::decode, flowTable::getFlowEntriesByApp, serializer::encode, executor);
+        clusterCommunicator.addSubscriber(
+            GET_GROUP_FLOW_ENTRIES, serializer::decode, flowTable::getFlowEntriesByGroup, serializer::encode, executor);
+        clusterCommunicator.<Pair<DeviceId, TableId>, Set<FlowEntry>>addSubscriber(
+            GET_TABLE_FLOW_ENTRIES,
+            serializer::decode,
+            p -> flowTable.getFlowEntriesByTable(p.getLeft(), p.getRight()),
+            serializer::encode, executor);
+        clusterCommunicator.<Pair<DeviceId, FlowId>, Set<FlowEntry>>addSubscriber(
+            GET_FLOW_ENTRIES_BY_ID,
+            serializer::decode,
+            p -> flowTable.getFlowEntries(p.getLeft(), p.getRight()),
+            serializer::encode, executor);
         clusterCommunicator.addSubscriber(
             REMOVE_FLOW_ENTRY, serializer::decode, this::removeFlowRuleInternal, serializer::encode, executor);
     }
@@ -343,6 +429,10 @@ public class ECFlowRuleStore
         clusterCommunicator.removeSubscriber(REMOVE_FLOW_ENTRY);
         clusterCommunicator.removeSubscriber(GET_DEVICE_FLOW_ENTRIES);
         clusterCommunicator.removeSubscriber(GET_DEVICE_FLOW_COUNT);
+        clusterCommunicator.removeSubscriber(GET_APP_FLOW_ENTRIES);
+        clusterCommunicator.removeSubscriber(GET_GROUP_FLOW_ENTRIES);
+        clusterCommunicator.removeSubscriber(GET_TABLE_FLOW_ENTRIES);
+        clusterCommunicator.removeSubscriber(GET_FLOW_ENTRIES_BY_ID);
         clusterCommunicator.removeSubscriber(GET_FLOW_ENTRY);
         clusterCommunicator.removeSubscriber(APPLY_BATCH_FLOWS);
         clusterCommunicator.removeSubscriber(REMOTE_APPLY_COMPLETED);
@@ -442,6 +532,141 @@ public class ECFlowRuleStore
             Collections.emptyList());
     }
 
+    @Override
+    public long startFlowStatsPoll(DeviceId deviceId) {
+        // Statistics are only reconciled against the entries held by the master
+        if (!Objects.equals(local, mastershipService.getMasterFor(deviceId))) {
+            log.debug("Failed to startFlowStatsPoll: Not the master for {}", deviceId);
+            return 0;
+        }
+        return flowTable.startStatsPoll(deviceId);
+    }
+
+    @Override
+    public Map<FlowEntry, FlowEntry> getReportedFlowEntries(
+        DeviceId deviceId, Iterable<FlowEntry> flowEntries, long generation) {
+        if (Objects.equals(local, mastershipService.getMasterFor(deviceId))) {
+            return flowTable.getReportedFlowEntries(deviceId, flowEntries, generation);
+        }
+
+        // Fetch the device's entries from the master once rather than once per reported entry
+        Map<FlowEntry, FlowEntry> stored = new HashMap<>();
+        getFlowEntries(deviceId).forEach(entry -> stored.put(entry, entry));
+        Map<FlowEntry, FlowEntry> reported = new HashMap<>();
+        for (FlowEntry flowEntry : flowEntries) {
+            FlowEntry storedEntry = stored.get(flowEntry);
+            if (storedEntry != null && storedEntry.id().equals(flowEntry.id())) {
+                reported.put(flowEntry, storedEntry);
+            }
+        }
+        return reported;
+    }
+
+    @Override
+    public Iterable<FlowEntry> getUnseenFlowEntries(DeviceId deviceId, long generation) {
+        // Statistics are only reconciled against the entries held by the master
+        if (!Objects.equals(local, mastershipService.getMasterFor(deviceId))) {
+            log.debug("Failed to getUnseenFlowEntries: Not the master for {}", deviceId);
+            return Collections.emptyList();
+        }
+        return flowTable.getUnseenFlowEntries(deviceId, generation);
+    }
+
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesByAppId(ApplicationId appId) {
+        return getMasterFlowEntries(appId.id(), GET_APP_FLOW_ENTRIES, flowTable::getFlowEntriesByApp);
+    }
+
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesByGroupId(ApplicationId appId, short groupId) {
+        return getMasterFlowEntries(
+            FlowIndex.groupKey(appId.id(), groupId), GET_GROUP_FLOW_ENTRIES, flowTable::getFlowEntriesByGroup);
+    }
+
+    /**
+     * Runs the given flow entry query on all active nodes, each of which answers for the devices it is master of.
+     *
+     * @param query      the query
+     * @param subject    the query message subject
+     * @param localQuery the query function for the local node
+     * @param <T>        the query type
+     * @return the flow entries returned by all nodes
+     */
+    private <T> Set<FlowEntry> getMasterFlowEntries(
+        T query, MessageSubject subject, Function<T, Set<FlowEntry>> localQuery) {
+        List<CompletableFuture<Set<FlowEntry>>> futures = clusterService.getNodes().stream()
+            .map(ControllerNode::id)
+            .filter(nodeId -> !nodeId.equals(local) && clusterService.getState(nodeId).isActive())
+            .map(nodeId -> clusterCommunicator.<T, Set<FlowEntry>>sendAndReceive(
+                query,
+                subject,
+                serializer::encode,
+                serializer::decode,
+                nodeId))
+            .collect(Collectors.toList());
+
+        Set<FlowEntry> flowEntries = new HashSet<>(localQuery.apply(query));
+        for (CompletableFuture<Set<FlowEntry>> future : futures) {
+            flowEntries.addAll(Tools.futureGetOrElse(future,
+                FLOW_RULE_STORE_TIMEOUT_MILLIS,
+                TimeUnit.MILLISECONDS,
+                Collections.emptySet()));
+        }
+        return flowEntries;
+    }
+
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesByTable(DeviceId deviceId, TableId tableId) {
+        NodeId master = mastershipService.getMasterFor(deviceId);
+
+        if (master == null) {
+            log.debug("Failed to getFlowEntriesByTable: No master for {}", deviceId);
+            return Collections.emptyList();
+        }
+
+        if (Objects.equals(local, master)) {
+            return flowTable.getFlowEntriesByTable(deviceId, tableId);
+        }
+
+        log.trace("Forwarding getFlowEntriesByTable to {}, which is the primary (master) for device {}",
+            master, deviceId);
+
+        return Tools.futureGetOrElse(clusterCommunicator.sendAndReceive(Pair.of(deviceId, tableId),
+            GET_TABLE_FLOW_ENTRIES,
+            serializer::encode,
+            serializer::decode,
+            master),
+            FLOW_RULE_STORE_TIMEOUT_MILLIS,
+            TimeUnit.MILLISECONDS,
+            Collections.emptyList());
+    }
+
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesById(DeviceId deviceId, FlowId flowId) {
+        NodeId master = mastershipService.getMasterFor(deviceId);
+
+        if (master == null) {
+            log.debug("Failed to getFlowEntriesById: No master for {}", deviceId);
+            return Collections.emptyList();
+        }
+
+        if (Objects.equals(local, master)) {
+            return flowTable.getFlowEntries(deviceId, flowId);
+        }
+
+        log.trace("Forwarding getFlowEntriesById to {}, which is the primary (master) for device {}",
+            master, deviceId);
+
+        return Tools.futureGetOrElse(clusterCommunicator.sendAndReceive(Pair.of(deviceId, flowId),
+            GET_FLOW_ENTRIES_BY_ID,
+            serializer::encode,
+            serializer::decode,
+            master),
+            FLOW_RULE_STORE_TIMEOUT_MILLIS,
+            TimeUnit.MILLISECONDS,
+            Collections.emptyList());
+    }
+
     @Override
     public void storeFlowRule(FlowRule rule) {
         storeBatch(new FlowRuleBatchOperation(
@@ -807,6 +1032,98 @@ public class ECFlowRuleStore
             return getFlowTable(deviceId).getFlowEntries();
         }
 
+        /**
+         * Starts a poll of the flow statistics of the given device.
+         *
+         * @param deviceId the device being polled
+         * @return the statistics generation of the poll
+         */
+        public long startStatsPoll(DeviceId deviceId) {
+            return getFlowTable(deviceId).startStatsPoll();
+        }
+
+        /**
+         * Returns the flow entries matching the given entries reported by a device, marking them as seen in the
+         * given statistics generation.
+         *
+         * @param deviceId    the device which reported the entries
+         * @param flowEntries the reported entries
+         * @param generation  the statistics generation, or 0 to leave the entries unmarked
+         * @return the flow entries keyed by the reported entries they match
+         */
+        public Map<FlowEntry, FlowEntry> getReportedFlowEntries(
+            DeviceId deviceId, Iterable<FlowEntry> flowEntries, long generation) {
+            return getFlowTable(deviceId).getReportedFlowEntries(flowEntries, generation);
+        }
+
+        /**
+         * Returns the flow entries of the given device which have not been seen in the given statistics generation.
+         *
+         * @param deviceId   the device for which to lookup flow entries
+         * @param generation the statistics generation
+         * @return the flow entries not seen in the given generation
+         */
+        public List<FlowEntry> getUnseenFlowEntries(DeviceId deviceId, long generation) {
+            return getFlowTable(deviceId).getUnseenFlowEntries(generation);
+        }
+
+        /**
+         * Returns the set of flow entries with the given flow identifier for the given device.
+         *
+         * @param deviceId the device for which to lookup flow entries
+         * @param flowId   the flow identifier
+         * @return the set of flow entries with the given flow identifier
+         */
+        public Set<FlowEntry> getFlowEntries(DeviceId deviceId, FlowId flowId) {
+            return getFlowTable(deviceId).getFlowEntries(flowId);
+        }
+
+        /**
+         * Returns the set of flow entries in the given table for the given device.
+         *
+         * @param deviceId the device for which to lookup flow entries
+         * @param tableId  the table identifier
+         * @return the set of flow entries in the given table
+         */
+        public Set<FlowEntry> getFlowEntriesByTable(DeviceId deviceId, TableId tableId) {
+            return getFlowTable(deviceId).getFlowEntriesByTable(tableId);
+        }
+
+        /**
+         * Returns the set of flow entries of the given application on the devices this node is master of.
+         *
+         * @param appId the application identifier
+         * @return the set of flow entries of the given application
+         */
+        public Set<FlowEntry> getFlowEntriesByApp(short appId) {
+            return getMasterFlowTables()
+                .flatMap(flowTable -> flowTable.getFlowEntriesByApp(appId).stream())
+                .collect(Collectors.toSet());
+        }
+
+        /**
+         * Returns the set of flow entries with the given group key on the devices this node is master of.
+         *
+         * @param groupKey the group key, made of the application and group identifiers
+         * @return the set of flow entries with the given group key
+         */
+        public Set<FlowEntry> getFlowEntriesByGroup(long groupKey) {
+            return getMasterFlowTables()
+                .flatMap(flowTable -> flowTable.getFlowEntriesByGroup(groupKey).stream())
+                .collect(Collectors.toSet());
+        }
+
+        /**
+         * Returns the flow tables of the devices this node is master of.
+         *
+         * @return the flow tables of the devices this node is master of
+         */
+        private Stream<DeviceFlowTable> getMasterFlowTables() {
+            return flowTables.entrySet().stream()
+                .filter(entry -> Objects.equals(local, mastershipService.getMasterFor(entry.getKey())))
+                .map(Map.Entry::getValue);
+        }
+
         /**
          * Adds the given flow rule.
          *
@@ -35,6 +35,18 @@ public final class ECFlowRuleStoreMessageSubjects {
     public static final MessageSubject GET_DEVICE_FLOW_COUNT
         = new MessageSubject("peer-forward-get-flow-count");
 
+    public static final MessageSubject GET_APP_FLOW_ENTRIES
+        = new MessageSubject("peer-get-app-flow-entries");
+
+    public static final MessageSubject GET_GROUP_FLOW_ENTRIES
+        = new MessageSubject("peer-get-group-flow-entries");
+
+    public static final MessageSubject GET_TABLE_FLOW_ENTRIES
+        = new MessageSubject("peer-forward-get-table-flow-entries");
+
+    public static final MessageSubject GET_FLOW_ENTRIES_BY_ID
+        = new MessageSubject("peer-forward-get-flow-entries-by-id");
+
     public static final MessageSubject REMOVE_FLOW_ENTRY
         = new MessageSubject("peer-forward-remove-flow-entry");
 
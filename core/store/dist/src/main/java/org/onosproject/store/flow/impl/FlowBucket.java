@@ -15,17 +15,28 @@
  */
 package org.onosproject.store.flow.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.onosproject.net.flow.DefaultFlowEntry;
 import org.onosproject.net.flow.FlowEntry;
 import org.onosproject.net.flow.FlowId;
 import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.net.flow.TableId;
 import org.onosproject.store.LogicalTimestamp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,15 +45,38 @@ import org.slf4j.LoggerFactory;
  * Container for a bucket of flows assigned to a specific device.
  * <p>
  * The bucket is mutable. When changes are made to the bucket, the term and timestamp in which the change
- * occurred is recorded for ordering changes.
+ * occurred is recorded for ordering changes. Changes to the same flow are serialized by the underlying concurrent
+ * map, while changes to different flows proceed without locking. Each change is timestamped and recorded in the given
+ * change log while the flow is being changed, so that changes to the same flow are logged in the order in which they
+ * were applied and can be replicated incrementally.
+ * <p>
+ * For anti-entropy, the flows in the bucket are further spread over a fixed number of slots. Each slot is summarized
+ * by an order independent hash of its flow entries, which is cached until the bucket is next changed.
+ * <p>
+ * Flows can also be looked up by application, group and table through secondary indexes. The indexes are built the
+ * first time they are queried and are then maintained along with the changes to each flow.
  */
 public class FlowBucket {
     private static final Logger LOGGER = LoggerFactory.getLogger(FlowBucket.class);
+    private static final AtomicReferenceFieldUpdater<FlowBucket, LogicalTimestamp> TIMESTAMP_UPDATER =
+        AtomicReferenceFieldUpdater.newUpdater(FlowBucket.class, LogicalTimestamp.class, "timestamp");
+    private static final AtomicLongFieldUpdater<FlowBucket> VERSION_UPDATER =
+        AtomicLongFieldUpdater.newUpdater(FlowBucket.class, "version");
+
+    static final int SLOT_BITS = 5;
+    static final int NUM_SLOTS = 1 << SLOT_BITS;
+
     private final BucketId bucketId;
     private volatile long term;
     private volatile LogicalTimestamp timestamp;
     private final Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowBucket;
 
+    // Local state which is not replicated with the bucket
+    private transient volatile long version;
+    private transient volatile SlotHashes slotHashes;
+    private transient volatile FlowIndex index;
+    private transient volatile FlowIndex indexing;
+
     FlowBucket(BucketId bucketId) {
         this(bucketId, 0, new LogicalTimestamp(0), Maps.newConcurrentMap());
     }
@@ -138,61 +172,100 @@ public class FlowBucket {
             timestamp,
             flowBucket.entrySet()
                 .stream()
-                .map(e -> Maps.immutableEntry(e.getKey(), Maps.newHashMap(e.getValue())))
-                .collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue())));
+                .map(e -> Maps.immutableEntry(e.getKey(), new ConcurrentHashMap<>(e.getValue())))
+                .collect(Collectors.toConcurrentMap(e -> e.getKey(), e -> e.getValue())));
     }
 
     /**
      * Records an update to the bucket.
+     * <p>
+     * Concurrent updates may be recorded out of order, so the bucket timestamp only ever moves forward.
      */
     private void recordUpdate(long term, LogicalTimestamp timestamp) {
         this.term = term;
-        this.timestamp = timestamp;
+        TIMESTAMP_UPDATER.accumulateAndGet(this, timestamp,
+            (current, next) -> next.isNewerThan(current) ? next : current);
+        invalidateSlotHashes();
+    }
+
+    /**
+     * Invalidates the cached slot hashes.
+     * <p>
+     * This must be called after each change to the flow entries has been applied, so that a concurrent computation
+     * of the slot hashes which may have missed the change is not reused.
+     */
+    private void invalidateSlotHashes() {
+        VERSION_UPDATER.incrementAndGet(this);
+    }
+
+    /**
+     * Records a change applied to the bucket.
+     * <p>
+     * This must be called while computing the flow, so that a concurrent change to the same flow cannot be logged
+     * ahead of this one.
+     */
+    private void recordChange(
+        StoredFlowEntry entry, boolean removed, long term, LogicalTimestamp timestamp, Queue<FlowChange> changes) {
+        recordUpdate(term, timestamp);
+        changes.add(new FlowChange(entry, timestamp, removed));
     }
 
     /**
      * Adds the given flow rule to the bucket.
      *
-     * @param rule  the rule to add
-     * @param term  the term in which the change occurred
-     * @param clock the logical clock
-     */
-    public void add(FlowEntry rule, long term, LogicalClock clock) {
-        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(rule.id());
-        if (flowEntries == null) {
-            flowEntries = flowBucket.computeIfAbsent(rule.id(), id -> Maps.newConcurrentMap());
-        }
-        flowEntries.put((StoredFlowEntry) rule, (StoredFlowEntry) rule);
-        recordUpdate(term, clock.getTimestamp());
+     * @param rule    the rule to add
+     * @param term    the term in which the change occurred
+     * @param clock   the logical clock
+     * @param changes the log in which to record the change
+     */
+    public void add(FlowEntry rule, long term, LogicalClock clock, Queue<FlowChange> changes) {
+        flowBucket.compute(rule.id(), (flowId, flowEntries) -> {
+            if (flowEntries == null) {
+                flowEntries = Maps.newConcurrentMap();
+            }
+            LogicalTimestamp timestamp = clock.getTimestamp();
+            StoredFlowEntry previous = flowEntries.put((StoredFlowEntry) rule, (StoredFlowEntry) rule);
+            indexAdded(flowId, (StoredFlowEntry) rule, previous, flowEntries);
+            recordChange((StoredFlowEntry) rule, false, term, timestamp, changes);
+            return flowEntries;
+        });
     }
 
     /**
      * Updates the given flow rule in the bucket.
      *
-     * @param rule  the rule to update
-     * @param term  the term in which the change occurred
-     * @param clock the logical clock
-     */
-    public void update(FlowEntry rule, long term, LogicalClock clock) {
-        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(rule.id());
-        if (flowEntries == null) {
-            flowEntries = flowBucket.computeIfAbsent(rule.id(), id -> Maps.newConcurrentMap());
-        }
-        flowEntries.computeIfPresent((StoredFlowEntry) rule, (k, stored) -> {
-            if (rule instanceof DefaultFlowEntry) {
-                DefaultFlowEntry updated = (DefaultFlowEntry) rule;
-                if (stored instanceof DefaultFlowEntry) {
-                    DefaultFlowEntry storedEntry = (DefaultFlowEntry) stored;
-                    if (updated.created() >= storedEntry.created()) {
-                        recordUpdate(term, clock.getTimestamp());
-                        return updated;
-                    } else {
-                        LOGGER.debug("Trying to update more recent flow entry {} (stored: {})", updated, stored);
-                        return stored;
+     * @param rule    the rule to update
+     * @param term    the term in which the change occurred
+     * @param clock   the logical clock
+     * @param changes the log in which to record the change
+     */
+    public void update(FlowEntry rule, long term, LogicalClock clock, Queue<FlowChange> changes) {
+        AtomicReference<LogicalTimestamp> timestampRef = new AtomicReference<>();
+        AtomicReference<StoredFlowEntry> replacedRef = new AtomicReference<>();
+        flowBucket.computeIfPresent(rule.id(), (flowId, flowEntries) -> {
+            flowEntries.computeIfPresent((StoredFlowEntry) rule, (k, stored) -> {
+                if (rule instanceof DefaultFlowEntry) {
+                    DefaultFlowEntry updated = (DefaultFlowEntry) rule;
+                    if (stored instanceof DefaultFlowEntry) {
+                        DefaultFlowEntry storedEntry = (DefaultFlowEntry) stored;
+                        if (updated.created() >= storedEntry.created()) {
+                            updated.setLastSeenGeneration(storedEntry.lastSeenGeneration());
+                            timestampRef.set(clock.getTimestamp());
+                            replacedRef.set(stored);
+                            return updated;
+                        } else {
+                            LOGGER.debug("Trying to update more recent flow entry {} (stored: {})", updated, stored);
+                            return stored;
+                        }
                     }
                 }
+                return stored;
+            });
+            if (replacedRef.get() != null) {
+                indexAdded(flowId, (StoredFlowEntry) rule, replacedRef.get(), flowEntries);
+                recordChange((StoredFlowEntry) rule, false, term, timestampRef.get(), changes);
             }
-            return stored;
+            return flowEntries;
         });
     }
 
@@ -203,25 +276,32 @@ public class FlowBucket {
      * @param function the update function to apply
      * @param term     the term in which the change occurred
      * @param clock    the logical clock
+     * @param changes  the log in which to record the change
      * @param <T>      the result type
      * @return the update result or {@code null} if the rule was not updated
      */
-    public <T> T update(FlowRule rule, Function<StoredFlowEntry, T> function, long term, LogicalClock clock) {
-        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(rule.id());
-        if (flowEntries == null) {
-            flowEntries = flowBucket.computeIfAbsent(rule.id(), id -> Maps.newConcurrentMap());
-        }
-
+    public <T> T update(
+        FlowRule rule, Function<StoredFlowEntry, T> function, long term, LogicalClock clock,
+        Queue<FlowChange> changes) {
         AtomicReference<T> resultRef = new AtomicReference<>();
-        flowEntries.computeIfPresent(new DefaultFlowEntry(rule), (k, stored) -> {
-            if (stored != null) {
-                T result = function.apply(stored);
-                if (result != null) {
-                    recordUpdate(term, clock.getTimestamp());
-                    resultRef.set(result);
+        AtomicReference<StoredFlowEntry> updatedRef = new AtomicReference<>();
+        AtomicReference<LogicalTimestamp> timestampRef = new AtomicReference<>();
+        flowBucket.computeIfPresent(rule.id(), (flowId, flowEntries) -> {
+            flowEntries.computeIfPresent(new DefaultFlowEntry(rule), (k, stored) -> {
+                if (stored != null) {
+                    T result = function.apply(stored);
+                    if (result != null) {
+                        timestampRef.set(clock.getTimestamp());
+                        updatedRef.set(stored);
+                        resultRef.set(result);
+                    }
                 }
+                return stored;
+            });
+            if (updatedRef.get() != null) {
+                recordChange(updatedRef.get(), false, term, timestampRef.get(), changes);
             }
-            return stored;
+            return flowEntries;
         });
         return resultRef.get();
     }
@@ -229,13 +309,15 @@ public class FlowBucket {
     /**
      * Removes the given flow rule from the bucket.
      *
-     * @param rule  the rule to remove
-     * @param term  the term in which the change occurred
-     * @param clock the logical clock
+     * @param rule    the rule to remove
+     * @param term    the term in which the change occurred
+     * @param clock   the logical clock
+     * @param changes the log in which to record the change
      * @return the removed flow entry
      */
-    public FlowEntry remove(FlowEntry rule, long term, LogicalClock clock) {
-        final AtomicReference<FlowEntry> removedRule = new AtomicReference<>();
+    public FlowEntry remove(FlowEntry rule, long term, LogicalClock clock, Queue<FlowChange> changes) {
+        final AtomicReference<StoredFlowEntry> removedRule = new AtomicReference<>();
+        final AtomicReference<LogicalTimestamp> timestampRef = new AtomicReference<>();
         flowBucket.computeIfPresent(rule.id(), (flowId, flowEntries) -> {
             flowEntries.computeIfPresent((StoredFlowEntry) rule, (k, stored) -> {
                 if (rule instanceof DefaultFlowEntry) {
@@ -249,33 +331,353 @@ public class FlowBucket {
                         }
                     }
                 }
+                timestampRef.set(clock.getTimestamp());
                 removedRule.set(stored);
                 return null;
             });
+            if (removedRule.get() != null) {
+                indexRemoved(flowId, removedRule.get(), flowEntries);
+                recordChange(removedRule.get(), true, term, timestampRef.get(), changes);
+            }
             return flowEntries.isEmpty() ? null : flowEntries;
         });
+        return removedRule.get();
+    }
+
+    /**
+     * Applies the given delta received from the master to the bucket.
+     * <p>
+     * The delta is rejected if the bucket is missing changes upon which it is based, and ignored if the bucket is
+     * already more recent than the delta.
+     *
+     * @param delta the delta to apply
+     * @return indicates whether the bucket is now up to date with the delta
+     */
+    boolean apply(FlowBucketDelta delta) {
+        if (term != delta.term() || timestamp.isOlderThan(delta.base())) {
+            return false;
+        }
+        if (timestamp.isNewerThan(delta.timestamp())) {
+            return true;
+        }
+        for (StoredFlowEntry entry : delta.updates()) {
+            flowBucket.compute(entry.id(), (flowId, flowEntries) -> {
+                if (flowEntries == null) {
+                    flowEntries = Maps.newConcurrentMap();
+                }
+                indexAdded(flowId, entry, flowEntries.put(entry, entry), flowEntries);
+                return flowEntries;
+            });
+        }
+        for (StoredFlowEntry entry : delta.removals()) {
+            flowBucket.computeIfPresent(entry.id(), (flowId, flowEntries) -> {
+                StoredFlowEntry removed = flowEntries.remove(entry);
+                if (removed != null) {
+                    indexRemoved(flowId, removed, flowEntries);
+                }
+                return flowEntries.isEmpty() ? null : flowEntries;
+            });
+        }
+        recordUpdate(delta.term(), delta.timestamp());
+        return true;
+    }
+
+    /**
+     * Returns the anti-entropy slot to which the given flow belongs.
+     * <p>
+     * Flows are assigned to buckets by the low order bits of their identifiers, so slots are assigned by the high
+     * order bits of their mixed identifiers instead.
+     *
+     * @param flowId the flow identifier
+     * @return the slot within the bucket
+     */
+    static int slot(FlowId flowId) {
+        return (int) (mix(flowId.value()) >>> (Long.SIZE - SLOT_BITS));
+    }
+
+    /**
+     * Returns the anti-entropy hash of the given flow entry.
+     * <p>
+     * The hash covers the replicated attributes which identify the entry and its state. It must be identical on all
+     * nodes, so the hash codes of the selector and treatment are not used since they may depend on object identity.
+     * Statistics are not covered either, as they change on every poll and are refreshed by the periodic backups.
+     *
+     * @param entry the flow entry
+     * @return the 64-bit hash of the entry
+     */
+    static long hash(StoredFlowEntry entry) {
+        long hash = mix(entry.id().value());
+        hash = mix(hash + entry.state().ordinal());
+        hash = mix(hash + entry.appId());
+        hash = mix(hash + entry.priority());
+        hash = mix(hash + entry.tableId());
+        hash = mix(hash + ((long) entry.timeout() << 32 | entry.hardTimeout() & 0xffffffffL));
+        hash = mix(hash + (entry.isPermanent() ? 1 : 0));
+        if (entry instanceof DefaultFlowEntry) {
+            hash = mix(hash + ((DefaultFlowEntry) entry).created());
+        }
+        return hash;
+    }
+
+    // Finalizer of the SplitMix64 generator, which spreads the input bits evenly over the result.
+    private static long mix(long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the hashes of the slots in the bucket.
+     * <p>
+     * The hash of a slot is the sum of the hashes of its entries, hence does not depend on the order in which the
+     * entries were added.
+     *
+     * @return the slot hashes, indexed by slot; must not be modified
+     */
+    long[] slotHashes() {
+        SlotHashes cached = slotHashes;
+        long version = this.version;
+        if (cached != null && cached.version == version) {
+            return cached.hashes;
+        }
+        long[] hashes = new long[NUM_SLOTS];
+        for (Map<StoredFlowEntry, StoredFlowEntry> flowEntries : flowBucket.values()) {
+            for (StoredFlowEntry entry : flowEntries.values()) {
+                hashes[slot(entry.id())] += hash(entry);
+            }
+        }
+        slotHashes = new SlotHashes(version, hashes);
+        return hashes;
+    }
+
+    /**
+     * Returns the flow entries in the given slot.
+     *
+     * @param slot the slot
+     * @return the flow entries in the slot
+     */
+    List<StoredFlowEntry> getSlotEntries(int slot) {
+        List<StoredFlowEntry> entries = new ArrayList<>();
+        flowBucket.forEach((flowId, flowEntries) -> {
+            if (slot(flowId) == slot) {
+                entries.addAll(flowEntries.values());
+            }
+        });
+        return entries;
+    }
 
-        if (removedRule.get() != null) {
-            recordUpdate(term, clock.getTimestamp());
-            return removedRule.get();
-        } else {
-            return null;
+    /**
+     * Retains only the flow entries of the given slot whose hashes are in the given set.
+     * <p>
+     * This is used by backups to drop the entries the master does not know about, and does not change the bucket
+     * timestamp. The hashes are those of the master's entries as of the given bucket timestamp, so no entries are
+     * dropped if the bucket has since applied newer changes, which the hashes may not cover; the slot is then left to
+     * the next anti-entropy round.
+     *
+     * @param slot      the slot
+     * @param hashes    the hashes of the entries to retain
+     * @param timestamp the timestamp of the master's bucket as of the hashes
+     * @return the hashes of the entries remaining in the slot
+     */
+    Set<Long> retainSlotEntries(int slot, Set<Long> hashes, LogicalTimestamp timestamp) {
+        Set<Long> retained = Sets.newHashSet();
+        if (this.timestamp.isNewerThan(timestamp)) {
+            for (StoredFlowEntry entry : getSlotEntries(slot)) {
+                long hash = hash(entry);
+                if (hashes.contains(hash)) {
+                    retained.add(hash);
+                }
+            }
+            return retained;
         }
+        for (FlowId flowId : flowBucket.keySet()) {
+            if (slot(flowId) != slot) {
+                continue;
+            }
+            flowBucket.computeIfPresent(flowId, (id, flowEntries) -> {
+                List<StoredFlowEntry> removed = new ArrayList<>();
+                flowEntries.values().removeIf(entry -> {
+                    long hash = hash(entry);
+                    if (hashes.contains(hash)) {
+                        retained.add(hash);
+                        return false;
+                    }
+                    removed.add(entry);
+                    return true;
+                });
+                removed.forEach(entry -> indexRemoved(id, entry, flowEntries));
+                return flowEntries.isEmpty() ? null : flowEntries;
+            });
+        }
+        invalidateSlotHashes();
+        return retained;
+    }
+
+    /**
+     * Puts the given flow entries received from the master in the bucket.
+     * <p>
+     * Unlike deltas, repairs do not change the bucket timestamp, since they carry entries the backup has missed
+     * rather than new changes.
+     *
+     * @param entries the entries to put
+     */
+    void repair(Collection<StoredFlowEntry> entries) {
+        for (StoredFlowEntry entry : entries) {
+            flowBucket.compute(entry.id(), (flowId, flowEntries) -> {
+                if (flowEntries == null) {
+                    flowEntries = Maps.newConcurrentMap();
+                }
+                indexAdded(flowId, entry, flowEntries.put(entry, entry), flowEntries);
+                return flowEntries;
+            });
+        }
+        invalidateSlotHashes();
     }
 
     /**
      * Purges the bucket.
      */
-    public void purge() {
+    public synchronized void purge() {
         flowBucket.clear();
+        clearIndex();
+        invalidateSlotHashes();
     }
 
     /**
      * Clears the bucket.
      */
-    public void clear() {
+    public synchronized void clear() {
         term = 0;
         timestamp = new LogicalTimestamp(0);
         flowBucket.clear();
+        clearIndex();
+        invalidateSlotHashes();
+    }
+
+    /**
+     * Returns the flow entries of the given application.
+     *
+     * @param appId the application identifier
+     * @return the flow entries of the application
+     */
+    List<StoredFlowEntry> getFlowEntriesByApp(short appId) {
+        return getFlowEntries(index().getAppFlows(appId), entry -> entry.appId() == appId);
+    }
+
+    /**
+     * Returns the flow entries with the given group key.
+     *
+     * @param groupKey the group key, made of the application and group identifiers
+     * @return the flow entries with the group key
+     */
+    List<StoredFlowEntry> getFlowEntriesByGroup(long groupKey) {
+        return getFlowEntries(index().getGroupFlows(groupKey), entry -> true);
+    }
+
+    /**
+     * Returns the flow entries in the given table.
+     *
+     * @param tableId the table identifier
+     * @return the flow entries in the table
+     */
+    List<StoredFlowEntry> getFlowEntriesByTable(TableId tableId) {
+        return getFlowEntries(index().getTableFlows(tableId), entry -> entry.table().equals(tableId));
+    }
+
+    /**
+     * Returns the entries of the given flows which match the given filter.
+     */
+    private List<StoredFlowEntry> getFlowEntries(Collection<FlowId> flowIds, Predicate<StoredFlowEntry> filter) {
+        List<StoredFlowEntry> entries = new ArrayList<>();
+        for (FlowId flowId : flowIds) {
+            Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(flowId);
+            if (flowEntries != null) {
+                for (StoredFlowEntry entry : flowEntries.values()) {
+                    if (filter.test(entry)) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the secondary indexes of the bucket, building them if necessary.
+     * <p>
+     * The indexes are published to writers before the flows are scanned, and each flow is indexed while holding it,
+     * so a change made concurrently with the scan is indexed either by the scan or by the writer after it.
+     */
+    private FlowIndex index() {
+        FlowIndex index = this.index;
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            index = this.index;
+            if (index == null) {
+                FlowIndex building = new FlowIndex();
+                indexing = building;
+                for (FlowId flowId : flowBucket.keySet()) {
+                    flowBucket.computeIfPresent(flowId, (id, flowEntries) -> {
+                        flowEntries.values().forEach(entry -> building.add(id, entry));
+                        return flowEntries;
+                    });
+                }
+                this.index = index = building;
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Discards the secondary indexes, which are rebuilt when next queried.
+     */
+    private void clearIndex() {
+        index = null;
+        indexing = null;
+    }
+
+    /**
+     * Indexes a flow entry which has been put in the bucket, replacing the given previous entry if any.
+     * <p>
+     * This must be called while computing the flow, after the entry has been put.
+     */
+    private void indexAdded(
+        FlowId flowId, StoredFlowEntry entry, StoredFlowEntry previous,
+        Map<StoredFlowEntry, StoredFlowEntry> flowEntries) {
+        FlowIndex index = indexing;
+        if (index != null) {
+            index.add(flowId, entry);
+            if (previous != null && previous != entry) {
+                index.remove(flowId, previous, flowEntries.values());
+            }
+        }
+    }
+
+    /**
+     * Removes a flow entry which has been removed from the bucket from the indexes.
+     * <p>
+     * This must be called while computing the flow, after the entry has been removed.
+     */
+    private void indexRemoved(FlowId flowId, StoredFlowEntry entry, Map<StoredFlowEntry, StoredFlowEntry> flowEntries) {
+        FlowIndex index = indexing;
+        if (index != null) {
+            index.remove(flowId, entry, flowEntries.values());
+        }
+    }
+
+    /**
+     * Slot hashes computed for a version of the bucket.
+     */
+    private static final class SlotHashes {
+        private final long version;
+        private final long[] hashes;
+
+        SlotHashes(long version, long[] hashes) {
+            this.version = version;
+            this.hashes = hashes;
+        }
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.store.LogicalTimestamp;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Change made to a flow entry in a bucket, pending replication to backups.
+ */
+final class FlowChange {
+    private final StoredFlowEntry entry;
+    private final LogicalTimestamp timestamp;
+    private final boolean removed;
+
+    FlowChange(StoredFlowEntry entry, LogicalTimestamp timestamp, boolean removed) {
+        this.entry = entry;
+        this.timestamp = timestamp;
+        this.removed = removed;
+    }
+
+    /**
+     * Returns the changed flow entry.
+     *
+     * @return the changed flow entry
+     */
+    StoredFlowEntry entry() {
+        return entry;
+    }
+
+    /**
+     * Returns the logical time at which the change occurred.
+     *
+     * @return the change timestamp
+     */
+    LogicalTimestamp timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns a boolean indicating whether the entry was removed.
+     *
+     * @return indicates whether the entry was removed
+     */
+    boolean isRemoved() {
+        return removed;
+    }
+
+    /**
+     * Returns the later of this change and the given change to the same entry.
+     *
+     * @param change the change to compare
+     * @return the later change
+     */
+    FlowChange latest(FlowChange change) {
+        return change.timestamp.isNewerThan(timestamp) ? change : this;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+            .add("entry", entry)
+            .add("timestamp", timestamp)
+            .add("removed", removed)
+            .toString();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Hash tree summarizing the flow entries of a device flow table.
+ * <p>
+ * The leaves of the tree are the slots of all the flow buckets, and each inner node holds the sum of the hashes of
+ * its children. Two replicas of the table can thus locate the slots in which they differ by comparing the hashes of
+ * the nodes level by level, descending only into the nodes which differ.
+ */
+final class FlowHashTree {
+    static final int FANOUT = 16;
+
+    private final long[][] levels;
+
+    private FlowHashTree(long[][] levels) {
+        this.levels = levels;
+    }
+
+    /**
+     * Builds a tree over the given leaf hashes.
+     *
+     * @param leaves the leaf hashes; the number of leaves must be a power of the fanout
+     * @return the hash tree
+     */
+    static FlowHashTree of(long[] leaves) {
+        int depth = 0;
+        for (int width = 1; width < leaves.length; width *= FANOUT) {
+            depth++;
+        }
+        checkArgument(Math.pow(FANOUT, depth) == leaves.length, "Invalid number of leaves: %s", leaves.length);
+
+        long[][] levels = new long[depth + 1][];
+        levels[depth] = leaves;
+        for (int level = depth - 1; level >= 0; level--) {
+            long[] children = levels[level + 1];
+            long[] nodes = new long[children.length / FANOUT];
+            for (int i = 0; i < children.length; i++) {
+                nodes[i / FANOUT] += children[i];
+            }
+            levels[level] = nodes;
+        }
+        return new FlowHashTree(levels);
+    }
+
+    /**
+     * Returns the depth of the tree, which is the level of the leaves.
+     *
+     * @return the depth of the tree
+     */
+    int depth() {
+        return levels.length - 1;
+    }
+
+    /**
+     * Returns the hashes of the given nodes.
+     *
+     * @param level the level of the nodes
+     * @param nodes the indexes of the nodes within the level
+     * @return the hashes of the nodes, in the same order
+     */
+    long[] hashes(int level, int[] nodes) {
+        long[] hashes = new long[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            hashes[i] = levels[level][nodes[i]];
+        }
+        return hashes;
+    }
+
+    /**
+     * Returns the given nodes whose hashes differ from the given remote hashes.
+     *
+     * @param level  the level of the nodes
+     * @param nodes  the indexes of the nodes within the level
+     * @param hashes the remote hashes of the nodes, in the same order
+     * @return the indexes of the divergent nodes
+     */
+    int[] divergent(int level, int[] nodes, long[] hashes) {
+        checkArgument(nodes.length == hashes.length, "Hashes do not match the nodes");
+        return IntStream.range(0, nodes.length)
+            .filter(i -> levels[level][nodes[i]] != hashes[i])
+            .map(i -> nodes[i])
+            .toArray();
+    }
+
+    /**
+     * Returns the children of the given nodes.
+     *
+     * @param nodes the indexes of the nodes within their level
+     * @return the indexes of their children within the next level
+     */
+    static int[] children(int[] nodes) {
+        int[] children = new int[nodes.length * FANOUT];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = nodes[i / FANOUT] * FANOUT + i % FANOUT;
+        }
+        return children;
+    }
+}
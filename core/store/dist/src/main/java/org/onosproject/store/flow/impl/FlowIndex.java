@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.net.flow.TableId;
+
+/**
+ * Secondary indexes of the flows in a bucket.
+ * <p>
+ * The indexes map the application, group and table of each flow entry to the identifiers of the flows with those
+ * attributes. The cookie of a flow entry is its flow identifier, which is already the primary key of the bucket.
+ * The indexes are local state of the bucket and are updated while the flow they refer to is being changed, so
+ * changes to the same flow are applied to the indexes in order.
+ */
+final class FlowIndex {
+    private final Map<Short, Set<FlowId>> appFlows = Maps.newConcurrentMap();
+    private final Map<Long, Set<FlowId>> groupFlows = Maps.newConcurrentMap();
+    private final Map<TableId, Set<FlowId>> tableFlows = Maps.newConcurrentMap();
+
+    /**
+     * Returns the group key of the given flow.
+     * <p>
+     * The upper half of a flow identifier which has not been assigned an explicit cookie is made of the application
+     * and group identifiers of the flow.
+     *
+     * @param flowId the flow identifier
+     * @return the group key of the flow
+     */
+    static long groupKey(FlowId flowId) {
+        return flowId.value() >>> 32;
+    }
+
+    /**
+     * Returns the group key for the given application and group identifiers.
+     * <p>
+     * The identifiers are unsigned, as in the flow identifier.
+     *
+     * @param appId   the application identifier
+     * @param groupId the group identifier
+     * @return the group key
+     */
+    static long groupKey(short appId, short groupId) {
+        return (appId & 0xffffL) << 16 | groupId & 0xffffL;
+    }
+
+    /**
+     * Indexes the given flow entry.
+     *
+     * @param flowId the flow identifier
+     * @param entry  the flow entry
+     */
+    void add(FlowId flowId, StoredFlowEntry entry) {
+        add(appFlows, entry.appId(), flowId);
+        add(groupFlows, groupKey(flowId), flowId);
+        add(tableFlows, entry.table(), flowId);
+    }
+
+    /**
+     * Removes the given flow entry from the indexes.
+     * <p>
+     * The flow remains indexed under the attributes it shares with its remaining entries.
+     *
+     * @param flowId    the flow identifier
+     * @param entry     the removed flow entry
+     * @param remaining the remaining entries of the flow
+     */
+    void remove(FlowId flowId, StoredFlowEntry entry, Collection<StoredFlowEntry> remaining) {
+        if (remaining.stream().noneMatch(other -> other.appId() == entry.appId())) {
+            remove(appFlows, entry.appId(), flowId);
+        }
+        if (remaining.isEmpty()) {
+            remove(groupFlows, groupKey(flowId), flowId);
+        }
+        if (remaining.stream().noneMatch(other -> other.table().equals(entry.table()))) {
+            remove(tableFlows, entry.table(), flowId);
+        }
+    }
+
+    /**
+     * Returns the identifiers of the flows of the given application.
+     *
+     * @param appId the application identifier
+     * @return the flow identifiers
+     */
+    Set<FlowId> getAppFlows(short appId) {
+        return get(appFlows, appId);
+    }
+
+    /**
+     * Returns the identifiers of the flows with the given group key.
+     *
+     * @param groupKey the group key
+     * @return the flow identifiers
+     */
+    Set<FlowId> getGroupFlows(long groupKey) {
+        return get(groupFlows, groupKey);
+    }
+
+    /**
+     * Returns the identifiers of the flows in the given table.
+     *
+     * @param tableId the table identifier
+     * @return the flow identifiers
+     */
+    Set<FlowId> getTableFlows(TableId tableId) {
+        return get(tableFlows, tableId);
+    }
+
+    private static <K> void add(Map<K, Set<FlowId>> index, K key, FlowId flowId) {
+        index.compute(key, (k, flowIds) -> {
+            if (flowIds == null) {
+                flowIds = Sets.newConcurrentHashSet();
+            }
+            flowIds.add(flowId);
+            return flowIds;
+        });
+    }
+
+    private static <K> void remove(Map<K, Set<FlowId>> index, K key, FlowId flowId) {
+        index.computeIfPresent(key, (k, flowIds) -> {
+            flowIds.remove(flowId);
+            return flowIds.isEmpty() ? null : flowIds;
+        });
+    }
+
+    private static <K> Set<FlowId> get(Map<K, Set<FlowId>> index, K key) {
+        Set<FlowId> flowIds = index.get(key);
+        return flowIds != null ? ImmutableSet.copyOf(flowIds) : Collections.emptySet();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Hashes of the individual flow entries in a set of divergent slots on the master.
+ * <p>
+ * Slots are identified by their index among the leaves of the flow hash tree.
+ */
+public class FlowSlotDigest {
+    private final long term;
+    private final int[] slots;
+    private final long[] timestamps;
+    private final long[][] hashes;
+
+    FlowSlotDigest(long term, int[] slots, long[] timestamps, long[][] hashes) {
+        this.term = term;
+        this.slots = slots;
+        this.timestamps = timestamps;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Returns the term of the master.
+     *
+     * @return the term of the master
+     */
+    public long term() {
+        return term;
+    }
+
+    /**
+     * Returns the slots of the digest.
+     *
+     * @return the leaf indexes of the slots
+     */
+    public int[] slots() {
+        return slots;
+    }
+
+    /**
+     * Returns the timestamps of the buckets of the slots as of the digest.
+     *
+     * @return the logical bucket timestamps, in the same order as the slots
+     */
+    public long[] timestamps() {
+        return timestamps;
+    }
+
+    /**
+     * Returns the hashes of the flow entries in the slots.
+     *
+     * @return the entry hashes, in the same order as the slots
+     */
+    public long[][] hashes() {
+        return hashes;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+            .add("term", term)
+            .add("slots", slots.length)
+            .toString();
+    }
+}
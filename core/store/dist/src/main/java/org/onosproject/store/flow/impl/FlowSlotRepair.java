@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.List;
+
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Flow entries found missing on a backup by the anti-entropy protocol.
+ */
+public class FlowSlotRepair {
+    private final long term;
+    private final List<StoredFlowEntry> entries;
+
+    FlowSlotRepair(long term, List<StoredFlowEntry> entries) {
+        this.term = term;
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the term of the master.
+     *
+     * @return the term of the master
+     */
+    public long term() {
+        return term;
+    }
+
+    /**
+     * Returns the missing flow entries.
+     *
+     * @return the missing flow entries
+     */
+    public List<StoredFlowEntry> entries() {
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+            .add("term", term)
+            .add("entries", entries.size())
+            .toString();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Request for the hashes of a set of nodes of the flow hash tree of a backup.
+ */
+public class FlowTreeProbe {
+    private final long term;
+    private final int level;
+    private final int[] nodes;
+
+    FlowTreeProbe(long term, int level, int[] nodes) {
+        this.term = term;
+        this.level = level;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Returns the term of the master.
+     *
+     * @return the term of the master
+     */
+    public long term() {
+        return term;
+    }
+
+    /**
+     * Returns the level of the requested nodes.
+     *
+     * @return the level of the requested nodes
+     */
+    public int level() {
+        return level;
+    }
+
+    /**
+     * Returns the indexes of the requested nodes within their level.
+     *
+     * @return the indexes of the requested nodes
+     */
+    public int[] nodes() {
+        return nodes;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+            .add("term", term)
+            .add("level", level)
+            .add("nodes", nodes.length)
+            .toString();
+    }
+}
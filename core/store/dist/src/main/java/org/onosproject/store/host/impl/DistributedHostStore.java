@@ -50,7 +50,6 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
@@ -59,7 +58,6 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkState;
@@ -87,7 +85,11 @@ public class DistributedHostStore
 
     private ConsistentMap<HostId, DefaultHost> hostsConsistentMap;
     private Map<HostId, DefaultHost> hosts;
-    private Map<IpAddress, Set<Host>> hostsByIp;
+    private Map<IpAddress, Map<HostId, Host>> hostsByIp;
+    private Map<MacAddress, Map<HostId, Host>> hostsByMac;
+    private Map<VlanId, Map<HostId, Host>> hostsByVlan;
+    private Map<DeviceId, Map<HostId, Host>> hostsByDevice;
+    private Map<ConnectPoint, Map<HostId, Host>> hostsByLocation;
     private MapEventListener<HostId, DefaultHost> hostLocationTracker =
             new HostLocationTracker();
 
@@ -110,11 +112,11 @@ public class DistributedHostStore
         executor = newSingleThreadScheduledExecutor(groupedThreads("onos/hosts", "status-listener", log));
         statusChangeListener = status -> {
             if (status == Status.ACTIVE) {
-                executor.execute(this::loadHostsByIp);
+                executor.execute(this::loadHostIndexes);
             }
         };
         hostsConsistentMap.addStatusChangeListener(statusChangeListener);
-        loadHostsByIp();
+        loadHostIndexes();
         log.info("Started");
     }
 
@@ -126,18 +128,13 @@ public class DistributedHostStore
         log.info("Stopped");
     }
 
-    private void loadHostsByIp() {
-        hostsByIp = new ConcurrentHashMap<IpAddress, Set<Host>>();
-        hostsConsistentMap.asJavaMap().values().forEach(host -> {
-            host.ipAddresses().forEach(ip -> {
-                Set<Host> existingHosts = hostsByIp.get(ip);
-                if (existingHosts == null) {
-                    hostsByIp.put(ip, addHosts(host));
-                } else {
-                    existingHosts.add(host);
-                }
-            });
-        });
+    private void loadHostIndexes() {
+        hostsByIp = new ConcurrentHashMap<>();
+        hostsByMac = new ConcurrentHashMap<>();
+        hostsByVlan = new ConcurrentHashMap<>();
+        hostsByDevice = new ConcurrentHashMap<>();
+        hostsByLocation = new ConcurrentHashMap<>();
+        hostsConsistentMap.asJavaMap().values().forEach(host -> updateHostIndexes(host, null));
     }
 
     private boolean shouldUpdate(DefaultHost existingHost,
@@ -328,58 +325,48 @@ public class DistributedHostStore
 
     @Override
     public Set<Host> getHosts(VlanId vlanId) {
-        return filter(hosts.values(), host -> Objects.equals(host.vlan(), vlanId));
+        return getIndexedHosts(hostsByVlan, vlanId);
     }
 
     @Override
     public Set<Host> getHosts(MacAddress mac) {
-        return filter(hosts.values(), host -> Objects.equals(host.mac(), mac));
+        return getIndexedHosts(hostsByMac, mac);
     }
 
     @Override
     public Set<Host> getHosts(IpAddress ip) {
-        Set<Host> hosts = hostsByIp.get(ip);
-        return hosts != null ? ImmutableSet.copyOf(hosts) : ImmutableSet.of();
+        return getIndexedHosts(hostsByIp, ip);
     }
 
     @Override
     public Set<Host> getConnectedHosts(ConnectPoint connectPoint) {
-        Set<Host> filtered = hosts.entrySet().stream()
-                .filter(entry -> entry.getValue().locations().contains(connectPoint))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(filtered);
+        return getIndexedHosts(hostsByLocation, connectPoint);
     }
 
     @Override
     public Set<Host> getConnectedHosts(DeviceId deviceId) {
-        Set<Host> filtered = hosts.entrySet().stream()
-                .filter(entry -> entry.getValue().locations().stream()
-                        .map(HostLocation::deviceId).anyMatch(dpid -> dpid.equals(deviceId)))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(filtered);
+        return getIndexedHosts(hostsByDevice, deviceId);
     }
 
-    private Set<Host> filter(Collection<DefaultHost> collection, Predicate<DefaultHost> predicate) {
-        return collection.stream().filter(predicate).collect(Collectors.toSet());
+    private <K> Set<Host> getIndexedHosts(Map<K, Map<HostId, Host>> index, K key) {
+        Map<HostId, Host> hosts = index.get(key);
+        return hosts != null ? ImmutableSet.copyOf(hosts.values()) : ImmutableSet.of();
     }
 
-    private Set<Host> addHosts(Host host) {
-        Set<Host> hosts = Sets.newConcurrentHashSet();
-        hosts.add(host);
+    private Map<HostId, Host> addHosts(Host host) {
+        Map<HostId, Host> hosts = new ConcurrentHashMap<>();
+        hosts.put(host.id(), host);
         return hosts;
     }
 
-    private Set<Host> updateHosts(Set<Host> existingHosts, Host host) {
-        existingHosts.removeIf(existingHost -> existingHost.id().equals(host.id()));
-        existingHosts.add(host);
+    private Map<HostId, Host> updateHosts(Map<HostId, Host> existingHosts, Host host) {
+        existingHosts.put(host.id(), host);
         return existingHosts;
     }
 
-    private Set<Host> removeHosts(Set<Host> existingHosts, Host host) {
+    private Map<HostId, Host> removeHosts(Map<HostId, Host> existingHosts, Host host) {
         if (existingHosts != null) {
-            existingHosts.removeIf(existingHost -> existingHost.id().equals(host.id()));
+            existingHosts.remove(host.id());
         }
 
         if (existingHosts == null || existingHosts.isEmpty()) {
@@ -388,18 +375,44 @@ public class DistributedHostStore
         return existingHosts;
     }
 
-    private void updateHostsByIp(DefaultHost host, DefaultHost prevHost) {
-        Set<IpAddress> oldIps = prevHost != null ? prevHost.ipAddresses() : Collections.emptySet();
-        // Let's add first each new ip
-        Sets.difference(host.ipAddresses(), oldIps).forEach(
-                ip -> hostsByIp.compute(ip, (k, v) -> v == null ? addHosts(host) : updateHosts(v, host)));
-        // Let's remove then each old ip
-        Sets.difference(oldIps, host.ipAddresses()).forEach(
-                ip -> hostsByIp.computeIfPresent(ip, (k, v) -> removeHosts(v, host)));
+    private void updateHostIndexes(DefaultHost host, DefaultHost prevHost) {
+        updateIndex(hostsByIp, host.ipAddresses(),
+                    prevHost != null ? prevHost.ipAddresses() : Collections.emptySet(), host);
+        updateIndex(hostsByMac, Collections.singleton(host.mac()),
+                    prevHost != null ? Collections.singleton(prevHost.mac()) : Collections.emptySet(), host);
+        updateIndex(hostsByVlan, Collections.singleton(host.vlan()),
+                    prevHost != null ? Collections.singleton(prevHost.vlan()) : Collections.emptySet(), host);
+        updateIndex(hostsByDevice, devices(host), devices(prevHost), host);
+        updateIndex(hostsByLocation, host.locations(),
+                    prevHost != null ? prevHost.locations() : Collections.emptySet(), host);
+    }
+
+    private void removeHostIndexes(DefaultHost host) {
+        removeFromIndex(hostsByIp, host.ipAddresses(), host);
+        removeFromIndex(hostsByMac, Collections.singleton(host.mac()), host);
+        removeFromIndex(hostsByVlan, Collections.singleton(host.vlan()), host);
+        removeFromIndex(hostsByDevice, devices(host), host);
+        removeFromIndex(hostsByLocation, host.locations(), host);
     }
 
-    private void removeHostsByIp(DefaultHost host) {
-        host.ipAddresses().forEach(ip -> hostsByIp.computeIfPresent(ip, (k, v) -> removeHosts(v, host)));
+    private <K> void updateIndex(Map<K, Map<HostId, Host>> index, Set<? extends K> keys,
+                                 Set<? extends K> oldKeys, DefaultHost host) {
+        // Let's add first the host to each key, replacing its previous version
+        keys.forEach(key -> index.compute(key, (k, v) -> v == null ? addHosts(host) : updateHosts(v, host)));
+        // Let's remove then the host from each old key
+        Sets.difference(oldKeys, keys).forEach(
+                key -> index.computeIfPresent(key, (k, v) -> removeHosts(v, host)));
+    }
+
+    private <K> void removeFromIndex(Map<K, Map<HostId, Host>> index, Set<? extends K> keys, DefaultHost host) {
+        keys.forEach(key -> index.computeIfPresent(key, (k, v) -> removeHosts(v, host)));
+    }
+
+    private static Set<DeviceId> devices(Host host) {
+        if (host == null) {
+            return Collections.emptySet();
+        }
+        return host.locations().stream().map(HostLocation::deviceId).collect(Collectors.toSet());
     }
 
     private void removeIpFromHostsByIp(DefaultHost host, IpAddress ip) {
@@ -413,11 +426,11 @@ public class DistributedHostStore
             DefaultHost prevHost = Versioned.valueOrNull(event.oldValue());
             switch (event.type()) {
                 case INSERT:
-                    updateHostsByIp(host, prevHost);
+                    updateHostIndexes(host, prevHost);
                     notifyDelegate(new HostEvent(HOST_ADDED, host));
                     break;
                 case UPDATE:
-                    updateHostsByIp(host, prevHost);
+                    updateHostIndexes(host, prevHost);
                     if (!Objects.equals(prevHost.locations(), host.locations())) {
                         notifyDelegate(new HostEvent(HOST_MOVED, host, prevHost));
                     } else if (!Objects.equals(prevHost, host)) {
@@ -425,7 +438,7 @@ public class DistributedHostStore
                     }
                     break;
                 case REMOVE:
-                    removeHostsByIp(prevHost);
+                    removeHostIndexes(prevHost);
                     notifyDelegate(new HostEvent(HOST_REMOVED, prevHost));
                     break;
                 default:
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.link.impl;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.LinkKey;
+
+/**
+ * Ingress and egress indexes of the links in the store.
+ * <p>
+ * The indexes map the source and destination devices and connect points of each link to the keys of the links
+ * attached to them. Since a link key is made of its source and destination connect points, a key is always indexed
+ * under the same entries, and the indexes are updated while the link they refer to is being changed.
+ */
+final class LinkIndex {
+    private final Map<DeviceId, Set<LinkKey>> egressDevices = Maps.newConcurrentMap();
+    private final Map<DeviceId, Set<LinkKey>> ingressDevices = Maps.newConcurrentMap();
+    private final Map<ConnectPoint, Set<LinkKey>> egressPoints = Maps.newConcurrentMap();
+    private final Map<ConnectPoint, Set<LinkKey>> ingressPoints = Maps.newConcurrentMap();
+
+    /**
+     * Indexes the given link key.
+     *
+     * @param linkKey the link key
+     */
+    void add(LinkKey linkKey) {
+        add(egressDevices, linkKey.src().deviceId(), linkKey);
+        add(ingressDevices, linkKey.dst().deviceId(), linkKey);
+        add(egressPoints, linkKey.src(), linkKey);
+        add(ingressPoints, linkKey.dst(), linkKey);
+    }
+
+    /**
+     * Removes the given link key from the indexes.
+     *
+     * @param linkKey the link key
+     */
+    void remove(LinkKey linkKey) {
+        remove(egressDevices, linkKey.src().deviceId(), linkKey);
+        remove(ingressDevices, linkKey.dst().deviceId(), linkKey);
+        remove(egressPoints, linkKey.src(), linkKey);
+        remove(ingressPoints, linkKey.dst(), linkKey);
+    }
+
+    /**
+     * Returns the keys of the links originating at the given device.
+     *
+     * @param deviceId the device identifier
+     * @return the link keys
+     */
+    Set<LinkKey> getDeviceEgressKeys(DeviceId deviceId) {
+        return get(egressDevices, deviceId);
+    }
+
+    /**
+     * Returns the keys of the links terminating at the given device.
+     *
+     * @param deviceId the device identifier
+     * @return the link keys
+     */
+    Set<LinkKey> getDeviceIngressKeys(DeviceId deviceId) {
+        return get(ingressDevices, deviceId);
+    }
+
+    /**
+     * Returns the keys of the links originating at the given connect point.
+     *
+     * @param src the source connect point
+     * @return the link keys
+     */
+    Set<LinkKey> getEgressKeys(ConnectPoint src) {
+        return get(egressPoints, src);
+    }
+
+    /**
+     * Returns the keys of the links terminating at the given connect point.
+     *
+     * @param dst the destination connect point
+     * @return the link keys
+     */
+    Set<LinkKey> getIngressKeys(ConnectPoint dst) {
+        return get(ingressPoints, dst);
+    }
+
+    private static <K> void add(Map<K, Set<LinkKey>> index, K key, LinkKey linkKey) {
+        index.compute(key, (k, linkKeys) -> {
+            if (linkKeys == null) {
+                linkKeys = Sets.newConcurrentHashSet();
+            }
+            linkKeys.add(linkKey);
+            return linkKeys;
+        });
+    }
+
+    private static <K> void remove(Map<K, Set<LinkKey>> index, K key, LinkKey linkKey) {
+        index.computeIfPresent(key, (k, linkKeys) -> {
+            linkKeys.remove(linkKey);
+            return linkKeys.isEmpty() ? null : linkKeys;
+        });
+    }
+
+    private static <K> Set<LinkKey> get(Map<K, Set<LinkKey>> index, K key) {
+        Set<LinkKey> linkKeys = index.get(key);
+        return linkKeys != null ? ImmutableSet.copyOf(linkKeys) : Collections.emptySet();
+    }
+}
@@ -28,10 +28,11 @@ import org.onosproject.store.service.ConsistentMap;
 import org.onosproject.store.service.StorageException;
 import org.onosproject.store.service.StorageService;
 import org.onosproject.store.service.TransactionContext;
-import org.onosproject.store.service.Versioned;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -42,8 +43,12 @@ import static org.onosproject.store.resource.impl.ConsistentResourceStore.SERIAL
  */
 class ConsistentDiscreteResourceSubStore implements ConsistentResourceSubStore
         <DiscreteResourceId, DiscreteResource, TransactionalDiscreteResourceSubStore> {
+    private static final long CACHE_SIZE = 100_000;
+
     private ConsistentMap<DiscreteResourceId, ResourceConsumerId> consumers;
     private ConsistentMap<DiscreteResourceId, DiscreteResources> childMap;
+    private ReadThroughCache<DiscreteResourceId, ResourceConsumerId> consumerCache;
+    private ReadThroughCache<DiscreteResourceId, DiscreteResources> childCache;
 
     @SuppressWarnings("ReturnValueIgnored")
     ConsistentDiscreteResourceSubStore(StorageService service) {
@@ -62,6 +67,17 @@ class ConsistentDiscreteResourceSubStore implements ConsistentResourceSubStore
                 Integer.MAX_VALUE,
                 50
         ).get();
+
+        this.consumerCache = new ReadThroughCache<>(consumers, CACHE_SIZE);
+        this.childCache = new ReadThroughCache<>(childMap, CACHE_SIZE);
+    }
+
+    /**
+     * Stops tracking updates of the cached resources.
+     */
+    void close() {
+        consumerCache.close();
+        childCache.close();
     }
 
     @Override
@@ -72,34 +88,66 @@ class ConsistentDiscreteResourceSubStore implements ConsistentResourceSubStore
     // computational complexity: O(1)
     @Override
     public List<ResourceAllocation> getResourceAllocations(DiscreteResourceId resource) {
-        Versioned<ResourceConsumerId> consumerId = consumers.get(resource);
-        if (consumerId == null) {
-            return ImmutableList.of();
-        }
-
-        return ImmutableList.of(new ResourceAllocation(Resources.discrete(resource).resource(), consumerId.value()));
+        return consumerCache.read(resource)
+                .map(consumerId -> ImmutableList.of(
+                        new ResourceAllocation(Resources.discrete(resource).resource(), consumerId)))
+                .orElse(ImmutableList.of());
     }
 
     @Override
     public Set<DiscreteResource> getChildResources(DiscreteResourceId parent) {
-        Versioned<DiscreteResources> children = childMap.get(parent);
-
-        if (children == null) {
-            return ImmutableSet.of();
-        }
-
-        return children.value().values();
+        return childCache.read(parent)
+                .map(DiscreteResources::values)
+                .orElse(ImmutableSet.of());
     }
 
     @Override
     public Set<DiscreteResource> getChildResources(DiscreteResourceId parent, Class<?> cls) {
-        Versioned<DiscreteResources> children = childMap.get(parent);
+        return childCache.read(parent)
+                .map(children -> children.valuesOf(cls))
+                .orElse(ImmutableSet.of());
+    }
 
-        if (children == null) {
-            return ImmutableSet.of();
+    /**
+     * Returns whether the cached state shows that the given resource cannot
+     * be allocated, because it is not registered or is already allocated.
+     * Resources with nothing cached about them are not deemed unavailable.
+     *
+     * @param resource resource to check
+     * @return true if the resource is known to be unavailable
+     */
+    // computational complexity: O(1)
+    boolean isKnownUnavailable(DiscreteResource resource) {
+        Optional<ResourceConsumerId> consumer = consumerCache.getIfPresent(resource.id());
+        if (consumer != null && consumer.isPresent()) {
+            return true;
+        }
+        if (!resource.id().parent().isPresent()) {
+            return false;
         }
+        Optional<DiscreteResources> siblings = childCache.getIfPresent(resource.id().parent().get());
+        return siblings != null
+                && !siblings.flatMap(children -> children.lookup(resource.id())).isPresent();
+    }
+
+    /**
+     * Drops the cached allocations of the given resources, after they have
+     * been updated by this instance.
+     *
+     * @param ids resource IDs
+     */
+    void invalidateAllocations(Collection<DiscreteResourceId> ids) {
+        ids.forEach(consumerCache::invalidate);
+    }
 
-        return children.value().valuesOf(cls);
+    /**
+     * Drops the cached children of the given parents, after they have been
+     * updated by this instance.
+     *
+     * @param parents parent resource IDs
+     */
+    void invalidateChildren(Collection<DiscreteResourceId> parents) {
+        parents.forEach(childCache::invalidate);
     }
 
     @Override
@@ -16,7 +16,10 @@
 package org.onosproject.store.resource.impl;
 
 import com.google.common.annotations.Beta;
+import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import org.onlab.util.KryoNamespace;
 import org.onlab.util.Tools;
 import org.onosproject.net.resource.ContinuousResource;
@@ -41,28 +44,39 @@ import org.onosproject.store.service.StorageService;
 import org.onosproject.store.service.TransactionContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static java.util.stream.Collectors.groupingBy;
+import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.net.resource.ResourceEvent.Type.RESOURCE_ADDED;
 import static org.onosproject.net.resource.ResourceEvent.Type.RESOURCE_REMOVED;
 
@@ -88,20 +102,41 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
             .register(MplsLabelCodec.class)
             .build());
 
+    // maximum number of allocations and releases committed in one transaction
+    private static final int MAX_BATCH_SIZE = 1000;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected StorageService service;
 
     private ConsistentDiscreteResourceSubStore discreteStore;
     private ConsistentContinuousResourceSubStore continuousStore;
 
+    private final Queue<PendingUpdate> pendingUpdates = new ConcurrentLinkedQueue<>();
+    private ExecutorService commitExecutor;
+    private volatile Thread commitThread;
+
     @Activate
     public void activate() {
         discreteStore = new ConsistentDiscreteResourceSubStore(service);
         continuousStore = new ConsistentContinuousResourceSubStore(service);
+        ThreadFactory threadFactory = groupedThreads("onos/store/resource", "commit", log);
+        commitExecutor = newSingleThreadExecutor(runnable -> {
+            Thread thread = threadFactory.newThread(runnable);
+            commitThread = thread;
+            return thread;
+        });
 
         log.info("Started");
     }
 
+    @Deactivate
+    public void deactivate() {
+        commitExecutor.shutdown();
+        discreteStore.close();
+
+        log.info("Stopped");
+    }
+
     // Computational complexity: O(1) if the resource is discrete type.
     // O(n) if the resource is continuous type where n is the number of the existing allocations for the resource
     @Override
@@ -150,6 +185,8 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
                 CommitStatus status = commitTransaction(tx);
                 if (status == CommitStatus.SUCCESS) {
                     log.trace("Transaction commit succeeded on registration: resources={}", resources);
+                    discreteStore.invalidateChildren(
+                            Collections2.transform(resourceMap.keySet(), DiscreteResource::id));
                     List<ResourceEvent> events = resources.stream()
                             .filter(x -> x.parent().isPresent())
                             .map(x -> new ResourceEvent(RESOURCE_ADDED, x))
@@ -203,6 +240,7 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
             try {
                 CommitStatus status = commitTransaction(tx);
                 if (status == CommitStatus.SUCCESS) {
+                    discreteStore.invalidateChildren(resourceMap.keySet());
                     List<ResourceEvent> events = resources.stream()
                             .filter(x -> x.parent().isPresent())
                             .map(x -> new ResourceEvent(RESOURCE_REMOVED, x))
@@ -228,67 +266,179 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
         checkNotNull(resources);
         checkNotNull(consumer);
 
-        while (true) {
-            TransactionContext tx = service.transactionContextBuilder().build();
-            tx.begin();
+        // reject without a round trip what is already known not to be allocatable
+        boolean unavailable = resources.stream()
+                .filter(x -> x instanceof DiscreteResource)
+                .anyMatch(x -> discreteStore.isKnownUnavailable((DiscreteResource) x));
+        if (unavailable) {
+            return false;
+        }
 
-            TransactionalDiscreteResourceSubStore discreteTxStore = discreteStore.transactional(tx);
-            TransactionalContinuousResourceSubStore continuousTxStore = continuousStore.transactional(tx);
+        return submit(resources, (discreteTxStore, continuousTxStore) -> {
             for (Resource resource : resources) {
                 if (resource instanceof DiscreteResource) {
                     if (!discreteTxStore.allocate(consumer.consumerId(), (DiscreteResource) resource)) {
-                        return abortTransaction(tx);
+                        return false;
                     }
                 } else if (resource instanceof ContinuousResource) {
                     if (!continuousTxStore.allocate(consumer.consumerId(), (ContinuousResource) resource)) {
-                        return abortTransaction(tx);
+                        return false;
                     }
                 }
             }
-
-            try {
-                if (commitTransaction(tx) == CommitStatus.SUCCESS) {
-                    return true;
-                }
-            } catch (InterruptedException | ExecutionException | TimeoutException e) {
-                log.warn("Failed to allocate {}: {}", resources, e);
-                return false;
-            }
-        }
+            return true;
+        });
     }
 
     @Override
     public boolean release(List<ResourceAllocation> allocations) {
         checkNotNull(allocations);
 
-        while (true) {
-            TransactionContext tx = service.transactionContextBuilder().build();
-            tx.begin();
-
-            TransactionalDiscreteResourceSubStore discreteTxStore = discreteStore.transactional(tx);
-            TransactionalContinuousResourceSubStore continuousTxStore = continuousStore.transactional(tx);
+        List<Resource> resources = Lists.transform(allocations, ResourceAllocation::resource);
+        return submit(resources, (discreteTxStore, continuousTxStore) -> {
             for (ResourceAllocation allocation : allocations) {
                 Resource resource = allocation.resource();
                 ResourceConsumerId consumerId = allocation.consumerId();
 
                 if (resource instanceof DiscreteResource) {
                     if (!discreteTxStore.release(consumerId, (DiscreteResource) resource)) {
-                        return abortTransaction(tx);
+                        return false;
                     }
                 } else if (resource instanceof ContinuousResource) {
                     if (!continuousTxStore.release(consumerId, (ContinuousResource) resource)) {
-                        return abortTransaction(tx);
+                        return false;
                     }
                 }
             }
+            return true;
+        });
+    }
+
+    /**
+     * Queues an update of resource allocations to be committed together with
+     * the other pending updates, and waits for its result.
+     * <p>
+     * An update submitted from the commit thread itself, e.g. by a callback
+     * of a commit, is committed on its own right away, as waiting for the
+     * commit thread would never end. An update submitted after the store
+     * has been deactivated fails.
+     *
+     * @param resources resources the update allocates or releases
+     * @param update    update to apply in the transaction, returning false
+     *                  if it cannot be applied
+     * @return true if the update was committed, false otherwise
+     */
+    private boolean submit(List<? extends Resource> resources,
+                           BiPredicate<TransactionalDiscreteResourceSubStore,
+                                   TransactionalContinuousResourceSubStore> update) {
+        PendingUpdate pending = new PendingUpdate(resources, update);
+        if (Thread.currentThread() == commitThread) {
+            commitBatch(ImmutableList.of(pending));
+            return pending.result.join();
+        }
+
+        pendingUpdates.add(pending);
+        try {
+            commitExecutor.execute(this::commitPending);
+        } catch (RejectedExecutionException e) {
+            // unless a run still going takes it, the update is never committed
+            if (pendingUpdates.remove(pending)) {
+                log.warn("Failed to update allocations of {}: store is stopped", resources);
+                return false;
+            }
+        }
+        return pending.result.join();
+    }
+
+    /**
+     * Commits the pending updates in batches of up to MAX_BATCH_SIZE.
+     */
+    private void commitPending() {
+        List<PendingUpdate> batch = new ArrayList<>();
+        PendingUpdate pending;
+        while (batch.size() < MAX_BATCH_SIZE && (pending = pendingUpdates.poll()) != null) {
+            batch.add(pending);
+        }
+        // an earlier run may have taken the updates this run was scheduled for
+        if (batch.isEmpty()) {
+            return;
+        }
+        commitBatch(batch);
+    }
+
+    /**
+     * Commits a batch of updates, failing all those not completed if the
+     * commit fails unexpectedly.
+     *
+     * @param batch updates to commit
+     */
+    private void commitBatch(List<PendingUpdate> batch) {
+        try {
+            commit(batch);
+        } catch (RuntimeException e) {
+            log.warn("Failed to commit {} allocation updates", batch.size(), e);
+            // no-op for the updates already completed
+            batch.forEach(update -> update.result.complete(false));
+        }
+    }
+
+    /**
+     * Commits a batch of updates in a single transaction. Each update is
+     * applied on top of those before it and is left out of the transaction
+     * if it cannot be applied, failing only its own request.
+     *
+     * @param batch updates to commit
+     */
+    private void commit(List<PendingUpdate> batch) {
+        // Retry the transaction until successful.
+        while (true) {
+            TransactionContext tx = service.transactionContextBuilder().build();
+            tx.begin();
+
+            TransactionalDiscreteResourceSubStore discreteTxStore = discreteStore.transactional(tx);
+            TransactionalContinuousResourceSubStore continuousTxStore = continuousStore.transactional(tx);
+            List<Boolean> results = new ArrayList<>(batch.size());
+            for (PendingUpdate pending : batch) {
+                TransactionalDiscreteResourceSubStore discreteStaged = discreteTxStore.stage();
+                TransactionalContinuousResourceSubStore continuousStaged = continuousTxStore.stage();
+                boolean applied;
+                try {
+                    applied = pending.update.test(discreteStaged, continuousStaged);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to update allocations of {}", pending.resources, e);
+                    applied = false;
+                }
+                if (applied) {
+                    discreteStaged.flush();
+                    continuousStaged.flush();
+                }
+                results.add(applied);
+            }
+
+            if (!results.contains(true)) {
+                abortTransaction(tx);
+                batch.forEach(pending -> pending.result.complete(false));
+                return;
+            }
 
             try {
                 if (commitTransaction(tx) == CommitStatus.SUCCESS) {
-                    return true;
+                    for (int i = 0; i < batch.size(); i++) {
+                        PendingUpdate pending = batch.get(i);
+                        if (results.get(i)) {
+                            discreteStore.invalidateAllocations(pending.resources.stream()
+                                    .filter(x -> x instanceof DiscreteResource)
+                                    .map(x -> ((DiscreteResource) x).id())
+                                    .collect(Collectors.toList()));
+                        }
+                        pending.result.complete(results.get(i));
+                    }
+                    return;
                 }
             } catch (InterruptedException | ExecutionException | TimeoutException e) {
-                log.warn("Failed to release {}: {}", allocations, e);
-                return false;
+                log.warn("Failed to commit {} allocation updates: {}", batch.size(), e);
+                batch.forEach(pending -> pending.result.complete(false));
+                return;
             }
         }
     }
@@ -379,6 +529,23 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
         return false;
     }
 
+    /**
+     * Allocation update waiting to be committed.
+     */
+    private static final class PendingUpdate {
+        private final List<? extends Resource> resources;
+        private final BiPredicate<TransactionalDiscreteResourceSubStore,
+                TransactionalContinuousResourceSubStore> update;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private PendingUpdate(List<? extends Resource> resources,
+                              BiPredicate<TransactionalDiscreteResourceSubStore,
+                                      TransactionalContinuousResourceSubStore> update) {
+            this.resources = resources;
+            this.update = update;
+        }
+    }
+
     /**
      * Appends the values to the existing values associated with the specified key.
      * If the map already has all the given values, appending will not happen.
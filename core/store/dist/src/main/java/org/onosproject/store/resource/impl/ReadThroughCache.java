@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.Versioned;
+
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Size-bounded local cache of the entries of a consistent map, filled by the
+ * reads of the map made through it and invalidated by the map events.
+ * <p>
+ * Reads through the cache always go to the map. The cached entries may lag
+ * behind updates made by other instances until their events arrive, so they
+ * only serve lookups which tolerate that, such as rejecting requests early;
+ * callers invalidate the entries they update themselves.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+class ReadThroughCache<K, V> {
+
+    private final ConsistentMap<K, V> map;
+    // absent values are cached as empty optionals
+    private final Cache<K, Optional<V>> cache;
+    private final MapEventListener<K, V> listener = event -> invalidate(event.key());
+
+    // guarded by this; bumped on every invalidation so that reads racing
+    // with one do not cache what they read
+    private long invalidations;
+
+    ReadThroughCache(ConsistentMap<K, V> map, long maxSize) {
+        this.map = checkNotNull(map);
+        this.cache = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+        map.addListener(listener);
+    }
+
+    /**
+     * Reads the value of the given key from the map, caching it.
+     *
+     * @param key key
+     * @return value of the key, or empty if the map has none
+     */
+    Optional<V> read(K key) {
+        long stamp;
+        synchronized (this) {
+            stamp = invalidations;
+        }
+        Optional<V> value = Optional.ofNullable(Versioned.valueOrNull(map.get(key)));
+        synchronized (this) {
+            if (stamp == invalidations) {
+                cache.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached value of the given key without reading the map.
+     *
+     * @param key key
+     * @return cached value of the key, empty if the map is known to have
+     *         none, or null if nothing is cached for the key
+     */
+    Optional<V> getIfPresent(K key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Drops the cached value of the given key.
+     *
+     * @param key key
+     */
+    synchronized void invalidate(K key) {
+        invalidations++;
+        cache.invalidate(key);
+    }
+
+    /**
+     * Stops tracking the map events.
+     */
+    void close() {
+        map.removeListener(listener);
+    }
+}
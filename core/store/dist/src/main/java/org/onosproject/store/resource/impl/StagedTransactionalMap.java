@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import org.onosproject.store.service.TransactionalMap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Transactional map holding its updates locally on top of another
+ * transactional map until they are flushed to it, so that the updates of a
+ * single request within a shared transaction can be dropped as a whole.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+class StagedTransactionalMap<K, V> implements TransactionalMap<K, V> {
+
+    private final TransactionalMap<K, V> parent;
+    // staged updates; empty optionals stand for removals
+    private final Map<K, Optional<V>> updates = new LinkedHashMap<>();
+
+    StagedTransactionalMap(TransactionalMap<K, V> parent) {
+        this.parent = checkNotNull(parent);
+    }
+
+    @Override
+    public V get(K key) {
+        Optional<V> update = updates.get(key);
+        return update != null ? update.orElse(null) : parent.get(key);
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        V previous = get(key);
+        updates.put(key, Optional.of(value));
+        return previous;
+    }
+
+    @Override
+    public V remove(K key) {
+        V previous = get(key);
+        if (previous != null) {
+            updates.put(key, Optional.empty());
+        }
+        return previous;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        V previous = get(key);
+        if (previous == null) {
+            updates.put(key, Optional.of(value));
+        }
+        return previous;
+    }
+
+    @Override
+    public boolean remove(K key, V value) {
+        if (!Objects.equals(get(key), value)) {
+            return false;
+        }
+        updates.put(key, Optional.empty());
+        return true;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (!Objects.equals(get(key), oldValue)) {
+            return false;
+        }
+        updates.put(key, Optional.of(newValue));
+        return true;
+    }
+
+    /**
+     * Writes the staged updates through to the parent map.
+     */
+    void flush() {
+        updates.forEach((key, update) -> {
+            if (update.isPresent()) {
+                parent.put(key, update.get());
+            } else {
+                parent.remove(key);
+            }
+        });
+        updates.clear();
+    }
+}
@@ -45,8 +45,37 @@ class TransactionalContinuousResourceSubStore
     private final TransactionalMap<ContinuousResourceId, ContinuousResourceAllocation> consumers;
 
     TransactionalContinuousResourceSubStore(TransactionContext tx) {
-        this.childMap = tx.getTransactionalMap(MapNames.CONTINUOUS_CHILD_MAP, SERIALIZER);
-        this.consumers = tx.getTransactionalMap(MapNames.CONTINUOUS_CONSUMER_MAP, SERIALIZER);
+        this(tx.getTransactionalMap(MapNames.CONTINUOUS_CHILD_MAP, SERIALIZER),
+             tx.getTransactionalMap(MapNames.CONTINUOUS_CONSUMER_MAP, SERIALIZER));
+    }
+
+    private TransactionalContinuousResourceSubStore(
+            TransactionalMap<DiscreteResourceId, Set<ContinuousResource>> childMap,
+            TransactionalMap<ContinuousResourceId, ContinuousResourceAllocation> consumers) {
+        this.childMap = childMap;
+        this.consumers = consumers;
+    }
+
+    /**
+     * Returns a substore holding its updates on top of this one until they
+     * are flushed.
+     *
+     * @return staged substore
+     */
+    TransactionalContinuousResourceSubStore stage() {
+        return new TransactionalContinuousResourceSubStore(new StagedTransactionalMap<>(childMap),
+                                                           new StagedTransactionalMap<>(consumers));
+    }
+
+    /**
+     * Writes the updates held by this substore through to the one it was
+     * staged on; no-op if this substore was not staged.
+     */
+    void flush() {
+        if (childMap instanceof StagedTransactionalMap) {
+            ((StagedTransactionalMap<?, ?>) childMap).flush();
+            ((StagedTransactionalMap<?, ?>) consumers).flush();
+        }
     }
 
     // iterate over the values in the set: O(n) operation
@@ -39,8 +39,37 @@ class TransactionalDiscreteResourceSubStore
     private final TransactionalMap<DiscreteResourceId, ResourceConsumerId> consumers;
 
     TransactionalDiscreteResourceSubStore(TransactionContext tx) {
-        this.childMap = tx.getTransactionalMap(MapNames.DISCRETE_CHILD_MAP, SERIALIZER);
-        this.consumers = tx.getTransactionalMap(MapNames.DISCRETE_CONSUMER_MAP, SERIALIZER);
+        this(tx.getTransactionalMap(MapNames.DISCRETE_CHILD_MAP, SERIALIZER),
+             tx.getTransactionalMap(MapNames.DISCRETE_CONSUMER_MAP, SERIALIZER));
+    }
+
+    private TransactionalDiscreteResourceSubStore(
+            TransactionalMap<DiscreteResourceId, DiscreteResources> childMap,
+            TransactionalMap<DiscreteResourceId, ResourceConsumerId> consumers) {
+        this.childMap = childMap;
+        this.consumers = consumers;
+    }
+
+    /**
+     * Returns a substore holding its updates on top of this one until they
+     * are flushed.
+     *
+     * @return staged substore
+     */
+    TransactionalDiscreteResourceSubStore stage() {
+        return new TransactionalDiscreteResourceSubStore(new StagedTransactionalMap<>(childMap),
+                                                         new StagedTransactionalMap<>(consumers));
+    }
+
+    /**
+     * Writes the updates held by this substore through to the one it was
+     * staged on; no-op if this substore was not staged.
+     */
+    void flush() {
+        if (childMap instanceof StagedTransactionalMap) {
+            ((StagedTransactionalMap<?, ?>) childMap).flush();
+            ((StagedTransactionalMap<?, ?>) consumers).flush();
+        }
     }
 
     // check the existence in the set: O(1) operation
@@ -15,8 +15,15 @@
  */
 package org.onosproject.store.topology.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.google.common.cache.CacheStats;
 import org.onlab.graph.GraphPathSearch;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.KryoNamespace;
+import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.common.DefaultTopology;
 import org.onosproject.event.Event;
@@ -57,6 +64,7 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 
 import java.util.Collections;
@@ -65,6 +73,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -72,8 +82,12 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static org.onlab.util.Tools.get;
 import static org.onlab.util.Tools.isNullOrEmpty;
 import static org.onosproject.net.topology.TopologyEvent.Type.TOPOLOGY_CHANGED;
+import static org.onosproject.store.OsgiPropertyConstants.INCREMENTAL_CLUSTERS;
+import static org.onosproject.store.OsgiPropertyConstants.INCREMENTAL_CLUSTERS_DEFAULT;
 import static org.onosproject.store.OsgiPropertyConstants.LINK_WEIGHT_FUNCTION;
 import static org.onosproject.store.OsgiPropertyConstants.LINK_WEIGHT_FUNCTION_DEFAULT;
+import static org.onosproject.store.OsgiPropertyConstants.PATH_CACHE_SIZE;
+import static org.onosproject.store.OsgiPropertyConstants.PATH_CACHE_SIZE_DEFAULT;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -89,7 +103,9 @@ import static org.slf4j.LoggerFactory.getLogger;
                 TopologyStore.class, PathAdminService.class
         },
         property = {
-                LINK_WEIGHT_FUNCTION + "=" + LINK_WEIGHT_FUNCTION_DEFAULT
+                LINK_WEIGHT_FUNCTION + "=" + LINK_WEIGHT_FUNCTION_DEFAULT,
+                PATH_CACHE_SIZE + ":Integer=" + PATH_CACHE_SIZE_DEFAULT,
+                INCREMENTAL_CLUSTERS + ":Boolean=" + INCREMENTAL_CLUSTERS_DEFAULT
         }
 )
 public class DistributedTopologyStore
@@ -98,7 +114,18 @@ public class DistributedTopologyStore
 
     private final Logger log = getLogger(getClass());
 
-    private static final String FORMAT = "Settings: linkWeightFunction={}";
+    private static final String FORMAT =
+            "Settings: linkWeightFunction={}, pathCacheSize={}, incrementalClusters={}";
+
+    private static final String METRICS_COMPONENT = "Topology";
+    private static final String METRICS_FEATURE = "pathCache";
+    private static final String HITS = "hits";
+    private static final String MISSES = "misses";
+    private static final String SIZE = "size";
+    private static final String COMPUTE_FEATURE = "compute";
+    private static final String FULL = "full";
+    private static final String INCREMENTAL = "incremental";
+    private static final String COMPUTE_COST = "computeCost";
 
     private volatile DefaultTopology current =
             new DefaultTopology(ProviderId.NONE,
@@ -121,6 +148,12 @@ public class DistributedTopologyStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected DeviceService deviceService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL,
+            bind = "bindMetricsService",
+            unbind = "unbindMetricsService",
+            policy = ReferencePolicy.DYNAMIC)
+    protected volatile MetricsService metricsService;
+
     private static final String HOP_COUNT = "hopCount";
     private static final String LINK_METRIC = "linkMetric";
     private static final String GEO_DISTANCE = "geoDistance";
@@ -128,6 +161,22 @@ public class DistributedTopologyStore
     /** Default link-weight function: hopCount, linkMetric, geoDistance. */
     private String linkWeightFunction = LINK_WEIGHT_FUNCTION_DEFAULT;
 
+    /** Maximum number of paths cached per topology snapshot; 0 to disable. */
+    private int pathCacheSize = PATH_CACHE_SIZE_DEFAULT;
+
+    /** Derive clusters and broadcast trees from the previous topology where possible. */
+    private boolean incrementalClusters = INCREMENTAL_CLUSTERS_DEFAULT;
+
+    // Paths computed over the current topology; null when caching is disabled
+    private volatile PathCache pathCache;
+
+    // Times taken to compute topologies afresh and incrementally
+    private volatile Timer fullComputeTimer;
+    private volatile Timer incrementalComputeTimer;
+
+    // Statistics accumulated by the caches of former topologies
+    private CacheStats retiredStats = new CacheStats(0, 0, 0, 0, 0, 0);
+
     // Cluster root to broadcast points bindings to allow convergence to
     // a shared broadcast tree; node that is the master of the cluster root
     // is the primary.
@@ -174,7 +223,88 @@ public class DistributedTopologyStore
                             new GeoDistanceLinkWeight(deviceService) : null;
             setDefaultLinkWeigher(weight);
         }
-        log.info(FORMAT, linkWeightFunction);
+
+        int newPathCacheSize = Tools.getIntegerProperty(properties, PATH_CACHE_SIZE, pathCacheSize);
+        if (newPathCacheSize >= 0 && (newPathCacheSize != pathCacheSize || pathCache == null)) {
+            pathCacheSize = newPathCacheSize;
+            resetPathCache();
+        }
+
+        incrementalClusters = Tools.isPropertyEnabled(properties, INCREMENTAL_CLUSTERS,
+                                                      incrementalClusters);
+        log.info(FORMAT, linkWeightFunction, pathCacheSize, incrementalClusters);
+    }
+
+    // Discards all cached paths, e.g. when the default link weigher changes.
+    private synchronized void resetPathCache() {
+        PathCache oldCache = pathCache;
+        if (oldCache != null) {
+            retiredStats = retiredStats.plus(oldCache.stats());
+        }
+        pathCache = pathCacheSize > 0 ? new PathCache(current, pathCacheSize) : null;
+    }
+
+    // Returns paths from the cache if the topology is the current one.
+    private Set<Path> cachedPaths(DefaultTopology topology, PathKey key,
+                                  Supplier<Set<Path>> search) {
+        PathCache cache = pathCache;
+        if (cache == null || cache.topology() != topology) {
+            return search.get();
+        }
+        return cache.getPaths(key, search);
+    }
+
+    private synchronized CacheStats pathCacheStats() {
+        PathCache cache = pathCache;
+        return cache != null ? retiredStats.plus(cache.stats()) : retiredStats;
+    }
+
+    /**
+     * Hook for wiring up the optional reference to the metrics service.
+     *
+     * @param service service being announced
+     */
+    protected void bindMetricsService(MetricsService service) {
+        metricsService = service;
+        MetricsComponent component = service.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+        service.registerMetric(component, feature, HITS,
+                               (Gauge<Long>) () -> pathCacheStats().hitCount());
+        service.registerMetric(component, feature, MISSES,
+                               (Gauge<Long>) () -> pathCacheStats().missCount());
+        service.registerMetric(component, feature, SIZE, (Gauge<Long>) () -> {
+            PathCache cache = pathCache;
+            return cache != null ? cache.size() : 0L;
+        });
+
+        MetricsFeature computeFeature = component.registerFeature(COMPUTE_FEATURE);
+        fullComputeTimer = service.createTimer(component, computeFeature, FULL);
+        incrementalComputeTimer = service.createTimer(component, computeFeature, INCREMENTAL);
+        service.registerMetric(component, computeFeature, COMPUTE_COST,
+                               (Gauge<Long>) () -> current.computeCost());
+    }
+
+    /**
+     * Hook for unwiring the optional reference to the metrics service.
+     *
+     * @param service service being withdrawn
+     */
+    protected void unbindMetricsService(MetricsService service) {
+        fullComputeTimer = null;
+        incrementalComputeTimer = null;
+        MetricsComponent component = service.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+        service.removeMetric(component, feature, HITS);
+        service.removeMetric(component, feature, MISSES);
+        service.removeMetric(component, feature, SIZE);
+
+        MetricsFeature computeFeature = component.registerFeature(COMPUTE_FEATURE);
+        service.removeMetric(component, computeFeature, FULL);
+        service.removeMetric(component, computeFeature, INCREMENTAL);
+        service.removeMetric(component, computeFeature, COMPUTE_COST);
+        if (metricsService == service) {
+            metricsService = null;
+        }
     }
 
     @Override
@@ -215,14 +345,21 @@ public class DistributedTopologyStore
 
     @Override
     public Set<Path> getPaths(Topology topology, DeviceId src, DeviceId dst) {
-        return defaultTopology(topology).getPaths(src, dst);
+        DefaultTopology defaultTopology = defaultTopology(topology);
+        return cachedPaths(defaultTopology, new PathKey(src, dst),
+                           () -> defaultTopology.getPaths(src, dst));
     }
 
 
     @Override
     public Set<Path> getPaths(Topology topology, DeviceId src,
                               DeviceId dst, LinkWeigher weigher) {
-        return defaultTopology(topology).getPaths(src, dst, weigher);
+        DefaultTopology defaultTopology = defaultTopology(topology);
+        if (weigher != null) {
+            return defaultTopology.getPaths(src, dst, weigher);
+        }
+        return cachedPaths(defaultTopology, new PathKey(src, dst),
+                           () -> defaultTopology.getPaths(src, dst, null));
     }
 
     @Override
@@ -230,7 +367,12 @@ public class DistributedTopologyStore
                                        DeviceId src, DeviceId dst,
                                        LinkWeigher weigher,
                                        int maxPaths) {
-        return defaultTopology(topology).getKShortestPaths(src, dst, weigher, maxPaths);
+        DefaultTopology defaultTopology = defaultTopology(topology);
+        if (maxPaths < 1 || weigher != null) {
+            return defaultTopology.getKShortestPaths(src, dst, weigher, maxPaths);
+        }
+        return cachedPaths(defaultTopology, new PathKey(src, dst, maxPaths),
+                           () -> defaultTopology.getKShortestPaths(src, dst, null, maxPaths));
     }
 
     @Override
@@ -295,10 +437,17 @@ public class DistributedTopologyStore
     public TopologyEvent updateTopology(ProviderId providerId,
                                         GraphDescription graphDescription,
                                         List<Event> reasons) {
-        // Have the default topology construct self from the description data.
+        // Have the default topology construct self from the description data,
+        // deriving what it can from the current one.
+        long start = System.nanoTime();
         DefaultTopology newTopology =
-                new DefaultTopology(providerId, graphDescription, this::isBroadcastPoint);
+                new DefaultTopology(providerId, graphDescription, this::isBroadcastPoint,
+                                    incrementalClusters ? current : null);
         updateBroadcastPoints(newTopology);
+        Timer timer = newTopology.isIncremental() ? incrementalComputeTimer : fullComputeTimer;
+        if (timer != null) {
+            timer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
 
         // Promote the new topology to current and return a ready-to-send event.
         synchronized (this) {
@@ -307,6 +456,11 @@ public class DistributedTopologyStore
             if (current != null && newTopology.time() < current.time()) {
                 return null;
             }
+            PathCache oldCache = pathCache;
+            if (oldCache != null) {
+                retiredStats = retiredStats.plus(oldCache.stats());
+                pathCache = oldCache.derive(newTopology, pathCacheSize);
+            }
             current = newTopology;
             return new TopologyEvent(TOPOLOGY_CHANGED, current, reasons);
         }
@@ -340,11 +494,13 @@ public class DistributedTopologyStore
     @Override
     public void setDefaultLinkWeigher(LinkWeigher linkWeigher) {
         DefaultTopology.setDefaultLinkWeigher(linkWeigher);
+        resetPathCache();
     }
 
     @Override
     public void setDefaultGraphPathSearch(GraphPathSearch<TopologyVertex, TopologyEdge> graphPathSearch) {
         DefaultTopology.setDefaultGraphPathSearch(graphPathSearch);
+        resetPathCache();
     }
 
     private class InternalBroadcastPointListener
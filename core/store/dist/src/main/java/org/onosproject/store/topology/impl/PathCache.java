@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.topology.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.onosproject.common.DefaultTopology;
+import org.onosproject.net.Link;
+import org.onosproject.net.Path;
+import org.onosproject.net.topology.TopologyEdge;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.onosproject.net.Link.State.ACTIVE;
+import static org.onosproject.net.Link.State.INACTIVE;
+
+/**
+ * Bounded cache of paths computed over a single topology snapshot.
+ * <p>
+ * Entries are keyed by {@link PathKey}, hence by link weigher equality;
+ * weighers whose results vary over time for the same topology should not
+ * be reused across searches.
+ * </p>
+ */
+class PathCache {
+
+    private final DefaultTopology topology;
+    private final Cache<PathKey, Set<Path>> paths;
+
+    /**
+     * Creates an empty path cache for the given topology.
+     *
+     * @param topology topology snapshot
+     * @param maxSize  maximum number of cached entries
+     */
+    PathCache(DefaultTopology topology, int maxSize) {
+        this.topology = topology;
+        this.paths = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the topology snapshot whose paths are cached.
+     *
+     * @return topology snapshot
+     */
+    DefaultTopology topology() {
+        return topology;
+    }
+
+    /**
+     * Returns the cached paths for the given key, searching for and caching
+     * them on a miss.
+     *
+     * @param key    path key
+     * @param search path search to run on a miss
+     * @return set of paths
+     */
+    Set<Path> getPaths(PathKey key, Supplier<Set<Path>> search) {
+        Set<Path> result = paths.getIfPresent(key);
+        if (result == null) {
+            result = search.get();
+            paths.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * @return cache size
+     */
+    long size() {
+        return paths.size();
+    }
+
+    /**
+     * Returns the hit, miss and eviction statistics of this cache.
+     *
+     * @return cache statistics
+     */
+    CacheStats stats() {
+        return paths.stats();
+    }
+
+    /**
+     * Creates the path cache for a topology derived from this one.
+     * <p>
+     * When links were only removed or deactivated, no path can become shorter
+     * and only the entries traversing those links are dropped; any other
+     * change yields an empty cache.
+     * </p>
+     *
+     * @param newTopology new topology snapshot
+     * @param newMaxSize  maximum number of cached entries
+     * @return path cache for the new topology
+     */
+    PathCache derive(DefaultTopology newTopology, int newMaxSize) {
+        PathCache cache = new PathCache(newTopology, newMaxSize);
+        Set<Link> removed = removedLinks(newTopology);
+        if (removed == null || paths.size() == 0) {
+            return cache;
+        }
+        paths.asMap().forEach((key, value) -> {
+            if (value.stream().noneMatch(path -> traverses(path, removed))) {
+                cache.paths.put(key, value);
+            }
+        });
+        return cache;
+    }
+
+    // Returns the links removed or deactivated in the new topology or null
+    // if there were any other link changes.
+    private Set<Link> removedLinks(DefaultTopology newTopology) {
+        Map<Link, Link> newLinks = links(newTopology);
+        Map<Link, Link> oldLinks = links(topology);
+        Set<Link> removed = new HashSet<>();
+        for (Link link : newLinks.values()) {
+            Link old = oldLinks.get(link);
+            if (old == null) {
+                return null;
+            }
+            if (old.state() != link.state() ||
+                    !Objects.equals(old.annotations(), link.annotations())) {
+                if (old.state() == ACTIVE && link.state() == INACTIVE &&
+                        Objects.equals(old.annotations(), link.annotations())) {
+                    removed.add(link);
+                } else {
+                    return null;
+                }
+            }
+        }
+        oldLinks.keySet().stream()
+                .filter(link -> !newLinks.containsKey(link))
+                .forEach(removed::add);
+        return removed;
+    }
+
+    private static Map<Link, Link> links(DefaultTopology topology) {
+        Map<Link, Link> links = new HashMap<>();
+        for (TopologyEdge edge : topology.getGraph().getEdges()) {
+            links.put(edge.link(), edge.link());
+        }
+        return links;
+    }
+
+    private static boolean traverses(Path path, Set<Link> links) {
+        return path.links().stream().anyMatch(links::contains);
+    }
+
+}
@@ -19,12 +19,19 @@ import org.onosproject.net.DeviceId;
 
 import java.util.Objects;
 
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+
 /**
  * Key for filing pre-computed paths between source and destination devices.
+ * <p>
+ * Only paths computed with the default link weigher are filed, since link
+ * weighers are commonly created per request and may depend on mutable state.
  */
 class PathKey {
     private final DeviceId src;
     private final DeviceId dst;
+    private final int maxPaths;
 
     /**
      * Creates a path key from the given source/dest pair.
@@ -32,13 +39,25 @@ class PathKey {
      * @param dst destination device
      */
     PathKey(DeviceId src, DeviceId dst) {
+        this(src, dst, ALL_PATHS);
+    }
+
+    /**
+     * Creates a path key from the given source/dest pair and maximum number
+     * of paths.
+     * @param src source device
+     * @param dst destination device
+     * @param maxPaths maximum number of paths
+     */
+    PathKey(DeviceId src, DeviceId dst, int maxPaths) {
         this.src = src;
         this.dst = dst;
+        this.maxPaths = maxPaths;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(src, dst);
+        return Objects.hash(src, dst, maxPaths);
     }
 
     @Override
@@ -48,8 +67,18 @@ class PathKey {
         }
         if (obj instanceof PathKey) {
             final PathKey other = (PathKey) obj;
-            return Objects.equals(this.src, other.src) && Objects.equals(this.dst, other.dst);
+            return Objects.equals(this.src, other.src) && Objects.equals(this.dst, other.dst) &&
+                    this.maxPaths == other.maxPaths;
         }
         return false;
     }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("src", src)
+                .add("dst", dst)
+                .add("maxPaths", maxPaths)
+                .toString();
+    }
 }
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.cluster.messaging.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.ControllerNode;
+import org.onosproject.cluster.DefaultControllerNode;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.store.cluster.messaging.ClusterMessage;
+import org.onosproject.store.cluster.messaging.Endpoint;
+import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.cluster.messaging.MessagingService;
+import org.osgi.service.component.ComponentContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.onosproject.store.OsgiPropertyConstants.CCM_BATCH_MAX_SIZE;
+import static org.onosproject.store.OsgiPropertyConstants.CCM_BATCH_WINDOW_MILLIS;
+
+/**
+ * Unit tests for the batched messaging of the cluster communication manager.
+ */
+public class ClusterCommunicationManagerTest {
+
+    private static final MessageSubject SUBJECT = new MessageSubject("test-batch");
+    private static final ControllerNode NODE1 =
+            new DefaultControllerNode(NodeId.nodeId("node1"), IpAddress.valueOf("10.0.0.1"));
+    private static final ControllerNode NODE2 =
+            new DefaultControllerNode(NodeId.nodeId("node2"), IpAddress.valueOf("10.0.0.2"));
+
+    private static final Function<List<String>, byte[]> ENCODER =
+            messages -> String.join(",", messages).getBytes(StandardCharsets.UTF_8);
+    private static final Function<byte[], List<String>> DECODER =
+            bytes -> Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split(","));
+
+    private ClusterCommunicationManager manager;
+    private TestMessagingService messagingService;
+
+    @Before
+    public void setUp() {
+        messagingService = new TestMessagingService();
+        manager = new ClusterCommunicationManager();
+        manager.clusterService = new TestClusterService();
+        manager.messagingService = messagingService;
+        manager.activate(null);
+    }
+
+    @After
+    public void tearDown() {
+        manager.deactivate();
+    }
+
+    private List<CompletableFuture<Void>> send(ControllerNode node, String... messages) {
+        return Arrays.stream(messages)
+                .map(message -> manager.unicastBatched(message, SUBJECT, ENCODER, node.id()))
+                .collect(Collectors.toList());
+    }
+
+    private static void await(List<CompletableFuture<Void>> futures) throws Exception {
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Tests that messages to a node are sent in a single batch.
+     */
+    @Test
+    public void testBatching() throws Exception {
+        await(send(NODE1, "a", "b", "c"));
+
+        assertEquals(1, messagingService.sent.size());
+        Sent sent = messagingService.sent.get(0);
+        assertEquals(NODE1.ip(), sent.endpoint.host());
+        assertEquals(SUBJECT.toString(), sent.type);
+        assertEquals(ImmutableList.of("a", "b", "c"),
+                     DECODER.apply(ClusterMessage.fromBytes(sent.payload).payload()));
+    }
+
+    /**
+     * Tests that messages to different nodes are sent in separate batches.
+     */
+    @Test
+    public void testBatchPerNode() throws Exception {
+        List<CompletableFuture<Void>> futures = Lists.newArrayList();
+        futures.addAll(send(NODE1, "a", "b"));
+        futures.addAll(send(NODE2, "c"));
+        await(futures);
+
+        assertEquals(2, messagingService.sent.size());
+        for (Sent sent : messagingService.sent) {
+            List<String> messages = DECODER.apply(ClusterMessage.fromBytes(sent.payload).payload());
+            if (sent.endpoint.host().equals(NODE1.ip())) {
+                assertEquals(ImmutableList.of("a", "b"), messages);
+            } else {
+                assertEquals(ImmutableList.of("c"), messages);
+            }
+        }
+    }
+
+    /**
+     * Tests that a failed send fails the futures of the batched messages.
+     */
+    @Test
+    public void testFailedBatch() throws Exception {
+        messagingService.failure = new IllegalStateException("unreachable");
+        List<CompletableFuture<Void>> futures = send(NODE1, "a", "b");
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("Expected failed send");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+    }
+
+    /**
+     * Tests that deactivation sends the batches still waiting for their
+     * window to expire.
+     */
+    @Test
+    public void testDeactivateSendsPendingBatches() throws Exception {
+        manager.modified(context(1000, 60_000));
+        List<CompletableFuture<Void>> futures = send(NODE1, "a", "b");
+        assertTrue(messagingService.sent.isEmpty());
+
+        manager.deactivate();
+        await(futures);
+        assertEquals(1, messagingService.sent.size());
+        assertEquals(ImmutableList.of("a", "b"),
+                     DECODER.apply(ClusterMessage.fromBytes(messagingService.sent.get(0).payload).payload()));
+    }
+
+    /**
+     * Tests that batches pending when the batching is reconfigured are sent
+     * ahead of the batches of the new configuration.
+     */
+    @Test
+    public void testReconfigureKeepsOrder() throws Exception {
+        manager.modified(context(1000, 60_000));
+        List<CompletableFuture<Void>> futures = Lists.newArrayList();
+        futures.addAll(send(NODE1, "a", "b"));
+
+        manager.modified(context(2, 60_000));
+        futures.addAll(send(NODE1, "c", "d"));
+        await(futures);
+
+        List<List<String>> batches = messagingService.sent.stream()
+                .map(sent -> DECODER.apply(ClusterMessage.fromBytes(sent.payload).payload()))
+                .collect(Collectors.toList());
+        assertEquals(ImmutableList.of(ImmutableList.of("a", "b"), ImmutableList.of("c", "d")), batches);
+    }
+
+    /**
+     * Tests that a batch blocked while being sent to a node holds up neither
+     * the batches to the other nodes nor the batch timer.
+     */
+    @Test
+    public void testBlockedSendIsolated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        messagingService.blocked = NODE1.ip();
+        messagingService.release = release;
+        List<CompletableFuture<Void>> blocked = send(NODE1, "a");
+        try {
+            await(send(NODE2, "b"));
+            await(send(NODE2, "c"));
+            assertFalse(blocked.get(0).isDone());
+        } finally {
+            release.countDown();
+        }
+        await(blocked);
+        assertEquals(3, messagingService.sent.size());
+    }
+
+    private static ComponentContext context(int maxSize, int windowMillis) {
+        Dictionary<String, Object> properties = new Hashtable<>();
+        properties.put(CCM_BATCH_MAX_SIZE, Integer.toString(maxSize));
+        properties.put(CCM_BATCH_WINDOW_MILLIS, Integer.toString(windowMillis));
+        ComponentContext context = createMock(ComponentContext.class);
+        expect(context.getProperties()).andReturn(properties).anyTimes();
+        replay(context);
+        return context;
+    }
+
+    private static final class TestClusterService extends ClusterServiceAdapter {
+        @Override
+        public ControllerNode getNode(NodeId nodeId) {
+            return nodeId.equals(NODE1.id()) ? NODE1 : nodeId.equals(NODE2.id()) ? NODE2 : null;
+        }
+    }
+
+    private static final class Sent {
+        private final Endpoint endpoint;
+        private final String type;
+        private final byte[] payload;
+
+        private Sent(Endpoint endpoint, String type, byte[] payload) {
+            this.endpoint = endpoint;
+            this.type = type;
+            this.payload = payload;
+        }
+    }
+
+    private static final class TestMessagingService implements MessagingService {
+        private final List<Sent> sent = Lists.newCopyOnWriteArrayList();
+        private volatile Exception failure;
+        private volatile IpAddress blocked;
+        private volatile CountDownLatch release;
+
+        @Override
+        public CompletableFuture<Void> sendAsync(Endpoint ep, String type, byte[] payload) {
+            if (ep.host().equals(blocked)) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failure != null) {
+                CompletableFuture<Void> future = new CompletableFuture<>();
+                future.completeExceptionally(failure);
+                return future;
+            }
+            sent.add(new Sent(ep, type, payload));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, byte[] payload) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, byte[] payload,
+                                                        Executor executor) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void registerHandler(String type, BiConsumer<Endpoint, byte[]> handler, Executor executor) {
+        }
+
+        @Override
+        public void registerHandler(String type, BiFunction<Endpoint, byte[], byte[]> handler,
+                                    Executor executor) {
+        }
+
+        @Override
+        public void registerHandler(String type,
+                                    BiFunction<Endpoint, byte[], CompletableFuture<byte[]>> handler) {
+        }
+
+        @Override
+        public void unregisterHandler(String type) {
+        }
+    }
+}
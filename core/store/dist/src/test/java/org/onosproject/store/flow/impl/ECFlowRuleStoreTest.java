@@ -17,6 +17,8 @@ package org.onosproject.store.flow.impl;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
 import org.junit.After;
 import org.junit.Before;
@@ -28,6 +30,7 @@ import org.onosproject.cluster.NodeId;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.ControllerNode;
 import org.onosproject.core.CoreServiceAdapter;
+import org.onosproject.core.DefaultApplicationId;
 import org.onosproject.mastership.MastershipInfo;
 import org.onosproject.mastership.MastershipServiceAdapter;
 import org.onosproject.net.device.DeviceServiceAdapter;
@@ -39,6 +42,7 @@ import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry;
 import org.onosproject.net.flow.DefaultFlowEntry;
 import org.onosproject.net.flow.FlowEntry;
 import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.IndexTableId;
 import org.onosproject.net.flow.oldbatch.FlowRuleBatchOperation;
 import org.onosproject.net.intent.IntentTestsMocks;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
@@ -59,6 +63,7 @@ import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.emptyIterable;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
@@ -189,6 +194,8 @@ public class ECFlowRuleStoreTest {
 
         expect(mockClusterService.getLocalNode())
                 .andReturn(mockControllerNode).anyTimes();
+        expect(mockClusterService.getNodes())
+                .andReturn(ImmutableSet.of(mockControllerNode)).anyTimes();
         replay(mockClusterService);
 
         flowStoreImpl.clusterCommunicator = new ClusterCommunicationServiceAdapter();
@@ -310,4 +317,26 @@ public class ECFlowRuleStoreTest {
         }
         assertThat(sum3, is(0));
     }
+
+    /**
+     * Tests looking up flows by application, group, table and flow identifier.
+     */
+    @Test
+    public void testIndexedLookups() {
+        flowStoreImpl.addOrUpdateFlowRule(new DefaultFlowEntry(flowRule));
+        flowStoreImpl.addOrUpdateFlowRule(new DefaultFlowEntry(flowRule1));
+
+        assertThat(Iterables.size(flowStoreImpl.getFlowEntriesByAppId(APP_ID)), is(2));
+        assertThat(Iterables.size(flowStoreImpl.getFlowEntriesByAppId(new DefaultApplicationId(2, "bar"))), is(0));
+        assertThat(Iterables.size(flowStoreImpl.getFlowEntriesByGroupId(APP_ID, (short) 0)), is(2));
+        assertThat(Iterables.size(flowStoreImpl.getFlowEntriesByGroupId(APP_ID, (short) 1)), is(0));
+        assertThat(Iterables.size(flowStoreImpl.getFlowEntriesByTable(deviceId, IndexTableId.of(0))), is(2));
+        assertThat(Iterables.size(flowStoreImpl.getFlowEntriesByTable(deviceId, IndexTableId.of(1))), is(0));
+        assertThat(flowStoreImpl.getFlowEntriesById(deviceId, flowRule1.id()),
+                   contains(new DefaultFlowEntry(flowRule1)));
+
+        flowStoreImpl.removeFlowRule(new DefaultFlowEntry(flowRule));
+        assertThat(flowStoreImpl.getFlowEntriesByAppId(APP_ID), contains(new DefaultFlowEntry(flowRule1)));
+        assertThat(flowStoreImpl.getFlowEntriesById(deviceId, flowRule.id()), is(emptyIterable()));
+    }
 }
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.IndexTableId;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.store.LogicalTimestamp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Flow bucket unit tests.
+ */
+public class FlowBucketTest {
+    private static final DeviceId DEVICE_ID = did("device1");
+    private static final int THREADS = 8;
+    private static final int FLOWS_PER_THREAD = 500;
+
+    private final LogicalClock clock = new LogicalClock();
+    private final Queue<FlowChange> changes = new ConcurrentLinkedQueue<>();
+
+    private static StoredFlowEntry entry(int priority) {
+        return new DefaultFlowEntry(DefaultFlowRule.builder()
+            .forDevice(DEVICE_ID)
+            .withSelector(DefaultTrafficSelector.emptySelector())
+            .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+            .withPriority(priority)
+            .makePermanent()
+            .fromApp(APP_ID)
+            .build());
+    }
+
+    private static StoredFlowEntry entry(ApplicationId appId, short groupId, int table, int priority) {
+        return new DefaultFlowEntry(DefaultFlowRule.builder()
+            .forDevice(DEVICE_ID)
+            .withSelector(DefaultTrafficSelector.emptySelector())
+            .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+            .withPriority(priority)
+            .withCookie(((long) appId.id() << 48) | ((long) groupId << 32) | priority)
+            .forTable(table)
+            .makePermanent()
+            .build());
+    }
+
+    private static FlowBucket bucket() {
+        return new FlowBucket(new BucketId(DEVICE_ID, 0));
+    }
+
+    /**
+     * Tests that concurrent changes are all applied and recorded.
+     */
+    @Test
+    public void testConcurrentChanges() throws Exception {
+        FlowBucket bucket = bucket();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            int first = t * FLOWS_PER_THREAD;
+            executor.execute(() -> {
+                for (int i = first; i < first + FLOWS_PER_THREAD; i++) {
+                    bucket.add(entry(i), 1, clock, changes);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(THREADS * FLOWS_PER_THREAD, bucket.count());
+        assertEquals(THREADS * FLOWS_PER_THREAD, changes.size());
+        assertEquals(1, bucket.term());
+        LogicalTimestamp latest = changes.stream()
+            .map(FlowChange::timestamp)
+            .max(LogicalTimestamp::compareTo)
+            .get();
+        assertEquals(latest, bucket.timestamp());
+    }
+
+    /**
+     * Tests that removals are recorded as such, and that failed removals are not recorded.
+     */
+    @Test
+    public void testRemove() {
+        FlowBucket bucket = bucket();
+        bucket.add(entry(1), 1, clock, changes);
+        assertNotNull(bucket.remove(entry(1), 1, clock, changes));
+        assertNull(bucket.remove(entry(2), 1, clock, changes));
+
+        assertEquals(0, bucket.count());
+        assertEquals(2, changes.size());
+        assertFalse(changes.poll().isRemoved());
+        assertTrue(changes.poll().isRemoved());
+    }
+
+    /**
+     * Tests that interleaved changes to the same flow are logged in the order in which they were applied.
+     */
+    @Test
+    public void testInterleavedChanges() throws Exception {
+        FlowBucket bucket = bucket();
+        CountDownLatch logging = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        Queue<FlowChange> changes = new ConcurrentLinkedQueue<FlowChange>() {
+            @Override
+            public boolean add(FlowChange change) {
+                if (logging.getCount() > 0) {
+                    // Stall the first change while it is being logged
+                    logging.countDown();
+                    try {
+                        resume.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.add(change);
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> add = executor.submit(() -> bucket.add(entry(1), 1, clock, changes));
+        assertTrue(logging.await(10, TimeUnit.SECONDS));
+        Future<?> remove = executor.submit(() -> bucket.remove(entry(1), 1, clock, changes));
+
+        // The removal must wait for the addition to be logged
+        try {
+            remove.get(200, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // expected
+        }
+        resume.countDown();
+        add.get(10, TimeUnit.SECONDS);
+        remove.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals(2, changes.size());
+        FlowChange first = changes.poll();
+        FlowChange second = changes.poll();
+        assertFalse(first.isRemoved());
+        assertTrue(second.isRemoved());
+        assertTrue(second.timestamp().isNewerThan(first.timestamp()));
+        assertEquals(0, bucket.count());
+    }
+
+    /**
+     * Tests applying deltas to a backup of the bucket.
+     */
+    @Test
+    public void testApplyDelta() {
+        FlowBucket master = bucket();
+        master.add(entry(1), 1, clock, changes);
+        master.add(entry(2), 1, clock, changes);
+        FlowBucket backup = master.copy();
+        LogicalTimestamp base = master.timestamp();
+        changes.clear();
+
+        master.remove(entry(1), 1, clock, changes);
+        master.add(entry(3), 1, clock, changes);
+        FlowBucketDelta delta = delta(master, base);
+        assertTrue(backup.apply(delta));
+        assertEquals(2, backup.count());
+        assertEquals(master.timestamp(), backup.timestamp());
+        assertTrue(backup.getFlowEntries(entry(3).id()).containsKey(entry(3)));
+        assertFalse(backup.getFlowEntries(entry(1).id()).containsKey(entry(1)));
+
+        // A stale delta is ignored
+        FlowBucketDelta stale = new FlowBucketDelta(master.bucketId(), 1, base, base,
+            ImmutableList.of(entry(4)), ImmutableList.of());
+        assertTrue(backup.apply(stale));
+        assertEquals(2, backup.count());
+
+        // A delta based on changes the backup is missing is rejected
+        master.add(entry(5), 1, clock, changes);
+        FlowBucketDelta ahead = delta(master, master.timestamp());
+        assertFalse(backup.apply(ahead));
+
+        // A delta from another term is rejected
+        FlowBucketDelta term = new FlowBucketDelta(master.bucketId(), 2, backup.timestamp(),
+            master.timestamp(), ImmutableList.of(), ImmutableList.of());
+        assertFalse(backup.apply(term));
+    }
+
+    /**
+     * Tests reconciling the slots of a backup with those of the master.
+     */
+    @Test
+    public void testSlotReconciliation() {
+        FlowBucket master = bucket();
+        FlowBucket backup = bucket();
+        List<StoredFlowEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            entries.add(entry(i));
+            backup.add(entries.get(i), 1, clock, changes);
+        }
+
+        // The backup misses an entry and holds one unknown to the master, whose changes are more recent
+        StoredFlowEntry missing = entries.get(7);
+        StoredFlowEntry extra = entry(1000);
+        backup.remove(missing, 1, clock, changes);
+        backup.add(extra, 1, clock, changes);
+        for (int i = 99; i >= 0; i--) {
+            master.add(entries.get(i), 1, clock, changes);
+        }
+        assertFalse(Arrays.equals(master.slotHashes(), backup.slotHashes()));
+
+        for (int slot = 0; slot < FlowBucket.NUM_SLOTS; slot++) {
+            if (master.slotHashes()[slot] == backup.slotHashes()[slot]) {
+                continue;
+            }
+            Set<Long> hashes = master.getSlotEntries(slot).stream()
+                .map(FlowBucket::hash)
+                .collect(Collectors.toSet());
+            Set<Long> retained = backup.retainSlotEntries(slot, hashes, master.timestamp());
+            List<StoredFlowEntry> repairs = master.getSlotEntries(slot).stream()
+                .filter(entry -> !retained.contains(FlowBucket.hash(entry)))
+                .collect(Collectors.toList());
+            backup.repair(repairs);
+        }
+
+        assertArrayEquals(master.slotHashes(), backup.slotHashes());
+        assertEquals(100, backup.count());
+        assertTrue(backup.getFlowEntries(missing.id()).containsKey(missing));
+        assertFalse(backup.getFlowEntries(extra.id()).containsKey(extra));
+    }
+
+    /**
+     * Tests that a backup does not drop entries delivered after the master's slot digest was taken.
+     */
+    @Test
+    public void testSlotReconciliationAfterDelta() {
+        FlowBucket master = bucket();
+        master.add(entry(1), 1, clock, changes);
+        FlowBucket backup = master.copy();
+        changes.clear();
+
+        // The digest is taken before a new entry is replicated to the backup
+        int slot = FlowBucket.slot(entry(2).id());
+        LogicalTimestamp digestTimestamp = master.timestamp();
+        Set<Long> hashes = master.getSlotEntries(slot).stream()
+            .map(FlowBucket::hash)
+            .collect(Collectors.toSet());
+        master.add(entry(2), 1, clock, changes);
+        assertTrue(backup.apply(delta(master, backup.timestamp())));
+
+        backup.retainSlotEntries(slot, hashes, digestTimestamp);
+        assertTrue(backup.getFlowEntries(entry(2).id()).containsKey(entry(2)));
+
+        // Entries are dropped once the digest is as recent as the backup
+        backup.retainSlotEntries(slot, Collections.emptySet(), master.timestamp());
+        assertFalse(backup.getFlowEntries(entry(2).id()).containsKey(entry(2)));
+    }
+
+    /**
+     * Tests that the indexes are built from the existing flows and then follow changes to the bucket.
+     */
+    @Test
+    public void testIndexes() {
+        ApplicationId app1 = new DefaultApplicationId(1, "app1");
+        ApplicationId app2 = new DefaultApplicationId(2, "app2");
+        FlowBucket bucket = bucket();
+        for (int i = 0; i < 10; i++) {
+            bucket.add(entry(app1, (short) (i % 2), i % 3, i), 1, clock, changes);
+        }
+        assertEquals(10, bucket.getFlowEntriesByApp(app1.id()).size());
+        assertEquals(0, bucket.getFlowEntriesByApp(app2.id()).size());
+        assertEquals(5, bucket.getFlowEntriesByGroup(FlowIndex.groupKey(app1.id(), (short) 1)).size());
+        assertEquals(4, bucket.getFlowEntriesByTable(IndexTableId.of(0)).size());
+
+        bucket.add(entry(app2, (short) 1, 0, 10), 1, clock, changes);
+        assertEquals(1, bucket.getFlowEntriesByApp(app2.id()).size());
+        assertEquals(5, bucket.getFlowEntriesByTable(IndexTableId.of(0)).size());
+        assertEquals(1, bucket.getFlowEntriesByGroup(FlowIndex.groupKey(app2.id(), (short) 1)).size());
+
+        assertNotNull(bucket.remove(entry(app1, (short) 1, 1, 1), 1, clock, changes));
+        assertNotNull(bucket.remove(entry(app2, (short) 1, 0, 10), 1, clock, changes));
+        assertEquals(9, bucket.getFlowEntriesByApp(app1.id()).size());
+        assertEquals(0, bucket.getFlowEntriesByApp(app2.id()).size());
+        assertEquals(4, bucket.getFlowEntriesByGroup(FlowIndex.groupKey(app1.id(), (short) 1)).size());
+        assertEquals(2, bucket.getFlowEntriesByTable(IndexTableId.of(1)).size());
+
+        bucket.purge();
+        assertEquals(0, bucket.getFlowEntriesByApp(app1.id()).size());
+        bucket.add(entry(app1, (short) 0, 0, 0), 1, clock, changes);
+        assertEquals(1, bucket.getFlowEntriesByApp(app1.id()).size());
+    }
+
+    /**
+     * Tests that the indexes of a backup follow the deltas and repairs applied to it.
+     */
+    @Test
+    public void testBackupIndexes() {
+        FlowBucket master = bucket();
+        master.add(entry(1), 1, clock, changes);
+        FlowBucket backup = master.copy();
+        changes.clear();
+        assertEquals(1, backup.getFlowEntriesByApp(APP_ID.id()).size());
+
+        master.add(entry(2), 1, clock, changes);
+        assertTrue(backup.apply(delta(master, backup.timestamp())));
+        assertEquals(2, backup.getFlowEntriesByApp(APP_ID.id()).size());
+
+        master.remove(entry(1), 1, clock, changes);
+        assertTrue(backup.apply(delta(master, backup.timestamp())));
+        assertEquals(1, backup.getFlowEntriesByApp(APP_ID.id()).size());
+
+        backup.retainSlotEntries(FlowBucket.slot(entry(2).id()), Collections.emptySet(), backup.timestamp());
+        assertEquals(0, backup.getFlowEntriesByApp(APP_ID.id()).size());
+        backup.repair(ImmutableList.of(entry(2)));
+        assertEquals(1, backup.getFlowEntriesByApp(APP_ID.id()).size());
+    }
+
+    /**
+     * Tests that the indexes remain consistent with the bucket while it is changed concurrently.
+     */
+    @Test
+    public void testConcurrentIndexing() throws Exception {
+        FlowBucket bucket = bucket();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            int first = t * FLOWS_PER_THREAD;
+            executor.execute(() -> {
+                for (int i = first; i < first + FLOWS_PER_THREAD; i++) {
+                    bucket.add(entry(i), 1, clock, changes);
+                    if (i % 2 == 0) {
+                        bucket.remove(entry(i), 1, clock, changes);
+                    }
+                }
+            });
+        }
+        // Build the indexes while the bucket is being changed
+        bucket.getFlowEntriesByApp(APP_ID.id());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(THREADS * FLOWS_PER_THREAD / 2, bucket.getFlowEntriesByApp(APP_ID.id()).size());
+    }
+
+    private FlowBucketDelta delta(FlowBucket bucket, LogicalTimestamp base) {
+        List<StoredFlowEntry> updates = new ArrayList<>();
+        List<StoredFlowEntry> removals = new ArrayList<>();
+        FlowChange change;
+        while ((change = changes.poll()) != null) {
+            (change.isRemoved() ? removals : updates).add(change.entry());
+        }
+        return new FlowBucketDelta(bucket.bucketId(), bucket.term(), base, bucket.timestamp(), updates, removals);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Flow hash tree unit tests.
+ */
+public class FlowHashTreeTest {
+    private static final int LEAVES = 4096;
+
+    private static long[] leaves() {
+        long[] leaves = new long[LEAVES];
+        for (int i = 0; i < LEAVES; i++) {
+            leaves[i] = i * 31L;
+        }
+        return leaves;
+    }
+
+    /**
+     * Tests the shape of the tree and the sums held by its nodes.
+     */
+    @Test
+    public void testHashes() {
+        FlowHashTree tree = FlowHashTree.of(leaves());
+        assertEquals(3, tree.depth());
+
+        long total = 0;
+        for (long leaf : leaves()) {
+            total += leaf;
+        }
+        assertArrayEquals(new long[]{total}, tree.hashes(0, new int[]{0}));
+        assertArrayEquals(new long[]{31 * 17, 31 * 4095}, tree.hashes(3, new int[]{17, 4095}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLeaves() {
+        FlowHashTree.of(new long[100]);
+    }
+
+    /**
+     * Tests that descending through the divergent nodes locates the divergent leaves.
+     */
+    @Test
+    public void testDivergentLeaves() {
+        FlowHashTree local = FlowHashTree.of(leaves());
+        long[] leaves = leaves();
+        leaves[5] += 1;
+        leaves[3000] += 2;
+        FlowHashTree remote = FlowHashTree.of(leaves);
+
+        int[] nodes = {0};
+        for (int level = 0; level < local.depth(); level++) {
+            int[] divergent = local.divergent(level, nodes, remote.hashes(level, nodes));
+            nodes = FlowHashTree.children(divergent);
+        }
+        int[] divergent = local.divergent(local.depth(), nodes, remote.hashes(local.depth(), nodes));
+        assertArrayEquals(new int[]{5, 3000}, divergent);
+        // Only the two paths from the root to the divergent leaves were probed below the root.
+        assertEquals(2 * FlowHashTree.FANOUT, nodes.length);
+    }
+}
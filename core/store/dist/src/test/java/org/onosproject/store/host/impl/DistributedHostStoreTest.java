@@ -20,9 +20,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
 import org.onosproject.net.Host;
 import org.onosproject.net.HostId;
 import org.onosproject.net.HostLocation;
+import org.onosproject.net.PortNumber;
 import org.onosproject.net.host.DefaultHostDescription;
 import org.onosproject.net.host.HostDescription;
 import org.onosproject.net.provider.ProviderId;
@@ -32,6 +36,7 @@ import com.google.common.collect.Sets;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
@@ -50,6 +55,13 @@ public class DistributedHostStoreTest {
     private static final IpAddress IP1 = IpAddress.valueOf("10.2.0.2");
     private static final IpAddress IP2 = IpAddress.valueOf("10.2.0.3");
 
+    private static final HostLocation HOST_LOC11 =
+            new HostLocation(DeviceId.deviceId("of:0000000000000001"), PortNumber.portNumber(1), 0);
+    private static final HostLocation HOST_LOC12 =
+            new HostLocation(DeviceId.deviceId("of:0000000000000001"), PortNumber.portNumber(2), 0);
+    private static final HostLocation HOST_LOC21 =
+            new HostLocation(DeviceId.deviceId("of:0000000000000002"), PortNumber.portNumber(1), 0);
+
     private static final ProviderId PID = new ProviderId("of", "foo");
     private static final ProviderId PID2 = new ProviderId("of", "foo2");
 
@@ -146,10 +158,66 @@ public class DistributedHostStoreTest {
         assertEquals(PID2, hostInStore.providerId());
     }
 
+    @Test
+    public void testGetHostsByMacAndVlan() {
+        HostId vlanHostId = HostId.hostId(HOSTID.mac(), VlanId.vlanId((short) 10));
+        ecXHostStore.createOrUpdateHost(PID, HOSTID, createHostDesc(HOSTID, Sets.newHashSet(IP1)), false);
+        ecXHostStore.createOrUpdateHost(PID, vlanHostId, createHostDesc(vlanHostId, Sets.newHashSet(IP2)), false);
+        ecXHostStore.createOrUpdateHost(PID, HOSTID1, createHostDesc(HOSTID1, Sets.newHashSet()), false);
+
+        assertEquals(2, ecXHostStore.getHosts(HOSTID.mac()).size());
+        assertEquals(1, ecXHostStore.getHosts(HOSTID1.mac()).size());
+        assertEquals(2, ecXHostStore.getHosts(VlanId.NONE).size());
+        assertEquals(Sets.newHashSet(vlanHostId), hostIds(ecXHostStore.getHosts(VlanId.vlanId((short) 10))));
+
+        ecXHostStore.removeHost(vlanHostId);
+        assertEquals(Sets.newHashSet(HOSTID), hostIds(ecXHostStore.getHosts(HOSTID.mac())));
+        assertTrue(ecXHostStore.getHosts(VlanId.vlanId((short) 10)).isEmpty());
+    }
+
+    @Test
+    public void testGetConnectedHosts() {
+        ecXHostStore.createOrUpdateHost(PID, HOSTID,
+                createLocatedHostDesc(HOSTID, Sets.newHashSet(HOST_LOC11, HOST_LOC21)), false);
+        ecXHostStore.createOrUpdateHost(PID, HOSTID1,
+                createLocatedHostDesc(HOSTID1, Sets.newHashSet(HOST_LOC12)), false);
+
+        assertEquals(Sets.newHashSet(HOSTID, HOSTID1),
+                     hostIds(ecXHostStore.getConnectedHosts(HOST_LOC11.deviceId())));
+        assertEquals(Sets.newHashSet(HOSTID), hostIds(ecXHostStore.getConnectedHosts(HOST_LOC21.deviceId())));
+        assertEquals(Sets.newHashSet(HOSTID),
+                     hostIds(ecXHostStore.getConnectedHosts(new ConnectPoint(HOST_LOC11.deviceId(),
+                                                                             HOST_LOC11.port()))));
+
+        // Moving within a device replaces the location on that device
+        ecXHostStore.appendLocation(HOSTID1, HOST_LOC11);
+        assertTrue(ecXHostStore.getConnectedHosts(HOST_LOC12).isEmpty());
+        assertEquals(Sets.newHashSet(HOSTID, HOSTID1), hostIds(ecXHostStore.getConnectedHosts(HOST_LOC11)));
+        ecXHostStore.getConnectedHosts(HOST_LOC11)
+                .forEach(host -> assertEquals(ecXHostStore.getHost(host.id()), host));
+
+        ecXHostStore.removeLocation(HOSTID, HOST_LOC21);
+        assertTrue(ecXHostStore.getConnectedHosts(HOST_LOC21.deviceId()).isEmpty());
+        ecXHostStore.removeHost(HOSTID1);
+        assertEquals(Sets.newHashSet(HOSTID), hostIds(ecXHostStore.getConnectedHosts(HOST_LOC11.deviceId())));
+    }
+
+    private static Set<HostId> hostIds(Set<Host> hosts) {
+        return hosts.stream().map(Host::id).collect(Collectors.toSet());
+    }
+
     private static HostDescription createHostDesc(HostId hostId, Set<IpAddress> ips) {
         return createHostDesc(hostId, ips, false);
     }
 
+    private static HostDescription createLocatedHostDesc(HostId hostId, Set<HostLocation> locations) {
+        return new DefaultHostDescription(hostId.mac(),
+                hostId.vlanId(),
+                locations,
+                Sets.newHashSet(),
+                false);
+    }
+
     private static HostDescription createHostDesc(HostId hostId, Set<IpAddress> ips,
                                                   boolean configured) {
         return new DefaultHostDescription(hostId.mac(),
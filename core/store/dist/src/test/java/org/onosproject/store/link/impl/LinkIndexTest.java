@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.link.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.LinkKey;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.DeviceId.deviceId;
+import static org.onosproject.net.PortNumber.portNumber;
+
+/**
+ * Unit tests for the link index.
+ */
+public class LinkIndexTest {
+
+    private static final ConnectPoint D1P1 = new ConnectPoint(deviceId("of:1"), portNumber(1));
+    private static final ConnectPoint D1P2 = new ConnectPoint(deviceId("of:1"), portNumber(2));
+    private static final ConnectPoint D2P1 = new ConnectPoint(deviceId("of:2"), portNumber(1));
+    private static final ConnectPoint D2P2 = new ConnectPoint(deviceId("of:2"), portNumber(2));
+
+    private static final LinkKey L1 = LinkKey.linkKey(D1P1, D2P1);
+    private static final LinkKey L2 = LinkKey.linkKey(D2P1, D1P1);
+    private static final LinkKey L3 = LinkKey.linkKey(D1P2, D2P2);
+
+    @Test
+    public void testLookups() {
+        LinkIndex index = new LinkIndex();
+        index.add(L1);
+        index.add(L2);
+        index.add(L3);
+
+        assertEquals(ImmutableSet.of(L1, L3), index.getDeviceEgressKeys(D1P1.deviceId()));
+        assertEquals(ImmutableSet.of(L2), index.getDeviceIngressKeys(D1P1.deviceId()));
+        assertEquals(ImmutableSet.of(L2), index.getDeviceEgressKeys(D2P1.deviceId()));
+        assertEquals(ImmutableSet.of(L1, L3), index.getDeviceIngressKeys(D2P1.deviceId()));
+        assertEquals(ImmutableSet.of(L1), index.getEgressKeys(D1P1));
+        assertEquals(ImmutableSet.of(L2), index.getIngressKeys(D1P1));
+        assertEquals(ImmutableSet.of(L3), index.getEgressKeys(D1P2));
+        assertTrue(index.getIngressKeys(D1P2).isEmpty());
+        assertTrue(index.getDeviceEgressKeys(deviceId("of:3")).isEmpty());
+    }
+
+    @Test
+    public void testRemove() {
+        LinkIndex index = new LinkIndex();
+        index.add(L1);
+        index.add(L3);
+        index.add(L1);
+
+        index.remove(L1);
+        assertEquals(ImmutableSet.of(L3), index.getDeviceEgressKeys(D1P1.deviceId()));
+        assertEquals(ImmutableSet.of(L3), index.getDeviceIngressKeys(D2P1.deviceId()));
+        assertTrue(index.getEgressKeys(D1P1).isEmpty());
+        assertTrue(index.getIngressKeys(D2P1).isEmpty());
+
+        index.remove(L1);
+        index.remove(L3);
+        assertTrue(index.getDeviceEgressKeys(D1P1.deviceId()).isEmpty());
+        assertTrue(index.getDeviceIngressKeys(D2P1.deviceId()).isEmpty());
+        assertTrue(index.getEgressKeys(D1P2).isEmpty());
+    }
+}
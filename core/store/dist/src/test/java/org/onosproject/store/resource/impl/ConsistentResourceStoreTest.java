@@ -0,0 +1,395 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.intent.IntentId;
+import org.onosproject.net.resource.DiscreteResource;
+import org.onosproject.net.resource.ResourceAllocation;
+import org.onosproject.net.resource.ResourceConsumer;
+import org.onosproject.net.resource.Resources;
+import org.onosproject.store.primitives.TransactionId;
+import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.CommitStatus;
+import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.ConsistentMapBuilder;
+import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.TestConsistentMap;
+import org.onosproject.store.service.TestStorageService;
+import org.onosproject.store.service.TransactionContext;
+import org.onosproject.store.service.TransactionContextBuilder;
+import org.onosproject.store.service.TransactionalMap;
+import org.onosproject.store.service.Versioned;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the group commit of allocations in ConsistentResourceStore.
+ */
+public class ConsistentResourceStoreTest {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:0000000000000001");
+    private static final PortNumber PORT = PortNumber.portNumber(1);
+    private static final DiscreteResource VLAN1 = Resources.discrete(DID, PORT, VlanId.vlanId((short) 1)).resource();
+    private static final DiscreteResource VLAN2 = Resources.discrete(DID, PORT, VlanId.vlanId((short) 2)).resource();
+    private static final DiscreteResource VLAN3 = Resources.discrete(DID, PORT, VlanId.vlanId((short) 3)).resource();
+    private static final ResourceConsumer CONSUMER1 = IntentId.valueOf(1);
+    private static final ResourceConsumer CONSUMER2 = IntentId.valueOf(2);
+    private static final ResourceConsumer CONSUMER3 = IntentId.valueOf(3);
+    private static final ResourceConsumer CONSUMER4 = IntentId.valueOf(4);
+
+    private final List<Thread> allocators = new ArrayList<>();
+    private TestResourceStorageService storageService;
+    private ConsistentResourceStore store;
+
+    @Before
+    public void setUp() {
+        storageService = new TestResourceStorageService();
+        store = new ConsistentResourceStore();
+        store.service = storageService;
+        store.activate();
+
+        assertTrue(store.register(ImmutableList.of(Resources.discrete(DID).resource())));
+        assertTrue(store.register(ImmutableList.of(Resources.discrete(DID, PORT).resource())));
+        assertTrue(store.register(ImmutableList.of(VLAN1, VLAN2, VLAN3)));
+    }
+
+    @After
+    public void tearDown() {
+        storageService.release();
+        store.deactivate();
+    }
+
+    /**
+     * Tests that allocations queued behind a commit are committed together,
+     * that each caller gets the result of its own allocation, and that an
+     * allocation which conflicts with an earlier one of the batch fails alone.
+     */
+    @Test
+    public void testCoalescedAllocations() throws Exception {
+        storageService.hold();
+        CompletableFuture<Boolean> first = allocate(VLAN1, CONSUMER1);
+        storageService.awaitHeldCommit();
+        int commits = storageService.commits.get();
+
+        // queued one at a time, as the conflicting allocation must come second
+        CompletableFuture<Boolean> second = allocate(VLAN2, CONSUMER2);
+        awaitQueued();
+        CompletableFuture<Boolean> conflicting = allocate(VLAN2, CONSUMER3);
+        awaitQueued();
+        CompletableFuture<Boolean> third = allocate(VLAN3, CONSUMER4);
+        awaitQueued();
+        storageService.release();
+
+        assertThat(first.get(5, TimeUnit.SECONDS), is(true));
+        assertThat(second.get(5, TimeUnit.SECONDS), is(true));
+        assertThat(conflicting.get(5, TimeUnit.SECONDS), is(false));
+        assertThat(third.get(5, TimeUnit.SECONDS), is(true));
+        // the held commit, then one for the queued allocations
+        assertThat(storageService.commits.get(), is(commits + 2));
+
+        assertThat(store.getResourceAllocations(VLAN1.id()),
+                   is(ImmutableList.of(new ResourceAllocation(VLAN1, CONSUMER1))));
+        assertThat(store.getResourceAllocations(VLAN2.id()),
+                   is(ImmutableList.of(new ResourceAllocation(VLAN2, CONSUMER2))));
+        assertThat(store.getResourceAllocations(VLAN3.id()),
+                   is(ImmutableList.of(new ResourceAllocation(VLAN3, CONSUMER4))));
+    }
+
+    /**
+     * Tests that a batch in which no allocation can be applied is not
+     * committed.
+     */
+    @Test
+    public void testFailedBatchNotCommitted() {
+        assertTrue(store.allocate(ImmutableList.of(VLAN1), CONSUMER1));
+        int commits = storageService.commits.get();
+
+        DiscreteResource unknown = Resources.discrete(DID, PORT, VlanId.vlanId((short) 4)).resource();
+        assertThat(store.allocate(ImmutableList.of(unknown), CONSUMER2), is(false));
+        assertThat(storageService.commits.get(), is(commits));
+    }
+
+    /**
+     * Tests that allocating a resource known to be allocated is rejected
+     * without a transaction, and that a release lets it be allocated again.
+     */
+    @Test
+    public void testCachedAllocationCheck() {
+        assertTrue(store.allocate(ImmutableList.of(VLAN1), CONSUMER1));
+        // loads the allocation into the cache
+        assertThat(store.isAvailable(VLAN1), is(false));
+        int transactions = storageService.transactions.get();
+
+        assertThat(store.allocate(ImmutableList.of(VLAN1), CONSUMER2), is(false));
+        assertThat(storageService.transactions.get(), is(transactions));
+
+        assertTrue(store.release(ImmutableList.of(new ResourceAllocation(VLAN1, CONSUMER1))));
+        assertTrue(store.allocate(ImmutableList.of(VLAN1), CONSUMER2));
+        assertThat(store.getResourceAllocations(VLAN1.id()),
+                   is(ImmutableList.of(new ResourceAllocation(VLAN1, CONSUMER2))));
+    }
+
+    /**
+     * Tests that an allocation made from the commit thread, by a callback of
+     * a commit, is committed rather than waiting for the commit thread.
+     */
+    @Test
+    public void testAllocationFromCommitThread() throws Exception {
+        CompletableFuture<Boolean> nested = new CompletableFuture<>();
+        storageService.onCommit = () -> nested.complete(store.allocate(ImmutableList.of(VLAN2), CONSUMER2));
+
+        assertThat(allocate(VLAN1, CONSUMER1).get(5, TimeUnit.SECONDS), is(true));
+        assertThat(nested.get(5, TimeUnit.SECONDS), is(true));
+        assertThat(store.getResourceAllocations(VLAN2.id()),
+                   is(ImmutableList.of(new ResourceAllocation(VLAN2, CONSUMER2))));
+    }
+
+    /**
+     * Tests that allocating after deactivation fails without an exception.
+     */
+    @Test
+    public void testAllocationAfterDeactivation() {
+        store.deactivate();
+        assertThat(store.allocate(ImmutableList.of(VLAN1), CONSUMER1), is(false));
+    }
+
+    private CompletableFuture<Boolean> allocate(DiscreteResource resource, ResourceConsumer consumer) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        Thread allocator = new Thread(() -> result.complete(store.allocate(ImmutableList.of(resource), consumer)));
+        allocators.add(allocator);
+        allocator.start();
+        return result;
+    }
+
+    // Waits until all allocations have been queued and wait for their commit
+    private void awaitQueued() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!allocators.stream().allMatch(allocator -> allocator.getState() == Thread.State.WAITING)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("allocations not queued",
+                   allocators.stream().allMatch(allocator -> allocator.getState() == Thread.State.WAITING));
+    }
+
+    /**
+     * Storage service whose maps are shared by name and whose transactions
+     * apply their updates to those maps on commit, optionally holding the
+     * commits until released.
+     */
+    private static final class TestResourceStorageService extends TestStorageService {
+        private final Map<String, ConsistentMap<?, ?>> maps = Maps.newConcurrentMap();
+        private final AtomicInteger transactions = new AtomicInteger();
+        private final AtomicInteger commits = new AtomicInteger();
+        private final CountDownLatch holding = new CountDownLatch(1);
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        // run once by the next commit, after applying it
+        private volatile Runnable onCommit;
+
+        void hold() {
+            gate = new CountDownLatch(1);
+        }
+
+        void awaitHeldCommit() throws InterruptedException {
+            assertTrue(holding.await(5, TimeUnit.SECONDS));
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        @Override
+        public <K, V> ConsistentMapBuilder<K, V> consistentMapBuilder() {
+            return new ConsistentMapBuilder<K, V>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public ConsistentMap<K, V> build() {
+                    return (ConsistentMap<K, V>) maps.computeIfAbsent(
+                            name(), name -> new TestConsistentMap.Builder<K, V>()
+                                    .withName(name).withSerializer(serializer()).build());
+                }
+
+                @Override
+                public AsyncConsistentMap<K, V> buildAsyncMap() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public TransactionContextBuilder transactionContextBuilder() {
+            return new TransactionContextBuilder() {
+                @Override
+                public TransactionContext build() {
+                    transactions.incrementAndGet();
+                    return new TestTransactionContext();
+                }
+            };
+        }
+
+        private final class TestTransactionContext implements TransactionContext {
+            private final List<TestTransactionalMap<?, ?>> txMaps = new ArrayList<>();
+
+            @Override
+            public String name() {
+                return "test";
+            }
+
+            @Override
+            public TransactionId transactionId() {
+                return TransactionId.from("test");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void begin() {
+            }
+
+            @Override
+            public CompletableFuture<CommitStatus> commit() {
+                CountDownLatch current = gate;
+                if (current.getCount() > 0) {
+                    holding.countDown();
+                    try {
+                        current.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                commits.incrementAndGet();
+                txMaps.forEach(TestTransactionalMap::apply);
+                Runnable callback = onCommit;
+                if (callback != null) {
+                    onCommit = null;
+                    callback.run();
+                }
+                return CompletableFuture.completedFuture(CommitStatus.SUCCESS);
+            }
+
+            @Override
+            public void abort() {
+                txMaps.clear();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> TransactionalMap<K, V> getTransactionalMap(String mapName, Serializer serializer) {
+                TestTransactionalMap<K, V> txMap = new TestTransactionalMap<>((ConsistentMap<K, V>) maps.get(mapName));
+                txMaps.add(txMap);
+                return txMap;
+            }
+        }
+    }
+
+    /**
+     * Transactional map holding its updates until they are applied.
+     */
+    private static final class TestTransactionalMap<K, V> implements TransactionalMap<K, V> {
+        private final ConsistentMap<K, V> map;
+        private final Map<K, Optional<V>> updates = new HashMap<>();
+
+        private TestTransactionalMap(ConsistentMap<K, V> map) {
+            this.map = map;
+        }
+
+        private void apply() {
+            updates.forEach((key, value) -> {
+                if (value.isPresent()) {
+                    map.put(key, value.get());
+                } else {
+                    map.remove(key);
+                }
+            });
+        }
+
+        @Override
+        public V get(K key) {
+            Optional<V> value = updates.get(key);
+            return value != null ? value.orElse(null) : Versioned.valueOrNull(map.get(key));
+        }
+
+        @Override
+        public boolean containsKey(K key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            V old = get(key);
+            updates.put(key, Optional.of(value));
+            return old;
+        }
+
+        @Override
+        public V remove(K key) {
+            V old = get(key);
+            updates.put(key, Optional.empty());
+            return old;
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            V old = get(key);
+            if (old == null) {
+                updates.put(key, Optional.of(value));
+            }
+            return old;
+        }
+
+        @Override
+        public boolean remove(K key, V value) {
+            if (!Objects.equals(get(key), value)) {
+                return false;
+            }
+            updates.put(key, Optional.empty());
+            return true;
+        }
+
+        @Override
+        public boolean replace(K key, V oldValue, V newValue) {
+            if (!Objects.equals(get(key), oldValue)) {
+                return false;
+            }
+            updates.put(key, Optional.of(newValue));
+            return true;
+        }
+    }
+}
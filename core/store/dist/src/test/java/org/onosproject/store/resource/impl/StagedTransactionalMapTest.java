@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.store.service.TransactionalMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for StagedTransactionalMap.
+ */
+public class StagedTransactionalMapTest {
+
+    private TestTransactionalMap parent;
+    private StagedTransactionalMap<String, Integer> sut;
+
+    @Before
+    public void setUp() {
+        parent = new TestTransactionalMap();
+        parent.put("a", 1);
+        parent.put("b", 2);
+        sut = new StagedTransactionalMap<>(parent);
+    }
+
+    @Test
+    public void testReadsThroughParent() {
+        assertThat(sut.get("a"), is(1));
+        assertThat(sut.containsKey("c"), is(false));
+    }
+
+    @Test
+    public void testUpdatesAreHeldUntilFlushed() {
+        assertThat(sut.put("a", 10), is(1));
+        assertThat(sut.remove("b"), is(2));
+        assertThat(sut.putIfAbsent("c", 3), is(nullValue()));
+
+        assertThat(sut.get("a"), is(10));
+        assertThat(sut.containsKey("b"), is(false));
+        assertThat(sut.get("c"), is(3));
+        assertThat(parent.map, is(ImmutableMap.of("a", 1, "b", 2)));
+
+        sut.flush();
+        assertThat(parent.map, is(ImmutableMap.of("a", 10, "c", 3)));
+    }
+
+    @Test
+    public void testConditionalUpdatesSeeStagedValues() {
+        assertThat(sut.replace("a", 1, 10), is(true));
+        assertThat(sut.replace("a", 1, 11), is(false));
+        assertThat(sut.remove("a", 1), is(false));
+        assertThat(sut.remove("a", 10), is(true));
+        assertThat(sut.putIfAbsent("a", 12), is(nullValue()));
+        assertThat(sut.get("a"), is(12));
+    }
+
+    @Test
+    public void testUnflushedUpdatesAreDropped() {
+        sut.put("a", 10);
+        sut.remove("b");
+
+        sut = new StagedTransactionalMap<>(parent);
+        sut.flush();
+        assertThat(parent.map, is(ImmutableMap.of("a", 1, "b", 2)));
+    }
+
+    private static class TestTransactionalMap implements TransactionalMap<String, Integer> {
+        private final Map<String, Integer> map = new HashMap<>();
+
+        @Override
+        public Integer get(String key) {
+            return map.get(key);
+        }
+
+        @Override
+        public boolean containsKey(String key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public Integer put(String key, Integer value) {
+            return map.put(key, value);
+        }
+
+        @Override
+        public Integer remove(String key) {
+            return map.remove(key);
+        }
+
+        @Override
+        public Integer putIfAbsent(String key, Integer value) {
+            return map.putIfAbsent(key, value);
+        }
+
+        @Override
+        public boolean remove(String key, Integer value) {
+            return map.remove(key, value);
+        }
+
+        @Override
+        public boolean replace(String key, Integer oldValue, Integer newValue) {
+            if (!Objects.equals(map.get(key), oldValue)) {
+                return false;
+            }
+            map.put(key, newValue);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.topology.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.common.DefaultTopology;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.Device;
+import org.onosproject.net.Link;
+import org.onosproject.net.Path;
+import org.onosproject.net.topology.DefaultGraphDescription;
+
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.onosproject.common.DefaultTopologyTest.PID;
+import static org.onosproject.common.DefaultTopologyTest.device;
+import static org.onosproject.common.DefaultTopologyTest.did;
+import static org.onosproject.common.DefaultTopologyTest.link;
+
+/**
+ * Tests of the topology path cache.
+ */
+public class PathCacheTest {
+
+    private static final Set<Device> DEVICES =
+            ImmutableSet.of(device("1"), device("2"), device("3"), device("4"));
+
+    private static final Link L12 = link("1", 1, "2", 1);
+    private static final Link L21 = link("2", 1, "1", 1);
+    private static final Link L23 = link("2", 2, "3", 2);
+    private static final Link L32 = link("3", 2, "2", 2);
+    private static final Link L14 = link("1", 3, "4", 3);
+    private static final Link L41 = link("4", 3, "1", 3);
+
+    private static final Set<Link> LINKS = ImmutableSet.of(L12, L21, L23, L32, L14, L41);
+
+    private static final PathKey K13 = new PathKey(did("1"), did("3"));
+    private static final PathKey K14 = new PathKey(did("1"), did("4"));
+
+    private DefaultTopology topology;
+    private PathCache cache;
+
+    @Before
+    public void setUp() {
+        topology = topology(LINKS);
+        cache = new PathCache(topology, 100);
+        cache.getPaths(K13, () -> topology.getPaths(did("1"), did("3")));
+        cache.getPaths(K14, () -> topology.getPaths(did("1"), did("4")));
+    }
+
+    private static DefaultTopology topology(Set<Link> links) {
+        return new DefaultTopology(PID, new DefaultGraphDescription(System.nanoTime(),
+                                                                     System.currentTimeMillis(),
+                                                                     DEVICES, links));
+    }
+
+    @Test
+    public void hitsAndMisses() {
+        Set<Path> paths = cache.getPaths(K13, () -> {
+            throw new IllegalStateException("search not expected");
+        });
+        assertEquals("incorrect path count", 1, paths.size());
+        assertEquals("incorrect hit count", 1, cache.stats().hitCount());
+        assertEquals("incorrect miss count", 2, cache.stats().missCount());
+        assertEquals("incorrect size", 2, cache.size());
+    }
+
+    @Test
+    public void linkRemovalDropsTraversingPaths() {
+        DefaultTopology newTopology = topology(ImmutableSet.of(L12, L21, L23, L32));
+        PathCache derived = cache.derive(newTopology, 100);
+        assertSame("incorrect topology", newTopology, derived.topology());
+        assertEquals("incorrect size", 1, derived.size());
+
+        Set<Path> paths = derived.getPaths(K14, () -> newTopology.getPaths(did("1"), did("4")));
+        assertEquals("paths not recomputed", 0, paths.size());
+        assertEquals("incorrect miss count", 1, derived.stats().missCount());
+    }
+
+    @Test
+    public void linkDeactivationDropsTraversingPaths() {
+        Link inactive = DefaultLink.builder().providerId(PID)
+                .src(L23.src()).dst(L23.dst()).type(L23.type())
+                .state(Link.State.INACTIVE).build();
+        PathCache derived = cache.derive(topology(ImmutableSet.of(L12, L21, inactive, L32, L14, L41)), 100);
+        assertEquals("incorrect size", 1, derived.size());
+    }
+
+    @Test
+    public void linkAdditionDropsAllPaths() {
+        Link l34 = link("3", 4, "4", 4);
+        PathCache derived = cache.derive(topology(ImmutableSet.of(L12, L21, L23, L32, L14, L41, l34)), 100);
+        assertEquals("incorrect size", 0, derived.size());
+    }
+
+}
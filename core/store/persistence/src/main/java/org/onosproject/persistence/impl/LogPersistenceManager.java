@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.persistence.impl;
+
+import com.google.common.collect.Maps;
+import org.onosproject.persistence.PersistenceService;
+import org.onosproject.persistence.PersistentMapBuilder;
+import org.onosproject.persistence.PersistentSetBuilder;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import static org.onosproject.security.AppGuard.checkPermission;
+import static org.onosproject.security.AppPermission.Type.PERSISTENCE_WRITE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Service that maintains local disk backed maps and sets, each kept in an
+ * append-only log of memory-mapped segments.
+ * This implementation automatically deletes empty structures on shutdown.
+ */
+@Component(immediate = true, service = PersistenceService.class)
+public class LogPersistenceManager implements PersistenceService {
+
+    private static final String LOG_ROOT =
+            System.getProperty("karaf.data") + "/db/local/log/";
+
+    private static final int SEGMENT_SIZE = 32 * 1024 * 1024;
+
+    private static final int FLUSH_FREQUENCY_MILLIS = 3000;
+
+    private final Logger log = getLogger(getClass());
+
+    private final Map<String, SegmentLog> logs = Maps.newConcurrentMap();
+
+    private Path root;
+
+    private Timer timer;
+
+    @Activate
+    public void activate() {
+        activate(Paths.get(LOG_ROOT));
+    }
+
+    /**
+     * Activates the service with its logs kept under the given directory.
+     *
+     * @param root directory holding the logs
+     */
+    void activate(Path root) {
+        this.root = root;
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            log.error("Could not create the required folder for the logs.");
+            throw new PersistenceException("Log folder could not be created.");
+        }
+        timer = new Timer("onos-persistence-log", true);
+        timer.schedule(new MaintenanceTask(), FLUSH_FREQUENCY_MILLIS, FLUSH_FREQUENCY_MILLIS);
+        log.info("Started");
+    }
+
+    @Deactivate
+    public void deactivate() {
+        timer.cancel();
+        logs.values().forEach(segmentLog -> {
+            if (segmentLog.isEmpty()) {
+                segmentLog.delete();
+            } else {
+                segmentLog.flush();
+            }
+        });
+        logs.clear();
+        log.info("Stopped");
+    }
+
+    @Override
+    public <K, V> PersistentMapBuilder<K, V> persistentMapBuilder() {
+        checkPermission(PERSISTENCE_WRITE);
+        return new DefaultPersistentMapBuilder<>(this::segmentLog);
+    }
+
+    @Override
+    public <E> PersistentSetBuilder<E> persistentSetBuilder() {
+        checkPermission(PERSISTENCE_WRITE);
+        return new DefaultPersistentSetBuilder<>(name -> segmentLog(name).asSet());
+    }
+
+    /**
+     * Returns the log of the named structure, opening it and rebuilding its
+     * index on first use.
+     */
+    private SegmentLog segmentLog(String name) {
+        return logs.computeIfAbsent(name, n -> {
+            try {
+                long start = System.currentTimeMillis();
+                SegmentLog segmentLog = SegmentLog.open(root.resolve(URLEncoder.encode(n, "UTF-8")),
+                                                        SEGMENT_SIZE);
+                log.info("Loaded {} entries of {} in {} ms", segmentLog.size(), n,
+                         System.currentTimeMillis() - start);
+                return segmentLog;
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            } catch (IOException e) {
+                log.error("Could not open the log of {}", n, e);
+                throw new PersistenceException("Log of " + n + " could not be opened.");
+            }
+        });
+    }
+
+    private class MaintenanceTask extends TimerTask {
+
+        @Override
+        public void run() {
+            logs.values().forEach(segmentLog -> {
+                try {
+                    segmentLog.compact();
+                    segmentLog.flush();
+                } catch (RuntimeException e) {
+                    log.warn("Unable to maintain log", e);
+                }
+            });
+        }
+    }
+}
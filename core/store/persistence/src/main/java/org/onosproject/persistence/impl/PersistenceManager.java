@@ -40,10 +40,12 @@ import static org.onosproject.security.AppPermission.Type.PERSISTENCE_WRITE;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
- * Service that maintains local disk backed maps and sets.
+ * Service that maintains local disk backed maps and sets in a MapDB database.
  * This implementation automatically deletes empty structures on shutdown.
+ * It is disabled in favour of {@link LogPersistenceManager} and may be
+ * enabled in its place.
  */
-@Component(immediate = true, service = PersistenceService.class)
+@Component(immediate = true, enabled = false, service = PersistenceService.class)
 public class PersistenceManager implements PersistenceService {
 
     private static final String DATABASE_ROOT =
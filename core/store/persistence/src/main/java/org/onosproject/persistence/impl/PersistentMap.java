@@ -36,19 +36,34 @@ public class PersistentMap<K, V> implements Map<K, V> {
 
     private final Serializer serializer;
 
-    private final org.mapdb.DB database;
-
     private final Map<byte[], byte[]> items;
 
-    private final String name;
-
     public PersistentMap(Serializer serializer, DB database, String name) {
+        this(serializer, mapDbItems(database, name));
+    }
+
+    /**
+     * Creates a map over the given store of serialized entries, which must
+     * compare keys by content.
+     *
+     * @param serializer serializer for keys and values
+     * @param items      store of serialized entries
+     */
+    PersistentMap(Serializer serializer, Map<byte[], byte[]> items) {
         this.serializer = checkNotNull(serializer);
-        this.database = checkNotNull(database);
-        this.name = checkNotNull(name);
+        this.items = checkNotNull(items);
+    }
 
-        items = database
-                .createHashMap(name)
+    /**
+     * Returns the named map of serialized entries in the given MapDB database.
+     *
+     * @param database MapDB database
+     * @param name     map name
+     * @return map of serialized entries
+     */
+    static Map<byte[], byte[]> mapDbItems(DB database, String name) {
+        return checkNotNull(database)
+                .createHashMap(checkNotNull(name))
                 .keySerializer(org.mapdb.Serializer.BYTE_ARRAY)
                 .valueSerializer(org.mapdb.Serializer.BYTE_ARRAY)
                 .hasher(Hasher.BYTE_ARRAY)
@@ -35,19 +35,34 @@ public class PersistentSet<E> implements Set<E> {
 
     private final org.onosproject.store.service.Serializer serializer;
 
-    private final org.mapdb.DB database;
-
     private final Set<byte[]> items;
 
-    private final String name;
-
     public PersistentSet(org.onosproject.store.service.Serializer serializer, DB database, String name) {
-        this.serializer = checkNotNull(serializer);
-        this.database = checkNotNull(database);
-        this.name = checkNotNull(name);
+        this(serializer, mapDbItems(database, name));
+    }
 
-        items = database
-                .createHashSet(name)
+    /**
+     * Creates a set over the given store of serialized elements, which must
+     * compare elements by content.
+     *
+     * @param serializer serializer for elements
+     * @param items      store of serialized elements
+     */
+    PersistentSet(org.onosproject.store.service.Serializer serializer, Set<byte[]> items) {
+        this.serializer = checkNotNull(serializer);
+        this.items = checkNotNull(items);
+    }
+
+    /**
+     * Returns the named set of serialized elements in the given MapDB database.
+     *
+     * @param database MapDB database
+     * @param name     set name
+     * @return set of serialized elements
+     */
+    static Set<byte[]> mapDbItems(DB database, String name) {
+        return checkNotNull(database)
+                .createHashSet(checkNotNull(name))
                 .serializer(Serializer.BYTE_ARRAY)
                 .hasher(Hasher.BYTE_ARRAY)
                 .makeOrGet();
@@ -0,0 +1,532 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.persistence.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Map of serialized keys to serialized values kept in an append-only log of
+ * memory-mapped segment files, with an in-memory index of the latest record
+ * of every key.
+ * <p>
+ * Every update appends a record to the active segment. Reopening the log
+ * rebuilds the index by scanning the segments in order, stopping at the first
+ * torn or corrupt record of each segment. Sealed segments holding mostly
+ * superseded records are compacted by copying their live records to the end
+ * of the log and deleting them.
+ * <p>
+ * Keys are compared by content, as with the MapDB byte array hasher.
+ */
+final class SegmentLog extends AbstractMap<byte[], byte[]> {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    // Record header: payload length and payload checksum
+    private static final int HEADER_BYTES = 8;
+    // Payload header: record type and key length
+    private static final int PAYLOAD_HEADER_BYTES = 5;
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Logger log = getLogger(getClass());
+
+    private final Path directory;
+    private final int segmentSize;
+
+    private final Map<Key, Location> index = Maps.newConcurrentMap();
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+    private long nextSegmentId;
+
+    private SegmentLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Opens the log held in the given directory, creating it if necessary,
+     * and rebuilds its index.
+     *
+     * @param directory   directory holding the segment files
+     * @param segmentSize size of newly created segments in bytes
+     * @return opened log
+     * @throws IOException if the segments could not be read or created
+     */
+    static SegmentLog open(Path directory, int segmentSize) throws IOException {
+        checkNotNull(directory);
+        checkArgument(segmentSize > HEADER_BYTES + PAYLOAD_HEADER_BYTES,
+                      "Segment size is too small");
+        Files.createDirectories(directory);
+        SegmentLog segmentLog = new SegmentLog(directory, segmentSize);
+        segmentLog.load();
+        return segmentLog;
+    }
+
+    private synchronized void load() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files =
+                     Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    ids.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                                          name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring unexpected file {}", file);
+                }
+            }
+        }
+        ids.sort(Long::compare);
+
+        for (long id : ids) {
+            Segment segment = new Segment(id, segmentFile(id), 0);
+            segments.add(segment);
+            replay(segment);
+            nextSegmentId = id + 1;
+        }
+
+        if (segments.isEmpty()) {
+            roll(segmentSize);
+        } else {
+            active = segments.get(segments.size() - 1);
+        }
+    }
+
+    /**
+     * Applies the valid records of the given segment to the index and
+     * positions the segment after the last of them.
+     */
+    private void replay(Segment segment) {
+        ByteBuffer buffer = segment.buffer.duplicate();
+        int capacity = buffer.capacity();
+        int offset = 0;
+        while (offset + HEADER_BYTES + PAYLOAD_HEADER_BYTES <= capacity) {
+            int length = buffer.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+            if (length < PAYLOAD_HEADER_BYTES || length > capacity - offset - HEADER_BYTES
+                    || checksum(buffer, offset, length) != buffer.getInt(offset + 4)) {
+                log.warn("Ignoring corrupt records of {} past offset {}", segment.file, offset);
+                // Clear the torn tail so it cannot be mistaken for records later on
+                buffer.position(offset);
+                while (buffer.hasRemaining()) {
+                    buffer.put((byte) 0);
+                }
+                break;
+            }
+
+            byte type = buffer.get(offset + HEADER_BYTES);
+            int keyLength = buffer.getInt(offset + HEADER_BYTES + 1);
+            byte[] key = new byte[keyLength];
+            buffer.position(offset + HEADER_BYTES + PAYLOAD_HEADER_BYTES);
+            buffer.get(key);
+
+            int size = HEADER_BYTES + length;
+            if (type == PUT) {
+                update(new Key(key), new Location(segment, offset, size, keyLength));
+            } else {
+                update(new Key(key), null);
+            }
+            offset += size;
+        }
+        segment.position = offset;
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer payload = buffer.duplicate();
+        payload.limit(offset + HEADER_BYTES + length).position(offset + HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Points the given key to a new location, or removes it from the index
+     * if the location is null, and keeps the live byte counts in step.
+     *
+     * @return previous location of the key, if any
+     */
+    private Location update(Key key, Location location) {
+        Location previous = location == null ? index.remove(key) : index.put(key, location);
+        if (location != null) {
+            location.segment.liveBytes += location.size;
+        }
+        if (previous != null) {
+            previous.segment.liveBytes -= previous.size;
+        }
+        return previous;
+    }
+
+    private Path segmentFile(long id) {
+        return directory.resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+    }
+
+    private void roll(int capacity) throws IOException {
+        if (active != null) {
+            active.buffer.force();
+        }
+        long id = nextSegmentId++;
+        active = new Segment(id, segmentFile(id), capacity);
+        segments.add(active);
+    }
+
+    /**
+     * Appends a record to the end of the log, rolling over to a new segment
+     * if the active one cannot hold it.
+     */
+    private Location append(byte type, byte[] key, byte[] value) {
+        int size = HEADER_BYTES + PAYLOAD_HEADER_BYTES + key.length + value.length;
+        if (size > active.buffer.capacity() - active.position) {
+            try {
+                roll(Math.max(segmentSize, size));
+            } catch (IOException e) {
+                throw new PersistenceException("Unable to create log segment: " + e.getMessage());
+            }
+        }
+
+        int offset = active.position;
+        ByteBuffer buffer = active.buffer.duplicate();
+        buffer.position(offset + HEADER_BYTES);
+        buffer.put(type).putInt(key.length).put(key).put(value);
+        buffer.putInt(offset + 4, checksum(buffer, offset, size - HEADER_BYTES));
+        // Length goes last so that a torn record reads as the end of the log
+        buffer.putInt(offset, size - HEADER_BYTES);
+        active.position += size;
+        return new Location(active, offset, size, key.length);
+    }
+
+    private static byte[] read(Location location) {
+        ByteBuffer buffer = location.segment.buffer.duplicate();
+        buffer.position(location.valueOffset());
+        byte[] value = new byte[location.valueLength()];
+        buffer.get(value);
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof byte[] && index.containsKey(new Key((byte[]) key));
+    }
+
+    @Override
+    public byte[] get(Object key) {
+        if (!(key instanceof byte[])) {
+            return null;
+        }
+        Location location = index.get(new Key((byte[]) key));
+        return location == null ? null : read(location);
+    }
+
+    @Override
+    public synchronized byte[] put(byte[] key, byte[] value) {
+        checkNotNull(key, "Key cannot be null.");
+        checkNotNull(value, "Value cannot be null.");
+        Location previous = update(new Key(key), append(PUT, key, value));
+        return previous == null ? null : read(previous);
+    }
+
+    @Override
+    public synchronized byte[] remove(Object key) {
+        if (!(key instanceof byte[])) {
+            return null;
+        }
+        Location previous = update(new Key((byte[]) key), null);
+        if (previous == null) {
+            return null;
+        }
+        append(DELETE, (byte[]) key, EMPTY);
+        return read(previous);
+    }
+
+    @Override
+    public synchronized void clear() {
+        index.clear();
+        deleteSegments(segments);
+        segments.clear();
+        active = null;
+        try {
+            roll(segmentSize);
+        } catch (IOException e) {
+            throw new PersistenceException("Unable to create log segment: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Set<byte[]> keySet() {
+        return new AbstractSet<byte[]>() {
+            @Override
+            public Iterator<byte[]> iterator() {
+                return Iterators.transform(index.keySet().iterator(), key -> key.bytes);
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return index.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<byte[], byte[]>> entrySet() {
+        return new AbstractSet<Entry<byte[], byte[]>>() {
+            @Override
+            public Iterator<Entry<byte[], byte[]>> iterator() {
+                return Iterators.transform(index.entrySet().iterator(),
+                                           e -> Maps.immutableEntry(e.getKey().bytes,
+                                                                    read(e.getValue())));
+            }
+
+            @Override
+            public int size() {
+                return index.size();
+            }
+        };
+    }
+
+    /**
+     * Returns a view of the keys of this log as a set which records each
+     * added element as a key with an empty value.
+     *
+     * @return set view of the log
+     */
+    Set<byte[]> asSet() {
+        return new AbstractSet<byte[]>() {
+            @Override
+            public Iterator<byte[]> iterator() {
+                return keySet().iterator();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public boolean add(byte[] element) {
+                synchronized (SegmentLog.this) {
+                    return !containsKey(element) && put(element, EMPTY) == null;
+                }
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                synchronized (SegmentLog.this) {
+                    return containsKey(o) && SegmentLog.this.remove(o) != null;
+                }
+            }
+
+            @Override
+            public void clear() {
+                SegmentLog.this.clear();
+            }
+
+            @Override
+            public int size() {
+                return index.size();
+            }
+        };
+    }
+
+    /**
+     * Compacts the sealed segments of which at least half of the bytes are
+     * held by superseded records, by copying their live records to the end
+     * of the log and then deleting them.
+     * <p>
+     * Deletion records are copied forward as well unless the segment is the
+     * oldest one, as older segments may still hold values they supersede.
+     */
+    synchronized void compact() {
+        List<Segment> compacted = new ArrayList<>();
+        for (Segment segment : ImmutableList.copyOf(segments)) {
+            if (segment == active || segment.liveBytes * 2L > segment.position) {
+                continue;
+            }
+            boolean oldest = segment == segments.get(0);
+            ByteBuffer buffer = segment.buffer.duplicate();
+            int offset = 0;
+            while (offset < segment.position) {
+                int size = HEADER_BYTES + buffer.getInt(offset);
+                byte type = buffer.get(offset + HEADER_BYTES);
+                int keyLength = buffer.getInt(offset + HEADER_BYTES + 1);
+                byte[] key = new byte[keyLength];
+                buffer.position(offset + HEADER_BYTES + PAYLOAD_HEADER_BYTES);
+                buffer.get(key);
+
+                Key k = new Key(key);
+                Location current = index.get(k);
+                if (type == PUT) {
+                    if (current != null && current.segment == segment && current.offset == offset) {
+                        update(k, append(PUT, key, read(current)));
+                    }
+                } else if (!oldest && current == null) {
+                    append(DELETE, key, EMPTY);
+                }
+                offset += size;
+            }
+            segments.remove(segment);
+            compacted.add(segment);
+        }
+
+        if (!compacted.isEmpty()) {
+            // Make sure the copies are durable before dropping the originals
+            active.buffer.force();
+            deleteSegments(compacted);
+            log.debug("Compacted {} segments of {}", compacted.size(), directory);
+        }
+    }
+
+    /**
+     * Forces the records appended to the active segment to disk.
+     */
+    synchronized void flush() {
+        active.buffer.force();
+    }
+
+    /**
+     * Deletes all segments of this log along with its directory.
+     */
+    synchronized void delete() {
+        index.clear();
+        deleteSegments(segments);
+        segments.clear();
+        try {
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            log.warn("Unable to delete {}", directory, e);
+        }
+    }
+
+    private void deleteSegments(List<Segment> toDelete) {
+        for (Segment segment : toDelete) {
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException e) {
+                log.warn("Unable to delete {}", segment.file, e);
+            }
+        }
+    }
+
+    /**
+     * Wrapper giving serialized keys content-based equality.
+     */
+    private static final class Key {
+        private final byte[] bytes;
+        private final int hash;
+
+        private Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && Arrays.equals(bytes, ((Key) obj).bytes);
+        }
+    }
+
+    /**
+     * Memory-mapped segment file.
+     */
+    private static final class Segment {
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        // End of the valid records; guarded by the log
+        private int position;
+        // Bytes of the records still referenced by the index; guarded by the log
+        private long liveBytes;
+
+        private Segment(long id, Path file, int capacity) throws IOException {
+            this.file = file;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                        StandardOpenOption.READ,
+                                                        StandardOpenOption.WRITE)) {
+                long size = Math.max(channel.size(), capacity);
+                checkArgument(size <= Integer.MAX_VALUE, "Segment %s is too large", id);
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+    }
+
+    /**
+     * Location of the latest record of a key.
+     */
+    private static final class Location {
+        private final Segment segment;
+        private final int offset;
+        private final int size;
+        private final int keyLength;
+
+        private Location(Segment segment, int offset, int size, int keyLength) {
+            this.segment = segment;
+            this.offset = offset;
+            this.size = size;
+            this.keyLength = keyLength;
+        }
+
+        private int valueOffset() {
+            return offset + HEADER_BYTES + PAYLOAD_HEADER_BYTES + keyLength;
+        }
+
+        private int valueLength() {
+            return size - HEADER_BYTES - PAYLOAD_HEADER_BYTES - keyLength;
+        }
+    }
+}
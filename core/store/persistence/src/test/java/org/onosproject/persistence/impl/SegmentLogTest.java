@@ -0,0 +1,166 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.persistence.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test suite for the segment log.
+ */
+public class SegmentLogTest {
+
+    private static final int SEGMENT_SIZE = 256;
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private Path directory;
+    private SegmentLog log;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = tmpFolder.newFolder().toPath().resolve("log");
+        log = SegmentLog.open(directory, SEGMENT_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        log.delete();
+    }
+
+    private static byte[] bytes(int value) {
+        return ByteBuffer.allocate(4).putInt(value).array();
+    }
+
+    private Set<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toSet());
+        }
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        assertNull(log.put(bytes(1), bytes(10)));
+        assertArrayEquals(bytes(10), log.put(bytes(1), bytes(11)));
+        assertArrayEquals(bytes(11), log.get(bytes(1)));
+        assertTrue(log.containsKey(bytes(1)));
+        assertEquals(1, log.size());
+
+        assertArrayEquals(bytes(11), log.remove(bytes(1)));
+        assertNull(log.remove(bytes(1)));
+        assertNull(log.get(bytes(1)));
+        assertTrue(log.isEmpty());
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        // Spans several segments
+        for (int i = 0; i < 100; i++) {
+            log.put(bytes(i), bytes(i));
+        }
+        for (int i = 0; i < 100; i += 2) {
+            log.remove(bytes(i));
+        }
+        log.put(bytes(1), bytes(-1));
+        log.flush();
+        assertTrue(segmentFiles().size() > 1);
+
+        SegmentLog reloaded = SegmentLog.open(directory, SEGMENT_SIZE);
+        assertEquals(50, reloaded.size());
+        assertArrayEquals(bytes(-1), reloaded.get(bytes(1)));
+        assertArrayEquals(bytes(99), reloaded.get(bytes(99)));
+        assertFalse(reloaded.containsKey(bytes(98)));
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 10; i++) {
+                log.put(bytes(i), bytes(round));
+            }
+        }
+        log.remove(bytes(0));
+        int before = segmentFiles().size();
+
+        log.compact();
+        assertTrue(segmentFiles().size() < before);
+        assertEquals(9, log.size());
+        for (int i = 1; i < 10; i++) {
+            assertArrayEquals(bytes(9), log.get(bytes(i)));
+        }
+
+        SegmentLog reloaded = SegmentLog.open(directory, SEGMENT_SIZE);
+        assertEquals(9, reloaded.size());
+        assertNull(reloaded.get(bytes(0)));
+        assertArrayEquals(bytes(9), reloaded.get(bytes(5)));
+    }
+
+    @Test
+    public void testTornRecord() throws Exception {
+        log.put(bytes(1), bytes(1));
+        log.put(bytes(2), bytes(2));
+        log.flush();
+
+        // Corrupt the value of the second record, 21 bytes past the first one
+        Path segment = segmentFiles().iterator().next();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xff}), 21 + 20);
+        }
+
+        SegmentLog reloaded = SegmentLog.open(directory, SEGMENT_SIZE);
+        assertEquals(1, reloaded.size());
+        assertArrayEquals(bytes(1), reloaded.get(bytes(1)));
+
+        // Appends resume where the valid records end
+        reloaded.put(bytes(3), bytes(3));
+        reloaded.flush();
+        SegmentLog again = SegmentLog.open(directory, SEGMENT_SIZE);
+        assertEquals(2, again.size());
+        assertArrayEquals(bytes(3), again.get(bytes(3)));
+    }
+
+    @Test
+    public void testSetView() {
+        Set<byte[]> set = log.asSet();
+        assertTrue(set.add(bytes(1)));
+        assertFalse(set.add(bytes(1)));
+        assertTrue(set.contains(bytes(1)));
+        assertEquals(1, set.size());
+        assertTrue(set.remove(bytes(1)));
+        assertFalse(set.remove(bytes(1)));
+        assertTrue(set.isEmpty());
+    }
+}
@@ -18,6 +18,7 @@ package org.onosproject.store.atomix.primitives.impl;
 import io.atomix.core.Atomix;
 import io.atomix.primitive.Recovery;
 import io.atomix.protocols.raft.MultiRaftProtocol;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.store.service.AsyncConsistentMap;
 import org.onosproject.store.service.ConsistentMap;
 import org.onosproject.store.service.ConsistentMapBuilder;
@@ -32,10 +33,16 @@ public class AtomixConsistentMapBuilder<K, V> extends ConsistentMapBuilder<K, V>
     private static final int MAX_RETRIES = 5;
     private final Atomix atomix;
     private final String group;
+    private final MetricsService metricsService;
 
     public AtomixConsistentMapBuilder(Atomix atomix, String group) {
+        this(atomix, group, null);
+    }
+
+    public AtomixConsistentMapBuilder(Atomix atomix, String group, MetricsService metricsService) {
         this.atomix = atomix;
         this.group = group;
+        this.metricsService = metricsService;
     }
 
     @Override
@@ -45,16 +52,22 @@ public class AtomixConsistentMapBuilder<K, V> extends ConsistentMapBuilder<K, V>
 
     @Override
     public AsyncConsistentMap<K, V> buildAsyncMap() {
-        return new AtomixConsistentMap<>(atomix.<K, V>atomicMapBuilder(name())
+        AsyncConsistentMap<K, V> map = new AtomixConsistentMap<>(atomix.<K, V>atomicMapBuilder(name())
             .withRegistrationRequired()
             .withProtocol(MultiRaftProtocol.builder(group)
                 .withRecoveryStrategy(Recovery.RECOVER)
                 .withMaxRetries(MAX_RETRIES)
                 .build())
             .withReadOnly(readOnly())
-            .withCacheEnabled(relaxedReadConsistency())
+            // the near cache replaces the unbounded Atomix cache
+            .withCacheEnabled(relaxedReadConsistency() && nearCacheSize() == 0)
             .withSerializer(new AtomixSerializerAdapter(serializer()))
             .build()
             .async());
+        if (nearCacheSize() > 0) {
+            map = new NearCachingAsyncConsistentMap<>(map, nearCacheSize(),
+                                                      meteringEnabled() ? metricsService : null);
+        }
+        return map;
     }
 }
\ No newline at end of file
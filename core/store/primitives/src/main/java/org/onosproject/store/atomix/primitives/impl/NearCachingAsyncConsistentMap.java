@@ -0,0 +1,400 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.atomix.primitives.impl;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.store.primitives.MapUpdate;
+import org.onosproject.store.primitives.TransactionId;
+import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
+import org.onosproject.store.service.MapEvent;
+import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.TransactionLog;
+import org.onosproject.store.service.Version;
+import org.onosproject.store.service.Versioned;
+
+/**
+ * Consistent map serving reads from a size-bounded local cache.
+ * <p>
+ * Cached entries are updated from the map events, which are applied only
+ * if they are newer than the cached version. Entries written through this
+ * map are dropped once the write completes, so the next read fetches the
+ * written value. Reads racing with an event or a write are not cached.
+ * <p>
+ * Events may be missed while the map is not active, so the cache is
+ * emptied and bypassed whenever the map leaves the active state.
+ */
+public class NearCachingAsyncConsistentMap<K, V> implements AsyncConsistentMap<K, V> {
+    private static final String COMPONENT = "NearCache";
+
+    private final AsyncConsistentMap<K, V> backingMap;
+    // absent keys are cached as empty optionals
+    private final Cache<K, Optional<Versioned<V>>> cache;
+    private final MapEventListener<K, V> cacheUpdater = this::update;
+    private final Consumer<Status> statusListener = this::statusChanged;
+    private final Counter hits;
+    private final Counter misses;
+    private final MetricsService metricsService;
+    private final MetricsComponent metricsComponent;
+    private final MetricsFeature metricsFeature;
+
+    // reads are only cached once the map events are being received, and
+    // while the map is active
+    private volatile boolean listening;
+    private volatile boolean active = true;
+
+    // guarded by this; bumped on every update of the cache so that reads
+    // racing with one do not cache what they read
+    private long updates;
+
+    public NearCachingAsyncConsistentMap(AsyncConsistentMap<K, V> backingMap, int maxSize,
+                                         MetricsService metricsService) {
+        this.backingMap = backingMap;
+        this.cache = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+        this.metricsService = metricsService;
+        if (metricsService != null) {
+            metricsComponent = metricsService.registerComponent(COMPONENT);
+            metricsFeature = metricsComponent.registerFeature(backingMap.name());
+            hits = metricsService.createCounter(metricsComponent, metricsFeature, "hits");
+            misses = metricsService.createCounter(metricsComponent, metricsFeature, "misses");
+            // replace the gauge of any earlier instance of the map
+            metricsService.removeMetric(metricsComponent, metricsFeature, "hitRatio");
+            metricsService.registerMetric(metricsComponent, metricsFeature, "hitRatio",
+                                          (Gauge<Double>) this::hitRatio);
+        } else {
+            metricsComponent = null;
+            metricsFeature = null;
+            hits = new Counter();
+            misses = new Counter();
+        }
+        backingMap.addStatusChangeListener(statusListener);
+        backingMap.addListener(cacheUpdater, MoreExecutors.directExecutor())
+                .thenRun(() -> listening = true);
+    }
+
+    /**
+     * Returns the share of the reads served from the cache.
+     *
+     * @return hit ratio between 0 and 1
+     */
+    double hitRatio() {
+        long hitCount = hits.getCount();
+        long total = hitCount + misses.getCount();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Applies a map event to the cached entry of its key, unless the entry
+     * is already newer than the event.
+     *
+     * @param event map event
+     */
+    private synchronized void update(MapEvent<K, V> event) {
+        updates++;
+        Optional<Versioned<V>> cached = cache.getIfPresent(event.key());
+        if (cached == null) {
+            return;
+        }
+        long cachedVersion = cached.map(Versioned::version).orElse(-1L);
+        if (event.newValue() != null) {
+            if (cachedVersion < event.newValue().version()) {
+                cache.put(event.key(), Optional.of(event.newValue()));
+            }
+        } else if (event.oldValue() == null || cachedVersion <= event.oldValue().version()) {
+            cache.invalidate(event.key());
+        }
+    }
+
+    /**
+     * Empties the cache when the map leaves or returns to the active state,
+     * as map events may have been missed in between.
+     *
+     * @param status new status of the map
+     */
+    private void statusChanged(Status status) {
+        if (status == Status.ACTIVE) {
+            invalidateAll();
+            active = true;
+        } else {
+            active = false;
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Drops the cached entry of the given key.
+     *
+     * @param key key
+     */
+    private synchronized void invalidate(K key) {
+        updates++;
+        cache.invalidate(key);
+    }
+
+    /**
+     * Drops all the cached entries.
+     */
+    private synchronized void invalidateAll() {
+        updates++;
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the cached entry of the given key, reading it from the backing
+     * map if it is not cached.
+     *
+     * @param key key
+     * @return future for the cached entry
+     */
+    private CompletableFuture<Optional<Versioned<V>>> lookup(K key) {
+        Optional<Versioned<V>> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            hits.inc();
+            return CompletableFuture.completedFuture(cached);
+        }
+        misses.inc();
+
+        boolean cacheable = listening && active;
+        long stamp;
+        synchronized (this) {
+            stamp = updates;
+        }
+        return backingMap.get(key).thenApply(value -> {
+            Optional<Versioned<V>> loaded = Optional.ofNullable(value);
+            synchronized (this) {
+                if (cacheable && stamp == updates) {
+                    cache.put(key, loaded);
+                }
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * Drops the cached entry of the given key once the given write completes.
+     *
+     * @param key   key
+     * @param write write of the key
+     * @param <T>   type of the write result
+     * @return future for the write result
+     */
+    private <T> CompletableFuture<T> invalidateOn(K key, CompletableFuture<T> write) {
+        return write.whenComplete((result, error) -> invalidate(key));
+    }
+
+    @Override
+    public String name() {
+        return backingMap.name();
+    }
+
+    @Override
+    public CompletableFuture<Integer> size() {
+        return backingMap.size();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> containsKey(K key) {
+        return lookup(key).thenApply(Optional::isPresent);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> containsValue(V value) {
+        return backingMap.containsValue(value);
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> get(K key) {
+        return lookup(key).thenApply(value -> value.orElse(null));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> getOrDefault(K key, V defaultValue) {
+        return lookup(key).thenApply(value -> value.orElseGet(() -> new Versioned<>(defaultValue, 0)));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> computeIf(
+        K key, Predicate<? super V> condition, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return invalidateOn(key, backingMap.computeIf(key, condition, remappingFunction));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> put(K key, V value) {
+        return invalidateOn(key, backingMap.put(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> putAndGet(K key, V value) {
+        return invalidateOn(key, backingMap.putAndGet(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> remove(K key) {
+        return invalidateOn(key, backingMap.remove(key));
+    }
+
+    @Override
+    public CompletableFuture<Void> clear() {
+        return backingMap.clear().whenComplete((result, error) -> invalidateAll());
+    }
+
+    @Override
+    public CompletableFuture<Set<K>> keySet() {
+        return backingMap.keySet();
+    }
+
+    @Override
+    public CompletableFuture<Collection<Versioned<V>>> values() {
+        return backingMap.values();
+    }
+
+    @Override
+    public CompletableFuture<Set<Map.Entry<K, Versioned<V>>>> entrySet() {
+        return backingMap.entrySet();
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> putIfAbsent(K key, V value) {
+        return invalidateOn(key, backingMap.putIfAbsent(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> remove(K key, V value) {
+        return invalidateOn(key, backingMap.remove(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> remove(K key, long version) {
+        return invalidateOn(key, backingMap.remove(key, version));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> replace(K key, V value) {
+        return invalidateOn(key, backingMap.replace(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> replace(K key, V oldValue, V newValue) {
+        return invalidateOn(key, backingMap.replace(key, oldValue, newValue));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> replace(K key, long oldVersion, V newValue) {
+        return invalidateOn(key, backingMap.replace(key, oldVersion, newValue));
+    }
+
+    @Override
+    public CompletableFuture<AsyncIterator<Map.Entry<K, Versioned<V>>>> iterator() {
+        return backingMap.iterator();
+    }
+
+    @Override
+    public CompletableFuture<Void> addListener(MapEventListener<K, V> listener, Executor executor) {
+        return backingMap.addListener(listener, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> removeListener(MapEventListener<K, V> listener) {
+        return backingMap.removeListener(listener);
+    }
+
+    @Override
+    public CompletableFuture<Version> begin(TransactionId transactionId) {
+        return backingMap.begin(transactionId);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> prepare(TransactionLog<MapUpdate<K, V>> transactionLog) {
+        return backingMap.prepare(transactionLog);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> prepareAndCommit(TransactionLog<MapUpdate<K, V>> transactionLog) {
+        return backingMap.prepareAndCommit(transactionLog)
+                .whenComplete((result, error) -> invalidateAll());
+    }
+
+    @Override
+    public CompletableFuture<Void> commit(TransactionId transactionId) {
+        return backingMap.commit(transactionId)
+                .whenComplete((result, error) -> invalidateAll());
+    }
+
+    @Override
+    public CompletableFuture<Void> rollback(TransactionId transactionId) {
+        return backingMap.rollback(transactionId);
+    }
+
+    @Override
+    public CompletableFuture<Void> destroy() {
+        return backingMap.destroy().thenCompose(v -> release());
+    }
+
+    /**
+     * Stops caching and unregisters the metrics of the map.
+     *
+     * @return future for the removal of the cache updater
+     */
+    private CompletableFuture<Void> release() {
+        listening = false;
+        backingMap.removeStatusChangeListener(statusListener);
+        invalidateAll();
+        if (metricsService != null) {
+            metricsService.removeMetric(metricsComponent, metricsFeature, "hits");
+            metricsService.removeMetric(metricsComponent, metricsFeature, "misses");
+            metricsService.removeMetric(metricsComponent, metricsFeature, "hitRatio");
+        }
+        return backingMap.removeListener(cacheUpdater);
+    }
+
+    @Override
+    public ApplicationId applicationId() {
+        return backingMap.applicationId();
+    }
+
+    @Override
+    public void addStatusChangeListener(Consumer<Status> listener) {
+        backingMap.addStatusChangeListener(listener);
+    }
+
+    @Override
+    public void removeStatusChangeListener(Consumer<Status> listener) {
+        backingMap.removeStatusChangeListener(listener);
+    }
+
+    @Override
+    public Collection<Consumer<Status>> statusChangeListeners() {
+        return backingMap.statusChangeListeners();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.atomix.primitives.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.store.service.AsyncConsistentMapAdapter;
+import org.onosproject.store.service.DistributedPrimitive;
+import org.onosproject.store.service.MapEvent;
+import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.Versioned;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for NearCachingAsyncConsistentMap.
+ */
+public class NearCachingAsyncConsistentMapTest {
+
+    private TestBackingMap backingMap;
+    private NearCachingAsyncConsistentMap<String, String> map;
+
+    @Before
+    public void setUp() {
+        backingMap = new TestBackingMap();
+        backingMap.store("a", "1");
+        backingMap.store("b", "2");
+        map = new NearCachingAsyncConsistentMap<>(backingMap, 2, null);
+    }
+
+    private String get(String key) {
+        return Versioned.valueOrNull(map.get(key).join());
+    }
+
+    @Test
+    public void testReadsAreCached() {
+        assertEquals("1", get("a"));
+        assertEquals("1", get("a"));
+        assertNull(get("c"));
+        assertNull(get("c"));
+
+        assertEquals(2, backingMap.reads);
+        assertEquals(0.5, map.hitRatio(), 0);
+    }
+
+    @Test
+    public void testReadsOwnWrites() {
+        assertEquals("1", get("a"));
+        map.put("a", "10").join();
+        assertEquals("10", get("a"));
+
+        assertNull(get("c"));
+        map.put("c", "3").join();
+        assertEquals("3", get("c"));
+    }
+
+    @Test
+    public void testEventsUpdateNewerVersions() {
+        Versioned<String> cached = map.get("a").join();
+
+        // an update made elsewhere replaces the cached value
+        Versioned<String> updated = backingMap.store("a", "11");
+        backingMap.fire(new MapEvent<>(MapEvent.Type.UPDATE, "test", "a", updated, cached));
+        assertEquals("11", get("a"));
+
+        // a late event for an older version is ignored
+        backingMap.fire(new MapEvent<>(MapEvent.Type.UPDATE, "test", "a", cached, null));
+        assertEquals("11", get("a"));
+        assertEquals(1, backingMap.reads);
+
+        backingMap.data.remove("a");
+        backingMap.fire(new MapEvent<>(MapEvent.Type.REMOVE, "test", "a", null, updated));
+        assertNull(get("a"));
+        assertEquals(2, backingMap.reads);
+    }
+
+    @Test
+    public void testGetOrDefaultIsCached() {
+        assertEquals("1", map.getOrDefault("a", "0").join().value());
+        assertEquals("0", map.getOrDefault("c", "0").join().value());
+        assertEquals("1", get("a"));
+        assertNull(get("c"));
+
+        assertEquals(2, backingMap.reads);
+        assertEquals(0.5, map.hitRatio(), 0);
+    }
+
+    @Test
+    public void testCacheIsBypassedWhileInactive() {
+        get("a");
+        backingMap.statusListener.accept(DistributedPrimitive.Status.SUSPENDED);
+
+        // events missed while suspended must not leave stale entries behind
+        backingMap.store("a", "12");
+        assertEquals("12", get("a"));
+        assertEquals("12", get("a"));
+        assertEquals(3, backingMap.reads);
+
+        backingMap.statusListener.accept(DistributedPrimitive.Status.ACTIVE);
+        get("a");
+        get("a");
+        assertEquals(4, backingMap.reads);
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        get("a");
+        get("b");
+        get("c");
+        get("a");
+
+        assertEquals(4, backingMap.reads);
+    }
+
+    private static class TestBackingMap extends AsyncConsistentMapAdapter<String, String> {
+        private final Map<String, Versioned<String>> data = new HashMap<>();
+        private MapEventListener<String, String> listener;
+        private Consumer<DistributedPrimitive.Status> statusListener;
+        private long version;
+        private int reads;
+
+        Versioned<String> store(String key, String value) {
+            Versioned<String> versioned = new Versioned<>(value, ++version);
+            data.put(key, versioned);
+            return versioned;
+        }
+
+        void fire(MapEvent<String, String> event) {
+            listener.event(event);
+        }
+
+        @Override
+        public String name() {
+            return "test";
+        }
+
+        @Override
+        public CompletableFuture<Versioned<String>> get(String key) {
+            reads++;
+            return CompletableFuture.completedFuture(data.get(key));
+        }
+
+        @Override
+        public CompletableFuture<Versioned<String>> put(String key, String value) {
+            Versioned<String> previous = data.get(key);
+            store(key, value);
+            return CompletableFuture.completedFuture(previous);
+        }
+
+        @Override
+        public void addStatusChangeListener(Consumer<Status> listener) {
+            this.statusListener = listener;
+        }
+
+        @Override
+        public CompletableFuture<Void> addListener(MapEventListener<String, String> listener, Executor executor) {
+            this.listener = listener;
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> removeListener(MapEventListener<String, String> listener) {
+            this.listener = null;
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
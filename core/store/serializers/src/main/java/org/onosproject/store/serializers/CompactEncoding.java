@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.ObjectMap;
+
+/**
+ * Switch for the compact encodings of API types whose registrations predate
+ * them.
+ * <p>
+ * Such types keep their type IDs, and their serializers read both the
+ * compact encoding and the encoding of the default serializer, which earlier
+ * releases wrote. The compact encoding is only written once enabled, which
+ * must not happen while nodes of an earlier release may read the data, e.g.
+ * during an upgrade.
+ * <p>
+ * The compact encoding starts with a zero byte, which the default serializer
+ * never writes for these types: their first field is never null, so it
+ * always starts with a registered type ID.
+ */
+public final class CompactEncoding {
+
+    private static final byte COMPACT = 0;
+
+    private static volatile boolean enabled;
+
+    // not to be instantiated
+    private CompactEncoding() {
+    }
+
+    /**
+     * Returns whether the compact encodings are written.
+     *
+     * @return true if the compact encodings are written
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether the compact encodings are written.
+     *
+     * @param enabled true to write the compact encodings; false to write the
+     *                encodings of earlier releases
+     */
+    public static void setEnabled(boolean enabled) {
+        CompactEncoding.enabled = enabled;
+    }
+
+    /**
+     * Writes the header of the encoding of an object, returning whether the
+     * compact encoding follows.
+     * <p>
+     * The object is written by the default serializer of its type if the
+     * compact encoding is disabled.
+     *
+     * @param serializer serializer with the compact encoding
+     * @param kryo       Kryo instance
+     * @param output     output to write to
+     * @param object     object being written
+     * @param <T>        type of the object
+     * @return true if the caller must write the compact encoding
+     */
+    static <T> boolean writeHeader(Serializer<T> serializer, Kryo kryo, Output output, T object) {
+        if (!enabled) {
+            defaultSerializer(serializer, kryo, object.getClass()).write(kryo, output, object);
+            return false;
+        }
+        output.writeByte(COMPACT);
+        return true;
+    }
+
+    /**
+     * Reads the header of the encoding of an object, reading the object with
+     * the default serializer of its type unless it was written in the compact
+     * encoding.
+     *
+     * @param serializer serializer with the compact encoding
+     * @param kryo       Kryo instance
+     * @param input      input to read from
+     * @param type       type of the object
+     * @param <T>        type of the object
+     * @return the object, or null if the caller must read the compact encoding
+     */
+    static <T> T readHeader(Serializer<T> serializer, Kryo kryo, Input input, Class<T> type) {
+        if (input.readByte() == COMPACT) {
+            return null;
+        }
+        input.setPosition(input.position() - 1);
+        return defaultSerializer(serializer, kryo, type).read(kryo, input, type);
+    }
+
+    // The default serializer is bound to a Kryo instance, so one is kept in the context of each
+    @SuppressWarnings("unchecked")
+    private static <T> Serializer<T> defaultSerializer(Serializer<T> serializer, Kryo kryo, Class<?> type) {
+        ObjectMap<Object, Object> context = kryo.getContext();
+        Serializer<T> defaultSerializer = (Serializer<T>) context.get(serializer);
+        if (defaultSerializer == null) {
+            defaultSerializer = kryo.getDefaultSerializer(type);
+            context.put(serializer, defaultSerializer);
+        }
+        return defaultSerializer;
+    }
+}
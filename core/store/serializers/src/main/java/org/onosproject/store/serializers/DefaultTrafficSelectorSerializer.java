@@ -0,0 +1,249 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.onlab.packet.IpPrefix;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.TpPort;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.criteria.Criteria;
+import org.onosproject.net.flow.criteria.Criterion;
+import org.onosproject.net.flow.criteria.EthCriterion;
+import org.onosproject.net.flow.criteria.EthTypeCriterion;
+import org.onosproject.net.flow.criteria.IPCriterion;
+import org.onosproject.net.flow.criteria.IPProtocolCriterion;
+import org.onosproject.net.flow.criteria.MetadataCriterion;
+import org.onosproject.net.flow.criteria.PortCriterion;
+import org.onosproject.net.flow.criteria.TcpPortCriterion;
+import org.onosproject.net.flow.criteria.UdpPortCriterion;
+import org.onosproject.net.flow.criteria.VlanIdCriterion;
+
+/**
+ * Kryo Serializer for {@link DefaultTrafficSelector}.
+ * <p>
+ * Selectors are written in the compact encoding below only when
+ * {@link CompactEncoding} is enabled. Each criterion is preceded by a tag. The criteria most commonly found in
+ * flow rules are written as their bare values; all others, including masked
+ * matches, are written with their class. Tags are part of the wire format,
+ * so existing ones must never be changed or reused.
+ */
+public final class DefaultTrafficSelectorSerializer extends Serializer<DefaultTrafficSelector> {
+
+    private static final int GENERIC = 0;
+    private static final int IN_PORT = 1;
+    private static final int IN_PHY_PORT = 2;
+    private static final int METADATA = 3;
+    private static final int ETH_DST = 4;
+    private static final int ETH_SRC = 5;
+    private static final int ETH_TYPE = 6;
+    private static final int VLAN_VID = 7;
+    private static final int INNER_VLAN_VID = 8;
+    private static final int IP_PROTO = 9;
+    private static final int IPV4_SRC = 10;
+    private static final int IPV4_DST = 11;
+    private static final int IPV6_SRC = 12;
+    private static final int IPV6_DST = 13;
+    private static final int TCP_SRC = 14;
+    private static final int TCP_DST = 15;
+    private static final int UDP_SRC = 16;
+    private static final int UDP_DST = 17;
+
+    /**
+     * Creates {@link DefaultTrafficSelector} serializer instance.
+     */
+    public DefaultTrafficSelectorSerializer() {
+        // non-null, immutable
+        super(false, true);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, DefaultTrafficSelector object) {
+        if (!CompactEncoding.writeHeader(this, kryo, output, object)) {
+            return;
+        }
+        output.writeVarInt(object.criteria().size(), true);
+        for (Criterion criterion : object.criteria()) {
+            writeCriterion(kryo, output, criterion);
+        }
+    }
+
+    @Override
+    public DefaultTrafficSelector read(Kryo kryo, Input input, Class<DefaultTrafficSelector> type) {
+        DefaultTrafficSelector selector = CompactEncoding.readHeader(this, kryo, input, type);
+        if (selector != null) {
+            return selector;
+        }
+        TrafficSelector.Builder builder = DefaultTrafficSelector.builder();
+        int size = input.readVarInt(true);
+        for (int i = 0; i < size; i++) {
+            builder.add(readCriterion(kryo, input));
+        }
+        return (DefaultTrafficSelector) builder.build();
+    }
+
+    private static void writeCriterion(Kryo kryo, Output output, Criterion criterion) {
+        int tag = tagOf(criterion);
+        output.writeVarInt(tag, true);
+        switch (tag) {
+            case IN_PORT:
+            case IN_PHY_PORT:
+                PortNumberSerializer.writeCompact(output, ((PortCriterion) criterion).port());
+                break;
+            case METADATA:
+                output.writeLong(((MetadataCriterion) criterion).metadata());
+                break;
+            case ETH_DST:
+            case ETH_SRC:
+                output.writeBytes(((EthCriterion) criterion).mac().toBytes());
+                break;
+            case ETH_TYPE:
+                output.writeShort(((EthTypeCriterion) criterion).ethType().toShort());
+                break;
+            case VLAN_VID:
+            case INNER_VLAN_VID:
+                output.writeShort(((VlanIdCriterion) criterion).vlanId().toShort());
+                break;
+            case IP_PROTO:
+                output.writeVarInt(((IPProtocolCriterion) criterion).protocol(), true);
+                break;
+            case IPV4_SRC:
+            case IPV4_DST:
+            case IPV6_SRC:
+            case IPV6_DST:
+                kryo.writeClassAndObject(output, ((IPCriterion) criterion).ip());
+                break;
+            case TCP_SRC:
+            case TCP_DST:
+                output.writeVarInt(((TcpPortCriterion) criterion).tcpPort().toInt(), true);
+                break;
+            case UDP_SRC:
+            case UDP_DST:
+                output.writeVarInt(((UdpPortCriterion) criterion).udpPort().toInt(), true);
+                break;
+            default:
+                kryo.writeClassAndObject(output, criterion);
+                break;
+        }
+    }
+
+    private static Criterion readCriterion(Kryo kryo, Input input) {
+        int tag = input.readVarInt(true);
+        switch (tag) {
+            case GENERIC:
+                return (Criterion) kryo.readClassAndObject(input);
+            case IN_PORT:
+                return Criteria.matchInPort(PortNumberSerializer.readCompact(input));
+            case IN_PHY_PORT:
+                return Criteria.matchInPhyPort(PortNumberSerializer.readCompact(input));
+            case METADATA:
+                return Criteria.matchMetadata(input.readLong());
+            case ETH_DST:
+                return Criteria.matchEthDst(MacAddress.valueOf(input.readBytes(MacAddress.MAC_ADDRESS_LENGTH)));
+            case ETH_SRC:
+                return Criteria.matchEthSrc(MacAddress.valueOf(input.readBytes(MacAddress.MAC_ADDRESS_LENGTH)));
+            case ETH_TYPE:
+                return Criteria.matchEthType(input.readShort() & 0xffff);
+            case VLAN_VID:
+                return Criteria.matchVlanId(VlanId.vlanId(input.readShort()));
+            case INNER_VLAN_VID:
+                return Criteria.matchInnerVlanId(VlanId.vlanId(input.readShort()));
+            case IP_PROTO:
+                return Criteria.matchIPProtocol((short) input.readVarInt(true));
+            case IPV4_SRC:
+                return Criteria.matchIPSrc((IpPrefix) kryo.readClassAndObject(input));
+            case IPV4_DST:
+                return Criteria.matchIPDst((IpPrefix) kryo.readClassAndObject(input));
+            case IPV6_SRC:
+                return Criteria.matchIPv6Src((IpPrefix) kryo.readClassAndObject(input));
+            case IPV6_DST:
+                return Criteria.matchIPv6Dst((IpPrefix) kryo.readClassAndObject(input));
+            case TCP_SRC:
+                return Criteria.matchTcpSrc(TpPort.tpPort(input.readVarInt(true)));
+            case TCP_DST:
+                return Criteria.matchTcpDst(TpPort.tpPort(input.readVarInt(true)));
+            case UDP_SRC:
+                return Criteria.matchUdpSrc(TpPort.tpPort(input.readVarInt(true)));
+            case UDP_DST:
+                return Criteria.matchUdpDst(TpPort.tpPort(input.readVarInt(true)));
+            default:
+                throw new IllegalStateException("Unexpected criterion tag: " + tag);
+        }
+    }
+
+    // Returns the tag of the criterion if it is exactly what the Criteria
+    // factory method for its type would create, GENERIC otherwise
+    private static int tagOf(Criterion criterion) {
+        switch (criterion.type()) {
+            case IN_PORT:
+                return criterion.getClass() == PortCriterion.class ? IN_PORT : GENERIC;
+            case IN_PHY_PORT:
+                return criterion.getClass() == PortCriterion.class ? IN_PHY_PORT : GENERIC;
+            case METADATA:
+                return criterion.getClass() == MetadataCriterion.class ? METADATA : GENERIC;
+            case ETH_DST:
+                return isUnmaskedEth(criterion) ? ETH_DST : GENERIC;
+            case ETH_SRC:
+                return isUnmaskedEth(criterion) ? ETH_SRC : GENERIC;
+            case ETH_TYPE:
+                return criterion.getClass() == EthTypeCriterion.class ? ETH_TYPE : GENERIC;
+            case VLAN_VID:
+                return criterion.getClass() == VlanIdCriterion.class ? VLAN_VID : GENERIC;
+            case INNER_VLAN_VID:
+                return criterion.getClass() == VlanIdCriterion.class ? INNER_VLAN_VID : GENERIC;
+            case IP_PROTO:
+                return criterion.getClass() == IPProtocolCriterion.class ? IP_PROTO : GENERIC;
+            case IPV4_SRC:
+                return criterion.getClass() == IPCriterion.class ? IPV4_SRC : GENERIC;
+            case IPV4_DST:
+                return criterion.getClass() == IPCriterion.class ? IPV4_DST : GENERIC;
+            case IPV6_SRC:
+                return criterion.getClass() == IPCriterion.class ? IPV6_SRC : GENERIC;
+            case IPV6_DST:
+                return criterion.getClass() == IPCriterion.class ? IPV6_DST : GENERIC;
+            case TCP_SRC:
+                return isUnmaskedTcp(criterion) ? TCP_SRC : GENERIC;
+            case TCP_DST:
+                return isUnmaskedTcp(criterion) ? TCP_DST : GENERIC;
+            case UDP_SRC:
+                return isUnmaskedUdp(criterion) ? UDP_SRC : GENERIC;
+            case UDP_DST:
+                return isUnmaskedUdp(criterion) ? UDP_DST : GENERIC;
+            default:
+                return GENERIC;
+        }
+    }
+
+    private static boolean isUnmaskedEth(Criterion criterion) {
+        return criterion.getClass() == EthCriterion.class
+                && ((EthCriterion) criterion).mask() == null;
+    }
+
+    private static boolean isUnmaskedTcp(Criterion criterion) {
+        return criterion.getClass() == TcpPortCriterion.class
+                && ((TcpPortCriterion) criterion).mask() == null;
+    }
+
+    private static boolean isUnmaskedUdp(Criterion criterion) {
+        return criterion.getClass() == UdpPortCriterion.class
+                && ((UdpPortCriterion) criterion).mask() == null;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.TrafficTreatment;
+import org.onosproject.net.flow.instructions.Instruction;
+import org.onosproject.net.flow.instructions.Instructions;
+import org.onosproject.net.flow.instructions.Instructions.OutputInstruction;
+import org.onosproject.net.flow.instructions.L2ModificationInstruction.L2SubType;
+import org.onosproject.net.flow.instructions.L2ModificationInstruction.ModEtherInstruction;
+import org.onosproject.net.flow.instructions.L2ModificationInstruction.ModVlanIdInstruction;
+
+import java.util.List;
+
+/**
+ * Kryo Serializer for {@link DefaultTrafficTreatment}.
+ * <p>
+ * Treatments are written in the compact encoding below only when
+ * {@link CompactEncoding} is enabled. Only the deferred and immediate instructions are written, not their
+ * concatenation. Output, MAC and VLAN ID rewrite instructions are written
+ * as their bare values; all others are written with their class.
+ */
+public final class DefaultTrafficTreatmentSerializer extends Serializer<DefaultTrafficTreatment> {
+
+    private static final int GENERIC = 0;
+    private static final int OUTPUT = 1;
+    private static final int ETH_SRC = 2;
+    private static final int ETH_DST = 3;
+    private static final int VLAN_ID = 4;
+
+    /**
+     * Creates {@link DefaultTrafficTreatment} serializer instance.
+     */
+    public DefaultTrafficTreatmentSerializer() {
+        // non-null, immutable
+        super(false, true);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, DefaultTrafficTreatment object) {
+        if (!CompactEncoding.writeHeader(this, kryo, output, object)) {
+            return;
+        }
+        writeInstructions(kryo, output, object.deferred());
+        writeInstructions(kryo, output, object.immediate());
+        kryo.writeClassAndObject(output, object.tableTransition());
+        output.writeBoolean(object.clearedDeferred());
+        kryo.writeClassAndObject(output, object.writeMetadata());
+        output.writeVarInt(object.meters().size(), true);
+        for (Instructions.MeterInstruction meter : object.meters()) {
+            kryo.writeClassAndObject(output, meter);
+        }
+        kryo.writeClassAndObject(output, object.statTrigger());
+    }
+
+    @Override
+    public DefaultTrafficTreatment read(Kryo kryo, Input input, Class<DefaultTrafficTreatment> type) {
+        DefaultTrafficTreatment treatment = CompactEncoding.readHeader(this, kryo, input, type);
+        if (treatment != null) {
+            return treatment;
+        }
+        TrafficTreatment.Builder builder = DefaultTrafficTreatment.builder();
+        builder.deferred();
+        readInstructions(kryo, input, builder);
+        builder.immediate();
+        readInstructions(kryo, input, builder);
+        addIfPresent(builder, (Instruction) kryo.readClassAndObject(input));
+        if (input.readBoolean()) {
+            builder.wipeDeferred();
+        }
+        addIfPresent(builder, (Instruction) kryo.readClassAndObject(input));
+        int meters = input.readVarInt(true);
+        for (int i = 0; i < meters; i++) {
+            builder.add((Instruction) kryo.readClassAndObject(input));
+        }
+        addIfPresent(builder, (Instruction) kryo.readClassAndObject(input));
+        return (DefaultTrafficTreatment) builder.build();
+    }
+
+    private static void addIfPresent(TrafficTreatment.Builder builder, Instruction instruction) {
+        if (instruction != null) {
+            builder.add(instruction);
+        }
+    }
+
+    private static void writeInstructions(Kryo kryo, Output output, List<Instruction> instructions) {
+        output.writeVarInt(instructions.size(), true);
+        for (Instruction instruction : instructions) {
+            int tag = tagOf(instruction);
+            output.writeVarInt(tag, true);
+            switch (tag) {
+                case OUTPUT:
+                    PortNumberSerializer.writeCompact(output, ((OutputInstruction) instruction).port());
+                    break;
+                case ETH_SRC:
+                case ETH_DST:
+                    output.writeBytes(((ModEtherInstruction) instruction).mac().toBytes());
+                    break;
+                case VLAN_ID:
+                    output.writeShort(((ModVlanIdInstruction) instruction).vlanId().toShort());
+                    break;
+                default:
+                    kryo.writeClassAndObject(output, instruction);
+                    break;
+            }
+        }
+    }
+
+    private static int tagOf(Instruction instruction) {
+        if (instruction.getClass() == OutputInstruction.class) {
+            return OUTPUT;
+        } else if (instruction.getClass() == ModVlanIdInstruction.class) {
+            return VLAN_ID;
+        } else if (instruction.getClass() == ModEtherInstruction.class) {
+            L2SubType subtype = ((ModEtherInstruction) instruction).subtype();
+            if (subtype == L2SubType.ETH_SRC) {
+                return ETH_SRC;
+            } else if (subtype == L2SubType.ETH_DST) {
+                return ETH_DST;
+            }
+        }
+        return GENERIC;
+    }
+
+    private static void readInstructions(Kryo kryo, Input input, TrafficTreatment.Builder builder) {
+        int size = input.readVarInt(true);
+        for (int i = 0; i < size; i++) {
+            int tag = input.readVarInt(true);
+            switch (tag) {
+                case GENERIC:
+                    builder.add((Instruction) kryo.readClassAndObject(input));
+                    break;
+                case OUTPUT:
+                    builder.add(Instructions.createOutput(PortNumberSerializer.readCompact(input)));
+                    break;
+                case ETH_SRC:
+                    builder.add(Instructions.modL2Src(
+                            MacAddress.valueOf(input.readBytes(MacAddress.MAC_ADDRESS_LENGTH))));
+                    break;
+                case ETH_DST:
+                    builder.add(Instructions.modL2Dst(
+                            MacAddress.valueOf(input.readBytes(MacAddress.MAC_ADDRESS_LENGTH))));
+                    break;
+                case VLAN_ID:
+                    builder.add(Instructions.modVlanId(VlanId.vlanId(input.readShort())));
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected instruction tag: " + tag);
+            }
+        }
+    }
+}
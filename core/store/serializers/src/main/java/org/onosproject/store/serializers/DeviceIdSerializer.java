@@ -21,6 +21,9 @@ import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 
 /**
 * Kryo Serializer for {@link DeviceId}.
@@ -29,6 +32,13 @@ public final class DeviceIdSerializer extends Serializer<DeviceId> {
 
     private static final DeviceIdSerializer INSTANCE = new DeviceIdSerializer();
 
+    private static final int MAX_CACHED_IDS = 4096;
+
+    // Identifiers read back are shared rather than re-parsed each time
+    private static final LoadingCache<String, DeviceId> DEVICE_IDS = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_IDS)
+            .build(CacheLoader.from(DeviceId::deviceId));
+
     public static final DeviceIdSerializer deviceIdSerializer() {
         return INSTANCE;
     }
@@ -49,6 +59,6 @@ public final class DeviceIdSerializer extends Serializer<DeviceId> {
     @Override
     public DeviceId read(Kryo kryo, Input input, Class<DeviceId> type) {
         final String str = input.readString();
-        return DeviceId.deviceId(str);
+        return DEVICE_IDS.getUnchecked(str);
     }
 }
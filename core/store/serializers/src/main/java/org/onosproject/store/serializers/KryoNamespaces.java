@@ -481,8 +481,10 @@ public final class KryoNamespaces {
                     PacketPriority.class,
                     FlowEntry.FlowEntryState.class,
                     FlowEntry.FlowLiveType.class,
-                    FlowId.class,
-                    DefaultTrafficSelector.class,
+                    FlowId.class)
+            // Reads earlier encodings too; see CompactEncoding
+            .register(new DefaultTrafficSelectorSerializer(), DefaultTrafficSelector.class)
+            .register(
                     PortCriterion.class,
                     MetadataCriterion.class,
                     EthCriterion.class,
@@ -518,8 +520,9 @@ public final class KryoNamespaces {
                     ArpHaCriterion.class,
                     ArpPaCriterion.class,
                     Criterion.class,
-                    Criterion.Type.class,
-                    DefaultTrafficTreatment.class,
+                    Criterion.Type.class)
+            .register(new DefaultTrafficTreatmentSerializer(), DefaultTrafficTreatment.class)
+            .register(
                     Instructions.NoActionInstruction.class,
                     Instructions.OutputInstruction.class,
                     Instructions.GroupInstruction.class,
@@ -24,9 +24,24 @@ import com.esotericsoftware.kryo.io.Output;
 
 /**
  * Serializer for {@link PortNumber}.
+ * <p>
+ * Also provides a compact encoding for serializers which embed port numbers
+ * in their own formats. The encoding registered for the class itself must
+ * stay as it is, since it is used for fields of type PortNumber without any
+ * type ID to tell encodings apart.
  */
 public final class PortNumberSerializer extends Serializer<PortNumber> {
 
+    // Unnamed port numbers below this are shared rather than re-created
+    private static final int CACHED_PORTS = 256;
+    private static final PortNumber[] PORTS = new PortNumber[CACHED_PORTS];
+
+    static {
+        for (int i = 0; i < CACHED_PORTS; i++) {
+            PORTS[i] = PortNumber.portNumber(i);
+        }
+    }
+
     /**
      * Creates {@link PortNumber} serializer instance.
      */
@@ -52,4 +67,36 @@ public final class PortNumberSerializer extends Serializer<PortNumber> {
             return PortNumber.portNumber(input.readLong());
         }
     }
+
+    /**
+     * Writes a port number as a variable length integer, so that physical
+     * and logical ports alike usually take a single byte.
+     *
+     * @param output output to write to
+     * @param port   port number
+     */
+    static void writeCompact(Output output, PortNumber port) {
+        output.writeBoolean(port.hasName());
+        output.writeVarLong(port.toLong(), false);
+        if (port.hasName()) {
+            output.writeString(port.name());
+        }
+    }
+
+    /**
+     * Reads a port number written by {@link #writeCompact(Output, PortNumber)}.
+     *
+     * @param input input to read from
+     * @return port number
+     */
+    static PortNumber readCompact(Input input) {
+        if (input.readBoolean()) {
+            return PortNumber.portNumber(input.readVarLong(false), input.readString());
+        }
+        long number = input.readVarLong(false);
+        if (number >= 0 && number < CACHED_PORTS) {
+            return PORTS[(int) number];
+        }
+        return PortNumber.portNumber(number);
+    }
 }
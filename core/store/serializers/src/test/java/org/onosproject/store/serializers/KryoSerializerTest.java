@@ -15,6 +15,9 @@
  */
 package org.onosproject.store.serializers;
 
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -50,12 +53,17 @@ import org.onosproject.net.MarkerResource;
 import org.onosproject.net.PortNumber;
 import org.onosproject.net.SparseAnnotations;
 import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultFlowEntry;
 import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
 import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.FlowEntry;
 import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.TrafficTreatment;
 import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry;
 import org.onosproject.net.intent.IntentId;
+import org.onosproject.net.meter.MeterId;
 import org.onosproject.net.resource.ResourceAllocation;
 import org.onosproject.net.resource.ResourceConsumerId;
 import org.onosproject.net.resource.Resources;
@@ -74,11 +82,17 @@ import org.onlab.packet.IpPrefix;
 import org.onlab.packet.Ip4Prefix;
 import org.onlab.packet.Ip6Prefix;
 import org.onlab.packet.MacAddress;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.EthType;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.MplsLabel;
+import org.onlab.packet.TpPort;
 
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
+import java.util.List;
 import java.time.Duration;
 
 import static java.util.Arrays.asList;
@@ -113,6 +127,56 @@ public class KryoSerializerTest {
             .build();
     private static final VlanId VLAN1 = VlanId.vlanId((short) 100);
 
+    private static final TrafficSelector SELECTOR = DefaultTrafficSelector.builder()
+            .matchInPort(P1)
+            .matchEthSrc(MacAddress.valueOf("00:00:00:00:00:01"))
+            .matchEthDst(MacAddress.valueOf("00:00:00:00:00:02"))
+            .matchEthType(Ethernet.TYPE_IPV4)
+            .matchVlanId(VLAN1)
+            .matchInnerVlanId(VlanId.vlanId((short) 200))
+            .matchIPProtocol(IPv4.PROTOCOL_TCP)
+            .matchIPSrc(IpPrefix.valueOf("10.0.0.1/32"))
+            .matchIPDst(IpPrefix.valueOf("10.0.0.0/8"))
+            .matchTcpSrc(TpPort.tpPort(1234))
+            .matchTcpDst(TpPort.tpPort(80))
+            .matchMetadata(-1L)
+            .build();
+
+    private static final TrafficSelector GENERIC_SELECTOR = DefaultTrafficSelector.builder()
+            .matchInPhyPort(PortNumber.LOCAL)
+            .matchEthDstMasked(MacAddress.valueOf("01:00:00:00:00:00"),
+                               MacAddress.valueOf("01:00:00:00:00:00"))
+            .matchEthType(Ethernet.TYPE_IPV6)
+            .matchIPProtocol(IPv4.PROTOCOL_UDP)
+            .matchIPv6Src(IpPrefix.valueOf("1111:2222::/64"))
+            .matchIPv6Dst(IpPrefix.valueOf("1111:3333::1/128"))
+            .matchUdpSrcMasked(TpPort.tpPort(1024), TpPort.tpPort(0xfc00))
+            .matchUdpDst(TpPort.tpPort(53))
+            .matchMplsLabel(MplsLabel.mplsLabel(100))
+            .build();
+
+    private static final TrafficTreatment TREATMENT = DefaultTrafficTreatment.builder()
+            .setEthSrc(MacAddress.valueOf("00:00:00:00:00:01"))
+            .setEthDst(MacAddress.valueOf("00:00:00:00:00:02"))
+            .setVlanId(VLAN1)
+            .popMpls(EthType.EtherType.IPV4.ethType())
+            .setOutput(P2)
+            .build();
+
+    private static final TrafficTreatment GENERIC_TREATMENT = DefaultTrafficTreatment.builder()
+            .deferred()
+            .setOutput(PortNumber.CONTROLLER)
+            .immediate()
+            .setQueue(3)
+            .wipeDeferred()
+            .meter(MeterId.meterId(5))
+            .transition(2)
+            .build();
+
+    private static final List<Object> SELECTORS_AND_TREATMENTS = ImmutableList.of(
+            DefaultTrafficSelector.emptySelector(), SELECTOR, GENERIC_SELECTOR,
+            DefaultTrafficTreatment.emptyTreatment(), TREATMENT, GENERIC_TREATMENT);
+
     private StoreSerializer serializer;
 
     @BeforeClass
@@ -126,6 +190,7 @@ public class KryoSerializerTest {
 
     @After
     public void tearDown() throws Exception {
+        CompactEncoding.setEnabled(false);
     }
 
     private byte[] serialize(Object object) {
@@ -355,6 +420,85 @@ public class KryoSerializerTest {
     @Test
     public void testPortNumber() {
         testSerializedEquals(P1);
+        testSerializedEquals(portNumber(4096));
+        testSerializedEquals(portNumber(0xffffffffL));
+        testSerializedEquals(portNumber(7, "eth7"));
+        testSerializedEquals(PortNumber.CONTROLLER);
+        testSerializedEquals(PortNumber.ANY);
+    }
+
+    @Test
+    public void testDefaultTrafficSelectorAndTreatment() {
+        for (Object object : SELECTORS_AND_TREATMENTS) {
+            testSerializedEquals(object);
+        }
+        CompactEncoding.setEnabled(true);
+        for (Object object : SELECTORS_AND_TREATMENTS) {
+            testSerializedEquals(object);
+        }
+    }
+
+    @Test
+    public void testLegacyEncodingReadWithCompactEncoding() {
+        Kryo legacy = legacyKryo();
+        for (Object object : SELECTORS_AND_TREATMENTS) {
+            assertEquals(object, serializer.decode(legacyEncode(legacy, object)));
+        }
+        CompactEncoding.setEnabled(true);
+        for (Object object : SELECTORS_AND_TREATMENTS) {
+            byte[] legacyBytes = legacyEncode(legacy, object);
+            assertEquals(object, serializer.decode(legacyBytes));
+            assertTrue(serializer.encode(object).length < legacyBytes.length);
+        }
+    }
+
+    @Test
+    public void testEncodingReadByLegacy() {
+        Kryo legacy = legacyKryo();
+        for (Object object : SELECTORS_AND_TREATMENTS) {
+            byte[] bytes = serializer.encode(object);
+            assertArrayEquals(legacyEncode(legacy, object), bytes);
+            assertEquals(object, legacy.readClassAndObject(new Input(bytes)));
+        }
+    }
+
+    // The API namespace as released before the compact encodings, which
+    // wrote selectors and treatments with the default serializer
+    private Kryo legacyKryo() {
+        Kryo kryo = KryoNamespaces.API.create();
+        for (Class<?> type : ImmutableList.of(DefaultTrafficSelector.class, DefaultTrafficTreatment.class)) {
+            kryo.register(type, kryo.getDefaultSerializer(type), kryo.getRegistration(type).getId());
+        }
+        return kryo;
+    }
+
+    private byte[] legacyEncode(Kryo kryo, Object object) {
+        Output output = new Output(1024);
+        kryo.writeClassAndObject(output, object);
+        return output.toBytes();
+    }
+
+    @Test
+    public void testDefaultFlowEntry() {
+        FlowRule rule = DefaultFlowRule.builder()
+                .forDevice(DID1)
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchInPort(P1)
+                                      .matchEthDst(MacAddress.valueOf("00:00:00:00:00:02"))
+                                      .build())
+                .withTreatment(DefaultTrafficTreatment.builder().setOutput(P2).build())
+                .withPriority(40000)
+                .fromApp(new DefaultApplicationId(1, "1"))
+                .makePermanent()
+                .build();
+        FlowEntry entry = new DefaultFlowEntry(rule, FlowEntry.FlowEntryState.ADDED, 10, 20, 30);
+        FlowEntry copy = serializer.decode(serializer.encode(entry));
+        assertEquals(entry, copy);
+        assertEquals(entry.state(), copy.state());
+        assertEquals(entry.bytes(), copy.bytes());
+        assertEquals(entry.lastSeen(), copy.lastSeen());
+        assertEquals(rule.selector(), copy.selector());
+        assertEquals(rule.treatment(), copy.treatment());
     }
 
     @Test
@@ -507,4 +651,21 @@ public class KryoSerializerTest {
         testSerializedEquals(bs);
     }
 
+    @Test
+    public void testLargeObject() {
+        // larger than the per-thread output buffer that is kept for reuse
+        byte[] large = new byte[512 * 1024];
+        Arrays.fill(large, (byte) 7);
+        byte[] copy = serializer.decode(serializer.encode(large));
+        assertArrayEquals(large, copy);
+    }
+
+    @Test
+    public void testRepeatedEncode() {
+        byte[] first = serializer.encode(ImmutableList.of("a", "b", "c"));
+        byte[] second = serializer.encode(ImmutableList.of("d"));
+        assertEquals(ImmutableList.of("a", "b", "c"), serializer.decode(first));
+        assertEquals(ImmutableList.of("d"), serializer.decode(second));
+    }
+
 }
@@ -31,6 +31,7 @@ import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.ItemNotFoundException;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.config.NetworkConfigRegistry;
@@ -42,6 +43,7 @@ import org.onosproject.openflow.config.OpenFlowDeviceConfig;
 import org.onosproject.openflow.controller.Dpid;
 import org.onosproject.openflow.controller.driver.OpenFlowAgent;
 import org.onosproject.openflow.controller.driver.OpenFlowSwitchDriver;
+import org.onosproject.openflow.controller.impl.OFMessageDispatchQueue.OverflowPolicy;
 import org.projectfloodlight.openflow.protocol.OFDescStatsReply;
 import org.projectfloodlight.openflow.protocol.OFVersion;
 import org.slf4j.Logger;
@@ -82,9 +84,22 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.onlab.util.Tools.get;
+import static org.onlab.util.Tools.getIntegerProperty;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.net.DeviceId.deviceId;
 import static org.onosproject.openflow.controller.Dpid.uri;
+import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.INBOUND_CONTROL_WEIGHT;
+import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.INBOUND_CONTROL_WEIGHT_DEFAULT;
+import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.INBOUND_PACKET_IN_WEIGHT;
+import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.INBOUND_PACKET_IN_WEIGHT_DEFAULT;
+import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.INBOUND_QUEUE_CAPACITY;
+import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.INBOUND_QUEUE_CAPACITY_DEFAULT;
+import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.OUTBOUND_BATCH_SIZE;
+import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.OUTBOUND_BATCH_SIZE_DEFAULT;
+import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.OUTBOUND_FLUSH_DELAY_MICROS;
+import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.OUTBOUND_FLUSH_DELAY_MICROS_DEFAULT;
+import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.PACKET_IN_OVERFLOW_POLICY;
+import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.PACKET_IN_OVERFLOW_POLICY_DEFAULT;
 
 
 /**
@@ -103,6 +118,14 @@ public class Controller {
     // Configuration options
     protected List<Integer> openFlowPorts = ImmutableList.of(6633, 6653);
     protected int workerThreads = 0;
+    protected volatile int outboundBatchSize = OUTBOUND_BATCH_SIZE_DEFAULT;
+    protected volatile int outboundFlushDelayMicros = OUTBOUND_FLUSH_DELAY_MICROS_DEFAULT;
+    protected volatile int inboundQueueCapacity = INBOUND_QUEUE_CAPACITY_DEFAULT;
+    protected volatile int[] inboundWeights = {
+            INBOUND_CONTROL_WEIGHT_DEFAULT, INBOUND_PACKET_IN_WEIGHT_DEFAULT
+    };
+    protected volatile OverflowPolicy packetInOverflowPolicy =
+            OverflowPolicy.valueOf(PACKET_IN_OVERFLOW_POLICY_DEFAULT);
 
     // Start time of the controller
     protected long systemStartTime;
@@ -128,6 +151,7 @@ public class Controller {
 
     private DriverService driverService;
     private NetworkConfigRegistry netCfgService;
+    private volatile MetricsService metricsService;
 
 
 
@@ -225,6 +249,8 @@ public class Controller {
         boolean restartRequired = setOpenFlowPorts(properties);
         restartRequired |= setWorkerThreads(properties);
         restartRequired |= setTlsParameters(properties);
+        setOutboundBatching(properties);
+        setInboundDispatch(properties);
         if (restartRequired) {
             restart();
         }
@@ -276,6 +302,48 @@ public class Controller {
         return oldValue != this.workerThreads; // restart if number of threads has changed
     }
 
+    /**
+     * Gets the outbound message batching parameters from property dict.
+     * They apply to the channels connected afterwards, hence restart is
+     * never required.
+     *
+     * @param properties dictionary
+     */
+    private void setOutboundBatching(Dictionary<?, ?> properties) {
+        this.outboundBatchSize = getIntegerProperty(properties, OUTBOUND_BATCH_SIZE,
+                                                    OUTBOUND_BATCH_SIZE_DEFAULT);
+        this.outboundFlushDelayMicros = getIntegerProperty(properties, OUTBOUND_FLUSH_DELAY_MICROS,
+                                                           OUTBOUND_FLUSH_DELAY_MICROS_DEFAULT);
+        log.debug("Outbound batches of {} messages flushed within {}us",
+                  this.outboundBatchSize, this.outboundFlushDelayMicros);
+    }
+
+    /**
+     * Gets the inbound message dispatch parameters from property dict.
+     * They apply to the channels connected afterwards, hence restart is
+     * never required.
+     *
+     * @param properties dictionary
+     */
+    private void setInboundDispatch(Dictionary<?, ?> properties) {
+        this.inboundQueueCapacity = getIntegerProperty(properties, INBOUND_QUEUE_CAPACITY,
+                                                       INBOUND_QUEUE_CAPACITY_DEFAULT);
+        this.inboundWeights = new int[]{
+                getIntegerProperty(properties, INBOUND_CONTROL_WEIGHT, INBOUND_CONTROL_WEIGHT_DEFAULT),
+                getIntegerProperty(properties, INBOUND_PACKET_IN_WEIGHT, INBOUND_PACKET_IN_WEIGHT_DEFAULT)
+        };
+        String policy = get(properties, PACKET_IN_OVERFLOW_POLICY);
+        if (!Strings.isNullOrEmpty(policy)) {
+            try {
+                this.packetInOverflowPolicy = OverflowPolicy.valueOf(policy.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                log.warn("Unknown packet-in overflow policy {}; using {}", policy, packetInOverflowPolicy);
+            }
+        }
+        log.debug("Inbound queues of {} messages dispatched with weights {}; packet-in overflow policy {}",
+                  this.inboundQueueCapacity, Arrays.toString(this.inboundWeights), this.packetInOverflowPolicy);
+    }
+
     static class TlsParams {
         final TlsMode mode;
         final String ksLocation;
@@ -504,6 +572,26 @@ public class Controller {
         return rb.getUptime();
     }
 
+    /**
+     * Sets the metrics service with which the channels register their
+     * metrics; null if none.
+     *
+     * @param metricsService metrics service
+     */
+    public void setMetricsService(MetricsService metricsService) {
+        this.metricsService = metricsService;
+    }
+
+    /**
+     * Returns the metrics service with which the channels register their
+     * metrics.
+     *
+     * @return metrics service; null if none
+     */
+    MetricsService getMetricsService() {
+        return metricsService;
+    }
+
     public long getSystemStartTime() {
         return (this.systemStartTime);
     }
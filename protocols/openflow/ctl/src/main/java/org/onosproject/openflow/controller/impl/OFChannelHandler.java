@@ -29,20 +29,23 @@ import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 
+import com.codahale.metrics.Gauge;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.packet.IpAddress;
 import org.onosproject.openflow.controller.Dpid;
 import org.onosproject.openflow.controller.OpenFlowSession;
 import org.onosproject.openflow.controller.driver.OpenFlowSwitchDriver;
 import org.onosproject.openflow.controller.driver.SwitchStateException;
+import org.onosproject.openflow.controller.impl.OFMessageDispatchQueue.MessageClass;
 import org.projectfloodlight.openflow.exceptions.OFParseError;
 import org.projectfloodlight.openflow.protocol.OFAsyncGetReply;
 import org.projectfloodlight.openflow.protocol.OFBadRequestCode;
@@ -107,6 +110,13 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
     private static final String RESET_BY_PEER = "Connection reset by peer";
     private static final String BROKEN_PIPE = "Broken pipe";
 
+    private static final String METRICS_COMPONENT = "OpenFlowChannel";
+    private static final String OUTBOUND_BATCH_SIZE = "outboundBatchSize";
+    private static final String OUTBOUND_FLUSH_LATENCY = "outboundFlushLatency";
+    private static final String OUTBOUND_QUEUE_DEPTH = "outboundQueueDepth";
+    private static final String INBOUND_QUEUE_DEPTH = "inboundQueueDepth.";
+    private static final String INBOUND_DROPS = "inboundDrops.";
+
     private final Controller controller;
     private OpenFlowSwitchDriver sw;
     private long thisdpid; // channelHandler cached value of connected switch id
@@ -157,10 +167,10 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
     private static final int MSG_READ_BUFFER = 5000;
 
     /**
-     * OFMessage dispatch queue.
+     * OFMessage dispatch queue, prioritizing control messages over
+     * statistics replies and packet-ins.
      */
-    private final BlockingQueue<OFMessage> dispatchQueue =
-            new LinkedBlockingQueue<>(MSG_READ_BUFFER);
+    private final OFMessageDispatchQueue dispatchQueue;
 
     /**
      * Single thread executor for OFMessage dispatching.
@@ -183,6 +193,20 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
      */
     private final Deque<OFMessage> dispatchBacklog = new ArrayDeque<>();
 
+    /**
+     * Outbound message batcher; null if batching is disabled.
+     * <p>
+     * Gets initialized on channelActive.
+     */
+    private volatile OFMessageBatcher batcher;
+
+    /**
+     * Metrics service with which the channel metrics are registered, and
+     * the feature they are registered under; null until the switch connects.
+     */
+    private MetricsService metricsService;
+    private MetricsFeature metricsFeature;
+
     /**
      * Create a new unconnected OFChannelHandler.
      * @param controller parent controller
@@ -190,6 +214,9 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
     OFChannelHandler(Controller controller) {
 
         this.controller = controller;
+        this.dispatchQueue = new OFMessageDispatchQueue(controller.inboundQueueCapacity,
+                                                        controller.inboundWeights,
+                                                        controller.packetInOverflowPolicy);
         this.state = ChannelState.INIT;
         this.pendingPortStatusMsg = new CopyOnWriteArrayList<>();
         this.portDescReplies = new ArrayList<>();
@@ -564,6 +591,8 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
                 if (h.sw.isDriverHandshakeComplete()) {
                     if (!h.sw.connectSwitch()) {
                         disconnectDuplicate(h);
+                    } else {
+                        h.registerMetrics();
                     }
                     handlePendingPortStatusMessages(h);
                     h.setState(ACTIVE);
@@ -660,6 +689,8 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
                 h.setState(ACTIVE);
                 if (!success) {
                     disconnectDuplicate(h);
+                } else {
+                    h.registerMetrics();
                 }
             }
 
@@ -1262,6 +1293,11 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
 
         dispatcher = Executors.newSingleThreadExecutor(groupedThreads("onos/of/dispatcher", channelId, log));
 
+        int batchSize = controller.outboundBatchSize;
+        if (batchSize > 1) {
+            batcher = new OFMessageBatcher(channel, batchSize, controller.outboundFlushDelayMicros);
+        }
+
         /*
             hack to wait for the switch to tell us what it's
             max version is. This is not spec compliant and should
@@ -1282,6 +1318,15 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
             dispatcher.shutdownNow();
             dispatcher = null;
         }
+        OFMessageBatcher batcher = this.batcher;
+        if (batcher != null) {
+            int dropped = batcher.close();
+            if (dropped > 0) {
+                log.warn("Dropped {} pending messages for disconnected switch {}",
+                         dropped, getSwitchInfoString());
+            }
+        }
+        removeMetrics();
 
          if (thisdpid != 0) {
              if (!duplicateDpidFound) {
@@ -1487,6 +1532,60 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
         }
     }
 
+    /**
+     * Registers the metrics of the channel under the DPID of the switch,
+     * if a metrics service is available.
+     */
+    private synchronized void registerMetrics() {
+        MetricsService service = controller.getMetricsService();
+        if (service == null || metricsService != null) {
+            return;
+        }
+        MetricsComponent component = service.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(new Dpid(thisdpid).toString());
+        try {
+            for (MessageClass cls : MessageClass.values()) {
+                String suffix = cls.name().toLowerCase();
+                service.registerMetric(component, feature, INBOUND_QUEUE_DEPTH + suffix,
+                                       (Gauge<Integer>) () -> dispatchQueue.size(cls));
+                service.registerMetric(component, feature, INBOUND_DROPS + suffix,
+                                       (Gauge<Long>) () -> dispatchQueue.drops(cls));
+            }
+            OFMessageBatcher batcher = this.batcher;
+            if (batcher != null) {
+                service.registerMetric(component, feature, OUTBOUND_BATCH_SIZE, batcher.batchSizes());
+                service.registerMetric(component, feature, OUTBOUND_FLUSH_LATENCY, batcher.flushLatency());
+                service.registerMetric(component, feature, OUTBOUND_QUEUE_DEPTH,
+                                       (Gauge<Integer>) batcher::queueDepth);
+            }
+        } catch (IllegalArgumentException e) {
+            // Metrics of a previous connection of the switch are still registered
+            log.debug("Metrics already registered for {}", getSwitchInfoString());
+            return;
+        }
+        metricsService = service;
+        metricsFeature = feature;
+    }
+
+    /**
+     * Removes the metrics of the channel, if registered.
+     */
+    private synchronized void removeMetrics() {
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            for (MessageClass cls : MessageClass.values()) {
+                String suffix = cls.name().toLowerCase();
+                metricsService.removeMetric(component, metricsFeature, INBOUND_QUEUE_DEPTH + suffix);
+                metricsService.removeMetric(component, metricsFeature, INBOUND_DROPS + suffix);
+            }
+            metricsService.removeMetric(component, metricsFeature, OUTBOUND_BATCH_SIZE);
+            metricsService.removeMetric(component, metricsFeature, OUTBOUND_FLUSH_LATENCY);
+            metricsService.removeMetric(component, metricsFeature, OUTBOUND_QUEUE_DEPTH);
+            metricsService = null;
+            metricsFeature = null;
+        }
+    }
+
     /**
      * Return a string describing this switch based on the already available
      * information (DPID and/or remote socket).
@@ -1683,8 +1782,17 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
             if (log.isTraceEnabled()) {
                 log.trace("Sending messages for switch {} via openflow channel: {}", getSwitchInfoString(), msgs);
             }
-            channel.writeAndFlush(msgs, channel.voidPromise());
-            return true;
+            OFMessageBatcher batcher = this.batcher;
+            if (batcher == null) {
+                channel.writeAndFlush(msgs, channel.voidPromise());
+                return true;
+            }
+            if (batcher.send(msgs)) {
+                return true;
+            }
+            log.warn("Dropping messages for switch {} because channel was disconnected: {}",
+                     getSwitchInfoString(), msgs);
+            return false;
         } else {
             log.warn("Dropping messages for switch {} because channel is not connected: {}",
                      getSwitchInfoString(), msgs);
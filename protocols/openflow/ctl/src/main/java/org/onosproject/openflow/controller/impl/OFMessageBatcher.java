@@ -0,0 +1,203 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.projectfloodlight.openflow.protocol.OFMessage;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Iterables;
+
+import io.netty.channel.Channel;
+
+/**
+ * Coalesces the messages sent to a switch into batches.
+ * <p>
+ * Messages are queued by the sending threads and written by the channel's
+ * event loop, either as soon as a full batch is pending or once the oldest
+ * pending message has waited for the flush delay. Each batch is encoded into
+ * a single buffer, and all the batches pending are flushed together, so that
+ * a burst of messages costs a handful of system calls rather than one per
+ * message.
+ * <p>
+ * Once the channel becomes inactive the batcher is closed, which drops the
+ * pending messages and refuses any further ones.
+ */
+final class OFMessageBatcher {
+
+    private static final int IDLE = 0;
+    private static final int DELAYED = 1;
+    private static final int IMMEDIATE = 2;
+
+    private final Channel channel;
+    private final int batchSize;
+    private final long flushDelayMicros;
+
+    private final Queue<OFMessage> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger flushState = new AtomicInteger(IDLE);
+    private volatile long oldestEnqueued;
+    private volatile boolean closed;
+
+    private final Histogram batchSizes = new Histogram(new ExponentiallyDecayingReservoir());
+    private final Timer flushLatency = new Timer();
+
+    /**
+     * Creates a batcher for the given channel.
+     *
+     * @param channel          channel to the switch
+     * @param batchSize        number of pending messages which triggers a flush
+     * @param flushDelayMicros longest time a message may wait to be flushed
+     */
+    OFMessageBatcher(Channel channel, int batchSize, long flushDelayMicros) {
+        this.channel = channel;
+        this.batchSize = Math.max(batchSize, 1);
+        this.flushDelayMicros = Math.max(flushDelayMicros, 0);
+    }
+
+    /**
+     * Queues the given messages for sending.
+     *
+     * @param msgs messages to send
+     * @return false if the batcher is closed and the messages were dropped
+     */
+    boolean send(Iterable<OFMessage> msgs) {
+        if (closed) {
+            return false;
+        }
+        int added = Iterables.size(msgs);
+        if (added == 0) {
+            return true;
+        }
+
+        // The depth is raised before queuing, so that it never falls below
+        // the queue size and only drops to zero once the queue is empty
+        int pending = depth.addAndGet(added);
+        if (pending == added) {
+            oldestEnqueued = System.nanoTime();
+        }
+        msgs.forEach(queue::add);
+
+        // Messages queued while closing are dropped by whichever thread
+        // drains the queue last
+        if (closed) {
+            drop();
+            return false;
+        }
+        if (pending >= batchSize || flushDelayMicros == 0) {
+            if (flushState.getAndSet(IMMEDIATE) != IMMEDIATE) {
+                channel.eventLoop().execute(this::flush);
+            }
+        } else if (flushState.compareAndSet(IDLE, DELAYED)) {
+            channel.eventLoop().schedule(this::flush, flushDelayMicros, TimeUnit.MICROSECONDS);
+        }
+        return true;
+    }
+
+    /**
+     * Closes the batcher, dropping the pending messages.
+     *
+     * @return number of messages dropped
+     */
+    int close() {
+        closed = true;
+        return drop();
+    }
+
+    private int drop() {
+        int dropped = 0;
+        while (queue.poll() != null) {
+            depth.decrementAndGet();
+            dropped++;
+        }
+        return dropped;
+    }
+
+    // Writes all pending messages in batches and flushes them at once.
+    // The flush state is cleared before draining, so that messages queued
+    // after the drain always schedule another flush.
+    // The depth is lowered as the messages are drained, so that a message
+    // queued meanwhile onto an empty queue restarts the flush latency.
+    private void flush() {
+        flushState.set(IDLE);
+        if (closed) {
+            return;
+        }
+        long oldest = oldestEnqueued;
+        List<OFMessage> batch = new ArrayList<>(batchSize);
+        int written = 0;
+        OFMessage msg;
+        while ((msg = queue.poll()) != null) {
+            depth.decrementAndGet();
+            batch.add(msg);
+            written++;
+            if (batch.size() == batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+        if (written == 0) {
+            return;
+        }
+
+        channel.flush();
+        flushLatency.update(System.nanoTime() - oldest, TimeUnit.NANOSECONDS);
+    }
+
+    private void write(List<OFMessage> batch) {
+        batchSizes.update(batch.size());
+        channel.write(batch, channel.voidPromise());
+    }
+
+    /**
+     * Returns the number of messages waiting to be written.
+     *
+     * @return number of pending messages
+     */
+    int queueDepth() {
+        return depth.get();
+    }
+
+    /**
+     * Returns the distribution of the sizes of the written batches.
+     *
+     * @return batch size histogram
+     */
+    Histogram batchSizes() {
+        return batchSizes;
+    }
+
+    /**
+     * Returns the distribution of the time from queuing the oldest message
+     * of a flush until the flush.
+     *
+     * @return flush latency timer
+     */
+    Timer flushLatency() {
+        return flushLatency;
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFType;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Queue of the messages received from a switch awaiting dispatch.
+ * <p>
+ * Packet-ins and all other messages are queued separately in bounded
+ * queues, which are drained in weighted round-robin order, so that a flood
+ * of packet-ins cannot starve the control messages. Only packet-ins may be
+ * dispatched out of order with the other messages; all other messages, e.g.
+ * statistics replies, barrier replies and flow removals, stay in order.
+ * </p>
+ * <p>
+ * Messages may be offered by a single producer and taken by a single
+ * consumer.
+ * </p>
+ */
+final class OFMessageDispatchQueue {
+
+    /**
+     * Dispatch classes of the messages.
+     */
+    enum MessageClass {
+        /** Messages other than packet-ins, dispatched in order. */
+        CONTROL,
+        /** Packet-ins. */
+        PACKET_IN;
+
+        /**
+         * Returns the class of the given message.
+         *
+         * @param msg message
+         * @return message class
+         */
+        static MessageClass of(OFMessage msg) {
+            return msg.getType() == OFType.PACKET_IN ? PACKET_IN : CONTROL;
+        }
+    }
+
+    /**
+     * Policies for offering packet-ins when their queue is full.
+     */
+    enum OverflowPolicy {
+        /** Refuse the packet-in, so that the channel stops reading. */
+        BACKPRESSURE,
+        /** Drop the offered packet-in. */
+        DROP_NEWEST,
+        /** Drop the oldest queued packet-in to make room. */
+        DROP_OLDEST
+    }
+
+    private static final MessageClass[] CLASSES = MessageClass.values();
+
+    private final Map<MessageClass, BlockingQueue<OFMessage>> queues = new EnumMap<>(MessageClass.class);
+    private final Map<MessageClass, LongAdder> drops = new EnumMap<>(MessageClass.class);
+    private final int[] weights;
+    private final OverflowPolicy packetInPolicy;
+
+    // Number of queued messages, which the consumer waits on
+    private final Semaphore available = new Semaphore(0);
+
+    // Round-robin state, only accessed by the consumer
+    private int current;
+    private int credit;
+
+    /**
+     * Creates a dispatch queue.
+     *
+     * @param capacity       capacity of the queue of each class
+     * @param weights        number of messages of each class dispatched in
+     *                       turn, indexed by class ordinal
+     * @param packetInPolicy policy for offering packet-ins when their queue
+     *                       is full
+     */
+    OFMessageDispatchQueue(int capacity, int[] weights, OverflowPolicy packetInPolicy) {
+        checkArgument(capacity > 0, "Capacity must be positive");
+        checkArgument(weights.length == CLASSES.length, "Expected %s weights", CLASSES.length);
+        for (MessageClass cls : CLASSES) {
+            queues.put(cls, new ArrayBlockingQueue<>(capacity));
+            drops.put(cls, new LongAdder());
+        }
+        this.weights = new int[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            this.weights[i] = Math.max(weights[i], 1);
+        }
+        this.packetInPolicy = packetInPolicy;
+        this.credit = this.weights[0];
+    }
+
+    /**
+     * Offers the given message for dispatch.
+     *
+     * @param msg message
+     * @return false if the message was refused because its queue is full;
+     * true if it was queued or dropped as per the overflow policy
+     */
+    boolean offer(OFMessage msg) {
+        MessageClass cls = MessageClass.of(msg);
+        BlockingQueue<OFMessage> queue = queues.get(cls);
+        if (queue.offer(msg)) {
+            available.release();
+            return true;
+        }
+        if (cls != MessageClass.PACKET_IN || packetInPolicy == OverflowPolicy.BACKPRESSURE) {
+            return false;
+        }
+
+        if (packetInPolicy == OverflowPolicy.DROP_NEWEST) {
+            drops.get(cls).increment();
+            return true;
+        }
+
+        // The oldest packet-in is replaced, unless the consumer has taken
+        // it meanwhile; offering cannot fail as there is a single producer.
+        if (queue.poll() != null) {
+            drops.get(cls).increment();
+            queue.offer(msg);
+        } else {
+            queue.offer(msg);
+            available.release();
+        }
+        return true;
+    }
+
+    /**
+     * Takes the next message to dispatch, waiting for one if need be.
+     *
+     * @return message
+     * @throws InterruptedException if interrupted while waiting
+     */
+    OFMessage take() throws InterruptedException {
+        available.acquire();
+        return next();
+    }
+
+    /**
+     * Takes the next messages to dispatch, without waiting.
+     *
+     * @param msgs        list to which to add the messages
+     * @param maxElements maximum number of messages to take
+     * @return number of messages taken
+     */
+    int drainTo(List<OFMessage> msgs, int maxElements) {
+        int count = 0;
+        while (count < maxElements && available.tryAcquire()) {
+            msgs.add(next());
+            count++;
+        }
+        return count;
+    }
+
+    // Polls the queues in weighted round-robin order, once a permit has
+    // been acquired; as the producer may be replacing a packet-in, the
+    // queues are polled until the message is found.
+    private OFMessage next() {
+        for (;;) {
+            for (int i = 0; i <= CLASSES.length; i++) {
+                if (credit > 0) {
+                    OFMessage msg = queues.get(CLASSES[current]).poll();
+                    if (msg != null) {
+                        credit--;
+                        return msg;
+                    }
+                }
+                current = (current + 1) % CLASSES.length;
+                credit = weights[current];
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Returns the number of messages of the given class awaiting dispatch.
+     *
+     * @param cls message class
+     * @return number of queued messages
+     */
+    int size(MessageClass cls) {
+        return queues.get(cls).size();
+    }
+
+    /**
+     * Returns the number of messages of the given class dropped so far.
+     *
+     * @param cls message class
+     * @return number of dropped messages
+     */
+    long drops(MessageClass cls) {
+        return drops.get(cls).sum();
+    }
+}
@@ -18,6 +18,8 @@ package org.onosproject.openflow.controller.impl;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
+import org.onlab.metrics.MetricsService;
+import org.onlab.util.OrderedExecutor;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.CoreService;
 import org.onosproject.net.DeviceId;
@@ -46,13 +48,12 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.projectfloodlight.openflow.protocol.OFCalientFlowStatsEntry;
 import org.projectfloodlight.openflow.protocol.OFCalientFlowStatsReply;
 import org.projectfloodlight.openflow.protocol.OFCircuitPortStatus;
 import org.projectfloodlight.openflow.protocol.OFExperimenter;
 import org.projectfloodlight.openflow.protocol.OFFactories;
-import org.projectfloodlight.openflow.protocol.OFFlowLightweightStatsEntry;
-import org.projectfloodlight.openflow.protocol.OFFlowLightweightStatsReply;
 import org.projectfloodlight.openflow.protocol.OFFlowStatsEntry;
 import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
 import org.projectfloodlight.openflow.protocol.OFGroupDescStatsEntry;
@@ -85,6 +86,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.locks.Lock;
@@ -104,6 +106,12 @@ import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.*;
                 KEY_STORE_PASSWORD + "=" + KEY_STORE_PASSWORD_DEFAULT,
                 TRUST_STORE + "=" + TRUST_STORE_DEFAULT,
                 TRUST_STORE_PASSWORD + "=" + TRUST_STORE_PASSWORD_DEFAULT,
+                OUTBOUND_BATCH_SIZE + ":Integer=" + OUTBOUND_BATCH_SIZE_DEFAULT,
+                OUTBOUND_FLUSH_DELAY_MICROS + ":Integer=" + OUTBOUND_FLUSH_DELAY_MICROS_DEFAULT,
+                INBOUND_QUEUE_CAPACITY + ":Integer=" + INBOUND_QUEUE_CAPACITY_DEFAULT,
+                INBOUND_CONTROL_WEIGHT + ":Integer=" + INBOUND_CONTROL_WEIGHT_DEFAULT,
+                INBOUND_PACKET_IN_WEIGHT + ":Integer=" + INBOUND_PACKET_IN_WEIGHT_DEFAULT,
+                PACKET_IN_OVERFLOW_POLICY + "=" + PACKET_IN_OVERFLOW_POLICY_DEFAULT,
         }
 )
 public class OpenFlowControllerImpl implements OpenFlowController {
@@ -125,6 +133,12 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected NetworkConfigRegistry netCfgService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL,
+            bind = "bindMetricsService",
+            unbind = "unbindMetricsService",
+            policy = ReferencePolicy.DYNAMIC)
+    protected volatile MetricsService metricsService;
+
     /** Port numbers (comma separated) used by OpenFlow protocol; default is 6633,6653. */
     private String openflowPorts = OFPORTS_DEFAULT;
 
@@ -146,6 +160,24 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     /** Trust store password. */
     private String trustStorePassword;
 
+    /** Number of pending messages which triggers writing them to a switch; 1 disables batching. */
+    private int outboundBatchSize = OUTBOUND_BATCH_SIZE_DEFAULT;
+
+    /** Longest delay in microseconds before pending messages are written to a switch. */
+    private int outboundFlushDelayMicros = OUTBOUND_FLUSH_DELAY_MICROS_DEFAULT;
+
+    /** Capacity of each inbound message queue of a switch: control and packet-in. */
+    private int inboundQueueCapacity = INBOUND_QUEUE_CAPACITY_DEFAULT;
+
+    /** Number of control messages, i.e. all but packet-ins, dispatched in turn with packet-ins. */
+    private int inboundControlWeight = INBOUND_CONTROL_WEIGHT_DEFAULT;
+
+    /** Number of packet-ins dispatched in turn with control messages. */
+    private int inboundPacketInWeight = INBOUND_PACKET_IN_WEIGHT_DEFAULT;
+
+    /** Policy for a full packet-in queue: BACKPRESSURE, DROP_NEWEST or DROP_OLDEST. */
+    private String packetInOverflowPolicy = PACKET_IN_OVERFLOW_POLICY_DEFAULT;
+
     protected ExecutorService executorMsgs =
         Executors.newFixedThreadPool(32, groupedThreads("onos/of", "event-stats-%d", log));
 
@@ -184,8 +216,8 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     protected Multimap<Dpid, OFFlowStatsEntry> fullFlowStats =
             ArrayListMultimap.create();
 
-    protected Multimap<Dpid, OFFlowLightweightStatsEntry> fullFlowLightweightStats =
-            ArrayListMultimap.create();
+    // Parts of multipart flow statistics replies are handed out one by one, in order for each switch
+    protected ConcurrentMap<Dpid, Executor> flowStatsExecutors = new ConcurrentHashMap<>();
 
     protected Multimap<Dpid, OFTableStatsEntry> fullTableStats =
             ArrayListMultimap.create();
@@ -291,6 +323,28 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         ctrl.setConfigParams(context.getProperties());
     }
 
+    /**
+     * Hook for wiring up the optional reference to the metrics service.
+     *
+     * @param service service being announced
+     */
+    protected void bindMetricsService(MetricsService service) {
+        metricsService = service;
+        ctrl.setMetricsService(service);
+    }
+
+    /**
+     * Hook for unwiring the optional reference to the metrics service.
+     *
+     * @param service service being withdrawn
+     */
+    protected void unbindMetricsService(MetricsService service) {
+        if (metricsService == service) {
+            metricsService = null;
+            ctrl.setMetricsService(null);
+        }
+    }
+
     @Override
     public Iterable<OpenFlowSwitch> getSwitches() {
         return connectedSwitches.values();
@@ -493,25 +547,9 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                 break;
 
             case FLOW:
-                Collection<OFFlowStatsEntry> flowStats = publishFlowStats(dpid, (OFFlowStatsReply) reply);
-                if (flowStats != null) {
-                    OFFlowStatsReply.Builder rep =
-                            OFFactories.getFactory(reply.getVersion()).buildFlowStatsReply();
-                    rep.setEntries(ImmutableList.copyOf(flowStats));
-                    rep.setXid(reply.getXid());
-                    executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
-                }
-                break;
             case FLOW_LIGHTWEIGHT:
-                Collection<OFFlowLightweightStatsEntry> flowLightweightStats =
-                        publishFlowStatsLightweight(dpid, (OFFlowLightweightStatsReply) reply);
-                if (flowLightweightStats != null) {
-                    OFFlowLightweightStatsReply.Builder rep =
-                            OFFactories.getFactory(reply.getVersion()).buildFlowLightweightStatsReply();
-                    rep.setEntries(ImmutableList.copyOf(flowLightweightStats));
-                    rep.setXid(reply.getXid());
-                    executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
-                }
+                // Listeners reconcile each part as it arrives and complete on the part without REPLY_MORE
+                flowStatsExecutor(dpid).execute(new OFMessageHandler(dpid, reply));
                 break;
             case TABLE:
                 Collection<OFTableStatsEntry> tableStats = publishTableStats(dpid, (OFTableStatsReply) reply);
@@ -592,7 +630,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                     }
                     fsr.setEntries(entries);
 
-                    flowStats = publishFlowStats(dpid, fsr.build());
+                    Collection<OFFlowStatsEntry> flowStats = publishFlowStats(dpid, fsr.build());
                     if (flowStats != null) {
                         OFFlowStatsReply.Builder rep =
                                 sw.factory().buildFlowStatsReply();
@@ -609,6 +647,10 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         }
     }
 
+    private Executor flowStatsExecutor(Dpid dpid) {
+        return flowStatsExecutors.computeIfAbsent(dpid, k -> new OrderedExecutor(executorMsgs));
+    }
+
     private synchronized Collection<OFFlowStatsEntry> publishFlowStats(Dpid dpid,
                                                                        OFFlowStatsReply reply) {
         //TODO: Get rid of synchronized
@@ -619,17 +661,6 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         return null;
     }
 
-    private synchronized Collection<OFFlowLightweightStatsEntry> publishFlowStatsLightweight(
-            Dpid dpid,
-            OFFlowLightweightStatsReply reply) {
-        //TODO: Get rid of synchronized
-        fullFlowLightweightStats.putAll(dpid, reply.getEntries());
-        if (!reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE)) {
-            return fullFlowLightweightStats.removeAll(dpid);
-        }
-        return null;
-    }
-
     private synchronized Collection<OFTableStatsEntry> publishTableStats(Dpid dpid,
                                                                        OFTableStatsReply reply) {
         //TODO: Get rid of synchronized
@@ -807,6 +838,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         @Override
         public void removeConnectedSwitch(Dpid dpid) {
             connectedSwitches.remove(dpid);
+            flowStatsExecutors.remove(dpid);
             OpenFlowSwitch sw = activeMasterSwitches.remove(dpid);
             if (sw == null) {
                 log.debug("sw was null for {}", dpid);
@@ -46,4 +46,22 @@ public final class OsgiPropertyConstants {
     public static final String TRUST_STORE_PASSWORD = "trustStorePassword";
     public static final String TRUST_STORE_PASSWORD_DEFAULT = "";
 
+    public static final String OUTBOUND_BATCH_SIZE = "outboundBatchSize";
+    public static final int OUTBOUND_BATCH_SIZE_DEFAULT = 1;
+
+    public static final String OUTBOUND_FLUSH_DELAY_MICROS = "outboundFlushDelayMicros";
+    public static final int OUTBOUND_FLUSH_DELAY_MICROS_DEFAULT = 100;
+
+    public static final String INBOUND_QUEUE_CAPACITY = "inboundQueueCapacity";
+    public static final int INBOUND_QUEUE_CAPACITY_DEFAULT = 5000;
+
+    public static final String INBOUND_CONTROL_WEIGHT = "inboundControlWeight";
+    public static final int INBOUND_CONTROL_WEIGHT_DEFAULT = 4;
+
+    public static final String INBOUND_PACKET_IN_WEIGHT = "inboundPacketInWeight";
+    public static final int INBOUND_PACKET_IN_WEIGHT_DEFAULT = 1;
+
+    public static final String PACKET_IN_OVERFLOW_POLICY = "packetInOverflowPolicy";
+    public static final String PACKET_IN_OVERFLOW_POLICY_DEFAULT = "BACKPRESSURE";
+
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.openflow.OfMessageAdapter;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFType;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests for the outbound OpenFlow message batcher.
+ */
+public class OFMessageBatcherTest {
+
+    private EmbeddedChannel channel;
+
+    @Before
+    public void setUp() {
+        channel = new EmbeddedChannel();
+    }
+
+    @After
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    private static List<OFMessage> messages(int count) {
+        List<OFMessage> msgs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            msgs.add(new OfMessageAdapter(OFType.ECHO_REQUEST));
+        }
+        return msgs;
+    }
+
+    private List<Integer> writtenBatchSizes() {
+        List<Integer> sizes = new ArrayList<>();
+        Object written;
+        while ((written = channel.readOutbound()) != null) {
+            sizes.add(((List<?>) written).size());
+        }
+        return sizes;
+    }
+
+    /**
+     * Tests that reaching the batch size flushes all pending messages in
+     * batches of at most the batch size.
+     */
+    @Test
+    public void testFlushOnBatchSize() {
+        OFMessageBatcher batcher = new OFMessageBatcher(channel, 4, 1_000_000);
+        messages(10).forEach(msg -> batcher.send(Collections.singletonList(msg)));
+        assertThat(batcher.queueDepth(), is(10));
+
+        channel.runPendingTasks();
+        assertThat(writtenBatchSizes(), contains(4, 4, 2));
+        assertThat(batcher.queueDepth(), is(0));
+        assertThat(batcher.batchSizes().getCount(), is(3L));
+        assertThat(batcher.flushLatency().getCount(), is(1L));
+    }
+
+    /**
+     * Tests that pending messages are flushed once the flush delay expires.
+     */
+    @Test
+    public void testFlushOnDelay() throws Exception {
+        OFMessageBatcher batcher = new OFMessageBatcher(channel, 100, 50_000);
+        batcher.send(messages(3));
+        batcher.send(messages(2));
+        channel.runPendingTasks();
+        assertThat(channel.readOutbound(), is(nullValue()));
+
+        Thread.sleep(100);
+        channel.runScheduledPendingTasks();
+        assertThat(writtenBatchSizes(), contains(5));
+        assertThat(batcher.queueDepth(), is(0));
+
+        // Messages queued after a flush schedule another one
+        batcher.send(messages(1));
+        Thread.sleep(100);
+        channel.runScheduledPendingTasks();
+        assertThat(writtenBatchSizes(), contains(1));
+        assertThat(batcher.flushLatency().getCount(), is(2L));
+    }
+
+    /**
+     * Tests that closing drops the pending messages and refuses new ones.
+     */
+    @Test
+    public void testClose() {
+        OFMessageBatcher batcher = new OFMessageBatcher(channel, 100, 1_000_000);
+        assertThat(batcher.send(messages(3)), is(true));
+        assertThat(batcher.close(), is(3));
+        assertThat(batcher.queueDepth(), is(0));
+
+        assertThat(batcher.send(messages(2)), is(false));
+        assertThat(batcher.queueDepth(), is(0));
+        channel.runPendingTasks();
+        assertThat(channel.readOutbound(), is(nullValue()));
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.onosproject.openflow.OfMessageAdapter;
+import org.onosproject.openflow.controller.impl.OFMessageDispatchQueue.MessageClass;
+import org.onosproject.openflow.controller.impl.OFMessageDispatchQueue.OverflowPolicy;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFType;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.onosproject.openflow.controller.impl.OFMessageDispatchQueue.MessageClass.CONTROL;
+import static org.onosproject.openflow.controller.impl.OFMessageDispatchQueue.MessageClass.PACKET_IN;
+
+/**
+ * Tests for the inbound OpenFlow message dispatch queue.
+ */
+public class OFMessageDispatchQueueTest {
+
+    private static final int[] WEIGHTS = {2, 1};
+
+    /**
+     * Message carrying a sequence number.
+     */
+    private static final class NumberedMessage extends OfMessageAdapter {
+        private final int number;
+
+        NumberedMessage(OFType type, int number) {
+            super(type);
+            this.number = number;
+        }
+    }
+
+    private static OFMessage message(OFType type, int number) {
+        return new NumberedMessage(type, number);
+    }
+
+    private static List<MessageClass> classes(List<OFMessage> msgs) {
+        return msgs.stream().map(MessageClass::of).collect(Collectors.toList());
+    }
+
+    private static List<Integer> numbers(List<OFMessage> msgs) {
+        return msgs.stream().map(msg -> ((NumberedMessage) msg).number).collect(Collectors.toList());
+    }
+
+    /**
+     * Tests that messages are classified by type.
+     */
+    @Test
+    public void testClassification() {
+        assertThat(MessageClass.of(message(OFType.PACKET_IN, 0)), is(PACKET_IN));
+        assertThat(MessageClass.of(message(OFType.STATS_REPLY, 0)), is(CONTROL));
+        assertThat(MessageClass.of(message(OFType.FLOW_REMOVED, 0)), is(CONTROL));
+        assertThat(MessageClass.of(message(OFType.BARRIER_REPLY, 0)), is(CONTROL));
+        assertThat(MessageClass.of(message(OFType.PORT_STATUS, 0)), is(CONTROL));
+    }
+
+    /**
+     * Tests that the classes are dispatched in weighted round-robin order,
+     * retaining the order of all messages other than packet-ins.
+     */
+    @Test
+    public void testWeightedOrder() throws Exception {
+        OFMessageDispatchQueue queue = new OFMessageDispatchQueue(10, WEIGHTS, OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 4; i++) {
+            queue.offer(message(OFType.PACKET_IN, i));
+        }
+        for (int i = 0; i < 3; i++) {
+            queue.offer(message(OFType.FLOW_REMOVED, i));
+        }
+        queue.offer(message(OFType.STATS_REPLY, 0));
+
+        List<OFMessage> msgs = new ArrayList<>();
+        msgs.add(queue.take());
+        assertThat(queue.drainTo(msgs, 100), is(7));
+        assertThat(classes(msgs), contains(CONTROL, CONTROL, PACKET_IN, CONTROL,
+                                           CONTROL, PACKET_IN, PACKET_IN, PACKET_IN));
+        assertThat(numbers(msgs), contains(0, 1, 0, 2, 0, 1, 2, 3));
+        assertThat(msgs.get(4).getType(), is(OFType.STATS_REPLY));
+        assertThat(queue.drainTo(msgs, 100), is(0));
+    }
+
+    /**
+     * Tests that full queues refuse messages.
+     */
+    @Test
+    public void testBackpressure() {
+        OFMessageDispatchQueue queue = new OFMessageDispatchQueue(2, WEIGHTS, OverflowPolicy.BACKPRESSURE);
+        assertThat(queue.offer(message(OFType.ERROR, 0)), is(true));
+        assertThat(queue.offer(message(OFType.ERROR, 1)), is(true));
+        assertThat(queue.offer(message(OFType.ERROR, 2)), is(false));
+        assertThat(queue.offer(message(OFType.PACKET_IN, 0)), is(true));
+        assertThat(queue.offer(message(OFType.PACKET_IN, 1)), is(true));
+        assertThat(queue.offer(message(OFType.PACKET_IN, 2)), is(false));
+        assertThat(queue.drops(CONTROL), is(0L));
+        assertThat(queue.drops(PACKET_IN), is(0L));
+    }
+
+    /**
+     * Tests dropping the newest packet-ins when their queue is full.
+     */
+    @Test
+    public void testDropNewest() {
+        OFMessageDispatchQueue queue = new OFMessageDispatchQueue(2, WEIGHTS, OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 5; i++) {
+            assertThat(queue.offer(message(OFType.PACKET_IN, i)), is(true));
+        }
+        assertThat(queue.size(PACKET_IN), is(2));
+        assertThat(queue.drops(PACKET_IN), is(3L));
+
+        List<OFMessage> msgs = new ArrayList<>();
+        queue.drainTo(msgs, 100);
+        assertThat(numbers(msgs), contains(0, 1));
+    }
+
+    /**
+     * Tests dropping the oldest packet-ins when their queue is full.
+     */
+    @Test
+    public void testDropOldest() {
+        OFMessageDispatchQueue queue = new OFMessageDispatchQueue(2, WEIGHTS, OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            assertThat(queue.offer(message(OFType.PACKET_IN, i)), is(true));
+        }
+        assertThat(queue.offer(message(OFType.STATS_REPLY, 0)), is(true));
+        assertThat(queue.size(PACKET_IN), is(2));
+        assertThat(queue.drops(PACKET_IN), is(3L));
+        assertThat(queue.drops(CONTROL), is(0L));
+
+        List<OFMessage> msgs = new ArrayList<>();
+        assertThat(queue.drainTo(msgs, 100), is(3));
+        assertThat(classes(msgs), contains(CONTROL, PACKET_IN, PACKET_IN));
+        assertThat(numbers(msgs), contains(0, 3, 4));
+    }
+}
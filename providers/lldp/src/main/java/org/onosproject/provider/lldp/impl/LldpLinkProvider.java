@@ -18,6 +18,9 @@ package org.onosproject.provider.lldp.impl;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.packet.Ethernet;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterMetadataService;
@@ -55,6 +58,7 @@ import org.onosproject.net.provider.AbstractProvider;
 import org.onosproject.net.provider.ProviderId;
 import org.onosproject.provider.lldpcommon.LinkDiscovery;
 import org.onosproject.provider.lldpcommon.LinkDiscoveryContext;
+import org.onosproject.provider.lldpcommon.LinkDiscoveryScheduler;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -62,6 +66,7 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 
 import java.util.Dictionary;
@@ -112,6 +117,16 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
     // When a Device/Port has this annotation, do not send out LLDP/BDDP
     public static final String NO_LLDP = "no-lldp";
 
+    private static final String METRICS_COMPONENT = "LinkDiscovery";
+    private static final String METRICS_FEATURE = "lldp";
+    private static final String PROBES = "probes";
+    private static final String DETECTION_LATENCY = "detectionLatencyMs";
+
+    // Packets handled by link discovery
+    private static final Set<TrafficSelector> PROBE_SELECTORS = ImmutableSet.of(
+            DefaultTrafficSelector.builder().matchEthType(TYPE_LLDP).build(),
+            DefaultTrafficSelector.builder().matchEthType(TYPE_BSN).build());
+
     private final Logger log = getLogger(getClass());
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
@@ -144,6 +159,12 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected ClusterMetadataService clusterMetadataService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL,
+            bind = "bindMetricsService",
+            unbind = "unbindMetricsService",
+            policy = ReferencePolicy.DYNAMIC)
+    protected volatile MetricsService metricsService;
+
     private LinkProviderService providerService;
 
     private ScheduledExecutorService executor;
@@ -171,6 +192,7 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
     private int maxDiscoveryDelayMs = DISCOVERY_DELAY_DEFAULT;
 
     private final LinkDiscoveryContext context = new InternalDiscoveryContext();
+    private final LinkDiscoveryScheduler scheduler = new LinkDiscoveryScheduler(context);
     private final InternalRoleListener roleListener = new InternalRoleListener();
     private final InternalDeviceListener deviceListener = new InternalDeviceListener();
     private final InternalPacketProcessor packetProcessor = new InternalPacketProcessor();
@@ -350,7 +372,7 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         providerService = providerRegistry.register(this);
         masterService.addListener(roleListener);
         deviceService.addListener(deviceListener);
-        packetService.addProcessor(packetProcessor, PacketProcessor.advisor(0));
+        packetService.addProcessor(packetProcessor, PacketProcessor.advisor(0), PROBE_SELECTORS);
 
         loadDevices();
 
@@ -379,6 +401,7 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         }
         discoverers.values().forEach(LinkDiscovery::stop);
         discoverers.clear();
+        scheduler.shutdown();
         linkTimes.clear();
 
         providerService = null;
@@ -453,7 +476,7 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         }
 
         LinkDiscovery ld = discoverers.computeIfAbsent(device.id(),
-                                     did -> new LinkDiscovery(device.id(), context));
+                                     did -> new LinkDiscovery(device.id(), context, scheduler));
         if (ld.isStopped()) {
             ld.start();
         }
@@ -563,6 +586,36 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         }
     }
 
+    /**
+     * Hook for wiring the optional reference to the metrics service.
+     *
+     * @param service service being provided
+     */
+    protected void bindMetricsService(MetricsService service) {
+        metricsService = service;
+        MetricsComponent component = service.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+        service.removeMetric(component, feature, PROBES);
+        service.removeMetric(component, feature, DETECTION_LATENCY);
+        service.registerMetric(component, feature, PROBES, scheduler.probeMeter());
+        service.registerMetric(component, feature, DETECTION_LATENCY, scheduler.detectionLatency());
+    }
+
+    /**
+     * Hook for unwiring the optional reference to the metrics service.
+     *
+     * @param service service being withdrawn
+     */
+    protected void unbindMetricsService(MetricsService service) {
+        MetricsComponent component = service.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+        service.removeMetric(component, feature, PROBES);
+        service.removeMetric(component, feature, DETECTION_LATENCY);
+        if (metricsService == service) {
+            metricsService = null;
+        }
+    }
+
     /**
      * Processes device mastership role changes.
      */
@@ -610,7 +663,13 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
                 case PORT_ADDED:
                 case PORT_UPDATED:
                     if (port.isEnabled()) {
-                        updateDevice(device).ifPresent(ld -> updatePort(ld, port));
+                        updateDevice(device).ifPresent(ld -> {
+                            updatePort(ld, port);
+                            if (event.type() == Type.PORT_UPDATED) {
+                                // Probe right away to pick up any change of link
+                                ld.resetPort(port.number());
+                            }
+                        });
                     } else {
                         log.debug("Port down {}", port);
                         removePort(port);
@@ -779,6 +838,12 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
             return probeRate;
         }
 
+        @Override
+        public long maxProbeInterval() {
+            // Leave room for a lost probe before the link goes stale
+            return Math.max(probeRate, (staleLinkAge - maxDiscoveryDelayMs) / 2);
+        }
+
         @Override
         public boolean useBddp() {
             return useBddp;
@@ -15,15 +15,14 @@
  */
 package org.onosproject.provider.lldpcommon;
 
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
-import io.netty.util.Timeout;
-import io.netty.util.TimerTask;
 import io.netty.util.internal.StringUtil;
+import org.onlab.packet.ChassisId;
 import org.onlab.packet.Ethernet;
 import org.onlab.packet.MacAddress;
 import org.onlab.packet.ONOSLLDP;
-import org.onlab.util.Timer;
+import org.onlab.packet.ONOSLLDPProbe;
+import org.onlab.packet.ONOSLLDPTemplate;
 import org.onlab.util.Tools;
 import org.onosproject.net.AnnotationKeys;
 import org.onosproject.net.ConnectPoint;
@@ -35,12 +34,14 @@ import org.onosproject.net.LinkKey;
 import org.onosproject.net.Port;
 import org.onosproject.net.PortNumber;
 import org.onosproject.net.device.DeviceService;
+import org.onosproject.net.flow.TrafficTreatment;
 import org.onosproject.net.link.DefaultLinkDescription;
 import org.onosproject.net.link.LinkDescription;
 import org.onosproject.net.link.ProbedLinkProvider;
 import org.onosproject.net.packet.DefaultOutboundPacket;
 import org.onosproject.net.packet.OutboundPacket;
 import org.onosproject.net.packet.PacketContext;
+import org.onosproject.net.packet.PacketService;
 import org.slf4j.Logger;
 
 import java.nio.ByteBuffer;
@@ -52,20 +53,18 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.onosproject.net.AnnotationKeys.PORT_NAME;
 import static org.onosproject.net.PortNumber.portNumber;
 import static org.onosproject.net.flow.DefaultTrafficTreatment.builder;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
- * Run discovery process from a physical switch. Ports are initially labeled as
- * slow ports. When an LLDP is successfully received, label the remote port as
- * fast. Every probeRate milliseconds, loop over all fast ports and send an
- * LLDP, send an LLDP for a single slow port. Based on FlowVisor topology
- * discovery implementation.
+ * Run discovery process from a physical switch. Probes are sent out of each
+ * port when it is added and then at the times set by the shared
+ * {@link LinkDiscoveryScheduler}. Based on FlowVisor topology discovery
+ * implementation.
  */
-public class LinkDiscovery implements TimerTask {
+public class LinkDiscovery {
 
     private static final String SCHEME_NAME = "linkdiscovery";
     private static final String ETHERNET = "ETHERNET";
@@ -74,36 +73,30 @@ public class LinkDiscovery implements TimerTask {
 
     private final DeviceId deviceId;
     private final LinkDiscoveryContext context;
+    private final LinkDiscoveryScheduler scheduler;
 
-    private final Ethernet ethPacket;
-    private final Ethernet bddpEth;
-
-    private Timeout timeout;
     private volatile boolean isStopped;
 
     // Set of ports to be probed
     private final Map<Long, String> portMap = Maps.newConcurrentMap();
+
+    // Serialized probes of each port, rebuilt when their contents change
+    private final Map<Long, PortProbes> probes = Maps.newConcurrentMap();
+
     /**
-     * Instantiates discovery manager for the given physical switch. Creates a
-     * generic LLDP packet that will be customized for the port it is sent out on.
-     * Starts the the timer for the discovery process.
+     * Instantiates discovery manager for the given physical switch. The
+     * probes sent out of each port are serialized once and then reused.
+     * Starts the discovery process.
      *
      * @param deviceId  the physical switch
      * @param context discovery context
+     * @param scheduler scheduler of the probes
      */
-    public LinkDiscovery(DeviceId deviceId, LinkDiscoveryContext context) {
+    public LinkDiscovery(DeviceId deviceId, LinkDiscoveryContext context,
+                         LinkDiscoveryScheduler scheduler) {
         this.deviceId = deviceId;
         this.context = context;
-
-        ethPacket = new Ethernet();
-        ethPacket.setEtherType(Ethernet.TYPE_LLDP);
-        ethPacket.setDestinationMACAddress(MacAddress.ONOS_LLDP);
-        ethPacket.setPad(true);
-
-        bddpEth = new Ethernet();
-        bddpEth.setEtherType(Ethernet.TYPE_BSN);
-        bddpEth.setDestinationMACAddress(MacAddress.BROADCAST);
-        bddpEth.setPad(true);
+        this.scheduler = scheduler;
 
         isStopped = true;
         start();
@@ -114,7 +107,7 @@ public class LinkDiscovery implements TimerTask {
     public synchronized void stop() {
         if (!isStopped) {
             isStopped = true;
-            timeout.cancel();
+            scheduler.cancel(deviceId);
         } else {
             log.warn("LinkDiscovery stopped multiple times?");
         }
@@ -123,14 +116,23 @@ public class LinkDiscovery implements TimerTask {
     public synchronized void start() {
         if (isStopped) {
             isStopped = false;
-            timeout = Timer.newTimeout(this, 0, MILLISECONDS);
+            portMap.keySet().forEach(port -> scheduler.schedule(this, portNumber(port), true));
         } else {
             log.warn("LinkDiscovery started multiple times?");
         }
     }
 
     public synchronized boolean isStopped() {
-        return isStopped || timeout.isCancelled();
+        return isStopped;
+    }
+
+    /**
+     * Returns the device whose links are discovered.
+     *
+     * @return device identifier
+     */
+    public DeviceId deviceId() {
+        return deviceId;
     }
 
     /**
@@ -149,10 +151,21 @@ public class LinkDiscovery implements TimerTask {
         boolean newPort = !containsPort(portNum);
         portMap.put(portNum, portName);
 
-        boolean isMaster = context.mastershipService().isLocalMaster(deviceId);
-        if (newPort && isMaster) {
-            log.debug("Sending initial probe to port {}@{}", port.number().toLong(), deviceId);
-            sendProbes(portNum, portName);
+        if (newPort && !isStopped) {
+            log.debug("Scheduling initial probe to port {}@{}", portNum, deviceId);
+            scheduler.schedule(this, port.number(), true);
+        }
+    }
+
+    /**
+     * Probes the port right away, e.g. after its status changed, and
+     * resumes probing it at the base probe rate.
+     *
+     * @param port the port number
+     */
+    public void resetPort(PortNumber port) {
+        if (containsPort(port.toLong()) && !isStopped) {
+            scheduler.reset(this, port);
         }
     }
 
@@ -162,6 +175,8 @@ public class LinkDiscovery implements TimerTask {
      */
     public void removePort(PortNumber port) {
         portMap.remove(port.toLong());
+        probes.remove(port.toLong());
+        scheduler.cancel(deviceId, port);
     }
 
     /**
@@ -198,8 +213,8 @@ public class LinkDiscovery implements TimerTask {
     }
 
     private boolean processOnosLldp(PacketContext packetContext, Ethernet eth) {
-        ONOSLLDP onoslldp = ONOSLLDP.parseONOSLLDP(eth);
-        if (onoslldp != null) {
+        ONOSLLDPProbe probe = parseOnosProbe(packetContext, eth);
+        if (probe != null) {
             Type lt;
             if (notMy(eth.getSourceMAC().toString())) {
                 lt = Type.EDGE;
@@ -208,16 +223,16 @@ public class LinkDiscovery implements TimerTask {
                         Type.DIRECT : Type.INDIRECT;
 
                 /* Verify MAC in LLDP packets */
-                if (!ONOSLLDP.verify(onoslldp, context.lldpSecret(), context.maxDiscoveryDelay())) {
+                if (!probe.verify(context.lldpSecret(), context.maxDiscoveryDelay())) {
                     log.warn("LLDP Packet failed to validate!");
                     return true;
                 }
             }
 
-            PortNumber srcPort = portNumber(onoslldp.getPort());
+            PortNumber srcPort = portNumber(probe.port());
             PortNumber dstPort = packetContext.inPacket().receivedFrom().port();
 
-            String idString = onoslldp.getDeviceString();
+            String idString = probe.deviceString();
             if (!isNullOrEmpty(idString)) {
                 try {
                     DeviceId srcDeviceId = DeviceId.deviceId(idString);
@@ -229,6 +244,7 @@ public class LinkDiscovery implements TimerTask {
                     LinkDescription ld = new DefaultLinkDescription(src, dst, lt);
                     context.providerService().linkDetected(ld);
                     context.touchLink(LinkKey.linkKey(src, dst));
+                    scheduler.linkDetected(src);
                 } catch (IllegalStateException | IllegalArgumentException e) {
                     log.warn("There is a exception during link creation: {}", e.getMessage());
                     return true;
@@ -239,6 +255,12 @@ public class LinkDiscovery implements TimerTask {
         return false;
     }
 
+    // Reads the ONOS probe TLVs straight from the received bytes
+    private ONOSLLDPProbe parseOnosProbe(PacketContext packetContext, Ethernet eth) {
+        ByteBuffer unparsed = packetContext.inPacket().unparsed();
+        return ONOSLLDPProbe.parse(unparsed != null ? unparsed : ByteBuffer.wrap(eth.serialize()));
+    }
+
     private boolean processLldp(PacketContext packetContext, Ethernet eth) {
         ONOSLLDP onoslldp = ONOSLLDP.parseLLDP(eth);
         if (onoslldp != null) {
@@ -362,99 +384,89 @@ public class LinkDiscovery implements TimerTask {
     }
 
     /**
-     * Execute this method every t milliseconds. Loops over all ports
-     * labeled as fast and sends out an LLDP. Send out an LLDP on a single slow
-     * port.
+     * Sends out the probes of the specified port if this instance is the
+     * master of the device. Invoked by the scheduler.
      *
-     * @param t timeout
+     * @param portNumber the port
+     * @return true if probes were sent
      */
-    @Override
-    public void run(Timeout t) {
-        if (isStopped()) {
-            return;
-        }
-
-        if (context.mastershipService().isLocalMaster(deviceId)) {
-            log.trace("Sending probes from {}", deviceId);
-            ImmutableMap.copyOf(portMap).forEach(this::sendProbes);
+    boolean probe(long portNumber) {
+        if (isStopped() || !context.mastershipService().isLocalMaster(deviceId)) {
+            return false;
         }
-
-        if (!isStopped()) {
-            timeout = t.timer().newTimeout(this, context.probeRate(), MILLISECONDS);
+        String portDesc = portMap.get(portNumber);
+        if (portDesc == null) {
+            return false;
         }
+        sendProbes(portNumber, portDesc);
+        return true;
     }
 
     /**
-     * Creates packet_out LLDP for specified output port.
+     * Returns the serialized probes for the specified port, building them
+     * if the port or probe settings have changed since they were last built.
      *
      * @param portNumber the port
      * @param portDesc the port description
-     * @return Packet_out message with LLDP data
+     * @return probes of the port, or null if they cannot be built
      */
-    private OutboundPacket createOutBoundLldp(Long portNumber, String portDesc) {
-        if (portNumber == null) {
+    private PortProbes getPortProbes(Long portNumber, String portDesc) {
+        Device device = context.deviceService().getDevice(deviceId);
+        if (device == null) {
+            log.warn("Cannot find the device {}", deviceId);
             return null;
         }
-        ONOSLLDP lldp = getLinkProbe(portNumber, portDesc);
-        if (lldp == null) {
-            log.warn("Cannot get link probe with portNumber {} and portDesc {} for {} at LLDP packet creation.",
-                    portNumber, portDesc, deviceId);
-            return null;
+        String fingerprint = context.fingerprint();
+        String secret = context.lldpSecret();
+        PortProbes portProbes = probes.get(portNumber);
+        if (portProbes != null && portProbes.isFor(fingerprint, secret, device.chassisId(), portDesc)) {
+            return portProbes;
         }
-        ethPacket.setSourceMACAddress(context.fingerprint()).setPayload(lldp);
-        return new DefaultOutboundPacket(deviceId,
-                                         builder().setOutput(portNumber(portNumber)).build(),
-                                         ByteBuffer.wrap(ethPacket.serialize()));
-    }
 
-    /**
-     * Creates packet_out BDDP for specified output port.
-     *
-     * @param portNumber the port
-     * @param portDesc the port description
-     * @return Packet_out message with LLDP data
-     */
-    private OutboundPacket createOutBoundBddp(Long portNumber, String portDesc) {
-        if (portNumber == null) {
-            return null;
-        }
-        ONOSLLDP lldp = getLinkProbe(portNumber, portDesc);
+        ONOSLLDP lldp = ONOSLLDP.onosSecureLLDP(deviceId.toString(), device.chassisId(), portNumber.intValue(),
+                                                portDesc, secret);
         if (lldp == null) {
-            log.warn("Cannot get link probe with portNumber {} and portDesc {} for {} at BDDP packet creation.",
-                    portNumber, portDesc, deviceId);
+            log.warn("Cannot get link probe with portNumber {} and portDesc {} for {}.",
+                     portNumber, portDesc, deviceId);
             return null;
         }
-        bddpEth.setSourceMACAddress(context.fingerprint()).setPayload(lldp);
-        return new DefaultOutboundPacket(deviceId,
-                                         builder().setOutput(portNumber(portNumber)).build(),
-                                         ByteBuffer.wrap(bddpEth.serialize()));
+        portProbes = new PortProbes(fingerprint, secret, device.chassisId(), portDesc,
+                                    builder().setOutput(portNumber(portNumber)).build(),
+                                    probeTemplate(Ethernet.TYPE_LLDP, MacAddress.ONOS_LLDP, fingerprint, lldp, secret),
+                                    probeTemplate(Ethernet.TYPE_BSN, MacAddress.BROADCAST, fingerprint, lldp, secret));
+        probes.put(portNumber, portProbes);
+        return portProbes;
     }
 
-    private ONOSLLDP getLinkProbe(Long portNumber, String portDesc) {
-        Device device = context.deviceService().getDevice(deviceId);
-        if (device == null) {
-            log.warn("Cannot find the device {}", deviceId);
-            return null;
-        }
-        return ONOSLLDP.onosSecureLLDP(deviceId.toString(), device.chassisId(), portNumber.intValue(), portDesc,
-                                       context.lldpSecret());
+    private ONOSLLDPTemplate probeTemplate(short etherType, MacAddress destination, String fingerprint,
+                                           ONOSLLDP lldp, String secret) {
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(etherType);
+        eth.setDestinationMACAddress(destination);
+        eth.setSourceMACAddress(fingerprint);
+        eth.setPad(true);
+        eth.setPayload(lldp);
+        return new ONOSLLDPTemplate(eth, secret);
     }
 
     private void sendProbes(Long portNumber, String portDesc) {
-        if (context.packetService() == null) {
+        // read once, as the provider may be deactivated meanwhile
+        PacketService packetService = context.packetService();
+        if (packetService == null) {
             return;
         }
         log.trace("Sending probes out of {}@{}", portNumber, deviceId);
-        OutboundPacket pkt = createOutBoundLldp(portNumber, portDesc);
+        PortProbes portProbes = portNumber != null ? getPortProbes(portNumber, portDesc) : null;
+        OutboundPacket pkt = portProbes != null ? portProbes.lldp() : null;
         if (pkt != null) {
-            context.packetService().emit(pkt);
+            packetService.emit(pkt);
         } else {
             log.warn("Cannot send lldp packet due to packet is null {}", deviceId);
         }
         if (context.useBddp()) {
-            OutboundPacket bpkt = createOutBoundBddp(portNumber, portDesc);
+            OutboundPacket bpkt = portProbes != null ? portProbes.bddp() : null;
             if (bpkt != null) {
-                context.packetService().emit(bpkt);
+                packetService.emit(bpkt);
             } else {
                 log.warn("Cannot send bddp packet due to packet is null {}", deviceId);
             }
@@ -464,4 +476,52 @@ public class LinkDiscovery implements TimerTask {
     public boolean containsPort(long portNumber) {
         return portMap.containsKey(portNumber);
     }
+
+    /**
+     * Serialized LLDP and BDDP probes of a port, along with the settings
+     * they were built with.
+     */
+    private final class PortProbes {
+        private final String fingerprint;
+        private final String secret;
+        private final ChassisId chassisId;
+        private final String portDesc;
+        private final TrafficTreatment treatment;
+        private final ONOSLLDPTemplate lldp;
+        private final ONOSLLDPTemplate bddp;
+
+        private PortProbes(String fingerprint, String secret, ChassisId chassisId, String portDesc,
+                           TrafficTreatment treatment, ONOSLLDPTemplate lldp, ONOSLLDPTemplate bddp) {
+            this.fingerprint = fingerprint;
+            this.secret = secret;
+            this.chassisId = chassisId;
+            this.portDesc = portDesc;
+            this.treatment = treatment;
+            this.lldp = lldp;
+            this.bddp = bddp;
+        }
+
+        private boolean isFor(String fingerprint, String secret, ChassisId chassisId, String portDesc) {
+            return Objects.equals(this.fingerprint, fingerprint)
+                    && Objects.equals(this.secret, secret)
+                    && Objects.equals(this.chassisId, chassisId)
+                    && Objects.equals(this.portDesc, portDesc);
+        }
+
+        private OutboundPacket lldp() {
+            return packet(lldp);
+        }
+
+        private OutboundPacket bddp() {
+            return packet(bddp);
+        }
+
+        private OutboundPacket packet(ONOSLLDPTemplate template) {
+            byte[] probe = template.probe();
+            if (probe == null) {
+                return null;
+            }
+            return new DefaultOutboundPacket(deviceId, treatment, ByteBuffer.wrap(probe));
+        }
+    }
 }
@@ -61,6 +61,16 @@ public interface LinkDiscoveryContext {
      */
     long probeRate();
 
+    /**
+     * Returns the longest interval in millis at which ports with stable
+     * links are probed. Defaults to the probe rate, i.e. no back-off.
+     *
+     * @return maximum probe interval
+     */
+    default long maxProbeInterval() {
+        return probeRate();
+    }
+
     /**
      * Indicates whether to emit BDDP.
      *
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.lldpcommon;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.google.common.collect.Maps;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Schedules link probes of all ports discovered by a link provider.
+ * <p>
+ * Each port is probed on its own timeout so that the probes of different
+ * ports, and thus of different devices, are spread over the probe interval
+ * rather than sent in a burst. Ports whose links keep being detected are
+ * probed less and less often, up to the maximum probe interval of the
+ * discovery context; a port whose link goes missing or whose status
+ * changes is probed at the base probe rate again.
+ * <p>
+ * The probes run on a timer of the scheduler, which is started when a port
+ * is first scheduled and stopped by {@link #shutdown()}.
+ */
+public class LinkDiscoveryScheduler {
+
+    private final Logger log = getLogger(getClass());
+
+    // Consecutive detected probes before the probe interval of a port doubles
+    private static final int STABLE_PROBES = 3;
+
+    private final LinkDiscoveryContext context;
+    private final Map<ConnectPoint, PortSchedule> ports = Maps.newConcurrentMap();
+
+    // Held for reading while probing, so that cancelling all ports can wait
+    // for the probes already running
+    private final ReentrantReadWriteLock probeLock = new ReentrantReadWriteLock();
+    private HashedWheelTimer timer;
+
+    private final Meter probeMeter = new Meter();
+    private final Histogram detectionLatency = new Histogram(new ExponentiallyDecayingReservoir());
+
+    /**
+     * Creates a scheduler for the link discovery of the given context.
+     *
+     * @param context discovery context
+     */
+    public LinkDiscoveryScheduler(LinkDiscoveryContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns the meter of probed ports.
+     *
+     * @return probe meter
+     */
+    public Meter probeMeter() {
+        return probeMeter;
+    }
+
+    /**
+     * Returns the histogram of the milliseconds between a port being
+     * scheduled, or its status changing, and a link from it being detected.
+     *
+     * @return link detection latency histogram
+     */
+    public Histogram detectionLatency() {
+        return detectionLatency;
+    }
+
+    /**
+     * Starts probing the specified port, unless it is already being probed.
+     *
+     * @param discovery discovery helper of the port's device
+     * @param port port number
+     * @param probeNow true to probe the port right away
+     */
+    public void schedule(LinkDiscovery discovery, PortNumber port, boolean probeNow) {
+        ConnectPoint cp = new ConnectPoint(discovery.deviceId(), port);
+        PortSchedule schedule = new PortSchedule(discovery, cp);
+        if (ports.putIfAbsent(cp, schedule) == null) {
+            schedule.start(probeNow);
+        }
+    }
+
+    /**
+     * Probes the specified port right away and resets its probe interval to
+     * the base probe rate, scheduling the port if needed.
+     *
+     * @param discovery discovery helper of the port's device
+     * @param port port number
+     */
+    public void reset(LinkDiscovery discovery, PortNumber port) {
+        PortSchedule schedule = ports.get(new ConnectPoint(discovery.deviceId(), port));
+        if (schedule != null) {
+            schedule.start(true);
+        } else {
+            schedule(discovery, port, true);
+        }
+    }
+
+    /**
+     * Stops probing the specified port.
+     *
+     * @param deviceId device identifier
+     * @param port port number
+     */
+    public void cancel(DeviceId deviceId, PortNumber port) {
+        PortSchedule schedule = ports.remove(new ConnectPoint(deviceId, port));
+        if (schedule != null) {
+            schedule.cancel();
+        }
+    }
+
+    /**
+     * Stops probing all ports of the specified device.
+     *
+     * @param deviceId device identifier
+     */
+    public void cancel(DeviceId deviceId) {
+        ports.values().removeIf(schedule -> {
+            if (schedule.cp.deviceId().equals(deviceId)) {
+                schedule.cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Stops probing all ports, waiting for the probes already running to
+     * complete unless invoked by one of them.
+     */
+    public void cancelAll() {
+        ports.values().forEach(PortSchedule::cancel);
+        ports.clear();
+        if (probeLock.getReadHoldCount() == 0) {
+            probeLock.writeLock().lock();
+            probeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stops probing all ports and stops the timer of the probes. Ports
+     * scheduled afterwards start a new timer.
+     */
+    public void shutdown() {
+        cancelAll();
+        HashedWheelTimer stopped;
+        synchronized (this) {
+            stopped = timer;
+            timer = null;
+        }
+        // not stopped under the lock, as the probes reschedule through it
+        if (stopped != null) {
+            stopped.stop();
+        }
+    }
+
+    private synchronized Timeout newTimeout(TimerTask task, long delayMillis) {
+        if (timer == null) {
+            timer = new HashedWheelTimer(groupedThreads("onos/link", "probes", log));
+        }
+        return timer.newTimeout(task, delayMillis, MILLISECONDS);
+    }
+
+    /**
+     * Records that a probe sent out of the specified port has been received,
+     * i.e. that the link from the port has been detected.
+     *
+     * @param src source connect point of the link
+     */
+    public void linkDetected(ConnectPoint src) {
+        PortSchedule schedule = ports.get(src);
+        if (schedule != null) {
+            schedule.detected();
+        }
+    }
+
+    /**
+     * Returns the current probe interval of the specified port.
+     *
+     * @param cp connect point of the port
+     * @return probe interval in millis, or -1 if the port is not scheduled
+     */
+    public long probeInterval(ConnectPoint cp) {
+        PortSchedule schedule = ports.get(cp);
+        return schedule != null ? schedule.interval() : -1;
+    }
+
+    // Probe interval after the given number of consecutive detected probes
+    private long intervalAfter(int stableProbes) {
+        long base = Math.max(1, context.probeRate());
+        long max = Math.max(base, context.maxProbeInterval());
+        int shift = Math.min(stableProbes / STABLE_PROBES, Long.numberOfLeadingZeros(base) - 1);
+        return Math.min(base << shift, max);
+    }
+
+    /**
+     * Probe timing of a single port.
+     */
+    private final class PortSchedule implements TimerTask {
+        private final LinkDiscovery discovery;
+        private final ConnectPoint cp;
+
+        private Timeout timeout;
+        private boolean cancelled;
+        private boolean spread;
+        private boolean detected;
+        private int stableProbes;
+        private long changedAt;
+
+        private PortSchedule(LinkDiscovery discovery, ConnectPoint cp) {
+            this.discovery = discovery;
+            this.cp = cp;
+        }
+
+        private synchronized void start(boolean probeNow) {
+            if (cancelled) {
+                return;
+            }
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            spread = probeNow;
+            detected = false;
+            stableProbes = 0;
+            changedAt = System.currentTimeMillis();
+            long interval = intervalAfter(0);
+            long delay = probeNow ? 0 : ThreadLocalRandom.current().nextLong(interval) + 1;
+            timeout = newTimeout(this, delay);
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+
+        private synchronized void detected() {
+            if (!detected && changedAt != 0) {
+                detectionLatency.update(System.currentTimeMillis() - changedAt);
+                changedAt = 0;
+            }
+            detected = true;
+        }
+
+        private synchronized long interval() {
+            return intervalAfter(stableProbes);
+        }
+
+        @Override
+        public void run(Timeout t) {
+            // Taken before checking for cancellation, so that a cancellation
+            // either waits for the probe or is seen by it
+            probeLock.readLock().lock();
+            try {
+                probe(t);
+            } finally {
+                probeLock.readLock().unlock();
+            }
+        }
+
+        private void probe(Timeout t) {
+            long delay;
+            synchronized (this) {
+                if (cancelled || t != timeout) {
+                    return;
+                }
+                stableProbes = detected ? stableProbes + 1 : 0;
+                detected = false;
+                delay = intervalAfter(stableProbes);
+                if (spread) {
+                    // Spread ports probed right away over the probe interval
+                    delay = ThreadLocalRandom.current().nextLong(delay) + 1;
+                    spread = false;
+                }
+            }
+            try {
+                if (discovery.probe(cp.port().toLong())) {
+                    probeMeter.mark();
+                }
+            } finally {
+                synchronized (this) {
+                    if (!cancelled && t == timeout) {
+                        timeout = newTimeout(this, delay);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.lldpcommon;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.mastership.MastershipService;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.LinkKey;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.device.DeviceService;
+import org.onosproject.net.link.LinkProviderService;
+import org.onosproject.net.packet.PacketService;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the link discovery scheduler.
+ */
+public class LinkDiscoverySchedulerTest {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:1");
+    private static final PortNumber PORT = PortNumber.portNumber(1);
+    private static final ConnectPoint CP = new ConnectPoint(DID, PORT);
+    private static final long PROBE_RATE = 10;
+    private static final long MAX_PROBE_INTERVAL = 40;
+
+    private final TestContext context = new TestContext();
+    private LinkDiscoveryScheduler scheduler;
+    private TestDiscovery discovery;
+
+    @Before
+    public void setUp() {
+        scheduler = new LinkDiscoveryScheduler(context);
+        discovery = new TestDiscovery();
+    }
+
+    @After
+    public void tearDown() {
+        discovery.blocker.countDown();
+        scheduler.shutdown();
+    }
+
+    /**
+     * Tests that ports with detected links back off to the maximum probe
+     * interval and go back to the probe rate when reset.
+     */
+    @Test
+    public void testBackOff() throws Exception {
+        discovery.detect = true;
+        scheduler.schedule(discovery, PORT, true);
+        assertTrue(discovery.probes.tryAcquire(1, 5, TimeUnit.SECONDS));
+        assertEquals(PROBE_RATE, scheduler.probeInterval(CP));
+
+        assertTrue(discovery.probes.tryAcquire(7, 10, TimeUnit.SECONDS));
+        assertEquals(MAX_PROBE_INTERVAL, scheduler.probeInterval(CP));
+        assertEquals(1, scheduler.detectionLatency().getCount());
+        assertTrue(scheduler.probeMeter().getCount() >= 7);
+
+        scheduler.reset(discovery, PORT);
+        assertEquals(PROBE_RATE, scheduler.probeInterval(CP));
+        assertTrue(discovery.probes.tryAcquire(1, 5, TimeUnit.SECONDS));
+        assertEquals(2, scheduler.detectionLatency().getCount());
+    }
+
+    /**
+     * Tests that ports without detected links stay at the probe rate and
+     * that cancelled ports are no longer probed.
+     */
+    @Test
+    public void testCancel() throws Exception {
+        scheduler.schedule(discovery, PORT, false);
+        assertTrue(discovery.probes.tryAcquire(3, 5, TimeUnit.SECONDS));
+        assertEquals(PROBE_RATE, scheduler.probeInterval(CP));
+        assertEquals(0, scheduler.detectionLatency().getCount());
+
+        scheduler.cancel(DID);
+        assertEquals(-1, scheduler.probeInterval(CP));
+        discovery.probes.drainPermits();
+        assertFalse(discovery.probes.tryAcquire(1, 500, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Tests that cancelling all ports waits for the probes already running.
+     */
+    @Test
+    public void testCancelAllWaitsForProbes() throws Exception {
+        discovery.blocker = new CountDownLatch(1);
+        scheduler.schedule(discovery, PORT, true);
+        assertTrue(discovery.probes.tryAcquire(1, 5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> cancelled = CompletableFuture.runAsync(scheduler::cancelAll);
+        try {
+            cancelled.get(200, TimeUnit.MILLISECONDS);
+            fail("Cancelled while a probe was running");
+        } catch (TimeoutException e) {
+            // expected, as the probe is blocked
+        }
+
+        discovery.blocker.countDown();
+        cancelled.get(5, TimeUnit.SECONDS);
+        discovery.probes.drainPermits();
+        assertFalse(discovery.probes.tryAcquire(1, 500, TimeUnit.MILLISECONDS));
+    }
+
+    // Discovery helper which records probes instead of sending them
+    private class TestDiscovery extends LinkDiscovery {
+        private final Semaphore probes = new Semaphore(0);
+        private volatile boolean detect;
+        private volatile CountDownLatch blocker = new CountDownLatch(0);
+
+        TestDiscovery() {
+            super(DID, context, scheduler);
+        }
+
+        @Override
+        boolean probe(long portNumber) {
+            probes.release();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (detect) {
+                scheduler.linkDetected(CP);
+            }
+            return true;
+        }
+    }
+
+    private static class TestContext implements LinkDiscoveryContext {
+        @Override
+        public MastershipService mastershipService() {
+            return null;
+        }
+
+        @Override
+        public LinkProviderService providerService() {
+            return null;
+        }
+
+        @Override
+        public PacketService packetService() {
+            return null;
+        }
+
+        @Override
+        public DeviceService deviceService() {
+            return null;
+        }
+
+        @Override
+        public long probeRate() {
+            return PROBE_RATE;
+        }
+
+        @Override
+        public long maxProbeInterval() {
+            return MAX_PROBE_INTERVAL;
+        }
+
+        @Override
+        public boolean useBddp() {
+            return false;
+        }
+
+        @Override
+        public void touchLink(LinkKey key) {
+        }
+
+        @Override
+        public void setTtl(LinkKey key, short ttl) {
+        }
+
+        @Override
+        public String fingerprint() {
+            return null;
+        }
+
+        @Override
+        public String lldpSecret() {
+            return null;
+        }
+
+        @Override
+        public long maxDiscoveryDelay() {
+            return 0;
+        }
+    }
+}
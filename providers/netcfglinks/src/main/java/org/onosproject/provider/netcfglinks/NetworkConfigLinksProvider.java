@@ -15,6 +15,7 @@
  */
 package org.onosproject.provider.netcfglinks;
 
+import com.google.common.collect.ImmutableSet;
 import org.onlab.packet.Ethernet;
 import org.onlab.packet.ONOSLLDP;
 import org.onosproject.cluster.ClusterMetadataService;
@@ -51,6 +52,7 @@ import org.onosproject.net.provider.AbstractProvider;
 import org.onosproject.net.provider.ProviderId;
 import org.onosproject.provider.lldpcommon.LinkDiscovery;
 import org.onosproject.provider.lldpcommon.LinkDiscoveryContext;
+import org.onosproject.provider.lldpcommon.LinkDiscoveryScheduler;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
@@ -87,6 +89,11 @@ public class NetworkConfigLinksProvider
         extends AbstractProvider
         implements ProbedLinkProvider {
 
+    // Packets handled by link discovery
+    private static final Set<TrafficSelector> PROBE_SELECTORS = ImmutableSet.of(
+            DefaultTrafficSelector.builder().matchEthType(TYPE_LLDP).build(),
+            DefaultTrafficSelector.builder().matchEthType(TYPE_BSN).build());
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected LinkProviderRegistry providerRegistry;
 
@@ -118,6 +125,7 @@ public class NetworkConfigLinksProvider
     protected final Map<DeviceId, LinkDiscovery> discoverers = new ConcurrentHashMap<>();
 
     private final LinkDiscoveryContext context = new InternalDiscoveryContext();
+    private final LinkDiscoveryScheduler scheduler = new LinkDiscoveryScheduler(context);
 
     private LinkProviderService providerService;
 
@@ -156,7 +164,7 @@ public class NetworkConfigLinksProvider
     protected void activate() {
         log.info("Activated");
         appId = coreService.registerApplication(PROVIDER_NAME);
-        packetService.addProcessor(packetProcessor, PacketProcessor.advisor(0));
+        packetService.addProcessor(packetProcessor, PacketProcessor.advisor(0), PROBE_SELECTORS);
         providerService = providerRegistry.register(this);
         deviceService.addListener(deviceListener);
         netCfgService.addListener(cfgListener);
@@ -191,7 +199,7 @@ public class NetworkConfigLinksProvider
         }
 
         LinkDiscovery ld = discoverers.computeIfAbsent(device.id(),
-                did -> new LinkDiscovery(device.id(), context));
+                did -> new LinkDiscovery(device.id(), context, scheduler));
         if (ld.isStopped()) {
             ld.start();
         }
@@ -226,6 +234,7 @@ public class NetworkConfigLinksProvider
         providerRegistry.unregister(this);
         discoverers.values().forEach(LinkDiscovery::stop);
         discoverers.clear();
+        scheduler.shutdown();
 
         providerService = null;
     }
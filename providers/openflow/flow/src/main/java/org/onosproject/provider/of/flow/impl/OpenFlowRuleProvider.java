@@ -71,6 +71,7 @@ import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
 import org.projectfloodlight.openflow.protocol.OFMessage;
 import org.projectfloodlight.openflow.protocol.OFPortStatus;
 import org.projectfloodlight.openflow.protocol.OFStatsReply;
+import org.projectfloodlight.openflow.protocol.OFStatsReplyFlags;
 import org.projectfloodlight.openflow.protocol.OFStatsType;
 import org.projectfloodlight.openflow.protocol.OFTableStatsEntry;
 import org.projectfloodlight.openflow.protocol.OFTableStatsReply;
@@ -450,14 +451,14 @@ public class OpenFlowRuleProvider extends AbstractProvider
                     break;
                 case STATS_REPLY:
                     if (((OFStatsReply) msg).getStatsType() == OFStatsType.FLOW) {
-                        // Let's unblock first the collector
+                        // Let's unblock first the collector once the last part of the reply arrived
                         SwitchDataCollector collector;
                         if (adaptiveFlowSampling) {
                             collector = afsCollectors.get(dpid);
                         } else {
                             collector = simpleCollectors.get(dpid);
                         }
-                        if (collector != null) {
+                        if (collector != null && isLastPart((OFStatsReply) msg)) {
                             collector.received();
                         }
                         pushFlowMetrics(dpid, (OFFlowStatsReply) msg, getDriver(deviceId));
@@ -655,12 +656,17 @@ public class OpenFlowRuleProvider extends AbstractProvider
                                           + "OFFlowStatsReply Xid={}, for {}",
                                   afsc.getFlowMissingXid(), replies.getXid(), dpid);
                     if (afsc.getFlowMissingXid() == replies.getXid()) {
-                        // call entire flow stats update with flowMissing synchronization.
-                        // used existing pushFlowMetrics
-                        providerService.pushFlowMetrics(did, flowEntries);
+                        // call entire flow stats update with flowMissing synchronization,
+                        // one part of the reply at a time
+                        pushFlowMetricsChunk(did, replies, flowEntries);
+                        if (isLastPart(replies)) {
+                            // reset flowMissingXid to NO_FLOW_MISSING_XID
+                            afsc.setFlowMissingXid(NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID);
+                        }
+                    } else {
+                        // reset flowMissingXid to NO_FLOW_MISSING_XID
+                        afsc.setFlowMissingXid(NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID);
                     }
-                    // reset flowMissingXid to NO_FLOW_MISSING_XID
-                    afsc.setFlowMissingXid(NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID);
                 } else {
                     // call individual flow stats update
                     providerService.pushFlowMetricsWithoutFlowMissing(did, flowEntries);
@@ -670,8 +676,19 @@ public class OpenFlowRuleProvider extends AbstractProvider
                         .map(entry -> new FlowEntryBuilder(did, entry, handler).build())
                         .collect(Collectors.toList());
 
-                // call existing entire flow stats update with flowMissing synchronization
-                providerService.pushFlowMetrics(did, flowEntries);
+                // call entire flow stats update with flowMissing synchronization, one part of the reply at a time
+                pushFlowMetricsChunk(did, replies, flowEntries);
+            }
+        }
+
+        private boolean isLastPart(OFStatsReply reply) {
+            return !reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE);
+        }
+
+        private void pushFlowMetricsChunk(DeviceId did, OFStatsReply reply, List<FlowEntry> flowEntries) {
+            providerService.pushFlowMetricsChunk(did, flowEntries);
+            if (isLastPart(reply)) {
+                providerService.completeFlowMetrics(did);
             }
         }
 
@@ -700,12 +717,17 @@ public class OpenFlowRuleProvider extends AbstractProvider
                                     + "OFFlowStatsReply Xid={}, for {}",
                             afsc.getFlowMissingXid(), replies.getXid(), dpid);
                     if (afsc.getFlowMissingXid() == replies.getXid()) {
-                        // call entire flow stats update with flowMissing synchronization.
-                        // used existing pushFlowMetrics
-                        providerService.pushFlowMetrics(did, flowEntries);
+                        // call entire flow stats update with flowMissing synchronization,
+                        // one part of the reply at a time
+                        pushFlowMetricsChunk(did, replies, flowEntries);
+                        if (isLastPart(replies)) {
+                            // reset flowMissingXid to NO_FLOW_MISSING_XID
+                            afsc.setFlowMissingXid(NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID);
+                        }
+                    } else {
+                        // reset flowMissingXid to NO_FLOW_MISSING_XID
+                        afsc.setFlowMissingXid(NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID);
                     }
-                    // reset flowMissingXid to NO_FLOW_MISSING_XID
-                    afsc.setFlowMissingXid(NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID);
                 } else {
                     // call individual flow stats update
                     providerService.pushFlowMetricsWithoutFlowMissing(did, flowEntries);
@@ -714,8 +736,8 @@ public class OpenFlowRuleProvider extends AbstractProvider
                 List<FlowEntry> flowEntries = replies.getEntries().stream()
                         .map(entry -> new FlowEntryBuilder(did, entry, driverService).build())
                         .collect(Collectors.toList());
-                // call existing entire flow stats update with flowMissing synchronization
-                providerService.pushFlowMetrics(did, flowEntries);
+                // call entire flow stats update with flowMissing synchronization, one part of the reply at a time
+                pushFlowMetricsChunk(did, replies, flowEntries);
             }
         }
 
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmark.graph;
+
+import org.onlab.graph.AbstractEdge;
+import org.onlab.graph.AdjacencyListsGraph;
+import org.onlab.graph.CompactDijkstraSearch;
+import org.onlab.graph.CompactGraph;
+import org.onlab.graph.CompactSuurballeSearch;
+import org.onlab.graph.CompactTarjanSearch;
+import org.onlab.graph.DefaultEdgeWeigher;
+import org.onlab.graph.DijkstraGraphSearch;
+import org.onlab.graph.DisjointPathPair;
+import org.onlab.graph.EdgeWeigher;
+import org.onlab.graph.Graph;
+import org.onlab.graph.GraphPathSearch;
+import org.onlab.graph.Path;
+import org.onlab.graph.SuurballeGraphSearch;
+import org.onlab.graph.TarjanGraphSearch;
+import org.onlab.graph.Vertex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares searches over the object graph with those over its compact form.
+ * <p>
+ * Run with {@code -prof gc} to compare the allocation rates as well.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GraphSearchBenchmark {
+
+    private static final EdgeWeigher<BenchVertex, BenchEdge> WEIGHER = new DefaultEdgeWeigher<>();
+    private static final int PAIRS = 64;
+
+    @Param({"5000"})
+    private int vertexCount;
+
+    @Param({"40000"})
+    private int edgeCount;
+
+    private Graph<BenchVertex, BenchEdge> graph;
+    private CompactGraph<BenchVertex, BenchEdge> compactGraph;
+    private double[] weights;
+    private BenchVertex[] sources;
+    private BenchVertex[] destinations;
+    private int pair;
+
+    private final DijkstraGraphSearch<BenchVertex, BenchEdge> dijkstra =
+            new DijkstraGraphSearch<>();
+    private final TarjanGraphSearch<BenchVertex, BenchEdge> tarjan =
+            new TarjanGraphSearch<>();
+    private final SuurballeGraphSearch<BenchVertex, BenchEdge> suurballe =
+            new SuurballeGraphSearch<>();
+    private final CompactDijkstraSearch<BenchVertex, BenchEdge> compactDijkstra =
+            new CompactDijkstraSearch<>();
+    private final CompactTarjanSearch<BenchVertex, BenchEdge> compactTarjan =
+            new CompactTarjanSearch<>();
+    private final CompactSuurballeSearch<BenchVertex, BenchEdge> compactSuurballe =
+            new CompactSuurballeSearch<>();
+
+    /**
+     * Generates a strongly connected random graph, with a bidirectional ring
+     * providing connectivity and the remaining edges joining random vertexes.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(vertexCount * 31L + edgeCount);
+        BenchVertex[] vertexes = new BenchVertex[vertexCount];
+        Set<BenchVertex> vertexSet = new HashSet<>();
+        for (int i = 0; i < vertexCount; i++) {
+            vertexes[i] = new BenchVertex(i);
+            vertexSet.add(vertexes[i]);
+        }
+
+        Set<BenchEdge> edgeSet = new HashSet<>();
+        for (int i = 0; i < vertexCount; i++) {
+            BenchVertex next = vertexes[(i + 1) % vertexCount];
+            edgeSet.add(new BenchEdge(vertexes[i], next));
+            edgeSet.add(new BenchEdge(next, vertexes[i]));
+        }
+        while (edgeSet.size() < edgeCount) {
+            BenchVertex src = vertexes[random.nextInt(vertexCount)];
+            BenchVertex dst = vertexes[random.nextInt(vertexCount)];
+            if (!src.equals(dst)) {
+                edgeSet.add(new BenchEdge(src, dst));
+            }
+        }
+
+        graph = new AdjacencyListsGraph<>(vertexSet, edgeSet);
+        compactGraph = CompactGraph.of(graph);
+        weights = compactGraph.weights(WEIGHER);
+
+        sources = new BenchVertex[PAIRS];
+        destinations = new BenchVertex[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            sources[i] = vertexes[random.nextInt(vertexCount)];
+            destinations[i] = vertexes[(sources[i].index + vertexCount / 2) % vertexCount];
+        }
+    }
+
+    private int nextPair() {
+        pair = (pair + 1) % PAIRS;
+        return pair;
+    }
+
+    @Benchmark
+    public Set<Path<BenchVertex, BenchEdge>> dijkstra() {
+        int i = nextPair();
+        return dijkstra.search(graph, sources[i], destinations[i], WEIGHER,
+                               GraphPathSearch.ALL_PATHS).paths();
+    }
+
+    @Benchmark
+    public Set<Path<BenchVertex, BenchEdge>> compactDijkstra() {
+        int i = nextPair();
+        return compactDijkstra.search(compactGraph, sources[i], destinations[i], weights,
+                                      GraphPathSearch.ALL_PATHS);
+    }
+
+    @Benchmark
+    public int[] dijkstraTree() {
+        int i = nextPair();
+        GraphPathSearch.Result<BenchVertex, BenchEdge> result =
+                dijkstra.search(graph, sources[i], null, WEIGHER, 1);
+        return new int[]{result.parents().size()};
+    }
+
+    @Benchmark
+    public int[] compactDijkstraTree() {
+        int i = nextPair();
+        return compactDijkstra.searchTree(compactGraph, sources[i], weights);
+    }
+
+    // Deep graphs overflow the default stack of the recursive search
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Xss64m")
+    public int tarjan() {
+        return tarjan.search(graph, WEIGHER).clusterCount();
+    }
+
+    @Benchmark
+    public int compactTarjan() {
+        return compactTarjan.search(compactGraph, weights).clusterCount();
+    }
+
+    @Benchmark
+    @Measurement(iterations = 3, time = 5)
+    public Set<Path<BenchVertex, BenchEdge>> suurballe() {
+        int i = nextPair();
+        return suurballe.search(graph, sources[i], destinations[i], WEIGHER,
+                                GraphPathSearch.ALL_PATHS).paths();
+    }
+
+    @Benchmark
+    public DisjointPathPair<BenchVertex, BenchEdge> compactSuurballe() {
+        int i = nextPair();
+        return compactSuurballe.search(compactGraph, sources[i], destinations[i], weights);
+    }
+
+    @Benchmark
+    public CompactGraph<BenchVertex, BenchEdge> compactGraphOf() {
+        return CompactGraph.of(graph);
+    }
+
+    /**
+     * Benchmark graph vertex.
+     */
+    public static final class BenchVertex implements Vertex {
+        private final int index;
+
+        BenchVertex(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof BenchVertex && ((BenchVertex) obj).index == index;
+        }
+
+        @Override
+        public String toString() {
+            return "V" + index;
+        }
+    }
+
+    /**
+     * Benchmark graph edge.
+     */
+    public static final class BenchEdge extends AbstractEdge<BenchVertex> {
+        BenchEdge(BenchVertex src, BenchVertex dst) {
+            super(src, dst);
+        }
+    }
+
+}
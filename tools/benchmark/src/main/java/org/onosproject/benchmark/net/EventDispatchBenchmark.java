@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmark.net;
+
+import org.onlab.osgi.ComponentContextAdapter;
+import org.onosproject.event.EventSink;
+import org.onosproject.event.impl.CoreEventDispatcher;
+import org.onosproject.net.Device;
+import org.onosproject.net.device.DeviceEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.onosproject.net.OsgiPropertyConstants.CED_DISPATCH_SHARDS;
+
+/**
+ * Measures the throughput of posting device events through the core event
+ * dispatcher and delivering them to a sink.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventDispatchBenchmark {
+
+    private static final String TOPO_SHAPE = "fattree,8";
+    private static final int BATCH = 1000;
+
+    @Param({"1", "4"})
+    private int shards;
+
+    private final CoreEventDispatcher dispatcher = new CoreEventDispatcher();
+    private final CountingSink sink = new CountingSink();
+
+    private DeviceEvent[] events;
+    private long posted;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Device> devices = SimulatedNetwork.of(TOPO_SHAPE, 0, 0).devices();
+        events = new DeviceEvent[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            events[i] = new DeviceEvent(DeviceEvent.Type.DEVICE_UPDATED, devices.get(i % devices.size()));
+        }
+
+        dispatcher.activate(new ComponentContextAdapter() {
+            @Override
+            public Dictionary getProperties() {
+                Hashtable<String, Object> properties = new Hashtable<>();
+                properties.put(CED_DISPATCH_SHARDS, Integer.toString(shards));
+                return properties;
+            }
+        });
+        dispatcher.addSink(DeviceEvent.class, sink);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dispatcher.removeSink(DeviceEvent.class);
+        dispatcher.deactivate();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long postAndDispatch() {
+        for (DeviceEvent event : events) {
+            dispatcher.post(event);
+        }
+        posted += BATCH;
+        // Wait for the whole batch to be delivered
+        while (sink.processed.get() < posted) {
+            Thread.yield();
+        }
+        return posted;
+    }
+
+    private static final class CountingSink implements EventSink<DeviceEvent> {
+        private final AtomicLong processed = new AtomicLong();
+
+        @Override
+        public void process(DeviceEvent event) {
+            processed.incrementAndGet();
+        }
+    }
+
+}
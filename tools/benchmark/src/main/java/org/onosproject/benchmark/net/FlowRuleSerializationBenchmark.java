@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmark.net;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.Ip4Prefix;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.TpPort;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.store.serializers.CompactEncoding;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compact flow rule serializers of the API namespace with the
+ * reflective field serialization they replace.
+ * <p>
+ * The average serialized size of the flow entries of each configuration is
+ * printed during setup.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FlowRuleSerializationBenchmark {
+
+    private static final int FLOWS = 1024;
+    private static final int PORTS = 48;
+    private static final DeviceId DEVICE_ID = DeviceId.deviceId("of:0000000000000001");
+    private static final DefaultApplicationId APP_ID = new DefaultApplicationId(1, "benchmark");
+
+    @Param({"compact", "reflective"})
+    private String namespace;
+
+    @Param({"l2", "ipv4"})
+    private String match;
+
+    private KryoNamespace serializer;
+    private FlowEntry[] flows;
+    private byte[][] flowBytes;
+    private int flow;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CompactEncoding.setEnabled(namespace.equals("compact"));
+        serializer = namespace.equals("compact") ? KryoNamespaces.API : reflectiveNamespace();
+        flows = new FlowEntry[FLOWS];
+        flowBytes = new byte[FLOWS][];
+        long totalBytes = 0;
+        for (int i = 0; i < FLOWS; i++) {
+            flows[i] = flowEntry(i);
+            flowBytes[i] = serializer.serialize(flows[i]);
+            totalBytes += flowBytes[i].length;
+        }
+        System.out.printf("%n%s/%s: %.1f bytes per flow entry%n",
+                          namespace, match, (double) totalBytes / FLOWS);
+    }
+
+    // The API namespace with the flow rule object graph serialized as it
+    // was before the compact serializers were registered; port numbers keep
+    // their original encoding outside the compact selector and treatment
+    private static KryoNamespace reflectiveNamespace() {
+        return KryoNamespace.newBuilder()
+                .register(KryoNamespaces.API)
+                .nextId(KryoNamespaces.BEGIN_USER_CUSTOM_ID)
+                .register(new ReflectiveSerializer<>(DefaultTrafficSelector.class),
+                          DefaultTrafficSelector.class)
+                .register(new ReflectiveSerializer<>(DefaultTrafficTreatment.class),
+                          DefaultTrafficTreatment.class)
+                .register(new UncachedDeviceIdSerializer(), DeviceId.class)
+                .build("reflective");
+    }
+
+    private FlowEntry flowEntry(int i) {
+        PortNumber inPort = PortNumber.portNumber(1 + i % PORTS);
+        PortNumber outPort = PortNumber.portNumber(1 + (i + 1) % PORTS);
+        TrafficSelector.Builder selector = DefaultTrafficSelector.builder()
+                .matchInPort(inPort);
+        if (match.equals("l2")) {
+            selector.matchEthDst(MacAddress.valueOf((long) i + 1));
+        } else {
+            selector.matchEthType(Ethernet.TYPE_IPV4)
+                    .matchIPProtocol(IPv4.PROTOCOL_TCP)
+                    .matchIPSrc(Ip4Prefix.valueOf(0x0a000000 + i, 32))
+                    .matchIPDst(Ip4Prefix.valueOf(0x0b000000 + i, 32))
+                    .matchTcpSrc(TpPort.tpPort(1024 + i))
+                    .matchTcpDst(TpPort.tpPort(80));
+        }
+        return new DefaultFlowEntry(DefaultFlowRule.builder()
+                                            .forDevice(DEVICE_ID)
+                                            .fromApp(APP_ID)
+                                            .withPriority(40000)
+                                            .makePermanent()
+                                            .withSelector(selector.build())
+                                            .withTreatment(DefaultTrafficTreatment.builder()
+                                                                   .setOutput(outPort)
+                                                                   .build())
+                                            .build(),
+                                    FlowEntry.FlowEntryState.ADDED);
+    }
+
+    @Benchmark
+    public byte[] serializeFlowEntry() {
+        flow = (flow + 1) % flows.length;
+        return serializer.serialize(flows[flow]);
+    }
+
+    @Benchmark
+    public FlowEntry deserializeFlowEntry() {
+        flow = (flow + 1) % flows.length;
+        return serializer.deserialize(flowBytes[flow]);
+    }
+
+    // Kryo's default field serializer, created for the first Kryo instance
+    // that uses it; the benchmark is single threaded
+    private static final class ReflectiveSerializer<T> extends Serializer<T> {
+        private final Class<T> type;
+        private FieldSerializer<T> serializer;
+
+        private ReflectiveSerializer(Class<T> type) {
+            super(false, true);
+            this.type = type;
+        }
+
+        private FieldSerializer<T> serializer(Kryo kryo) {
+            if (serializer == null) {
+                serializer = new FieldSerializer<>(kryo, type);
+            }
+            return serializer;
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, T object) {
+            serializer(kryo).write(kryo, output, object);
+        }
+
+        @Override
+        public T read(Kryo kryo, Input input, Class<T> type) {
+            return serializer(kryo).read(kryo, input, type);
+        }
+    }
+
+    private static final class UncachedDeviceIdSerializer extends Serializer<DeviceId> {
+        private UncachedDeviceIdSerializer() {
+            super(false, true);
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, DeviceId object) {
+            output.writeString(object.toString());
+        }
+
+        @Override
+        public DeviceId read(Kryo kryo, Input input, Class<DeviceId> type) {
+            return DeviceId.deviceId(input.readString());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmark.net;
+
+import org.onlab.util.KryoNamespace;
+import org.onosproject.net.Device;
+import org.onosproject.net.Link;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Kryo serialization of the network model objects most often
+ * replicated between cluster nodes.
+ * <p>
+ * Run with {@code -prof gc} to measure the allocation rates as well.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    private static final String TOPO_SHAPE = "fattree,8";
+    private static final int FLOWS = 1024;
+
+    private final KryoNamespace serializer = KryoNamespaces.API;
+
+    private FlowEntry[] flows;
+    private Link[] links;
+    private Device[] devices;
+    private byte[][] flowBytes;
+    private byte[][] linkBytes;
+    private byte[][] deviceBytes;
+    private int flow;
+    private int link;
+    private int device;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimulatedNetwork network = SimulatedNetwork.of(TOPO_SHAPE, 0, 0);
+        List<Device> deviceList = network.devices();
+        flows = network.flowEntries(deviceList.get(0).id(), FLOWS).toArray(new FlowEntry[0]);
+        links = network.links().toArray(new Link[0]);
+        devices = deviceList.toArray(new Device[0]);
+
+        flowBytes = encode(flows);
+        linkBytes = encode(links);
+        deviceBytes = encode(devices);
+    }
+
+    private byte[][] encode(Object[] objects) {
+        byte[][] bytes = new byte[objects.length][];
+        for (int i = 0; i < objects.length; i++) {
+            bytes[i] = serializer.serialize(objects[i]);
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public byte[] serializeFlowEntry() {
+        flow = (flow + 1) % flows.length;
+        return serializer.serialize(flows[flow]);
+    }
+
+    @Benchmark
+    public FlowEntry deserializeFlowEntry() {
+        flow = (flow + 1) % flows.length;
+        return serializer.deserialize(flowBytes[flow]);
+    }
+
+    @Benchmark
+    public byte[] serializeLink() {
+        link = (link + 1) % links.length;
+        return serializer.serialize(links[link]);
+    }
+
+    @Benchmark
+    public Link deserializeLink() {
+        link = (link + 1) % links.length;
+        return serializer.deserialize(linkBytes[link]);
+    }
+
+    @Benchmark
+    public byte[] serializeDevice() {
+        device = (device + 1) % devices.length;
+        return serializer.serialize(devices[device]);
+    }
+
+    @Benchmark
+    public Device deserializeDevice() {
+        device = (device + 1) % devices.length;
+        return serializer.deserialize(deviceBytes[device]);
+    }
+
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmark.net;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.onlab.osgi.TestServiceDirectory;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.MacAddress;
+import org.onosproject.cluster.ClusterService;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.common.DefaultTopology;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.mastership.MastershipAdminService;
+import org.onosproject.mastership.MastershipService;
+import org.onosproject.mastership.MastershipServiceAdapter;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultDevice;
+import org.onosproject.net.DefaultHost;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.DefaultPort;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Host;
+import org.onosproject.net.HostId;
+import org.onosproject.net.HostLocation;
+import org.onosproject.net.Link;
+import org.onosproject.net.MastershipRole;
+import org.onosproject.net.Port;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.device.DeviceAdminService;
+import org.onosproject.net.device.DeviceDescription;
+import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.device.DeviceListener;
+import org.onosproject.net.device.DeviceProviderServiceAdapter;
+import org.onosproject.net.device.DeviceServiceAdapter;
+import org.onosproject.net.device.PortDescription;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.host.HostDescription;
+import org.onosproject.net.host.HostProvider;
+import org.onosproject.net.host.HostProviderService;
+import org.onosproject.net.host.HostService;
+import org.onosproject.net.host.HostServiceAdapter;
+import org.onosproject.net.link.LinkDescription;
+import org.onosproject.net.link.LinkProvider;
+import org.onosproject.net.link.LinkProviderService;
+import org.onosproject.net.link.LinkService;
+import org.onosproject.net.link.LinkServiceAdapter;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.net.topology.DefaultGraphDescription;
+import org.onosproject.provider.nil.FatTreeTopologySimulator;
+import org.onosproject.provider.nil.GridTopologySimulator;
+import org.onosproject.provider.nil.LinearTopologySimulator;
+import org.onosproject.provider.nil.SpineLeafTopologySimulator;
+import org.onosproject.provider.nil.TopologySimulator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Network model generated by the null provider topology simulators, for use
+ * as a realistic data set in benchmarks.
+ * <p>
+ * The simulators are driven against stub provider services which simply
+ * record the devices, ports, links and hosts they describe; no core
+ * managers or stores are involved.
+ * </p>
+ */
+public final class SimulatedNetwork {
+
+    /**
+     * Provider identifier of all generated elements.
+     */
+    public static final ProviderId PID = new ProviderId("null", "org.onosproject.provider.nil");
+
+    /**
+     * Application identifier of all generated flow rules.
+     */
+    public static final ApplicationId APP_ID = new DefaultApplicationId(1, "org.onosproject.benchmark");
+
+    private static final int FLOW_PRIORITY = 40000;
+
+    private final Map<DeviceId, Device> devices = Maps.newLinkedHashMap();
+    private final Map<DeviceId, List<Port>> ports = Maps.newLinkedHashMap();
+    private final List<Link> links = Lists.newArrayList();
+    private final Map<HostId, Host> hosts = Maps.newLinkedHashMap();
+
+    private SimulatedNetwork() {
+    }
+
+    /**
+     * Generates a network with the given null provider topology shape, e.g.
+     * {@code spineleaf,4,16,8}, {@code fattree,8}, {@code grid,20,20,0} or
+     * {@code linear,100}.
+     *
+     * @param topoShape   topology shape specifier
+     * @param deviceCount number of devices, for shapes which do not imply it
+     * @param hostCount   number of hosts per device, for shapes which do not imply it
+     * @return generated network
+     */
+    public static SimulatedNetwork of(String topoShape, int deviceCount, int hostCount) {
+        SimulatedNetwork network = new SimulatedNetwork();
+        TestServiceDirectory services = network.directory();
+        DeviceProviderServiceAdapter deviceRecorder = network.new DeviceRecorder(services);
+        HostProviderService hostRecorder = network.new HostRecorder();
+        LinkProviderService linkRecorder = network.new LinkRecorder();
+
+        // init() is only visible to simulator subclasses, whose fields shadow
+        // any local named like them
+        String shapeSpec = topoShape;
+        int numDevices = deviceCount;
+        int numHosts = hostCount;
+        TopologySimulator simulator;
+        String shape = topoShape.split(",")[0];
+        switch (shape) {
+            case "spineleaf":
+                simulator = new SpineLeafTopologySimulator() {
+                    {
+                        init(shapeSpec, numDevices, numHosts, services,
+                             deviceRecorder, hostRecorder, linkRecorder);
+                    }
+                };
+                break;
+            case "fattree":
+                simulator = new FatTreeTopologySimulator() {
+                    {
+                        init(shapeSpec, numDevices, numHosts, services,
+                             deviceRecorder, hostRecorder, linkRecorder);
+                    }
+                };
+                break;
+            case "grid":
+                simulator = new GridTopologySimulator() {
+                    {
+                        init(shapeSpec, numDevices, numHosts, services,
+                             deviceRecorder, hostRecorder, linkRecorder);
+                    }
+                };
+                break;
+            case "linear":
+                simulator = new LinearTopologySimulator() {
+                    {
+                        init(shapeSpec, numDevices, numHosts, services,
+                             deviceRecorder, hostRecorder, linkRecorder);
+                    }
+                };
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported topology shape " + shape);
+        }
+        simulator.setUpTopology();
+        checkArgument(!network.devices.isEmpty(), "Topology shape %s yields no devices", topoShape);
+        return network;
+    }
+
+    private TestServiceDirectory directory() {
+        return new TestServiceDirectory()
+                .add(ClusterService.class, new ClusterServiceAdapter())
+                .add(MastershipService.class, new MastershipServiceAdapter())
+                .add(MastershipAdminService.class, new MastershipAdmin())
+                .add(DeviceAdminService.class, new DeviceAdmin())
+                .add(HostService.class, new HostServiceAdapter())
+                .add(LinkService.class, new LinkServiceAdapter());
+    }
+
+    /**
+     * Returns the generated devices, in the order of their creation.
+     *
+     * @return list of devices
+     */
+    public List<Device> devices() {
+        return ImmutableList.copyOf(devices.values());
+    }
+
+    /**
+     * Returns the ports of the given device.
+     *
+     * @param deviceId device identifier
+     * @return list of ports
+     */
+    public List<Port> ports(DeviceId deviceId) {
+        return ports.getOrDefault(deviceId, ImmutableList.of());
+    }
+
+    /**
+     * Returns the generated infrastructure links.
+     *
+     * @return list of links
+     */
+    public List<Link> links() {
+        return ImmutableList.copyOf(links);
+    }
+
+    /**
+     * Returns the generated hosts.
+     *
+     * @return list of hosts
+     */
+    public List<Host> hosts() {
+        return ImmutableList.copyOf(hosts.values());
+    }
+
+    /**
+     * Generates forwarding flow entries for the given device, matching on
+     * the input port and a destination MAC address and outputting to another
+     * port of the device.
+     *
+     * @param deviceId device identifier
+     * @param count    number of flow entries
+     * @return list of added flow entries
+     */
+    public List<FlowEntry> flowEntries(DeviceId deviceId, int count) {
+        List<Port> devicePorts = ports(deviceId);
+        checkArgument(devicePorts.size() > 1, "Device %s has too few ports", deviceId);
+        List<FlowEntry> entries = Lists.newArrayListWithCapacity(count);
+        for (int i = 0; i < count; i++) {
+            PortNumber inPort = devicePorts.get(i % devicePorts.size()).number();
+            PortNumber outPort = devicePorts.get((i + 1) % devicePorts.size()).number();
+            FlowRule rule = DefaultFlowRule.builder()
+                    .forDevice(deviceId)
+                    .fromApp(APP_ID)
+                    .withPriority(FLOW_PRIORITY)
+                    .makePermanent()
+                    .withSelector(DefaultTrafficSelector.builder()
+                                          .matchInPort(inPort)
+                                          .matchEthDst(MacAddress.valueOf((long) i + 1))
+                                          .build())
+                    .withTreatment(DefaultTrafficTreatment.builder()
+                                           .setOutput(outPort)
+                                           .build())
+                    .build();
+            entries.add(new DefaultFlowEntry(rule, FlowEntry.FlowEntryState.ADDED));
+        }
+        return entries;
+    }
+
+    /**
+     * Builds a topology snapshot of the generated network.
+     *
+     * @return new topology
+     */
+    public DefaultTopology topology() {
+        long now = System.currentTimeMillis();
+        return new DefaultTopology(PID, new DefaultGraphDescription(System.nanoTime(), now,
+                                                                    devices.values(), links));
+    }
+
+    // Records devices and ports, and announces devices to the simulator's latch
+    private final class DeviceRecorder extends DeviceProviderServiceAdapter {
+        private final DeviceAdmin deviceService;
+
+        private DeviceRecorder(TestServiceDirectory directory) {
+            this.deviceService = (DeviceAdmin) directory.get(DeviceAdminService.class);
+        }
+
+        @Override
+        public void deviceConnected(DeviceId deviceId, DeviceDescription desc) {
+            Device device = new DefaultDevice(PID, deviceId, desc.type(), desc.manufacturer(),
+                                              desc.hwVersion(), desc.swVersion(),
+                                              desc.serialNumber(), desc.chassisId());
+            devices.put(deviceId, device);
+            deviceService.post(new DeviceEvent(DeviceEvent.Type.DEVICE_ADDED, device));
+        }
+
+        @Override
+        public void updatePorts(DeviceId deviceId, List<PortDescription> portDescriptions) {
+            Device device = devices.get(deviceId);
+            List<Port> devicePorts = Lists.newArrayList();
+            portDescriptions.forEach(desc -> devicePorts.add(
+                    new DefaultPort(device, desc.portNumber(), desc.isEnabled(),
+                                    desc.type(), desc.portSpeed())));
+            ports.put(deviceId, devicePorts);
+        }
+    }
+
+    private final class LinkRecorder implements LinkProviderService {
+        @Override
+        public void linkDetected(LinkDescription desc) {
+            links.add(DefaultLink.builder()
+                              .providerId(PID)
+                              .src(desc.src())
+                              .dst(desc.dst())
+                              .type(desc.type())
+                              .state(Link.State.ACTIVE)
+                              .build());
+        }
+
+        @Override
+        public void linkVanished(LinkDescription desc) {
+        }
+
+        @Override
+        public void linksVanished(ConnectPoint connectPoint) {
+        }
+
+        @Override
+        public void linksVanished(DeviceId deviceId) {
+        }
+
+        @Override
+        public LinkProvider provider() {
+            return null;
+        }
+    }
+
+    private final class HostRecorder implements HostProviderService {
+        @Override
+        public void hostDetected(HostId hostId, HostDescription desc, boolean replaceIps) {
+            hosts.put(hostId, new DefaultHost(PID, hostId, desc.hwAddress(), desc.vlan(),
+                                              desc.location(), ImmutableSet.copyOf(desc.ipAddress())));
+        }
+
+        @Override
+        public void hostVanished(HostId hostId) {
+        }
+
+        @Override
+        public void removeIpFromHost(HostId hostId, IpAddress ipAddress) {
+        }
+
+        @Override
+        public void removeLocationFromHost(HostId hostId, HostLocation location) {
+        }
+
+        @Override
+        public HostProvider provider() {
+            return null;
+        }
+    }
+
+    private static final class DeviceAdmin extends DeviceServiceAdapter implements DeviceAdminService {
+        private final List<DeviceListener> listeners = new CopyOnWriteArrayList<>();
+
+        private void post(DeviceEvent event) {
+            listeners.forEach(listener -> listener.event(event));
+        }
+
+        @Override
+        public void addListener(DeviceListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeListener(DeviceListener listener) {
+            listeners.remove(listener);
+        }
+
+        @Override
+        public void removeDevice(DeviceId deviceId) {
+        }
+
+        @Override
+        public void changePortState(DeviceId deviceId, PortNumber portNumber, boolean enable) {
+        }
+    }
+
+    private static final class MastershipAdmin implements MastershipAdminService {
+        @Override
+        public CompletableFuture<Void> setRole(NodeId instance, DeviceId deviceId, MastershipRole role) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void balanceRoles() {
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmark.net;
+
+import org.onosproject.common.DefaultTopology;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.DisjointPath;
+import org.onosproject.net.Path;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures topology snapshot construction and path searches over simulated
+ * networks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopologyBenchmark {
+
+    private static final int PAIRS = 64;
+
+    @Param({"spineleaf,4,32,0", "fattree,8", "grid,10,10,0"})
+    private String topoShape;
+
+    private SimulatedNetwork network;
+    private DefaultTopology topology;
+    private DeviceId[] sources;
+    private DeviceId[] destinations;
+    private int pair;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        network = SimulatedNetwork.of(topoShape, 0, 0);
+        topology = network.topology();
+
+        List<Device> devices = network.devices();
+        Random random = new Random(topoShape.hashCode());
+        sources = new DeviceId[PAIRS];
+        destinations = new DeviceId[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            int src = random.nextInt(devices.size());
+            int dst = (src + 1 + random.nextInt(devices.size() - 1)) % devices.size();
+            sources[i] = devices.get(src).id();
+            destinations[i] = devices.get(dst).id();
+        }
+    }
+
+    private int nextPair() {
+        pair = (pair + 1) % PAIRS;
+        return pair;
+    }
+
+    @Benchmark
+    public int buildTopology() {
+        // Cluster computation is part of what every topology event costs
+        return network.topology().clusterCount();
+    }
+
+    @Benchmark
+    public Set<Path> paths() {
+        int i = nextPair();
+        return topology.getPaths(sources[i], destinations[i]);
+    }
+
+    @Benchmark
+    public Set<DisjointPath> disjointPaths() {
+        int i = nextPair();
+        return topology.getDisjointPaths(sources[i], destinations[i]);
+    }
+
+}
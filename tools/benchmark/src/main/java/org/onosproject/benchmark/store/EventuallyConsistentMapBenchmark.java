@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmark.store;
+
+import com.google.common.collect.ImmutableList;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.benchmark.net.SimulatedNetwork;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.Link;
+import org.onosproject.net.LinkKey;
+import org.onosproject.store.atomix.primitives.impl.EventuallyConsistentMapBuilderImpl;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.persistence.PersistenceServiceAdapter;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.EventuallyConsistentMap;
+import org.onosproject.store.service.WallClockTimestamp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures local updates and reads of an eventually consistent map holding
+ * the links of a simulated network, as the link store does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventuallyConsistentMapBenchmark {
+
+    private static final String TOPO_SHAPE = "fattree,16";
+
+    private EventuallyConsistentMap<LinkKey, Link> map;
+    private LinkKey[] keys;
+    private Link[] links;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Link> linkList = SimulatedNetwork.of(TOPO_SHAPE, 0, 0).links();
+        links = linkList.toArray(new Link[0]);
+        keys = new LinkKey[links.length];
+        for (int i = 0; i < links.length; i++) {
+            keys[i] = LinkKey.linkKey(links[i]);
+        }
+
+        // Without peers, this measures the local update path only
+        map = new EventuallyConsistentMapBuilderImpl<LinkKey, Link>(
+                NodeId.nodeId("local"),
+                new ClusterCommunicationServiceAdapter(),
+                new PersistenceServiceAdapter(),
+                ImmutableList::of,
+                ImmutableList::of)
+                .withName("benchmark-links")
+                .withSerializer(KryoNamespace.newBuilder().register(KryoNamespaces.API))
+                .withTimestampProvider((k, v) -> new WallClockTimestamp())
+                .build();
+        for (int i = 0; i < links.length; i++) {
+            map.put(keys[i], links[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        map.destroy().join();
+    }
+
+    private int next() {
+        index = (index + 1) % keys.length;
+        return index;
+    }
+
+    @Benchmark
+    public void put() {
+        int i = next();
+        map.put(keys[i], links[i]);
+    }
+
+    @Benchmark
+    public Link get() {
+        return map.get(keys[next()]);
+    }
+
+}
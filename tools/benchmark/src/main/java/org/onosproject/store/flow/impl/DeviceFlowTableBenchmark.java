@@ -0,0 +1,170 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.onosproject.benchmark.net.SimulatedNetwork;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures flow entry additions and updates in the flow table of a device
+ * mastered by the local node.
+ * <p>
+ * Lives in the flow store package since the table is not accessible outside
+ * of it.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeviceFlowTableBenchmark {
+
+    private static final String TOPO_SHAPE = "fattree,8";
+    private static final long BACKUP_PERIOD_MILLIS = 100;
+    private static final long ANTI_ENTROPY_PERIOD_MILLIS = 5000;
+
+    @Param({"10000"})
+    private int flowCount;
+
+    private final ClusterServiceAdapter clusterService = new ClusterServiceAdapter();
+    private final AtomicInteger index = new AtomicInteger();
+
+    private ScheduledExecutorService scheduler;
+    private DeviceFlowTable flowTable;
+    private FlowEntry[] entries;
+    private FlowEntry[] updates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimulatedNetwork network = SimulatedNetwork.of(TOPO_SHAPE, 0, 0);
+        DeviceId deviceId = network.devices().get(0).id();
+        List<FlowEntry> flows = network.flowEntries(deviceId, flowCount);
+        entries = flows.toArray(new FlowEntry[0]);
+        updates = new FlowEntry[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            updates[i] = new DefaultFlowEntry(entries[i], FlowEntry.FlowEntryState.ADDED,
+                                              1, TimeUnit.SECONDS, 100, 10_000);
+        }
+
+        // Backups run against a cluster with no other nodes, so they only
+        // drain the change logs
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        flowTable = new DeviceFlowTable(
+                deviceId,
+                clusterService,
+                new ClusterCommunicationServiceAdapter(),
+                new MasterLifecycleManager(clusterService.getLocalNode().id()),
+                scheduler,
+                scheduler,
+                BACKUP_PERIOD_MILLIS,
+                ANTI_ENTROPY_PERIOD_MILLIS);
+        for (FlowEntry entry : entries) {
+            flowTable.add(entry).join();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        flowTable.close();
+        scheduler.shutdownNow();
+    }
+
+    private int next() {
+        return Math.floorMod(index.getAndIncrement(), entries.length);
+    }
+
+    @Benchmark
+    public void add() {
+        flowTable.add(entries[next()]).join();
+    }
+
+    @Benchmark
+    public void update() {
+        flowTable.update(updates[next()]).join();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void updateContended() {
+        flowTable.update(updates[next()]).join();
+    }
+
+    @Benchmark
+    public FlowEntry get() {
+        return flowTable.getFlowEntry(entries[next()]);
+    }
+
+    /**
+     * Lifecycle manager keeping the local node as master in a single term.
+     */
+    private static final class MasterLifecycleManager implements LifecycleManager {
+        private final DeviceReplicaInfo replicaInfo;
+
+        private MasterLifecycleManager(NodeId localNodeId) {
+            this.replicaInfo = new DeviceReplicaInfo(1, localNodeId, ImmutableList.of());
+        }
+
+        @Override
+        public DeviceReplicaInfo getReplicaInfo() {
+            return replicaInfo;
+        }
+
+        @Override
+        public void activate(long term) {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void addListener(LifecycleEventListener listener) {
+        }
+
+        @Override
+        public void removeListener(LifecycleEventListener listener) {
+        }
+    }
+
+}
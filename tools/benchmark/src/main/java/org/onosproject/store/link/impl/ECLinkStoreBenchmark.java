@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.link.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.onosproject.benchmark.net.SimulatedNetwork;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.core.CoreServiceAdapter;
+import org.onosproject.mastership.MastershipServiceAdapter;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.config.NetworkConfigRegistryAdapter;
+import org.onosproject.net.device.DeviceClockServiceAdapter;
+import org.onosproject.net.link.DefaultLinkDescription;
+import org.onosproject.store.Timestamp;
+import org.onosproject.store.atomix.primitives.impl.EventuallyConsistentMapBuilderImpl;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.impl.MastershipBasedTimestamp;
+import org.onosproject.store.persistence.PersistenceServiceAdapter;
+import org.onosproject.store.service.EventuallyConsistentMapBuilder;
+import org.onosproject.store.service.StorageServiceAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Measures the ingress and egress link lookups of the link store.
+ * <p>
+ * The lookups are indexed, so their cost should depend on the number of
+ * links attached to the device or connect point and not on the size of the
+ * network; compare the scores of the two topology sizes.
+ * </p>
+ * <p>
+ * Lives in the link store package to wire the store to test services.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ECLinkStoreBenchmark {
+
+    private static final long LOAD_TIMEOUT_MILLIS = 60_000;
+
+    // About 360 and 40k unidirectional links
+    @Param({"grid,10,10,0", "grid,100,100,0"})
+    private String topoShape;
+
+    private ECLinkStore store;
+    private DeviceId[] devices;
+    private ConnectPoint[] srcs;
+    private ConnectPoint[] dsts;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimulatedNetwork network = SimulatedNetwork.of(topoShape, 0, 0);
+        ClusterServiceAdapter clusterService = new ClusterServiceAdapter();
+        NodeId localNodeId = clusterService.getLocalNode().id();
+
+        // Without peers, the link descriptions map only notifies the store
+        // of local updates. Without a link discovery configuration, links
+        // are accepted as they are discovered.
+        store = new ECLinkStore();
+        store.storageService = new StorageServiceAdapter() {
+            @Override
+            public <K, V> EventuallyConsistentMapBuilder<K, V> eventuallyConsistentMapBuilder() {
+                return new EventuallyConsistentMapBuilderImpl<>(
+                        localNodeId,
+                        new ClusterCommunicationServiceAdapter(),
+                        new PersistenceServiceAdapter(),
+                        ImmutableList::of,
+                        ImmutableList::of);
+            }
+        };
+        store.clusterService = clusterService;
+        store.clusterCommunicator = new ClusterCommunicationServiceAdapter();
+        store.coreService = new CoreServiceAdapter();
+        store.netCfgService = new NetworkConfigRegistryAdapter();
+        store.deviceClockService = new DeviceClockServiceAdapter() {
+            private final AtomicLong sequence = new AtomicLong();
+
+            @Override
+            public Timestamp getTimestamp(DeviceId deviceId) {
+                return new MastershipBasedTimestamp(1, sequence.incrementAndGet());
+            }
+        };
+        store.mastershipService = new MastershipServiceAdapter() {
+            @Override
+            public NodeId getMasterFor(DeviceId deviceId) {
+                return localNodeId;
+            }
+        };
+        store.activate();
+
+        List<Link> links = network.links();
+        devices = network.devices().stream().map(Device::id).toArray(DeviceId[]::new);
+        srcs = new ConnectPoint[links.size()];
+        dsts = new ConnectPoint[links.size()];
+        for (int i = 0; i < links.size(); i++) {
+            Link link = links.get(i);
+            store.createOrUpdateLink(SimulatedNetwork.PID,
+                                     new DefaultLinkDescription(link.src(), link.dst(), link.type()));
+            srcs[i] = link.src();
+            dsts[i] = link.dst();
+        }
+
+        // Links are cached as the map notifies the store of their descriptions
+        long deadline = System.currentTimeMillis() + LOAD_TIMEOUT_MILLIS;
+        while (store.getLinkCount() < links.size()) {
+            checkState(System.currentTimeMillis() < deadline,
+                       "Loaded %s of %s links", store.getLinkCount(), links.size());
+            Thread.yield();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.deactivate();
+    }
+
+    private int next(int count) {
+        index = (index + 1) % count;
+        return index;
+    }
+
+    @Benchmark
+    public Set<Link> deviceEgressLinks() {
+        return store.getDeviceEgressLinks(devices[next(devices.length)]);
+    }
+
+    @Benchmark
+    public Set<Link> deviceIngressLinks() {
+        return store.getDeviceIngressLinks(devices[next(devices.length)]);
+    }
+
+    @Benchmark
+    public Set<Link> egressLinks() {
+        return store.getEgressLinks(srcs[next(srcs.length)]);
+    }
+
+    @Benchmark
+    public Set<Link> ingressLinks() {
+        return store.getIngressLinks(dsts[next(dsts.length)]);
+    }
+
+}
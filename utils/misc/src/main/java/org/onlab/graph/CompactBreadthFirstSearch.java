@@ -0,0 +1,161 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Breadth-first search over a {@link CompactGraph}, finding the paths with
+ * the fewest hops; edges with infinite weight are not traversed.
+ * Per-search state is kept in primitive arrays reused by subsequent searches
+ * on the same thread.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class CompactBreadthFirstSearch<V extends Vertex, E extends Edge<V>> {
+
+    private static final int NONE = -1;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Searches the graph for a path with the fewest hops between the given
+     * vertexes.
+     *
+     * @param graph   compact graph
+     * @param src     source vertex
+     * @param dst     destination vertex
+     * @param weights optional edge weights, as produced by
+     *                {@link CompactGraph#weights}; used to skip non-viable
+     *                edges and to compute the path cost
+     * @return set holding the path; empty if there is none
+     */
+    public Set<Path<V, E>> search(CompactGraph<V, E> graph, V src, V dst, double[] weights) {
+        int s = checkedIndex(graph, src);
+        int t = checkedIndex(graph, dst);
+        if (s == t) {
+            return ImmutableSet.of();
+        }
+
+        Scratch scratch = SCRATCH.get();
+        search(graph, weights, s, t, scratch);
+        if (scratch.stamp[t] != scratch.epoch) {
+            return ImmutableSet.of();
+        }
+
+        List<E> edges = Lists.newArrayList();
+        double cost = 0;
+        for (int v = t; v != s; ) {
+            int e = scratch.parent[v];
+            edges.add(graph.edge(e));
+            cost += weights != null ? weights[e] : 1;
+            v = graph.src(e);
+        }
+        return ImmutableSet.of(new DefaultPath<>(Lists.reverse(edges), new ScalarWeight(cost)));
+    }
+
+    /**
+     * Searches the graph for a breadth-first tree rooted at the given vertex.
+     *
+     * @param graph   compact graph
+     * @param src     root vertex
+     * @param weights optional edge weights, used to skip non-viable edges
+     * @return array of parent edge indexes, indexed by vertex; -1 for the
+     * root and for vertexes which are not reachable
+     */
+    public int[] searchTree(CompactGraph<V, E> graph, V src, double[] weights) {
+        int s = checkedIndex(graph, src);
+        Scratch scratch = SCRATCH.get();
+        search(graph, weights, s, NONE, scratch);
+
+        int[] parents = new int[graph.vertexCount()];
+        for (int v = 0; v < parents.length; v++) {
+            parents[v] = scratch.stamp[v] == scratch.epoch ? scratch.parent[v] : NONE;
+        }
+        return parents;
+    }
+
+    private int checkedIndex(CompactGraph<V, E> graph, V vertex) {
+        int index = graph.indexOf(vertex);
+        checkArgument(index >= 0, "Vertex %s is not in the graph", vertex);
+        return index;
+    }
+
+    // Visits vertexes in order of hop distance, stopping once the
+    // destination, if any, has been reached.
+    private void search(CompactGraph<V, E> graph, double[] weights, int s, int t,
+                        Scratch scratch) {
+        checkArgument(weights == null || weights.length == graph.edgeCount(),
+                      "Weights do not match the graph");
+        scratch.prepare(graph.vertexCount());
+        int epoch = scratch.epoch;
+        int[] queue = scratch.queue;
+        int head = 0;
+        int tail = 0;
+
+        scratch.stamp[s] = epoch;
+        scratch.parent[s] = NONE;
+        queue[tail++] = s;
+        while (head < tail) {
+            int u = queue[head++];
+            for (int e = graph.edgesFrom(u), end = graph.edgesFromEnd(u); e < end; e++) {
+                if (weights != null && weights[e] == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                int v = graph.dst(e);
+                if (scratch.stamp[v] != epoch) {
+                    scratch.stamp[v] = epoch;
+                    scratch.parent[v] = e;
+                    if (v == t) {
+                        return;
+                    }
+                    queue[tail++] = v;
+                }
+            }
+        }
+    }
+
+    // Per-thread search state; entries are valid only when stamped with the
+    // current epoch.
+    private static final class Scratch {
+        int epoch;
+        int[] stamp = new int[0];
+        int[] parent = new int[0];
+        int[] queue = new int[0];
+
+        void prepare(int n) {
+            if (stamp.length < n) {
+                stamp = new int[n];
+                parent = new int[n];
+                queue = new int[n];
+                epoch = 0;
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                epoch = 1;
+            }
+        }
+    }
+
+}
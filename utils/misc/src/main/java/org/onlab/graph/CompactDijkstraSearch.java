@@ -0,0 +1,275 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.math.DoubleMath;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+
+/**
+ * Dijkstra shortest-path search over a {@link CompactGraph}.
+ * <p>
+ * Produces the same paths as {@link DijkstraGraphSearch} for non-negative
+ * scalar edge weights, while keeping all per-search state in primitive
+ * arrays which are reused by subsequent searches on the same thread.
+ * Edges with negative, NaN or infinite weight are not traversed.
+ * </p>
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class CompactDijkstraSearch<V extends Vertex, E extends Edge<V>> {
+
+    private static final int NONE = -1;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Searches the graph for the shortest paths between the given vertexes.
+     *
+     * @param graph    compact graph
+     * @param src      source vertex
+     * @param dst      destination vertex
+     * @param weights  edge weights, as produced by {@link CompactGraph#weights}
+     * @param maxPaths limit on the number of paths;
+     *                 {@link GraphPathSearch#ALL_PATHS} if no limit
+     * @return set of equal-cost shortest paths; empty if none
+     */
+    public Set<Path<V, E>> search(CompactGraph<V, E> graph, V src, V dst,
+                                  double[] weights, int maxPaths) {
+        int s = checkedIndex(graph, src);
+        int t = checkedIndex(graph, dst);
+        if (s == t || (maxPaths != ALL_PATHS && maxPaths <= 0)) {
+            return ImmutableSet.of();
+        }
+
+        Scratch scratch = SCRATCH.get();
+        search(graph, weights, s, t, maxPaths, scratch);
+        if (!scratch.reached(t)) {
+            return ImmutableSet.of();
+        }
+        return buildPaths(graph, s, t, maxPaths, scratch);
+    }
+
+    /**
+     * Searches the graph for a shortest-path tree rooted at the given vertex.
+     * Among equal-cost parents, the first one found is retained.
+     *
+     * @param graph   compact graph
+     * @param src     root vertex
+     * @param weights edge weights, as produced by {@link CompactGraph#weights}
+     * @return array of parent edge indexes, indexed by vertex; -1 for the
+     * root and for vertexes which are not reachable
+     */
+    public int[] searchTree(CompactGraph<V, E> graph, V src, double[] weights) {
+        int s = checkedIndex(graph, src);
+        Scratch scratch = SCRATCH.get();
+        search(graph, weights, s, NONE, 1, scratch);
+
+        int[] parents = new int[graph.vertexCount()];
+        for (int v = 0; v < parents.length; v++) {
+            int slot = scratch.reached(v) ? scratch.head[v] : NONE;
+            parents[v] = slot == NONE ? NONE : scratch.slotEdge[slot];
+        }
+        return parents;
+    }
+
+    private int checkedIndex(CompactGraph<V, E> graph, V vertex) {
+        int index = graph.indexOf(vertex);
+        checkArgument(index >= 0, "Vertex %s is not in the graph", vertex);
+        return index;
+    }
+
+    // Runs the search, stopping once the destination, if any, is settled.
+    private void search(CompactGraph<V, E> graph, double[] weights,
+                        int s, int t, int maxPaths, Scratch scratch) {
+        checkArgument(weights.length == graph.edgeCount(), "Weights do not match the graph");
+        scratch.prepare(graph.vertexCount(), graph.edgeCount());
+        double threshold = ScalarWeight.samenessThreshold();
+        int epoch = scratch.epoch;
+        double[] dist = scratch.dist;
+        IntMinHeap queue = scratch.queue;
+
+        scratch.reach(s, 0);
+        queue.offer(s, 0);
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            scratch.settled[u] = epoch;
+            if (u == t) {
+                break;
+            }
+
+            double cost = dist[u];
+            for (int e = graph.edgesFrom(u), end = graph.edgesFromEnd(u); e < end; e++) {
+                double weight = weights[e];
+                if (!(weight >= 0) || weight == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                int v = graph.dst(e);
+                double newCost = cost + weight;
+                if (!scratch.reached(v)) {
+                    scratch.reach(v, newCost);
+                    scratch.addParent(v, e, maxPaths);
+                    queue.offer(v, newCost);
+                } else if (DoubleMath.fuzzyEquals(newCost, dist[v], threshold)) {
+                    scratch.addParent(v, e, maxPaths);
+                } else if (newCost < dist[v]) {
+                    dist[v] = newCost;
+                    scratch.clearParents(v);
+                    scratch.addParent(v, e, maxPaths);
+                    if (scratch.settled[v] != epoch) {
+                        queue.offer(v, newCost);
+                    }
+                }
+            }
+        }
+    }
+
+    // Enumerates the paths by walking the parent edges back from the
+    // destination, while avoiding revisiting vertexes already on the path.
+    private Set<Path<V, E>> buildPaths(CompactGraph<V, E> graph, int s, int t,
+                                       int maxPaths, Scratch scratch) {
+        ScalarWeight cost = new ScalarWeight(scratch.dist[t]);
+        ImmutableSet.Builder<Path<V, E>> paths = ImmutableSet.builder();
+        int count = 0;
+
+        int[] vertexes = scratch.frameVertex;
+        int[] slots = scratch.frameSlot;
+        int[] edges = scratch.frameEdge;
+        int[] onPath = scratch.onPath;
+        int epoch = scratch.epoch;
+
+        int depth = 0;
+        vertexes[0] = t;
+        slots[0] = scratch.head[t];
+        onPath[t] = epoch;
+        while (depth >= 0 && (maxPaths == ALL_PATHS || count < maxPaths)) {
+            int slot = slots[depth];
+            if (slot == NONE) {
+                onPath[vertexes[depth]] = 0;
+                depth--;
+                continue;
+            }
+            slots[depth] = scratch.slotNext[slot];
+
+            int e = scratch.slotEdge[slot];
+            int u = graph.src(e);
+            if (onPath[u] == epoch) {
+                continue;
+            }
+            edges[depth] = e;
+            if (u == s) {
+                ImmutableList.Builder<E> path = ImmutableList.builder();
+                for (int i = depth; i >= 0; i--) {
+                    path.add(graph.edge(edges[i]));
+                }
+                paths.add(new DefaultPath<>(path.build(), cost));
+                count++;
+            } else {
+                depth++;
+                vertexes[depth] = u;
+                slots[depth] = scratch.head[u];
+                onPath[u] = epoch;
+            }
+        }
+        return paths.build();
+    }
+
+    // Per-thread search state; entries are valid only when stamped with the
+    // current epoch, which spares clearing the arrays between searches.
+    private static final class Scratch {
+        int epoch;
+        int[] stamp = new int[0];
+        int[] settled = new int[0];
+        int[] onPath = new int[0];
+        double[] dist = new double[0];
+
+        // Parent edges of each vertex, as linked lists of slots
+        int[] head = new int[0];
+        int[] parentCount = new int[0];
+        int[] slotNext = new int[0];
+        int[] slotEdge = new int[0];
+        int slots;
+
+        int[] frameVertex = new int[0];
+        int[] frameSlot = new int[0];
+        int[] frameEdge = new int[0];
+
+        final IntMinHeap queue = new IntMinHeap();
+
+        void prepare(int n, int m) {
+            if (stamp.length < n) {
+                stamp = new int[n];
+                settled = new int[n];
+                onPath = new int[n];
+                dist = new double[n];
+                head = new int[n];
+                parentCount = new int[n];
+                frameVertex = new int[n];
+                frameSlot = new int[n];
+                frameEdge = new int[n];
+                epoch = 0;
+            }
+            if (slotEdge.length < m) {
+                slotNext = new int[m];
+                slotEdge = new int[m];
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                Arrays.fill(settled, 0);
+                Arrays.fill(onPath, 0);
+                epoch = 1;
+            }
+            slots = 0;
+            queue.reset(n);
+        }
+
+        boolean reached(int v) {
+            return stamp[v] == epoch;
+        }
+
+        void reach(int v, double cost) {
+            stamp[v] = epoch;
+            dist[v] = cost;
+            head[v] = NONE;
+            parentCount[v] = 0;
+        }
+
+        void clearParents(int v) {
+            head[v] = NONE;
+            parentCount[v] = 0;
+        }
+
+        // Each edge is relaxed at most once, so slots never run out.
+        void addParent(int v, int e, int maxPaths) {
+            if (maxPaths != ALL_PATHS && parentCount[v] >= maxPaths) {
+                return;
+            }
+            int slot = slots++;
+            slotEdge[slot] = e;
+            slotNext[slot] = head[v];
+            head[v] = slot;
+            parentCount[v]++;
+        }
+    }
+
+}
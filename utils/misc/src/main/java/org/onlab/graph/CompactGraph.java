@@ -0,0 +1,282 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable graph in compressed sparse row form, where vertexes and edges
+ * are identified by dense integer indexes.
+ * <p>
+ * Egress edges of vertex {@code v} are those with indexes in range
+ * {@code [edgesFrom(v), edgesFromEnd(v))}; ingress edges are reached
+ * through {@link #edgeTo(int)} for positions in range
+ * {@code [edgesTo(v), edgesToEnd(v))}. Vertex and edge ordering follows the
+ * iteration order of the source graph.
+ * </p>
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public final class CompactGraph<V extends Vertex, E extends Edge<V>> {
+
+    private final List<V> vertexes;
+    private final List<E> edges;
+    private final Map<V, Integer> indexes;
+
+    private final int[] outOffsets;
+    private final int[] inOffsets;
+    private final int[] inEdges;
+    private final int[] edgeSrc;
+    private final int[] edgeDst;
+
+    private CompactGraph(List<V> vertexes, List<E> edges, Map<V, Integer> indexes,
+                         int[] outOffsets, int[] inOffsets, int[] inEdges,
+                         int[] edgeSrc, int[] edgeDst) {
+        this.vertexes = vertexes;
+        this.edges = edges;
+        this.indexes = indexes;
+        this.outOffsets = outOffsets;
+        this.inOffsets = inOffsets;
+        this.inEdges = inEdges;
+        this.edgeSrc = edgeSrc;
+        this.edgeDst = edgeDst;
+    }
+
+    /**
+     * Creates a compact copy of the given graph.
+     *
+     * @param graph graph to copy
+     * @param <V>   vertex type
+     * @param <E>   edge type
+     * @return compact graph
+     */
+    public static <V extends Vertex, E extends Edge<V>> CompactGraph<V, E> of(Graph<V, E> graph) {
+        checkNotNull(graph, "Graph cannot be null");
+        Set<V> vertexSet = graph.getVertexes();
+        int n = vertexSet.size();
+        Map<V, Integer> indexes = new HashMap<>(n * 2);
+        ImmutableList.Builder<V> vertexes = ImmutableList.builder();
+        for (V vertex : vertexSet) {
+            indexes.put(vertex, indexes.size());
+            vertexes.add(vertex);
+        }
+
+        // Lay out egress edges vertex by vertex so that they are contiguous.
+        int m = 0;
+        for (V vertex : vertexSet) {
+            m += graph.getEdgesFrom(vertex).size();
+        }
+        int[] outOffsets = new int[n + 1];
+        int[] edgeSrc = new int[m];
+        int[] edgeDst = new int[m];
+        int[] inDegree = new int[n];
+        ImmutableList.Builder<E> edges = ImmutableList.builder();
+        int e = 0;
+        int v = 0;
+        for (V vertex : vertexSet) {
+            outOffsets[v] = e;
+            for (E edge : graph.getEdgesFrom(vertex)) {
+                Integer dst = indexes.get(edge.dst());
+                checkNotNull(dst, "Edge destination not in graph");
+                edgeSrc[e] = v;
+                edgeDst[e] = dst;
+                inDegree[dst]++;
+                edges.add(edge);
+                e++;
+            }
+            v++;
+        }
+        outOffsets[n] = e;
+
+        // Index ingress edges by counting sort on the edge destinations.
+        int[] inOffsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            inOffsets[i + 1] = inOffsets[i] + inDegree[i];
+        }
+        int[] fill = Arrays.copyOf(inOffsets, n);
+        int[] inEdges = new int[m];
+        for (int i = 0; i < m; i++) {
+            inEdges[fill[edgeDst[i]]++] = i;
+        }
+
+        return new CompactGraph<>(vertexes.build(), edges.build(), indexes,
+                                  outOffsets, inOffsets, inEdges, edgeSrc, edgeDst);
+    }
+
+    /**
+     * Returns the number of vertexes.
+     *
+     * @return vertex count
+     */
+    public int vertexCount() {
+        return vertexes.size();
+    }
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return edge count
+     */
+    public int edgeCount() {
+        return edgeSrc.length;
+    }
+
+    /**
+     * Returns the index of the given vertex.
+     *
+     * @param vertex vertex
+     * @return vertex index; -1 if the vertex is not in the graph
+     */
+    public int indexOf(V vertex) {
+        Integer index = indexes.get(vertex);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the vertex with the given index.
+     *
+     * @param index vertex index
+     * @return vertex
+     */
+    public V vertex(int index) {
+        return vertexes.get(index);
+    }
+
+    /**
+     * Returns the edge with the given index.
+     *
+     * @param index edge index
+     * @return edge
+     */
+    public E edge(int index) {
+        return edges.get(index);
+    }
+
+    /**
+     * Returns the index of the source vertex of the given edge.
+     *
+     * @param edge edge index
+     * @return source vertex index
+     */
+    public int src(int edge) {
+        return edgeSrc[edge];
+    }
+
+    /**
+     * Returns the index of the destination vertex of the given edge.
+     *
+     * @param edge edge index
+     * @return destination vertex index
+     */
+    public int dst(int edge) {
+        return edgeDst[edge];
+    }
+
+    /**
+     * Returns the index of the first egress edge of the given vertex.
+     *
+     * @param vertex vertex index
+     * @return first egress edge index
+     */
+    public int edgesFrom(int vertex) {
+        return outOffsets[vertex];
+    }
+
+    /**
+     * Returns the index following the last egress edge of the given vertex.
+     *
+     * @param vertex vertex index
+     * @return end of the egress edge range
+     */
+    public int edgesFromEnd(int vertex) {
+        return outOffsets[vertex + 1];
+    }
+
+    /**
+     * Returns the first position of the ingress edges of the given vertex.
+     *
+     * @param vertex vertex index
+     * @return first ingress edge position
+     */
+    public int edgesTo(int vertex) {
+        return inOffsets[vertex];
+    }
+
+    /**
+     * Returns the position following the last ingress edge of the given vertex.
+     *
+     * @param vertex vertex index
+     * @return end of the ingress edge positions
+     */
+    public int edgesToEnd(int vertex) {
+        return inOffsets[vertex + 1];
+    }
+
+    /**
+     * Returns the index of the ingress edge at the given position.
+     *
+     * @param position ingress edge position
+     * @return edge index
+     */
+    public int edgeTo(int position) {
+        return inEdges[position];
+    }
+
+    /**
+     * Computes the weights of all edges using the given weigher.
+     * <p>
+     * Non-viable edges are given {@link Double#POSITIVE_INFINITY} weight.
+     * Only weighers producing {@link ScalarWeight}s with zero initial weight
+     * can be expressed this way; for any other null is returned.
+     * </p>
+     *
+     * @param weigher edge weigher
+     * @return array of weights indexed by edge, or null
+     */
+    public double[] weights(EdgeWeigher<V, E> weigher) {
+        Weight initial = weigher.getInitialWeight();
+        if (!(initial instanceof ScalarWeight) || ((ScalarWeight) initial).value() != 0) {
+            return null;
+        }
+        double[] weights = new double[edgeSrc.length];
+        for (int e = 0; e < weights.length; e++) {
+            Weight weight = weigher.weight(edges.get(e));
+            if (!(weight instanceof ScalarWeight)) {
+                return null;
+            }
+            weights[e] = weight.isViable() ? ((ScalarWeight) weight).value() : Double.POSITIVE_INFINITY;
+        }
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("vertexes", vertexCount())
+                .add("edges", edgeCount())
+                .toString();
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Suurballe search over a {@link CompactGraph} for a pair of vertex-disjoint
+ * paths whose total cost is minimal.
+ * <p>
+ * Vertex disjointness is enforced by searching an implicit split graph, in
+ * which every vertex {@code v} becomes an ingress node {@code 2v} and an
+ * egress node {@code 2v + 1} joined by a zero-weight internal arc; the split
+ * and residual graphs are never materialized. Edges with negative, NaN or
+ * infinite weight are not traversed.
+ * </p>
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class CompactSuurballeSearch<V extends Vertex, E extends Edge<V>> {
+
+    private static final int NONE = -1;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Searches the graph for the cheapest pair of vertex-disjoint paths
+     * between the given vertexes.
+     *
+     * @param graph   compact graph
+     * @param src     source vertex
+     * @param dst     destination vertex
+     * @param weights edge weights, as produced by {@link CompactGraph#weights}
+     * @return pair of disjoint paths, the cheaper one being primary, with no
+     * secondary path if no disjoint one exists; null if there is no path at all
+     */
+    public DisjointPathPair<V, E> search(CompactGraph<V, E> graph, V src, V dst,
+                                         double[] weights) {
+        int s = checkedIndex(graph, src);
+        int t = checkedIndex(graph, dst);
+        checkArgument(weights.length == graph.edgeCount(), "Weights do not match the graph");
+        if (s == t) {
+            return null;
+        }
+
+        int n = graph.vertexCount();
+        int m = graph.edgeCount();
+        Scratch scratch = SCRATCH.get();
+        scratch.prepare(n, m);
+        int source = egress(s);
+        int target = ingress(t);
+
+        // First search yields the shortest path and the vertex potentials.
+        if (!search(graph, weights, source, target, false, scratch)) {
+            return null;
+        }
+        double cost = scratch.dist[target];
+        for (int x = 0; x < 2 * n; x++) {
+            scratch.potential[x] = scratch.settled[x] ? scratch.dist[x] : cost;
+        }
+
+        for (int x = target; x != source; x = predecessor(scratch.parentArc[x], n, m, graph)) {
+            int arc = scratch.parentArc[x];
+            if (arc < m) {
+                scratch.onFirst[arc] = true;
+                scratch.used[arc] = true;
+                scratch.firstIn[graph.dst(arc)] = arc;
+            } else {
+                scratch.internalOnFirst[arc - m] = true;
+            }
+        }
+
+        // Second search over the residual graph, with reduced weights.
+        if (!search(graph, weights, source, target, true, scratch)) {
+            return new DisjointPathPair<>(first(graph, weights, s, t, scratch), null);
+        }
+
+        // Combine both paths, cancelling the edges traversed in reverse.
+        for (int x = target; x != source; x = predecessor(scratch.parentArc[x], n, m, graph)) {
+            int arc = scratch.parentArc[x];
+            if (arc < m) {
+                scratch.used[arc] = true;
+            } else if (arc >= m + n && arc < 2 * m + n) {
+                scratch.used[arc - m - n] = false;
+            }
+        }
+        Arrays.fill(scratch.nextEdge, 0, n, NONE);
+        int firstFromSrc = NONE;
+        int secondFromSrc = NONE;
+        for (int e = 0; e < m; e++) {
+            if (!scratch.used[e]) {
+                continue;
+            }
+            int u = graph.src(e);
+            if (u != s) {
+                scratch.nextEdge[u] = e;
+            } else if (firstFromSrc == NONE) {
+                firstFromSrc = e;
+            } else {
+                secondFromSrc = e;
+            }
+        }
+
+        Path<V, E> one = follow(graph, weights, firstFromSrc, t, scratch);
+        Path<V, E> two = follow(graph, weights, secondFromSrc, t, scratch);
+        return one.cost().compareTo(two.cost()) <= 0 ?
+                new DisjointPathPair<>(one, two) : new DisjointPathPair<>(two, one);
+    }
+
+    private int checkedIndex(CompactGraph<V, E> graph, V vertex) {
+        int index = graph.indexOf(vertex);
+        checkArgument(index >= 0, "Vertex %s is not in the graph", vertex);
+        return index;
+    }
+
+    private static int ingress(int vertex) {
+        return 2 * vertex;
+    }
+
+    private static int egress(int vertex) {
+        return 2 * vertex + 1;
+    }
+
+    // Arcs of the split graph are coded as follows: [0, m) edges,
+    // [m, m + n) internal arcs, [m + n, 2m + n) reversed edges and
+    // [2m + n, 2m + 2n) reversed internal arcs.
+    private int predecessor(int arc, int n, int m, CompactGraph<V, E> graph) {
+        if (arc < m) {
+            return egress(graph.src(arc));
+        } else if (arc < m + n) {
+            return ingress(arc - m);
+        } else if (arc < 2 * m + n) {
+            return ingress(graph.dst(arc - m - n));
+        }
+        return egress(arc - 2 * m - n);
+    }
+
+    // Runs Dijkstra over the split graph, or over its residual with respect
+    // to the first path using reduced weights; returns true if the target
+    // was reached.
+    private boolean search(CompactGraph<V, E> graph, double[] weights,
+                           int source, int target, boolean residual, Scratch scratch) {
+        int n = graph.vertexCount();
+        int m = graph.edgeCount();
+        double[] dist = scratch.dist;
+        double[] potential = scratch.potential;
+        boolean[] settled = scratch.settled;
+        Arrays.fill(dist, 0, 2 * n, Double.POSITIVE_INFINITY);
+        Arrays.fill(settled, 0, 2 * n, false);
+        IntMinHeap queue = scratch.queue;
+        queue.reset(2 * n);
+
+        dist[source] = 0;
+        queue.offer(source, 0);
+        while (!queue.isEmpty()) {
+            int x = queue.poll();
+            settled[x] = true;
+            if (x == target) {
+                return true;
+            }
+            int v = x >> 1;
+            if ((x & 1) == 0) {
+                // Ingress node: internal arc forward, first path edge back
+                if (!residual || !scratch.internalOnFirst[v]) {
+                    double weight = residual ? reduced(0, potential, x, egress(v)) : 0;
+                    relax(x, egress(v), weight, m + v, scratch);
+                }
+                if (residual && scratch.firstIn[v] != NONE) {
+                    int e = scratch.firstIn[v];
+                    relax(x, egress(graph.src(e)), 0, m + n + e, scratch);
+                }
+            } else {
+                // Egress node: internal arc back if on the first path, and
+                // all viable edges not on the first path
+                if (residual && scratch.internalOnFirst[v]) {
+                    relax(x, ingress(v), 0, 2 * m + n + v, scratch);
+                }
+                for (int e = graph.edgesFrom(v), end = graph.edgesFromEnd(v); e < end; e++) {
+                    double weight = weights[e];
+                    if (!(weight >= 0) || weight == Double.POSITIVE_INFINITY ||
+                            (residual && scratch.onFirst[e])) {
+                        continue;
+                    }
+                    int y = ingress(graph.dst(e));
+                    relax(x, y, residual ? reduced(weight, potential, x, y) : weight, e, scratch);
+                }
+            }
+        }
+        return false;
+    }
+
+    private static double reduced(double weight, double[] potential, int x, int y) {
+        return Math.max(0, weight + potential[x] - potential[y]);
+    }
+
+    private static void relax(int x, int y, double weight, int arc, Scratch scratch) {
+        if (scratch.settled[y]) {
+            return;
+        }
+        double cost = scratch.dist[x] + weight;
+        if (cost < scratch.dist[y]) {
+            scratch.dist[y] = cost;
+            scratch.parentArc[y] = arc;
+            scratch.queue.offer(y, cost);
+        }
+    }
+
+    // Builds the first path by walking its ingress edges back from the
+    // destination.
+    private Path<V, E> first(CompactGraph<V, E> graph, double[] weights,
+                             int s, int t, Scratch scratch) {
+        List<E> edges = new ArrayList<>();
+        double cost = 0;
+        for (int v = t; v != s; v = graph.src(scratch.firstIn[v])) {
+            int e = scratch.firstIn[v];
+            edges.add(graph.edge(e));
+            cost += weights[e];
+        }
+        return new DefaultPath<>(Lists.reverse(edges), new ScalarWeight(cost));
+    }
+
+    // Builds a path by following the combined edges from the given first
+    // edge to the destination.
+    private Path<V, E> follow(CompactGraph<V, E> graph, double[] weights,
+                              int first, int t, Scratch scratch) {
+        ImmutableList.Builder<E> edges = ImmutableList.builder();
+        double cost = 0;
+        int e = first;
+        for (int hops = 0; hops < graph.vertexCount(); hops++) {
+            edges.add(graph.edge(e));
+            cost += weights[e];
+            int v = graph.dst(e);
+            if (v == t) {
+                break;
+            }
+            e = scratch.nextEdge[v];
+        }
+        return new DefaultPath<>(edges.build(), new ScalarWeight(cost));
+    }
+
+    // Per-thread search state.
+    private static final class Scratch {
+        double[] dist = new double[0];
+        double[] potential = new double[0];
+        boolean[] settled = new boolean[0];
+        int[] parentArc = new int[0];
+
+        int[] firstIn = new int[0];
+        int[] nextEdge = new int[0];
+        boolean[] internalOnFirst = new boolean[0];
+        boolean[] onFirst = new boolean[0];
+        boolean[] used = new boolean[0];
+
+        final IntMinHeap queue = new IntMinHeap();
+
+        void prepare(int n, int m) {
+            if (firstIn.length < n) {
+                dist = new double[2 * n];
+                potential = new double[2 * n];
+                settled = new boolean[2 * n];
+                parentArc = new int[2 * n];
+                firstIn = new int[n];
+                nextEdge = new int[n];
+                internalOnFirst = new boolean[n];
+            }
+            if (onFirst.length < m) {
+                onFirst = new boolean[m];
+                used = new boolean[m];
+            }
+            Arrays.fill(firstIn, 0, n, NONE);
+            Arrays.fill(internalOnFirst, 0, n, false);
+            Arrays.fill(onFirst, 0, m, false);
+            Arrays.fill(used, 0, m, false);
+        }
+    }
+
+}
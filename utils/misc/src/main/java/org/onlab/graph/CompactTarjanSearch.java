@@ -0,0 +1,263 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Tarjan algorithm for finding the SCC (strongly-connected components) of
+ * a {@link CompactGraph}.
+ * <p>
+ * The graph is scanned without recursion, so large graphs cannot overflow
+ * the stack, yet clusters are produced in the same order as by
+ * {@link TarjanGraphSearch}. Edges with infinite weight are not traversed.
+ * </p>
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public class CompactTarjanSearch<V extends Vertex, E extends Edge<V>> {
+
+    private static final int NONE = -1;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Searches the graph for its strongly-connected components.
+     *
+     * @param graph   compact graph
+     * @param weights optional edge weights, as produced by
+     *                {@link CompactGraph#weights}; used to skip non-viable
+     *                edges
+     * @return search result
+     */
+    public SccResult<V, E> search(CompactGraph<V, E> graph, double[] weights) {
+        return search(graph, weights, null);
+    }
+
+    /**
+     * Searches the graph for its strongly-connected components, ignoring
+     * any edges which join vertexes of different parts of the given
+     * partition. Each resulting cluster is thus contained within a single
+     * part, which allows refining a previously known set of clusters.
+     *
+     * @param graph     compact graph
+     * @param weights   optional edge weights, as produced by
+     *                  {@link CompactGraph#weights}; used to skip non-viable
+     *                  edges
+     * @param partition optional part labels, indexed by vertex
+     * @return search result
+     */
+    public SccResult<V, E> search(CompactGraph<V, E> graph, double[] weights,
+                                  int[] partition) {
+        checkArgument(weights == null || weights.length == graph.edgeCount(),
+                      "Weights do not match the graph");
+        checkArgument(partition == null || partition.length == graph.vertexCount(),
+                      "Partition does not match the graph");
+        int n = graph.vertexCount();
+        Scratch scratch = SCRATCH.get();
+        scratch.prepare(n);
+
+        int[] index = scratch.index;
+        int[] lowLink = scratch.lowLink;
+        int[] stack = scratch.stack;
+        int[] frameVertex = scratch.frameVertex;
+        int[] frameEdge = scratch.frameEdge;
+        int[] clusters = new int[n];
+        int clusterCount = 0;
+        int nextIndex = 0;
+        int sp = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] != NONE) {
+                continue;
+            }
+
+            // Emulate the recursive scan using an explicit stack of frames.
+            int depth = 0;
+            frameVertex[0] = root;
+            frameEdge[0] = graph.edgesFrom(root);
+            index[root] = lowLink[root] = nextIndex++;
+            clusters[root] = NONE;
+            stack[sp++] = root;
+
+            while (depth >= 0) {
+                int v = frameVertex[depth];
+                int e = frameEdge[depth];
+                if (e < graph.edgesFromEnd(v)) {
+                    frameEdge[depth]++;
+                    if (weights != null && weights[e] == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    int w = graph.dst(e);
+                    if (partition != null && partition[w] != partition[v]) {
+                        continue;
+                    }
+                    if (index[w] == NONE) {
+                        depth++;
+                        frameVertex[depth] = w;
+                        frameEdge[depth] = graph.edgesFrom(w);
+                        index[w] = lowLink[w] = nextIndex++;
+                        clusters[w] = NONE;
+                        stack[sp++] = w;
+                    } else if (clusters[w] == NONE) {
+                        // Still on the stack, hence in the current cluster
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                    continue;
+                }
+
+                // All egress edges scanned; close the cluster if v is its root.
+                if (lowLink[v] == index[v]) {
+                    int u;
+                    do {
+                        u = stack[--sp];
+                        clusters[u] = clusterCount;
+                    } while (u != v);
+                    clusterCount++;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = frameVertex[depth];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                }
+            }
+        }
+        return new SccResult<>(graph, clusters, clusterCount);
+    }
+
+    /**
+     * Graph search result describing the SCCs of the graph.
+     *
+     * @param <V> vertex type
+     * @param <E> edge type
+     */
+    public static final class SccResult<V extends Vertex, E extends Edge<V>>
+            implements GraphSearch.Result<V, E> {
+
+        private final CompactGraph<V, E> graph;
+        private final int[] clusters;
+        private final List<Set<V>> clusterVertexes;
+        private final List<Set<E>> clusterEdges;
+
+        private SccResult(CompactGraph<V, E> graph, int[] clusters, int clusterCount) {
+            this.graph = graph;
+            this.clusters = clusters;
+
+            List<ImmutableSet.Builder<V>> vertexes = new ArrayList<>(clusterCount);
+            List<ImmutableSet.Builder<E>> edges = new ArrayList<>(clusterCount);
+            for (int i = 0; i < clusterCount; i++) {
+                vertexes.add(ImmutableSet.builder());
+                edges.add(ImmutableSet.builder());
+            }
+            for (int v = 0; v < clusters.length; v++) {
+                vertexes.get(clusters[v]).add(graph.vertex(v));
+            }
+            // Cluster edges are all those joining vertexes of the same
+            // cluster, regardless of their weight.
+            for (int e = 0, m = graph.edgeCount(); e < m; e++) {
+                int cluster = clusters[graph.src(e)];
+                if (cluster == clusters[graph.dst(e)]) {
+                    edges.get(cluster).add(graph.edge(e));
+                }
+            }
+
+            ImmutableList.Builder<Set<V>> vertexSets = ImmutableList.builder();
+            ImmutableList.Builder<Set<E>> edgeSets = ImmutableList.builder();
+            for (int i = 0; i < clusterCount; i++) {
+                vertexSets.add(vertexes.get(i).build());
+                edgeSets.add(edges.get(i).build());
+            }
+            this.clusterVertexes = vertexSets.build();
+            this.clusterEdges = edgeSets.build();
+        }
+
+        /**
+         * Returns the number of SCC clusters in the graph.
+         *
+         * @return number of clusters
+         */
+        public int clusterCount() {
+            return clusterVertexes.size();
+        }
+
+        /**
+         * Returns the list of strongly connected vertex clusters.
+         *
+         * @return list of strongly connected vertex sets
+         */
+        public List<Set<V>> clusterVertexes() {
+            return clusterVertexes;
+        }
+
+        /**
+         * Returns the list of edges linking strongly connected vertex clusters.
+         *
+         * @return list of strongly connected edge sets
+         */
+        public List<Set<E>> clusterEdges() {
+            return clusterEdges;
+        }
+
+        /**
+         * Returns the index of the cluster containing the given vertex.
+         *
+         * @param vertex vertex index in the searched graph
+         * @return cluster index
+         */
+        public int clusterOf(int vertex) {
+            return clusters[vertex];
+        }
+
+        /**
+         * Returns the graph that was searched.
+         *
+         * @return compact graph
+         */
+        public CompactGraph<V, E> graph() {
+            return graph;
+        }
+    }
+
+    // Per-thread search state.
+    private static final class Scratch {
+        int[] index = new int[0];
+        int[] lowLink = new int[0];
+        int[] stack = new int[0];
+        int[] frameVertex = new int[0];
+        int[] frameEdge = new int[0];
+
+        void prepare(int n) {
+            if (index.length < n) {
+                index = new int[n];
+                lowLink = new int[n];
+                stack = new int[n];
+                frameVertex = new int[n];
+                frameEdge = new int[n];
+            }
+            Arrays.fill(index, 0, n, NONE);
+        }
+    }
+
+}
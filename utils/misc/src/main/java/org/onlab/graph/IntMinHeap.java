@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import java.util.Arrays;
+
+/**
+ * Reusable binary min-heap of integer items prioritized by double keys,
+ * supporting decrease-key; used by the compact graph searches.
+ */
+final class IntMinHeap {
+
+    private int[] heap = new int[0];
+    // Heap position of each item plus one; zero if not in the heap
+    private int[] positions = new int[0];
+    private double[] keys = new double[0];
+    private int size;
+
+    /**
+     * Empties the heap and makes room for items in range [0, capacity).
+     *
+     * @param capacity number of distinct items
+     */
+    void reset(int capacity) {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = 0;
+        }
+        size = 0;
+        if (heap.length < capacity) {
+            heap = new int[capacity];
+            positions = new int[capacity];
+            keys = new double[capacity];
+        }
+    }
+
+    /**
+     * Indicates whether the heap is empty.
+     *
+     * @return true if empty
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds the item or lowers its key if already present.
+     *
+     * @param item item
+     * @param key  new key; must not be greater than the current one
+     */
+    void offer(int item, double key) {
+        keys[item] = key;
+        int position = positions[item] - 1;
+        if (position < 0) {
+            position = size++;
+            heap[position] = item;
+            positions[item] = position + 1;
+        }
+        siftUp(position);
+    }
+
+    /**
+     * Removes and returns the item with the lowest key.
+     *
+     * @return item
+     */
+    int poll() {
+        int top = heap[0];
+        positions[top] = 0;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            positions[last] = 1;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int position) {
+        int item = heap[position];
+        double key = keys[item];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int parentItem = heap[parent];
+            if (keys[parentItem] <= key) {
+                break;
+            }
+            heap[position] = parentItem;
+            positions[parentItem] = position + 1;
+            position = parent;
+        }
+        heap[position] = item;
+        positions[item] = position + 1;
+    }
+
+    private void siftDown(int position) {
+        int item = heap[position];
+        double key = keys[item];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+            if (key <= keys[heap[child]]) {
+                break;
+            }
+            heap[position] = heap[child];
+            positions[heap[position]] = position + 1;
+            position = child;
+        }
+        heap[position] = item;
+        positions[item] = position + 1;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(heap, size));
+    }
+}
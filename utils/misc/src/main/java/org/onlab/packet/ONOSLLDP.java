@@ -41,6 +41,8 @@ public class ONOSLLDP extends LLDP {
 
     private static final Logger log = getLogger(ONOSLLDP.class);
 
+    private static final ThreadLocal<KeyedMac> HMAC = new ThreadLocal<>();
+
     public static final String DEFAULT_DEVICE = "INVALID";
     public static final String DEFAULT_NAME = "ONOS Discovery";
 
@@ -484,24 +486,55 @@ public class ONOSLLDP extends LLDP {
         }
     }
 
-    private static byte[] createSig(String deviceId, int portNum, long timestamp, String secret) {
+    /**
+     * Creates the signature of a secure probe.
+     *
+     * @param deviceId  the device ID as a String
+     * @param portNum   port number the probe is sent out of
+     * @param timestamp the probe timestamp
+     * @param secret    LLDP secret
+     * @return the signature, or null if it cannot be computed
+     */
+    static byte[] createSig(String deviceId, int portNum, long timestamp, String secret) {
         byte[] pnb = ByteBuffer.allocate(8).putLong(portNum).array();
         byte[] tmb = ByteBuffer.allocate(8).putLong(timestamp).array();
 
-        try {
-            SecretKeySpec signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(signingKey);
-            mac.update(deviceId.getBytes());
-            mac.update(pnb);
-            mac.update(tmb);
-            byte[] sig = mac.doFinal();
-            return sig;
-        } catch (NoSuchAlgorithmException e) {
-            return null;
-        } catch (InvalidKeyException e) {
+        Mac mac = hmac(secret);
+        if (mac == null) {
             return null;
         }
+        mac.update(deviceId.getBytes());
+        mac.update(pnb);
+        mac.update(tmb);
+        return mac.doFinal();
+    }
+
+    // Returns the HMAC of this thread keyed with the given secret; setting up
+    // the key costs more than signing a probe, so it is kept for reuse
+    private static Mac hmac(String secret) {
+        KeyedMac keyed = HMAC.get();
+        if (keyed == null || !keyed.secret.equals(secret)) {
+            try {
+                SecretKeySpec signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(signingKey);
+                keyed = new KeyedMac(secret, mac);
+                HMAC.set(keyed);
+            } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+                return null;
+            }
+        }
+        return keyed.mac;
+    }
+
+    private static final class KeyedMac {
+        private final String secret;
+        private final Mac mac;
+
+        private KeyedMac(String secret, Mac mac) {
+            this.secret = secret;
+            this.mac = mac;
+        }
     }
 
     private static boolean verifySig(byte[] sig, String deviceId, int portNum, long timestamp, String secret) {
@@ -531,10 +564,26 @@ public class ONOSLLDP extends LLDP {
             return true;
         }
 
-        String deviceId = probe.getDeviceString();
-        int portNum = probe.getPort();
-        long timestamp = probe.getTimestamp();
-        byte[] sig = probe.getSig();
+        return verify(probe.getDeviceString(), probe.getPort(), probe.getTimestamp(), probe.getSig(),
+                      secret, maxDelay);
+    }
+
+    /**
+     * Verifies the signature and timestamp of a probe.
+     *
+     * @param deviceId  the device ID carried by the probe
+     * @param portNum   the port number carried by the probe
+     * @param timestamp the timestamp carried by the probe
+     * @param sig       the signature carried by the probe
+     * @param secret    LLDP secret, or null if probes are not signed
+     * @param maxDelay  maximum age of the probe in milliseconds
+     * @return true if the probe is valid
+     */
+    public static boolean verify(String deviceId, int portNum, long timestamp, byte[] sig,
+                                 String secret, long maxDelay) {
+        if (secret == null) {
+            return true;
+        }
 
         if (deviceId == null || sig == null) {
             return false;
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.packet;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.onlab.packet.LLDP.PORT_TLV_COMPONENT_SUBTYPE;
+import static org.onlab.packet.LLDP.PORT_TLV_TYPE;
+import static org.onlab.packet.LLDPOrganizationalTLV.ORGANIZATIONAL_TLV_TYPE;
+import static org.onlab.packet.LLDPOrganizationalTLV.OUI_LENGTH;
+import static org.onlab.packet.LLDPOrganizationalTLV.SUBTYPE_LENGTH;
+
+/**
+ * ONOS link probe read directly from the bytes of an Ethernet frame.
+ * <p>
+ * Only the TLVs needed to identify and verify the probe are read, without
+ * building the {@link ONOSLLDP} packet.
+ * </p>
+ */
+public final class ONOSLLDPProbe {
+
+    private static final byte[] NAME = ONOSLLDP.DEFAULT_NAME.getBytes(StandardCharsets.UTF_8);
+    private static final int MAX_VLAN_TAGS = 2;
+    private static final int TLV_HEADER_LENGTH = 2;
+    private static final int END_TLV_TYPE = 0;
+    private static final int ORG_HEADER_LENGTH = OUI_LENGTH + SUBTYPE_LENGTH;
+    private static final int TIMESTAMP_LENGTH = 8;
+
+    private final short etherType;
+    private final String deviceString;
+    private final int port;
+    private final long timestamp;
+    private final byte[] sig;
+    private final int timestampOffset;
+    private final int sigOffset;
+
+    private ONOSLLDPProbe(short etherType, String deviceString, int port, long timestamp,
+                          byte[] sig, int timestampOffset, int sigOffset) {
+        this.etherType = etherType;
+        this.deviceString = deviceString;
+        this.port = port;
+        this.timestamp = timestamp;
+        this.sig = sig;
+        this.timestampOffset = timestampOffset;
+        this.sigOffset = sigOffset;
+    }
+
+    /**
+     * Reads an ONOS link probe from the given frame.
+     *
+     * @param frame Ethernet frame
+     * @return the probe, or null if the frame is not an ONOS LLDP or BDDP probe
+     */
+    public static ONOSLLDPProbe parse(byte[] frame) {
+        return parse(ByteBuffer.wrap(frame));
+    }
+
+    /**
+     * Reads an ONOS link probe from the remaining bytes of the given buffer,
+     * without changing its position.
+     *
+     * @param frame Ethernet frame
+     * @return the probe, or null if the frame is not an ONOS LLDP or BDDP probe
+     */
+    public static ONOSLLDPProbe parse(ByteBuffer frame) {
+        int start = frame.position();
+        int end = frame.limit();
+        int offset = start + 2 * MacAddress.MAC_ADDRESS_LENGTH;
+        if (offset + 2 > end) {
+            return null;
+        }
+        short etherType = frame.getShort(offset);
+        offset += 2;
+        for (int tags = 0; tags < MAX_VLAN_TAGS
+                && (etherType == Ethernet.TYPE_VLAN || etherType == Ethernet.TYPE_QINQ); tags++) {
+            offset += Ethernet.VLAN_HEADER_LENGTH;
+            if (offset > end) {
+                return null;
+            }
+            etherType = frame.getShort(offset - 2);
+        }
+        if (etherType != Ethernet.TYPE_LLDP && etherType != Ethernet.TYPE_BSN) {
+            return null;
+        }
+
+        boolean named = false;
+        String deviceString = null;
+        int port = -1;
+        long timestamp = 0;
+        byte[] sig = null;
+        int timestampOffset = -1;
+        int sigOffset = -1;
+
+        while (offset + TLV_HEADER_LENGTH <= end) {
+            int header = frame.getShort(offset) & 0xffff;
+            int type = header >>> 9;
+            int length = header & 0x1ff;
+            int value = offset + TLV_HEADER_LENGTH;
+            if (type == END_TLV_TYPE || value + length > end) {
+                break;
+            }
+            if (type == PORT_TLV_TYPE && length > 1 && port == -1
+                    && frame.get(value) == PORT_TLV_COMPONENT_SUBTYPE) {
+                port = parsePort(frame, value + 1, length - 1);
+            } else if (type == ORGANIZATIONAL_TLV_TYPE && length >= ORG_HEADER_LENGTH) {
+                int info = value + ORG_HEADER_LENGTH;
+                int infoLength = length - ORG_HEADER_LENGTH;
+                switch (frame.get(value + OUI_LENGTH)) {
+                    case ONOSLLDP.NAME_SUBTYPE:
+                        named = named || matches(frame, info, infoLength, NAME);
+                        break;
+                    case ONOSLLDP.DEVICE_SUBTYPE:
+                        if (deviceString == null) {
+                            deviceString = new String(bytes(frame, info, infoLength), StandardCharsets.UTF_8);
+                        }
+                        break;
+                    case ONOSLLDP.TIMESTAMP_SUBTYPE:
+                        if (timestampOffset == -1 && infoLength == TIMESTAMP_LENGTH) {
+                            timestamp = frame.getLong(info);
+                            timestampOffset = info - start;
+                        }
+                        break;
+                    case ONOSLLDP.SIG_SUBTYPE:
+                        if (sig == null) {
+                            sig = bytes(frame, info, infoLength);
+                            sigOffset = info - start;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            offset = value + length;
+        }
+
+        if (!named) {
+            return null;
+        }
+        return new ONOSLLDPProbe(etherType, deviceString, port, timestamp, sig, timestampOffset, sigOffset);
+    }
+
+    // Parses the decimal port number of a port component TLV
+    private static int parsePort(ByteBuffer frame, int offset, int length) {
+        int port = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int digit = frame.get(i) - '0';
+            if (digit < 0 || digit > 9 || port > (Integer.MAX_VALUE - digit) / 10) {
+                return -1;
+            }
+            port = port * 10 + digit;
+        }
+        return port;
+    }
+
+    private static boolean matches(ByteBuffer frame, int offset, int length, byte[] expected) {
+        if (length != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (frame.get(offset + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] bytes(ByteBuffer frame, int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = frame.get(offset + i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the Ethernet type of the probe frame, i.e. LLDP or BDDP.
+     *
+     * @return Ethernet type
+     */
+    public short etherType() {
+        return etherType;
+    }
+
+    /**
+     * Returns the device ID carried by the probe.
+     *
+     * @return device ID string, or null if absent
+     */
+    public String deviceString() {
+        return deviceString;
+    }
+
+    /**
+     * Returns the port number carried by the probe.
+     *
+     * @return port number, or -1 if absent
+     */
+    public int port() {
+        return port;
+    }
+
+    /**
+     * Returns the timestamp carried by a secure probe.
+     *
+     * @return timestamp, or 0 if absent
+     */
+    public long timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the signature carried by a secure probe.
+     *
+     * @return signature, or null if absent
+     */
+    public byte[] sig() {
+        return sig;
+    }
+
+    // Offsets of the timestamp and signature values in the frame, or -1
+    int timestampOffset() {
+        return timestampOffset;
+    }
+
+    int sigOffset() {
+        return sigOffset;
+    }
+
+    /**
+     * Verifies the signature and timestamp of the probe.
+     *
+     * @param secret   LLDP secret, or null if probes are not signed
+     * @param maxDelay maximum age of the probe in milliseconds
+     * @return true if the probe is valid
+     * @see ONOSLLDP#verify(ONOSLLDP, String, long)
+     */
+    public boolean verify(String secret, long maxDelay) {
+        return ONOSLLDP.verify(deviceString, port, timestamp, sig, secret, maxDelay);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.packet;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Serialized ONOS link probe, from which probes are sent without building
+ * and serializing the packet each time.
+ * <p>
+ * The timestamp and signature of secure probes are rewritten in each copy.
+ * </p>
+ */
+public final class ONOSLLDPTemplate {
+
+    private static final int TIMESTAMP_LENGTH = 8;
+
+    private final byte[] frame;
+    private final String secret;
+    private final String deviceString;
+    private final int port;
+    private final int timestampOffset;
+    private final int sigOffset;
+
+    /**
+     * Creates a template from a serialized probe.
+     *
+     * @param probe  Ethernet frame carrying an {@link ONOSLLDP} probe
+     * @param secret LLDP secret the probe was created with, or null
+     * @throws IllegalArgumentException if the frame is not an ONOS probe,
+     *         or lacks the timestamp and signature of a secure probe
+     */
+    public ONOSLLDPTemplate(Ethernet probe, String secret) {
+        this.frame = probe.serialize();
+        this.secret = secret;
+        ONOSLLDPProbe parsed = ONOSLLDPProbe.parse(frame);
+        checkArgument(parsed != null, "Not an ONOS link probe");
+        checkArgument(secret == null || (parsed.timestampOffset() >= 0 && parsed.sigOffset() >= 0),
+                      "Secure link probe expected");
+        this.deviceString = parsed.deviceString();
+        this.port = parsed.port();
+        this.timestampOffset = parsed.timestampOffset();
+        this.sigOffset = parsed.sigOffset();
+    }
+
+    /**
+     * Returns a new probe frame, timestamped and signed now if the probe is
+     * secure.
+     *
+     * @return probe frame, or null if the probe could not be signed
+     */
+    public byte[] probe() {
+        byte[] probe = Arrays.copyOf(frame, frame.length);
+        if (secret == null) {
+            return probe;
+        }
+        long timestamp = System.currentTimeMillis();
+        byte[] sig = ONOSLLDP.createSig(deviceString, port, timestamp, secret);
+        if (sig == null || sigOffset + sig.length > probe.length) {
+            return null;
+        }
+        for (int i = TIMESTAMP_LENGTH - 1; i >= 0; i--) {
+            probe[timestampOffset + i] = (byte) timestamp;
+            timestamp >>>= Byte.SIZE;
+        }
+        System.arraycopy(sig, 0, probe, sigOffset, sig.length);
+        return probe;
+    }
+}
@@ -47,6 +47,9 @@ public abstract class AbstractAccumulator<T> implements Accumulator<T> {
 
     private final List<T> items;
 
+    // Serializes processing of batches triggered by the timer and by flush()
+    private final Object processLock = new Object();
+
     /**
      * Creates an item accumulator capable of triggering on the specified
      * thresholds.
@@ -156,11 +159,7 @@ public abstract class AbstractAccumulator<T> implements Accumulator<T> {
         public void run() {
             try {
                 if (isReady()) {
-
-                    List<T> batch = finalizeCurrentBatch();
-                    if (!batch.isEmpty()) {
-                        processItems(batch);
-                    }
+                    processCurrentBatch();
                 } else {
                     rescheduleTask(idleTask, maxIdleMillis);
                 }
@@ -170,6 +169,26 @@ public abstract class AbstractAccumulator<T> implements Accumulator<T> {
         }
     }
 
+    /**
+     * Processes the items accumulated so far right away, without waiting for
+     * any of the thresholds to be reached. Batches are processed one at a
+     * time, so items flushed are processed after those of any batch already
+     * being processed and before those of any later batch.
+     */
+    public void flush() {
+        processCurrentBatch();
+    }
+
+    // Finalizes and processes the current batch, if any
+    private void processCurrentBatch() {
+        synchronized (processLock) {
+            List<T> batch = finalizeCurrentBatch();
+            if (!batch.isEmpty()) {
+                processItems(batch);
+            }
+        }
+    }
+
     /**
      * Returns an immutable copy of the existing items and clear the list.
      *
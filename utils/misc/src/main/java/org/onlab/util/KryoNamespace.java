@@ -33,8 +33,6 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 import org.slf4j.Logger;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
@@ -60,6 +58,12 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
     public static final int DEFAULT_BUFFER_SIZE = 4096;
     public static final int MAX_BUFFER_SIZE = 100 * 1000 * 1000;
 
+    /**
+     * Largest output buffer kept for reuse by a thread; larger buffers are
+     * released after use.
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 256 * 1024;
+
     /**
      * ID to use if this KryoNamespace does not define registration id.
      */
@@ -74,6 +78,10 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
 
     private static final Logger log = getLogger(KryoNamespace.class);
 
+    // Output buffer reused by each thread; empty while in use, so that
+    // nested serializations get a buffer of their own.
+    private static final ThreadLocal<Output[]> OUTPUT = ThreadLocal.withInitial(() -> new Output[1]);
+
     private final KryoPool pool = new KryoPool.Builder(this)
                                         .softReferences()
                                         .build();
@@ -299,19 +307,54 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
 
     /**
      * Serializes given object to byte array using Kryo instance in pool.
+     * <p>
+     * The object is written to an output buffer reused by the calling thread,
+     * so the only allocation is the returned array.
      *
      * @param obj Object to serialize
-     * @param bufferSize maximum size of serialized bytes
+     * @param bufferSize initial size of the output buffer, if one is allocated
      * @return serialized bytes
      */
     public byte[] serialize(final Object obj, final int bufferSize) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bufferSize);
-        Output out = new Output(outputStream);
-        return pool.run(kryo -> {
+        Output out = borrowOutput(bufferSize);
+        Kryo kryo = borrow();
+        try {
             kryo.writeClassAndObject(out, obj);
-            out.flush();
-            return outputStream.toByteArray();
-        });
+            return out.toBytes();
+        } finally {
+            release(kryo);
+            releaseOutput(out);
+        }
+    }
+
+    /**
+     * Returns the output buffer of the current thread, or a new one if the
+     * buffer is in use.
+     *
+     * @param bufferSize initial size of a new buffer
+     * @return output to serialize into
+     */
+    private static Output borrowOutput(int bufferSize) {
+        Output[] holder = OUTPUT.get();
+        Output out = holder[0];
+        if (out == null) {
+            return new Output(bufferSize, -1);
+        }
+        holder[0] = null;
+        out.clear();
+        return out;
+    }
+
+    /**
+     * Returns the output buffer for reuse by the current thread, unless it
+     * has grown too large to be kept.
+     *
+     * @param out output to release
+     */
+    private static void releaseOutput(Output out) {
+        if (out.getBuffer().length <= MAX_POOLED_BUFFER_SIZE) {
+            OUTPUT.get()[0] = out;
+        }
     }
 
     /**
@@ -367,7 +410,7 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * @return deserialized Object
      */
     public <T> T deserialize(final byte[] bytes) {
-        Input in = new Input(new ByteArrayInputStream(bytes));
+        Input in = new Input(bytes);
         Kryo kryo = borrow();
         try {
             @SuppressWarnings("unchecked")
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static com.google.common.collect.ImmutableSet.of;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.onlab.graph.CompactGraphTest.S1;
+import static org.onlab.graph.CompactGraphTest.S2;
+import static org.onlab.graph.CompactGraphTest.SCALAR_WEIGHER;
+import static org.onlab.graph.CompactGraphTest.scalarEdges;
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+
+/**
+ * Tests of the searches over compact graphs, using the object graph searches
+ * as reference.
+ */
+public class CompactGraphSearchTest extends GraphTest {
+
+    private final CompactDijkstraSearch<TestVertex, TestEdge> dijkstra =
+            new CompactDijkstraSearch<>();
+    private final CompactBreadthFirstSearch<TestVertex, TestEdge> bfs =
+            new CompactBreadthFirstSearch<>();
+    private final CompactTarjanSearch<TestVertex, TestEdge> tarjan =
+            new CompactTarjanSearch<>();
+    private final CompactSuurballeSearch<TestVertex, TestEdge> suurballe =
+            new CompactSuurballeSearch<>();
+
+    private CompactGraph<TestVertex, TestEdge> compact(Set<TestVertex> vertexes,
+                                                       Set<TestEdge> edges) {
+        graph = new AdjacencyListsGraph<>(vertexes, edges);
+        return CompactGraph.of(graph);
+    }
+
+    private void assertSamePaths(CompactGraph<TestVertex, TestEdge> cg, double[] weights,
+                                 TestVertex src, TestVertex dst, int maxPaths) {
+        Set<Path<TestVertex, TestEdge>> expected = new DijkstraGraphSearch<TestVertex, TestEdge>()
+                .search(graph, src, dst, SCALAR_WEIGHER, maxPaths).paths();
+        Set<Path<TestVertex, TestEdge>> actual = dijkstra.search(cg, src, dst, weights, maxPaths);
+        if (maxPaths == ALL_PATHS) {
+            assertEquals("incorrect paths " + src + "->" + dst, expected, actual);
+        } else {
+            assertEquals("incorrect path count " + src + "->" + dst, expected.size(), actual.size());
+        }
+        for (Path<TestVertex, TestEdge> path : actual) {
+            assertEquals("incorrect cost", expected.iterator().next().cost(), path.cost());
+        }
+    }
+
+    @Test
+    public void dijkstraMatchesReference() {
+        CompactGraph<TestVertex, TestEdge> cg = compact(vertexes(), scalarEdges());
+        double[] weights = cg.weights(SCALAR_WEIGHER);
+        for (TestVertex src : vertexes()) {
+            for (TestVertex dst : vertexes()) {
+                if (!src.equals(dst)) {
+                    assertSamePaths(cg, weights, src, dst, ALL_PATHS);
+                    assertSamePaths(cg, weights, src, dst, 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void dijkstraEqualCostPaths() {
+        CompactGraph<TestVertex, TestEdge> cg = compact(of(A, B, C, D, E),
+                                                        of(new TestEdge(A, B, S1),
+                                                           new TestEdge(A, C, S1),
+                                                           new TestEdge(A, D, S1),
+                                                           new TestEdge(B, E, S1),
+                                                           new TestEdge(C, E, S1),
+                                                           new TestEdge(D, E, S1)));
+        double[] weights = cg.weights(SCALAR_WEIGHER);
+        assertEquals("incorrect path count", 3, dijkstra.search(cg, A, E, weights, ALL_PATHS).size());
+        assertEquals("incorrect path count", 2, dijkstra.search(cg, A, E, weights, 2).size());
+        assertEquals("incorrect path count", 0, dijkstra.search(cg, E, A, weights, ALL_PATHS).size());
+        assertEquals("incorrect path count", 0, dijkstra.search(cg, A, A, weights, ALL_PATHS).size());
+    }
+
+    @Test
+    public void dijkstraSkipsNonViableEdges() {
+        CompactGraph<TestVertex, TestEdge> cg =
+                compact(of(A, B, C),
+                        of(new TestEdge(A, B, ScalarWeight.NON_VIABLE_WEIGHT),
+                           new TestEdge(A, C, S1),
+                           new TestEdge(C, B, S2)));
+        Set<Path<TestVertex, TestEdge>> paths =
+                dijkstra.search(cg, A, B, cg.weights(SCALAR_WEIGHER), ALL_PATHS);
+        assertEquals("incorrect path count", 1, paths.size());
+        assertEquals("incorrect path length", 2, paths.iterator().next().edges().size());
+    }
+
+    @Test
+    public void dijkstraTree() {
+        CompactGraph<TestVertex, TestEdge> cg = compact(vertexes(), scalarEdges());
+        int[] parents = dijkstra.searchTree(cg, A, cg.weights(SCALAR_WEIGHER));
+        assertEquals("incorrect root parent", -1, parents[cg.indexOf(A)]);
+        // A -> B -> C -> E -> F -> H costs 5
+        assertEquals("incorrect parent", F, cg.edge(parents[cg.indexOf(H)]).src());
+        assertEquals("incorrect parent", B, cg.edge(parents[cg.indexOf(C)]).src());
+    }
+
+    @Test
+    public void breadthFirst() {
+        CompactGraph<TestVertex, TestEdge> cg = compact(vertexes(), scalarEdges());
+        Set<Path<TestVertex, TestEdge>> paths = bfs.search(cg, A, H, null);
+        assertEquals("incorrect path count", 1, paths.size());
+        Path<TestVertex, TestEdge> path = paths.iterator().next();
+        assertEquals("incorrect path length", 3, path.edges().size());
+        assertEquals("incorrect path cost", new ScalarWeight(3), path.cost());
+
+        int[] parents = bfs.searchTree(cg, H, null);
+        assertEquals("incorrect unreachable parent", -1, parents[cg.indexOf(A)]);
+    }
+
+    @Test
+    public void tarjanMatchesReference() {
+        Set<TestEdge> edges = of(new TestEdge(A, B, S1),
+                                 new TestEdge(B, C, S1),
+                                 new TestEdge(C, A, S1),
+                                 new TestEdge(C, D, S1),
+                                 new TestEdge(D, E, S1),
+                                 new TestEdge(E, D, S1),
+                                 new TestEdge(E, F, ScalarWeight.NON_VIABLE_WEIGHT),
+                                 new TestEdge(F, E, S1),
+                                 new TestEdge(G, H, S1),
+                                 new TestEdge(H, G, S1));
+        CompactGraph<TestVertex, TestEdge> cg = compact(vertexes(), edges);
+        CompactTarjanSearch.SccResult<TestVertex, TestEdge> actual =
+                tarjan.search(cg, cg.weights(SCALAR_WEIGHER));
+        TarjanGraphSearch.SccResult<TestVertex, TestEdge> expected =
+                new TarjanGraphSearch<TestVertex, TestEdge>().search(graph, SCALAR_WEIGHER);
+
+        assertEquals("incorrect cluster count", expected.clusterCount(), actual.clusterCount());
+        assertEquals("incorrect clusters", expected.clusterVertexes(), actual.clusterVertexes());
+        assertEquals("incorrect cluster edges", expected.clusterEdges(), actual.clusterEdges());
+        for (int v = 0; v < cg.vertexCount(); v++) {
+            assertTrue("incorrect cluster index",
+                       actual.clusterVertexes().get(actual.clusterOf(v)).contains(cg.vertex(v)));
+        }
+    }
+
+    @Test
+    public void suurballeDisjointPair() {
+        CompactGraph<TestVertex, TestEdge> cg = compact(of(A, B, C, D, E, F),
+                                                        of(new TestEdge(A, B, S1),
+                                                           new TestEdge(B, C, S1),
+                                                           new TestEdge(C, F, S1),
+                                                           new TestEdge(A, D, S2),
+                                                           new TestEdge(D, B, S1),
+                                                           new TestEdge(B, E, S2),
+                                                           new TestEdge(E, F, S2),
+                                                           new TestEdge(D, E, new ScalarWeight(5))));
+        // The shortest path A-B-C-F blocks any disjoint backup; the optimal
+        // pair is A-B-C-F with A-D-E-F.
+        DisjointPathPair<TestVertex, TestEdge> pair =
+                suurballe.search(cg, A, F, cg.weights(SCALAR_WEIGHER));
+        assertTrue("backup expected", pair.hasBackup());
+        assertEquals("incorrect primary", of(A, B, C), sources(pair.primary()));
+        assertEquals("incorrect secondary", of(A, D, E), sources(pair.secondary()));
+        assertEquals("incorrect primary cost", new ScalarWeight(3), pair.primary().cost());
+        assertEquals("incorrect secondary cost", new ScalarWeight(9), pair.secondary().cost());
+    }
+
+    @Test
+    public void suurballeInterlacedPaths() {
+        // The shortest path A-B-C-D shares B-C with both disjoint paths, so
+        // it has to be cancelled out.
+        CompactGraph<TestVertex, TestEdge> cg = compact(of(A, B, C, D, E, F),
+                                                        of(new TestEdge(A, B, S1),
+                                                           new TestEdge(B, C, S1),
+                                                           new TestEdge(C, D, S1),
+                                                           new TestEdge(A, E, S2),
+                                                           new TestEdge(E, C, S2),
+                                                           new TestEdge(B, F, S2),
+                                                           new TestEdge(F, D, S2)));
+        DisjointPathPair<TestVertex, TestEdge> pair =
+                suurballe.search(cg, A, D, cg.weights(SCALAR_WEIGHER));
+        assertTrue("backup expected", pair.hasBackup());
+        assertEquals("incorrect primary", of(A, B, F), sources(pair.primary()));
+        assertEquals("incorrect secondary", of(A, E, C), sources(pair.secondary()));
+    }
+
+    @Test
+    public void suurballeWithoutBackup() {
+        CompactGraph<TestVertex, TestEdge> cg = compact(of(A, B, C),
+                                                        of(new TestEdge(A, B, S1),
+                                                           new TestEdge(B, C, S1)));
+        double[] weights = cg.weights(SCALAR_WEIGHER);
+        DisjointPathPair<TestVertex, TestEdge> pair = suurballe.search(cg, A, C, weights);
+        assertTrue("backup not expected", !pair.hasBackup());
+        assertEquals("incorrect primary length", 2, pair.primary().edges().size());
+        assertNull("path not expected", suurballe.search(cg, C, A, weights));
+    }
+
+    @Test
+    public void randomGraphsMatchReference() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            Set<TestVertex> vertexes = new HashSet<>();
+            TestVertex[] vs = new TestVertex[30];
+            for (int i = 0; i < vs.length; i++) {
+                vs[i] = new TestVertex("V" + i);
+                vertexes.add(vs[i]);
+            }
+            Set<TestEdge> edges = new HashSet<>();
+            for (int i = 0; i < 90; i++) {
+                edges.add(new TestEdge(vs[random.nextInt(vs.length)], vs[random.nextInt(vs.length)],
+                                       new ScalarWeight(1 + random.nextInt(3))));
+            }
+            CompactGraph<TestVertex, TestEdge> cg = compact(ImmutableSet.copyOf(vertexes), edges);
+            double[] weights = cg.weights(SCALAR_WEIGHER);
+            for (int i = 1; i < vs.length; i++) {
+                assertSamePaths(cg, weights, vs[0], vs[i], ALL_PATHS);
+                checkDisjoint(suurballe.search(cg, vs[0], vs[i], weights));
+            }
+            assertEquals("incorrect cluster count",
+                         new TarjanGraphSearch<TestVertex, TestEdge>().search(graph, SCALAR_WEIGHER)
+                                 .clusterCount(),
+                         tarjan.search(cg, weights).clusterCount());
+        }
+    }
+
+    private void checkDisjoint(DisjointPathPair<TestVertex, TestEdge> pair) {
+        if (pair == null || !pair.hasBackup()) {
+            return;
+        }
+        Set<TestVertex> intermediate = sources(pair.primary());
+        intermediate.remove(pair.src());
+        for (TestVertex vertex : sources(pair.secondary())) {
+            assertTrue("paths not disjoint", vertex.equals(pair.src()) || !intermediate.contains(vertex));
+        }
+        assertEquals("incorrect end", pair.dst(), pair.secondary().dst());
+    }
+
+    private static Set<TestVertex> sources(Path<TestVertex, TestEdge> path) {
+        Set<TestVertex> vertexes = new HashSet<>();
+        path.edges().forEach(edge -> vertexes.add(edge.src()));
+        return vertexes;
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.google.common.collect.ImmutableSet.of;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests of the compact graph representation.
+ */
+public class CompactGraphTest extends GraphTest {
+
+    /**
+     * Edge weigher producing scalar weights, as required by compact searches.
+     */
+    static final EdgeWeigher<TestVertex, TestEdge> SCALAR_WEIGHER =
+            new DefaultEdgeWeigher<TestVertex, TestEdge>() {
+                @Override
+                public Weight weight(TestEdge edge) {
+                    return edge.weight();
+                }
+            };
+
+    static final ScalarWeight S1 = new ScalarWeight(1);
+    static final ScalarWeight S2 = new ScalarWeight(2);
+    static final ScalarWeight S3 = new ScalarWeight(3);
+    static final ScalarWeight S4 = new ScalarWeight(4);
+    static final ScalarWeight S5 = new ScalarWeight(5);
+
+    /**
+     * Returns the edges of {@link GraphTest#edges()} with scalar weights.
+     *
+     * @return 12 edges
+     */
+    static Set<TestEdge> scalarEdges() {
+        return of(new TestEdge(A, B, S1),
+                  new TestEdge(A, C, S3),
+                  new TestEdge(B, D, S2),
+                  new TestEdge(B, C, S1),
+                  new TestEdge(B, E, S4),
+                  new TestEdge(C, E, S1),
+                  new TestEdge(D, H, S5),
+                  new TestEdge(D, E, S1),
+                  new TestEdge(E, F, S1),
+                  new TestEdge(F, D, S1),
+                  new TestEdge(F, G, S1),
+                  new TestEdge(F, H, S1));
+    }
+
+    @Test
+    public void structure() {
+        graph = new AdjacencyListsGraph<>(vertexes(), edges());
+        CompactGraph<TestVertex, TestEdge> cg = CompactGraph.of(graph);
+        assertEquals("incorrect vertex count", 8, cg.vertexCount());
+        assertEquals("incorrect edge count", 12, cg.edgeCount());
+        assertEquals("incorrect missing index", -1, cg.indexOf(Z));
+
+        for (TestVertex vertex : vertexes()) {
+            int v = cg.indexOf(vertex);
+            assertEquals("incorrect vertex", vertex, cg.vertex(v));
+
+            Set<TestEdge> egress = new HashSet<>();
+            for (int e = cg.edgesFrom(v); e < cg.edgesFromEnd(v); e++) {
+                assertEquals("incorrect source", v, cg.src(e));
+                assertEquals("incorrect destination", cg.indexOf(cg.edge(e).dst()), cg.dst(e));
+                egress.add(cg.edge(e));
+            }
+            assertEquals("incorrect egress edges", graph.getEdgesFrom(vertex), egress);
+
+            Set<TestEdge> ingress = new HashSet<>();
+            for (int p = cg.edgesTo(v); p < cg.edgesToEnd(v); p++) {
+                ingress.add(cg.edge(cg.edgeTo(p)));
+            }
+            assertEquals("incorrect ingress edges", graph.getEdgesTo(vertex), ingress);
+        }
+    }
+
+    @Test
+    public void scalarWeights() {
+        graph = new AdjacencyListsGraph<>(of(A, B, C),
+                                          of(new TestEdge(A, B, S2),
+                                             new TestEdge(B, C, ScalarWeight.NON_VIABLE_WEIGHT)));
+        CompactGraph<TestVertex, TestEdge> cg = CompactGraph.of(graph);
+        double[] weights = cg.weights(SCALAR_WEIGHER);
+        double[] expected = new double[2];
+        for (int e = 0; e < 2; e++) {
+            expected[e] = cg.edge(e).dst().equals(B) ? 2 : Double.POSITIVE_INFINITY;
+        }
+        assertArrayEquals("incorrect weights", expected, weights, 0);
+    }
+
+    @Test
+    public void nonScalarWeights() {
+        graph = new AdjacencyListsGraph<>(vertexes(), edges());
+        assertNull("weights not expected", CompactGraph.of(graph).weights(weigher));
+    }
+
+}
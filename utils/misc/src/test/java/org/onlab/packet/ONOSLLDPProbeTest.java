@@ -0,0 +1,180 @@
+/*
+ * Copyright 2019-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.packet;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the ONOSLLDPProbe and ONOSLLDPTemplate classes.
+ */
+public class ONOSLLDPProbeTest {
+
+    private static final String DEVICE_ID = "of:c0a80a6e00000001";
+    private static final ChassisId CHASSIS_ID = new ChassisId(67890);
+    private static final int PORT_NUMBER = 98761234;
+    private static final String PORT_DESC = "Ethernet1";
+    private static final String TEST_SECRET = "test";
+    private static final long MAX_DELAY = 60000;
+
+    private static Ethernet probe(short etherType, ONOSLLDP lldp) {
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(etherType);
+        eth.setDestinationMACAddress(MacAddress.ONOS_LLDP);
+        eth.setSourceMACAddress(MacAddress.valueOf("a4:23:05:00:00:01"));
+        eth.setPad(true);
+        eth.setPayload(lldp);
+        return eth;
+    }
+
+    /**
+     * Tests parsing a secure probe against the full packet parser.
+     */
+    @Test
+    public void testParseSecureProbe() {
+        ONOSLLDP lldp = ONOSLLDP.onosSecureLLDP(DEVICE_ID, CHASSIS_ID, PORT_NUMBER, PORT_DESC, TEST_SECRET);
+        byte[] frame = probe(Ethernet.TYPE_LLDP, lldp).serialize();
+
+        ONOSLLDPProbe probe = ONOSLLDPProbe.parse(frame);
+        assertNotNull(probe);
+        assertEquals(Ethernet.TYPE_LLDP, probe.etherType());
+        assertEquals(DEVICE_ID, probe.deviceString());
+        assertEquals(PORT_NUMBER, probe.port());
+        assertEquals(lldp.getTimestamp(), probe.timestamp());
+        assertArrayEquals(lldp.getSig(), probe.sig());
+        assertTrue(probe.verify(TEST_SECRET, MAX_DELAY));
+        assertFalse(probe.verify("other", MAX_DELAY));
+    }
+
+    /**
+     * Tests that parsing leaves the buffer position untouched.
+     */
+    @Test
+    public void testParseBuffer() {
+        ONOSLLDP lldp = ONOSLLDP.onosLLDP(DEVICE_ID, CHASSIS_ID, PORT_NUMBER);
+        byte[] frame = probe(Ethernet.TYPE_BSN, lldp).serialize();
+        byte[] shifted = new byte[frame.length + 3];
+        System.arraycopy(frame, 0, shifted, 3, frame.length);
+        ByteBuffer buffer = ByteBuffer.wrap(shifted);
+        buffer.position(3);
+
+        ONOSLLDPProbe probe = ONOSLLDPProbe.parse(buffer);
+        assertNotNull(probe);
+        assertEquals(3, buffer.position());
+        assertEquals(Ethernet.TYPE_BSN, probe.etherType());
+        assertEquals(DEVICE_ID, probe.deviceString());
+        assertEquals(PORT_NUMBER, probe.port());
+        assertFalse(probe.verify(TEST_SECRET, MAX_DELAY));
+    }
+
+    /**
+     * Tests parsing a probe behind a VLAN tag.
+     */
+    @Test
+    public void testParseVlanTagged() {
+        ONOSLLDP lldp = ONOSLLDP.onosLLDP(DEVICE_ID, CHASSIS_ID, PORT_NUMBER);
+        Ethernet eth = probe(Ethernet.TYPE_LLDP, lldp);
+        eth.setVlanID((short) 10);
+
+        ONOSLLDPProbe probe = ONOSLLDPProbe.parse(eth.serialize());
+        assertNotNull(probe);
+        assertEquals(DEVICE_ID, probe.deviceString());
+        assertEquals(PORT_NUMBER, probe.port());
+    }
+
+    /**
+     * Tests that frames which are not ONOS probes are rejected.
+     */
+    @Test
+    public void testParseOther() {
+        LLDP lldp = new LLDP();
+        lldp.setChassisId(new LLDPTLV().setType(LLDP.CHASSIS_TLV_TYPE).setLength((short) 7)
+                                  .setValue(new byte[]{4, 0, 0, 0, 0, 0, 1}));
+        lldp.setPortId(new LLDPTLV().setType(LLDP.PORT_TLV_TYPE).setLength((short) 2)
+                               .setValue(new byte[]{7, '1'}));
+        lldp.setTtl(new LLDPTLV().setType(LLDP.TTL_TLV_TYPE).setLength((short) 2)
+                            .setValue(new byte[]{0, 120}));
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(Ethernet.TYPE_LLDP);
+        eth.setDestinationMACAddress(MacAddress.ONOS_LLDP);
+        eth.setSourceMACAddress(MacAddress.valueOf("a4:23:05:00:00:01"));
+        eth.setPayload(lldp);
+        assertNull(ONOSLLDPProbe.parse(eth.serialize()));
+
+        byte[] arp = new byte[64];
+        arp[12] = (byte) (Ethernet.TYPE_ARP >> 8);
+        arp[13] = (byte) Ethernet.TYPE_ARP;
+        assertNull(ONOSLLDPProbe.parse(arp));
+        assertNull(ONOSLLDPProbe.parse(new byte[10]));
+    }
+
+    /**
+     * Tests that each probe emitted by a template is freshly signed.
+     */
+    @Test
+    public void testSecureTemplate() throws Exception {
+        ONOSLLDP lldp = ONOSLLDP.onosSecureLLDP(DEVICE_ID, CHASSIS_ID, PORT_NUMBER, PORT_DESC, TEST_SECRET);
+        ONOSLLDPTemplate template = new ONOSLLDPTemplate(probe(Ethernet.TYPE_LLDP, lldp), TEST_SECRET);
+
+        Thread.sleep(5);
+        byte[] first = template.probe();
+        ONOSLLDPProbe probe = ONOSLLDPProbe.parse(first);
+        assertNotNull(probe);
+        assertTrue(probe.timestamp() > lldp.getTimestamp());
+        assertTrue(probe.verify(TEST_SECRET, MAX_DELAY));
+
+        ONOSLLDP parsed = ONOSLLDP.parseONOSLLDP(Ethernet.deserializer().deserialize(first, 0, first.length));
+        assertNotNull(parsed);
+        assertEquals(DEVICE_ID, parsed.getDeviceString());
+        assertEquals(Integer.valueOf(PORT_NUMBER), parsed.getPort());
+        assertTrue(ONOSLLDP.verify(parsed, TEST_SECRET, MAX_DELAY));
+
+        byte[] second = template.probe();
+        assertFalse(first == second);
+        assertEquals(first.length, second.length);
+    }
+
+    /**
+     * Tests that a template without a secret emits the frame unchanged.
+     */
+    @Test
+    public void testTemplate() {
+        Ethernet eth = probe(Ethernet.TYPE_BSN, ONOSLLDP.onosLLDP(DEVICE_ID, CHASSIS_ID, PORT_NUMBER));
+        ONOSLLDPTemplate template = new ONOSLLDPTemplate(eth, null);
+        assertArrayEquals(eth.serialize(), template.probe());
+    }
+
+    /**
+     * Tests that a template cannot be built from a frame that is not a probe.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testTemplateOther() {
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(Ethernet.TYPE_ARP);
+        eth.setDestinationMACAddress(MacAddress.BROADCAST);
+        eth.setSourceMACAddress(MacAddress.valueOf("a4:23:05:00:00:01"));
+        eth.setPayload(new Data(new byte[28]));
+        new ONOSLLDPTemplate(eth, null);
+    }
+}
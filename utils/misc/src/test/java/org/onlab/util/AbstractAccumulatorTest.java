@@ -87,6 +87,19 @@ public class AbstractAccumulatorTest {
         assertEquals("incorrect batch", "ab", accumulator.batch);
     }
 
+    @Test
+    public void flush() {
+        TestAccumulator accumulator = new TestAccumulator();
+        accumulator.add(new TestItem("a"));
+        accumulator.add(new TestItem("b"));
+        accumulator.flush();
+        assertEquals("incorrect batch", "ab", accumulator.batch);
+        assertEquals("incorrect batch count", 1, accumulator.batchCount);
+        accumulator.flush();
+        timer.advanceTimeMillis(100, SHORT_REAL_TIME_DELAY);
+        assertEquals("flushed batch processed again", 1, accumulator.batchCount);
+    }
+
     @Test
     public void readyIdleTrigger() {
         TestAccumulator accumulator = new TestAccumulator();
@@ -19,6 +19,8 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.ListMultimap;
 import org.onlab.util.ItemNotFoundException;
 import org.onosproject.app.ApplicationService;
@@ -43,6 +45,7 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 import java.io.IOException;
@@ -75,84 +78,63 @@ public class FlowsWebResource extends AbstractWebResource {
 
     /**
      * Gets all flow entries. Returns array of all flow rules in the system.
+     * Flows are streamed as they are read from the store and may be paged
+     * using the cursor and limit query parameters.
      *
+     * @param cursor cursor returned with the previous page, if any
+     * @param limit maximum number of flows to return, if any
+     * @param fields comma-separated flow fields to return, if any
      * @return 200 OK with a collection of flows
      * @onos.rsModel FlowEntries
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getFlows() {
-        ObjectNode root = mapper().createObjectNode();
-        ArrayNode flowsNode = root.putArray(FLOWS);
-        FlowRuleService service = get(FlowRuleService.class);
-        Iterable<Device> devices = get(DeviceService.class).getDevices();
-        for (Device device : devices) {
-            Iterable<FlowEntry> flowEntries = service.getFlowEntries(device.id());
-            if (flowEntries != null) {
-                for (FlowEntry entry : flowEntries) {
-                    flowsNode.add(codec(FlowEntry.class).encode(entry, this));
-                }
-            }
-        }
-
-        return ok(root).build();
+    public Response getFlows(@QueryParam(CURSOR) String cursor,
+                             @QueryParam(LIMIT) Integer limit,
+                             @QueryParam(FIELDS) String fields) {
+        return ok(streamFlows(allFlowEntries(), cursor, limit, fields)).build();
     }
 
      /**
      * Gets all pending flow entries. Returns array of all pending flow rules in the system.
      *
+     * @param cursor cursor returned with the previous page, if any
+     * @param limit maximum number of flows to return, if any
+     * @param fields comma-separated flow fields to return, if any
      * @return 200 OK with a collection of flows
      * @onos.rsModel FlowEntries
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     @Path("pending")
-    public Response getPendingFlows() {
-        ObjectNode root = mapper().createObjectNode();
-        ArrayNode flowsNode = root.putArray(FLOWS);
-        FlowRuleService service = get(FlowRuleService.class);
-        Iterable<Device> devices = get(DeviceService.class).getDevices();
-        for (Device device : devices) {
-            Iterable<FlowEntry> flowEntries = service.getFlowEntries(device.id());
-            if (flowEntries != null) {
-                for (FlowEntry entry : flowEntries) {
-                    if ((entry.state() == FlowEntry.FlowEntryState.PENDING_ADD) ||
-                       (entry.state() == FlowEntry.FlowEntryState.PENDING_REMOVE)) {
-                       flowsNode.add(codec(FlowEntry.class).encode(entry, this));
-                    }
-                }
-            }
-        }
-
-        return ok(root).build();
+    public Response getPendingFlows(@QueryParam(CURSOR) String cursor,
+                                    @QueryParam(LIMIT) Integer limit,
+                                    @QueryParam(FIELDS) String fields) {
+        Iterable<FlowEntry> flowEntries = Iterables.filter(allFlowEntries(),
+                entry -> entry.state() == FlowEntry.FlowEntryState.PENDING_ADD ||
+                        entry.state() == FlowEntry.FlowEntryState.PENDING_REMOVE);
+        return ok(streamFlows(flowEntries, cursor, limit, fields)).build();
     }
 
      /**
      * Gets all flow entries for a table. Returns array of all flow rules for a table.
      * @param tableId table identifier
+     * @param cursor cursor returned with the previous page, if any
+     * @param limit maximum number of flows to return, if any
+     * @param fields comma-separated flow fields to return, if any
      * @return 200 OK with a collection of flows
      * @onos.rsModel FlowEntries
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     @Path("table/{tableId}")
-    public Response getTableFlows(@PathParam("tableId") int tableId) {
-        ObjectNode root = mapper().createObjectNode();
-        ArrayNode flowsNode = root.putArray(FLOWS);
-        FlowRuleService service = get(FlowRuleService.class);
-        Iterable<Device> devices = get(DeviceService.class).getDevices();
-        for (Device device : devices) {
-            Iterable<FlowEntry> flowEntries = service.getFlowEntries(device.id());
-            if (flowEntries != null) {
-                for (FlowEntry entry : flowEntries) {
-                    if (((IndexTableId) entry.table()).id() == tableId) {
-                       flowsNode.add(codec(FlowEntry.class).encode(entry, this));
-                    }
-                }
-            }
-        }
-
-        return ok(root).build();
+    public Response getTableFlows(@PathParam("tableId") int tableId,
+                                  @QueryParam(CURSOR) String cursor,
+                                  @QueryParam(LIMIT) Integer limit,
+                                  @QueryParam(FIELDS) String fields) {
+        Iterable<FlowEntry> flowEntries = Iterables.filter(allFlowEntries(),
+                entry -> ((IndexTableId) entry.table()).id() == tableId);
+        return ok(streamFlows(flowEntries, cursor, limit, fields)).build();
     }
 
     /**
@@ -202,6 +184,9 @@ public class FlowsWebResource extends AbstractWebResource {
      * specified device.
      *
      * @param deviceId device identifier
+     * @param cursor cursor returned with the previous page, if any
+     * @param limit maximum number of flows to return, if any
+     * @param fields comma-separated flow fields to return, if any
      * @return 200 OK with a collection of flows of given device
      * @onos.rsModel FlowEntries
      */
@@ -209,20 +194,18 @@ public class FlowsWebResource extends AbstractWebResource {
     @Produces(MediaType.APPLICATION_JSON)
     // TODO: we need to add "/device" suffix to the path to differentiate with appId
     @Path("{deviceId}")
-    public Response getFlowByDeviceId(@PathParam("deviceId") String deviceId) {
+    public Response getFlowByDeviceId(@PathParam("deviceId") String deviceId,
+                                      @QueryParam(CURSOR) String cursor,
+                                      @QueryParam(LIMIT) Integer limit,
+                                      @QueryParam(FIELDS) String fields) {
         FlowRuleService service = get(FlowRuleService.class);
-        ObjectNode root = mapper().createObjectNode();
-        ArrayNode flowsNode = root.putArray(FLOWS);
         Iterable<FlowEntry> flowEntries =
                 service.getFlowEntries(DeviceId.deviceId(deviceId));
 
         if (flowEntries == null || !flowEntries.iterator().hasNext()) {
             throw new ItemNotFoundException(DEVICE_NOT_FOUND);
         }
-        for (FlowEntry entry : flowEntries) {
-            flowsNode.add(codec(FlowEntry.class).encode(entry, this));
-        }
-        return ok(root).build();
+        return ok(streamFlows(flowEntries, cursor, limit, fields)).build();
     }
 
     /**
@@ -261,21 +244,24 @@ public class FlowsWebResource extends AbstractWebResource {
      * Returns the flow rule specified by the application id.
      *
      * @param appId application identifier
+     * @param cursor cursor returned with the previous page, if any
+     * @param limit maximum number of flows to return, if any
+     * @param fields comma-separated flow fields to return, if any
      * @return 200 OK with a collection of flows of given application id
      * @onos.rsModel FlowRules
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     @Path("application/{appId}")
-    public Response getFlowByAppId(@PathParam("appId") String appId) {
-        ObjectNode root = mapper().createObjectNode();
-        ArrayNode flowsNode = root.putArray(FLOWS);
+    public Response getFlowByAppId(@PathParam("appId") String appId,
+                                   @QueryParam(CURSOR) String cursor,
+                                   @QueryParam(LIMIT) Integer limit,
+                                   @QueryParam(FIELDS) String fields) {
         ApplicationService appService = get(ApplicationService.class);
         ApplicationId idInstant = nullIsNotFound(appService.getId(appId), APP_ID_NOT_FOUND);
         Iterable<FlowEntry> flowEntries = get(FlowRuleService.class).getFlowEntriesById(idInstant);
 
-        flowEntries.forEach(flow -> flowsNode.add(codec(FlowEntry.class).encode(flow, this)));
-        return ok(root).build();
+        return ok(streamFlows(flowEntries, cursor, limit, fields)).build();
     }
 
 
@@ -416,4 +402,25 @@ public class FlowsWebResource extends AbstractWebResource {
         service.removeFlowRules(rulesToRemove.toArray(new FlowEntry[0]));
         return Response.noContent().build();
     }
+
+    /**
+     * Returns the flow entries of all devices, read lazily device by device.
+     *
+     * @return flow entries of all devices
+     */
+    private Iterable<FlowEntry> allFlowEntries() {
+        FlowRuleService service = get(FlowRuleService.class);
+        Iterable<Device> devices = get(DeviceService.class).getDevices();
+        return Iterables.concat(Iterables.transform(devices, device -> {
+            Iterable<FlowEntry> flowEntries = service.getFlowEntries(device.id());
+            return flowEntries != null ? flowEntries : ImmutableList.of();
+        }));
+    }
+
+    private StreamingOutput streamFlows(Iterable<FlowEntry> flowEntries, String cursor,
+                                        Integer limit, String fields) {
+        return encodeArrayStream(FlowEntry.class, FLOWS, flowEntries,
+                                 entry -> entry.deviceId() + "/" + entry.id(),
+                                 cursor, limit, fields);
+    }
 }
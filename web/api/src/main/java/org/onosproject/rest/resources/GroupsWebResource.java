@@ -19,6 +19,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import org.onlab.util.HexString;
 import org.onosproject.codec.JsonCodec;
 import org.onosproject.net.Device;
@@ -41,6 +42,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -67,8 +69,9 @@ public class GroupsWebResource extends AbstractWebResource {
 
     private static final String DEVICE_INVALID = "Invalid deviceId in group creation request";
     private static final String GROUP_NOT_FOUND = "Group was not found";
+    private static final String GROUPS = "groups";
     private final ObjectNode root = mapper().createObjectNode();
-    private final ArrayNode groupsNode = root.putArray("groups");
+    private final ArrayNode groupsNode = root.putArray(GROUPS);
 
     private GroupKey createKey(String appCookieString) {
         if (!appCookieString.startsWith("0x")) {
@@ -78,44 +81,57 @@ public class GroupsWebResource extends AbstractWebResource {
                 appCookieString.split("0x")[1], ""));
     }
 
+    private static String groupKey(Group group) {
+        return group.deviceId() + "/" + group.id();
+    }
+
     /**
      * Returns all groups of all devices.
      *
+     * @param cursor cursor returned with the previous page, if any
+     * @param limit maximum number of groups to return, if any
+     * @param fields comma-separated group fields to return, if any
      * @return 200 OK with array of all the groups in the system
      * @onos.rsModel Groups
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getGroups() {
+    public Response getGroups(@QueryParam(CURSOR) String cursor,
+                              @QueryParam(LIMIT) Integer limit,
+                              @QueryParam(FIELDS) String fields) {
         GroupService groupService = get(GroupService.class);
         final Iterable<Device> devices = get(DeviceService.class).getDevices();
-        devices.forEach(device -> {
-            final Iterable<Group> groups = groupService.getGroups(device.id());
-            if (groups != null) {
-                groups.forEach(group -> groupsNode.add(codec(Group.class).encode(group, this)));
-            }
-        });
+        final Iterable<Group> groups = Iterables.concat(Iterables.transform(devices, device -> {
+            final Iterable<Group> deviceGroups = groupService.getGroups(device.id());
+            return deviceGroups != null ? deviceGroups : ImmutableList.of();
+        }));
 
-        return ok(root).build();
+        return ok(encodeArrayStream(Group.class, GROUPS, groups, GroupsWebResource::groupKey,
+                                    cursor, limit, fields)).build();
     }
 
     /**
      * Returns all groups associated with the given device.
      *
      * @param deviceId device identifier
+     * @param cursor cursor returned with the previous page, if any
+     * @param limit maximum number of groups to return, if any
+     * @param fields comma-separated group fields to return, if any
      * @return 200 OK with array of all the groups in the system
      * @onos.rsModel Groups
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     @Path("{deviceId}")
-    public Response getGroupsByDeviceId(@PathParam("deviceId") String deviceId) {
+    public Response getGroupsByDeviceId(@PathParam("deviceId") String deviceId,
+                                        @QueryParam(CURSOR) String cursor,
+                                        @QueryParam(LIMIT) Integer limit,
+                                        @QueryParam(FIELDS) String fields) {
         GroupService groupService = get(GroupService.class);
         final Iterable<Group> groups = groupService.getGroups(DeviceId.deviceId(deviceId));
 
-        groups.forEach(group -> groupsNode.add(codec(Group.class).encode(group, this)));
-
-        return ok(root).build();
+        return ok(encodeArrayStream(Group.class, GROUPS, groups, GroupsWebResource::groupKey,
+                                    cursor, limit, fields)).build();
     }
 
     /**
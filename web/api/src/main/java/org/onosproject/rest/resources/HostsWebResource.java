@@ -43,6 +43,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -75,15 +76,20 @@ public class HostsWebResource extends AbstractWebResource {
      * Get all end-station hosts.
      * Returns array of all known end-station hosts.
      *
+     * @param cursor cursor returned with the previous page, if any
+     * @param limit maximum number of hosts to return, if any
+     * @param fields comma-separated host fields to return, if any
      * @return 200 OK with array of all known end-station hosts.
      * @onos.rsModel Hosts
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getHosts() {
+    public Response getHosts(@QueryParam(CURSOR) String cursor,
+                             @QueryParam(LIMIT) Integer limit,
+                             @QueryParam(FIELDS) String fields) {
         final Iterable<Host> hosts = get(HostService.class).getHosts();
-        final ObjectNode root = encodeArray(Host.class, "hosts", hosts);
-        return ok(root).build();
+        return ok(encodeArrayStream(Host.class, "hosts", hosts, host -> host.id().toString(),
+                                    cursor, limit, fields)).build();
     }
 
     /**
@@ -43,6 +43,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -93,15 +94,20 @@ public class IntentsWebResource extends AbstractWebResource {
      * Gets all intents.
      * Returns array containing all the intents in the system.
      *
+     * @param cursor cursor returned with the previous page, if any
+     * @param limit maximum number of intents to return, if any
+     * @param fields comma-separated intent fields to return, if any
      * @return 200 OK with array of all the intents in the system
      * @onos.rsModel Intents
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getIntents() {
+    public Response getIntents(@QueryParam(CURSOR) String cursor,
+                               @QueryParam(LIMIT) Integer limit,
+                               @QueryParam(FIELDS) String fields) {
         final Iterable<Intent> intents = get(IntentService.class).getIntents();
-        final ObjectNode root = encodeArray(Intent.class, "intents", intents);
-        return ok(root).build();
+        return ok(encodeArrayStream(Intent.class, "intents", intents,
+                                    intent -> intent.id().toString(), cursor, limit, fields)).build();
     }
 
 
@@ -66,6 +66,7 @@ import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.onlab.packet.MacAddress.valueOf;
@@ -311,6 +312,92 @@ public class HostResourceTest extends ResourceTest {
         assertThat(hosts, hasHost(host2));
     }
 
+    /**
+     * Tests paging and field projection of the rest api GET of hosts.
+     */
+    @Test
+    public void testHostsPaged() {
+        replay(mockHostService);
+        final ProviderId pid = new ProviderId("of", "foo");
+        for (int i = 1; i <= 3; i++) {
+            final MacAddress mac = MacAddress.valueOf("00:00:11:00:00:0" + i);
+            hosts.add(new DefaultHost(pid, HostId.hostId(mac), mac, vlanId((short) i),
+                                      new HostLocation(DeviceId.deviceId("1"), portNumber(i), 1),
+                                      ImmutableSet.of()));
+        }
+        WebTarget wt = target();
+
+        String response = wt.path("hosts").queryParam("limit", 2)
+                .queryParam("fields", "id,mac").request().get(String.class);
+        JsonObject result = Json.parse(response).asObject();
+        JsonArray page = result.get("hosts").asArray();
+        assertThat(page.size(), is(2));
+        assertThat(page.get(0).asObject().names(), hasSize(2));
+        assertThat(page.get(0).asObject().get("mac"), notNullValue());
+        final String cursor = result.get("nextCursor").asString();
+
+        response = wt.path("hosts").queryParam("limit", 2)
+                .queryParam("cursor", cursor).request().get(String.class);
+        result = Json.parse(response).asObject();
+        assertThat(result.names(), hasSize(1));
+        page = result.get("hosts").asArray();
+        assertThat(page.size(), is(1));
+        assertThat(page.get(0).asObject().names(), hasSize(8));
+    }
+
+    /**
+     * Tests that paging through hosts resumes after the last host returned,
+     * even if hosts are added before that host in between pages.
+     */
+    @Test
+    public void testHostsPagedResume() {
+        replay(mockHostService);
+        final ProviderId pid = new ProviderId("of", "foo");
+        for (int i = 2; i <= 6; i += 2) {
+            hosts.add(pagedHost(pid, i));
+        }
+        WebTarget wt = target();
+
+        String response = wt.path("hosts").queryParam("limit", 2)
+                .queryParam("fields", "id").request().get(String.class);
+        JsonObject result = Json.parse(response).asObject();
+        JsonArray page = result.get("hosts").asArray();
+        assertThat(page.size(), is(2));
+        assertThat(page.get(0).asObject().get("id").asString(), is(pagedHost(pid, 2).id().toString()));
+        assertThat(page.get(1).asObject().get("id").asString(), is(pagedHost(pid, 4).id().toString()));
+        final String cursor = result.get("nextCursor").asString();
+
+        hosts.add(pagedHost(pid, 1));
+        hosts.add(pagedHost(pid, 5));
+
+        response = wt.path("hosts").queryParam("limit", 2)
+                .queryParam("fields", "id").queryParam("cursor", cursor).request().get(String.class);
+        result = Json.parse(response).asObject();
+        page = result.get("hosts").asArray();
+        assertThat(page.size(), is(2));
+        assertThat(page.get(0).asObject().get("id").asString(), is(pagedHost(pid, 5).id().toString()));
+        assertThat(page.get(1).asObject().get("id").asString(), is(pagedHost(pid, 6).id().toString()));
+        assertThat(result.get("nextCursor"), nullValue());
+    }
+
+    private static Host pagedHost(ProviderId pid, int i) {
+        final MacAddress mac = MacAddress.valueOf("00:00:11:00:00:0" + i);
+        return new DefaultHost(pid, HostId.hostId(mac), mac, vlanId((short) i),
+                               new HostLocation(DeviceId.deviceId("1"), portNumber(i), 1),
+                               ImmutableSet.of());
+    }
+
+    /**
+     * Tests that a malformed paging request is rejected.
+     */
+    @Test
+    public void testHostsBadLimit() {
+        replay(mockHostService);
+        WebTarget wt = target();
+        Response response = wt.path("hosts").queryParam("limit", 0).request().get();
+        assertThat(response.getStatus(), is(HttpURLConnection.HTTP_BAD_REQUEST));
+    }
+
     /**
      * Tests fetch of one host by Id.
      */